@@ -0,0 +1,70 @@
+package cn.hehouhui.ip2region;
+
+/**
+ * 两个本地数据库查询结果的合并规则，组合数据源与合并索引共用同一套规则，保证两种方式的结果一致
+ * <pre>
+ * 1. 主结果中缺失的字段由次要结果补充，主结果已有的字段不会被覆盖
+ * 2. 国家、地区、省份、城市只在主结果没有国家时整体补充，避免混用两个库的行政区划
+ * 3. 经纬度成对补充，主结果缺少任意一个时整体使用次要结果的经纬度
+ * 4. 空字符串和ip2region表示未知的"0"视为缺失
+ * </pre>
+ *
+ * @author HeHui
+ * @date 2025-12-04
+ */
+public final class IpInfoMerger {
+
+    private IpInfoMerger() {
+    }
+
+    /**
+     * 用次要结果补充主结果中缺失的字段
+     *
+     * @param primary   主结果，会被修改
+     * @param secondary 次要结果，可为null
+     *
+     * @return 主结果
+     */
+    public static IpInfo merge(IpInfo primary, IpInfo secondary) {
+        if (secondary == null) {
+            return primary;
+        }
+        if (isBlank(primary.getCountry()) && !isBlank(secondary.getCountry())) {
+            primary.setCountry(secondary.getCountry());
+            primary.setRegion(secondary.getRegion());
+            primary.setProvince(secondary.getProvince());
+            primary.setCity(secondary.getCity());
+        }
+        primary.setIsp(pick(primary.getIsp(), secondary.getIsp()));
+        primary.setAsn(pick(primary.getAsn(), secondary.getAsn()));
+        primary.setAsnOwner(pick(primary.getAsnOwner(), secondary.getAsnOwner()));
+        if (primary.getLatitude() == null || primary.getLongitude() == null) {
+            primary.setLatitude(secondary.getLatitude());
+            primary.setLongitude(secondary.getLongitude());
+        }
+        primary.setTimezone(pick(primary.getTimezone(), secondary.getTimezone()));
+        primary.setUsageType(pick(primary.getUsageType(), secondary.getUsageType()));
+        if (primary.getProxy() == null) {
+            primary.setProxy(secondary.getProxy());
+        }
+        if (primary.getNativeIp() == null) {
+            primary.setNativeIp(secondary.getNativeIp());
+        }
+        return primary;
+    }
+
+    /**
+     * 判断字段是否缺失，ip2region以0表示未知
+     *
+     * @param value 字段值
+     *
+     * @return 是否缺失
+     */
+    public static boolean isBlank(String value) {
+        return value == null || value.isEmpty() || "0".equals(value);
+    }
+
+    private static String pick(String primary, String secondary) {
+        return isBlank(primary) && !isBlank(secondary) ? secondary : primary;
+    }
+}
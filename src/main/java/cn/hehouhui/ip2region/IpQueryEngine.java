@@ -1,7 +1,9 @@
 package cn.hehouhui.ip2region;
 
 import cn.hehouhui.ip2region.core.AbstractNetworkIpSource;
+import cn.hehouhui.ip2region.core.BatchIpSource;
 import cn.hehouhui.ip2region.core.IpSource;
+import cn.hehouhui.ip2region.core.QueryDeadline;
 import cn.hehouhui.ip2region.fallback.FallbackStrategy;
 import cn.hehouhui.ip2region.fallback.LocalFirstFallbackStrategy;
 import cn.hehouhui.ip2region.loadbalancer.LoadBalancer;
@@ -13,6 +15,8 @@ import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 /**
@@ -77,8 +81,9 @@ public class IpQueryEngine {
      * 1. 首先尝试从缓存中获取结果，如果存在则直接返回
      * 2. 获取所有可用的数据源
      * 3. 使用负载均衡器选择最优的数据源
-     * 4. 执行查询，如果成功则缓存结果并返回
-     * 5. 如果查询失败，则根据降级策略尝试其他数据源
+     * 4. 以非阻塞方式执行查询，数据源限流已饱和时跳过并选择下一个数据源
+     * 5. 所有数据源均饱和时，阻塞等待首选数据源
+     * 6. 查询成功则缓存结果并返回，失败则根据降级策略尝试其他数据源
      * </pre>
      *
      * @param ip IP地址
@@ -113,13 +118,23 @@ public class IpQueryEngine {
         if (source == null) {
             throw new Exception("Failed to select IP source");
         }
+        IpSource primarySource = source;
         try {
-            // 执行查询
-            IpInfo info = source.query(ip);
-            // 缓存结果
-            if (source instanceof AbstractNetworkIpSource) {
-                cache.put(ip, info);
+            // 非阻塞路由：限流已饱和的数据源直接跳过，转向下一个可用数据源
+            List<IpSource> candidates = new ArrayList<>(availableSources);
+            while (source != null) {
+                Optional<IpInfo> info = source.tryQuery(ip);
+                if (info.isPresent()) {
+                    cacheResult(source, ip, info.get());
+                    return info.get();
+                }
+                candidates.remove(source);
+                source = candidates.isEmpty() ? null : loadBalancer.select(candidates);
             }
+            // 所有数据源均已饱和，退回到阻塞等待首选数据源
+            source = primarySource;
+            IpInfo info = source.query(ip);
+            cacheResult(source, ip, info);
             return info;
         } catch (Exception e) {
             // 主数据源查询失败，尝试降级
@@ -127,10 +142,7 @@ public class IpQueryEngine {
             if (fallbackSource != null) {
                 try {
                     IpInfo info = fallbackSource.query(ip);
-                    // 缓存结果
-                    if (fallbackSource instanceof AbstractNetworkIpSource) {
-                        cache.put(ip, info);
-                    }
+                    cacheResult(fallbackSource, ip, info);
                     return info;
                 } catch (Exception fallbackException) {
                     // 降级也失败，抛出原始异常
@@ -143,6 +155,147 @@ public class IpQueryEngine {
         }
     }
 
+    /**
+     * 异步查询IP信息
+     * <pre>
+     * 与{@link #query(String)}的流程一致，但网络数据源的请求不会阻塞调用线程：
+     * 1. 命中缓存时直接返回已完成的Future
+     * 2. 使用负载均衡器选择数据源并异步查询，数据源饱和时不会等待限流器
+     * 3. 查询失败时根据降级策略选择降级数据源再次异步查询
+     * </pre>
+     *
+     * @param ip IP地址
+     *
+     * @return IP信息的Future，所有数据源都失败时以原始异常完成
+     */
+    public CompletableFuture<IpInfo> queryAsync(String ip) {
+        if (ip == null || ip.isEmpty()) {
+            return CompletableFuture.completedFuture(new IpInfo());
+        }
+        IpInfo cachedInfo = cache.getIfPresent(ip);
+        if (cachedInfo != null) {
+            return CompletableFuture.completedFuture(cachedInfo);
+        }
+
+        List<IpSource> availableSources = sources.stream()
+            .filter(IpSource::isAvailable)
+            .collect(Collectors.toList());
+        if (availableSources.isEmpty()) {
+            return CompletableFuture.failedFuture(new Exception("No available IP sources"));
+        }
+        IpSource source = loadBalancer.select(availableSources);
+        if (source == null) {
+            return CompletableFuture.failedFuture(new Exception("Failed to select IP source"));
+        }
+
+        return source.queryAsync(ip)
+            .thenApply(info -> {
+                cacheResult(source, ip, info);
+                return info;
+            })
+            .exceptionallyCompose(error -> {
+                IpSource fallbackSource = fallbackStrategy.selectFallback(availableSources, source);
+                if (fallbackSource == null) {
+                    return CompletableFuture.failedFuture(error);
+                }
+                return fallbackSource.queryAsync(ip)
+                    .thenApply(info -> {
+                        cacheResult(fallbackSource, ip, info);
+                        return info;
+                    })
+                    // 降级也失败，返回原始异常
+                    .exceptionallyCompose(fallbackError -> CompletableFuture.failedFuture(error));
+            });
+    }
+
+    /**
+     * 批量查询IP信息
+     * <pre>
+     * 1. 先从缓存中获取结果
+     * 2. 未命中缓存的IP交给负载均衡器从支持批量查询的数据源中选出的数据源，一次请求查询多个IP
+     * 3. 没有可用的批量数据源或批量查询失败时，逐个调用{@link #query(String)}
+     * </pre>
+     *
+     * @param ips IP地址列表
+     *
+     * @return IP信息列表，与参数顺序一一对应
+     *
+     * @throws Exception 查询异常，同{@link #query(String)}
+     */
+    public List<IpInfo> queryBatch(List<String> ips) throws Exception {
+        IpInfo[] results = new IpInfo[ips.size()];
+        List<Integer> missIndexes = new ArrayList<>();
+        for (int i = 0; i < ips.size(); i++) {
+            String ip = ips.get(i);
+            IpInfo cachedInfo = ip == null || ip.isEmpty() ? new IpInfo() : cache.getIfPresent(ip);
+            if (cachedInfo != null) {
+                results[i] = cachedInfo;
+            } else {
+                missIndexes.add(i);
+            }
+        }
+
+        List<IpSource> batchSources = sources.stream()
+            .filter(source -> source instanceof BatchIpSource && source.isAvailable())
+            .collect(Collectors.toList());
+        if (!missIndexes.isEmpty() && !batchSources.isEmpty()) {
+            IpSource source = loadBalancer.select(batchSources);
+            if (source != null) {
+                List<String> misses = missIndexes.stream().map(ips::get).collect(Collectors.toList());
+                try {
+                    List<IpInfo> infos = ((BatchIpSource) source).queryBatch(misses);
+                    for (int i = 0; i < missIndexes.size(); i++) {
+                        results[missIndexes.get(i)] = infos.get(i);
+                        cacheResult(source, misses.get(i), infos.get(i));
+                    }
+                    missIndexes.clear();
+                } catch (Exception e) {
+                    // 批量查询失败，退回到逐个查询
+                }
+            }
+        }
+        for (int index : missIndexes) {
+            results[index] = query(ips.get(index));
+        }
+        return List.of(results);
+    }
+
+    /**
+     * 缓存查询结果，仅缓存网络数据源的结果
+     *
+     * @param source 数据源
+     * @param ip     IP地址
+     * @param info   IP信息
+     */
+    private void cacheResult(IpSource source, String ip, IpInfo info) {
+        if (source instanceof AbstractNetworkIpSource) {
+            cache.put(ip, info);
+        }
+    }
+
+    /**
+     * 在给定的整体超时内查询IP信息
+     * <pre>
+     * 超时时间会作为截止时间传递给数据源，网络数据源的单次请求超时不会超过剩余可用时间，
+     * 因此挂起的请求会尽早失败并转向降级数据源。
+     * </pre>
+     *
+     * @param ip      IP地址
+     * @param timeout 整体超时时间
+     *
+     * @return IP信息
+     *
+     * @throws Exception 查询异常，同{@link #query(String)}
+     */
+    public IpInfo query(String ip, Duration timeout) throws Exception {
+        Long previous = QueryDeadline.set(System.nanoTime() + timeout.toNanos());
+        try {
+            return query(ip);
+        } finally {
+            QueryDeadline.restore(previous);
+        }
+    }
+
     /**
      * 获取缓存统计信息
      *
@@ -1,19 +1,34 @@
 package cn.hehouhui.ip2region;
 
+import cn.hehouhui.ip2region.core.AbstractNetworkIpSource;
+import cn.hehouhui.ip2region.core.DaemonExecutors;
 import cn.hehouhui.ip2region.core.IpSource;
 import cn.hehouhui.ip2region.fallback.LocalFirstFallbackStrategy;
 import cn.hehouhui.ip2region.http.DefaultHttpRequestHandler;
+import cn.hehouhui.ip2region.http.DnsCache;
 import cn.hehouhui.ip2region.http.HttpRequestHandler;
+import cn.hehouhui.ip2region.http.NioHttpRequestHandler;
+import cn.hehouhui.ip2region.index.OverlayIndexBuilder;
 import cn.hehouhui.ip2region.loadbalancer.WeightedLoadBalancer;
 import cn.hehouhui.ip2region.resolver.*;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
 import com.maxmind.db.Reader;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 
 /**
  * IP查询引擎工厂类，提供多种创建IpQueryEngine实例的方法。
@@ -30,17 +45,22 @@ public class IpQueryEngineFactory {
 
     public static final String GEO_IP_DB_FILE = "GeoLite2-City.mmdb";
 
+    public static final String GEO_IP_ASN_DB_FILE = "GeoLite2-ASN.mmdb";
+
     public static final String IP2REGION_DB_V4_FILE = "ip2region_v4.xdb";
 
     public static final String IP2REGION_DB_V6_FILE = "ip2region_v6.xdb";
 
-    public static final String TEMP_DIR = System.getProperty("java.io.tmpdir") + File.pathSeparator + "auto-ip2region";
+    public static final String TEMP_DIR = System.getProperty("java.io.tmpdir") + File.separator + "auto-ip2region";
 
     public static final String RESOURCES_DIR = "auto-ip2region";
 
+    // 并行加载数据库的线程池，不占用公共ForkJoinPool，空闲线程自动回收
+    private static final ExecutorService LOADER_EXECUTOR = DaemonExecutors.newBoundedPool("loader");
+
     /**
      * 尝试从资源目录加载GeoIP2数据源
-     * 该方法会检查classpath中是否存在GeoIP2依赖，并尝试从资源目录加载GeoLite2-City.mmdb数据库文件
+     * 该方法会检查classpath中是否存在GeoIP2依赖，并尝试从资源目录加载GeoLite2-City.mmdb数据库文件，存在GeoLite2-ASN.mmdb时一并加载
      * 支持从jar包内和文件系统两种方式加载数据库文件
      *
      * @return 包含GeoIP2解析器的Optional，如果加载失败或缺少依赖则返回empty
@@ -65,33 +85,29 @@ public class IpQueryEngineFactory {
         try {
             // 首先尝试从项目的resources目录加载
             java.net.URL resourceUrl = IpQueryEngineFactory.class.getClassLoader()
-                .getResource(RESOURCES_DIR + File.pathSeparator + GEO_IP_DB_FILE);
+                .getResource(RESOURCES_DIR + "/" + GEO_IP_DB_FILE);
             if (resourceUrl == null) {
                 return Optional.empty();
             }
-            // 如果在jar包内找到了文件
-            if ("jar".equals(resourceUrl.getProtocol())) {
-                // 从jar包中提取文件到临时目录
-                java.nio.file.Path tempDir = java.nio.file.Files.createTempDirectory(TEMP_DIR + File.pathSeparator + "geoip2");
-                java.nio.file.Path tempFile = tempDir.resolve(GEO_IP_DB_FILE);
-                try (java.io.InputStream is = resourceUrl.openStream()) {
-                    java.nio.file.Files.copy(is, tempFile, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+            // jar包内的文件按内容提取到固定目录，重启后直接复用；文件系统中的文件直接使用
+            boolean inJar = "jar".equals(resourceUrl.getProtocol());
+            java.io.File dbFile = inJar ? extractResource(resourceUrl, GEO_IP_DB_FILE).toFile() : new java.io.File(resourceUrl.toURI());
+            com.maxmind.geoip2.DatabaseReader reader = new com.maxmind.geoip2.DatabaseReader.Builder(dbFile)
+                .fileMode(Reader.FileMode.MEMORY_MAPPED)
+                .withCache(new com.maxmind.db.CHMCache(GeoIP2Resolver.CACHE_CAPACITY))
+                .build();
+            GeoIP2Resolver resolver = new GeoIP2Resolver(reader, inJar ? "GeoIP2-Resource" : "GeoIP2", 95);
+            // 存在ASN数据库时一并打开，补充City数据库没有的ASN信息
+            String asnDbFile = resourceFile(IpQueryEngineFactory.class.getClassLoader()
+                .getResource(RESOURCES_DIR + "/" + GEO_IP_ASN_DB_FILE), GEO_IP_ASN_DB_FILE);
+            if (asnDbFile != null) {
+                try {
+                    resolver.openAsnDatabase(new java.io.File(asnDbFile));
+                } catch (Exception e) {
+                    // ASN数据库不可用时只使用City数据库
                 }
-                // 创建GeoIP2解析器
-                com.maxmind.geoip2.DatabaseReader reader = new com.maxmind.geoip2.DatabaseReader.Builder(tempFile.toFile())
-                    .fileMode(Reader.FileMode.MEMORY_MAPPED)
-                    .build();
-                GeoIP2Resolver resolver = new GeoIP2Resolver(reader, "GeoIP2-Resource", 95);
-                return Optional.of(resolver);
-            }
-            // 如果是文件系统中的文件
-            else if ("file".equals(resourceUrl.getProtocol())) {
-                java.io.File dbFile = new java.io.File(resourceUrl.toURI());
-                com.maxmind.geoip2.DatabaseReader reader = new com.maxmind.geoip2.DatabaseReader.Builder(dbFile)
-                    .fileMode(Reader.FileMode.MEMORY_MAPPED).build();
-                GeoIP2Resolver resolver = new GeoIP2Resolver(reader, "GeoIP2", 95);
-                return Optional.of(resolver);
             }
+            return Optional.of(resolver);
         } catch (Exception e) {
             // 忽略异常，返回empty
         }
@@ -128,43 +144,16 @@ public class IpQueryEngineFactory {
         try {
             // 首先尝试从当前项目的resources目录加载
             java.net.URL v4ResourceUrl = IpQueryEngineFactory.class.getClassLoader()
-                .getResource(RESOURCES_DIR + File.pathSeparator + IP2REGION_DB_V4_FILE);
+                .getResource(RESOURCES_DIR + "/" + IP2REGION_DB_V4_FILE);
             java.net.URL v6ResourceUrl = IpQueryEngineFactory.class.getClassLoader()
-                .getResource(RESOURCES_DIR + File.pathSeparator + IP2REGION_DB_V6_FILE);
+                .getResource(RESOURCES_DIR + "/" + IP2REGION_DB_V6_FILE);
             if (v4ResourceUrl == null && v6ResourceUrl == null) {
                 return Optional.empty();
             }
-            String v4DbFile = null;
-            String v6DbFile = null;
-            if (v4ResourceUrl != null) {
-                // 如果在jar包内找到了文件
-                if ("jar".equals(v4ResourceUrl.getProtocol())) {
-                    // 从jar包中提取文件到临时目录
-                    java.nio.file.Path tempDir = java.nio.file.Files.createTempDirectory(TEMP_DIR + File.pathSeparator + "ip2region");
-                    java.nio.file.Path tempFile = tempDir.resolve(IP2REGION_DB_V4_FILE);
-                    try (java.io.InputStream is = v4ResourceUrl.openStream()) {
-                        java.nio.file.Files.copy(is, tempFile, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
-                    }
-                    v4DbFile = tempFile.toString();
-                }
-                // 如果是文件系统中的文件
-                else if ("file".equals(v4ResourceUrl.getProtocol())) {
-                    v4DbFile = v4ResourceUrl.toURI().getPath();
-                }
-            }
-            if (v6ResourceUrl != null) {
-                // 如果在jar包内找到了文件
-                if ("jar".equals(v6ResourceUrl.getProtocol())) {
-                    // 从jar包中提取文件到临时目录
-                    java.nio.file.Path tempDir = java.nio.file.Files.createTempDirectory(TEMP_DIR + File.pathSeparator + "ip2region");
-                    java.nio.file.Path tempFile = tempDir.resolve(IP2REGION_DB_V6_FILE);
-                    try (java.io.InputStream is = v6ResourceUrl.openStream()) {
-                        java.nio.file.Files.copy(is, tempFile, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
-                    }
-                } else if ("file".equals(v6ResourceUrl.getProtocol())) {
-                    v6DbFile = v6ResourceUrl.toURI().getPath();
-                }
-            }
+            // IPv4与IPv6数据库互不依赖，并行提取
+            CompletableFuture<String> v4DbFuture = CompletableFuture.supplyAsync(() -> resourceFile(v4ResourceUrl, IP2REGION_DB_V4_FILE), LOADER_EXECUTOR);
+            String v6DbFile = resourceFile(v6ResourceUrl, IP2REGION_DB_V6_FILE);
+            String v4DbFile = v4DbFuture.join();
             if (v4DbFile != null || v6DbFile != null) {
                 LocalIp2RegionResolver resolver = new LocalIp2RegionResolver(v4DbFile, v6DbFile, true, false, "IP2Region", 95);
                 return Optional.of(resolver);
@@ -176,25 +165,236 @@ public class IpQueryEngineFactory {
     }
 
 
+    /**
+     * 创建可热更新的ip2region数据源，监听IPv4数据库文件的变化并在更新后自动切换
+     * <pre>
+     * 只加载IPv4数据库，IPv6查询会失败并由引擎交给其他数据源处理。
+     * 热更新只监听一个文件，IPv6数据库需要通过{@link #tryLoadIp2RegionSource()}等方式单独加载。
+     * </pre>
+     *
+     * @param v4DbFile ip2region IPv4数据库文件
+     *
+     * @return 可热更新的本地数据源
+     * @throws Exception 首次加载失败或无法监听文件
+     */
+    public static ReloadableLocalSource createReloadableIp2RegionSource(Path v4DbFile) throws Exception {
+        return new ReloadableLocalSource(v4DbFile,
+            dbFile -> new LocalIp2RegionResolver(dbFile.toString(), null, true, false, "IP2Region", 95),
+            List.of("114.114.114.114"), "IP2Region-Local", 95).watch();
+    }
+
+
+    /**
+     * 创建可热更新的GeoIP2数据源，监听数据库文件的变化并在更新后自动切换
+     *
+     * @param dbFile GeoLite2-City数据库文件
+     *
+     * @return 可热更新的本地数据源
+     * @throws Exception 首次加载失败或无法监听文件
+     */
+    public static ReloadableLocalSource createReloadableGeoIpSource(Path dbFile) throws Exception {
+        return new ReloadableLocalSource(dbFile,
+            file -> new GeoIP2Resolver(file.toFile(), List.of("zh-CN", "en"), "GeoIP2", 95),
+            List.of("8.8.8.8"), "GeoIP2-Local", 95).watch();
+    }
+
+
+    /**
+     * 获取资源对应的本地文件路径，jar包内的资源会先提取到本地
+     *
+     * @param resourceUrl 资源URL，为null时返回null
+     * @param fileName    文件名
+     *
+     * @return 本地文件路径，无法获取时返回null
+     */
+    private static String resourceFile(java.net.URL resourceUrl, String fileName) {
+        if (resourceUrl == null) {
+            return null;
+        }
+        try {
+            if ("jar".equals(resourceUrl.getProtocol())) {
+                return extractResource(resourceUrl, fileName).toString();
+            }
+            if ("file".equals(resourceUrl.getProtocol())) {
+                return resourceUrl.toURI().getPath();
+            }
+        } catch (Exception e) {
+            // 忽略异常，返回null
+        }
+        return null;
+    }
+
+
+    /**
+     * 将jar包内的数据库文件提取到以内容标识命名的固定目录
+     * <pre>
+     * 1. 目录名由jar条目的CRC32与大小组成，取自jar的中央目录，无需读取文件内容
+     * 2. 目录中已存在大小一致的文件时直接复用，数据库只在首次启动或更新后提取一次
+     * 3. 提取时先写入临时文件并校验CRC32，再原子重命名，多个进程同时启动也不会读到写了一半的文件
+     * </pre>
+     *
+     * @param resourceUrl jar包内的资源URL
+     * @param fileName    文件名
+     *
+     * @return 提取后的文件路径
+     * @throws IOException 提取失败或校验不通过
+     */
+    private static Path extractResource(java.net.URL resourceUrl, String fileName) throws IOException {
+        return extractResource(resourceUrl, fileName, Path.of(TEMP_DIR));
+    }
+
+
+    /**
+     * 将jar包内的数据库文件提取到指定目录下以内容标识命名的子目录
+     *
+     * @param resourceUrl jar包内的资源URL
+     * @param fileName    文件名
+     * @param baseDir     提取的根目录
+     *
+     * @return 提取后的文件路径
+     * @throws IOException 提取失败或校验不通过
+     */
+    static Path extractResource(java.net.URL resourceUrl, String fileName, Path baseDir) throws IOException {
+        java.net.URLConnection connection = resourceUrl.openConnection();
+        // 使用jar包内容时不缓存JarFile，避免jar包替换后读到旧内容
+        connection.setUseCaches(false);
+        java.util.jar.JarEntry entry = ((java.net.JarURLConnection) connection).getJarEntry();
+        long crc = entry.getCrc();
+        long size = entry.getSize();
+        Path dir = baseDir.resolve(Long.toHexString(crc) + "-" + size);
+        Path target = dir.resolve(fileName);
+        if (crc >= 0 && size >= 0 && Files.isRegularFile(target) && Files.size(target) == size) {
+            return target;
+        }
+        Files.createDirectories(dir);
+        Path tempFile = Files.createTempFile(dir, fileName, ".tmp");
+        try {
+            java.util.zip.CRC32 checksum = new java.util.zip.CRC32();
+            try (java.io.InputStream is = new java.util.zip.CheckedInputStream(connection.getInputStream(), checksum)) {
+                Files.copy(is, tempFile, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+            }
+            if (crc >= 0 && checksum.getValue() != crc) {
+                throw new IOException("Checksum mismatch while extracting " + fileName);
+            }
+            Files.move(tempFile, target, java.nio.file.StandardCopyOption.REPLACE_EXISTING, java.nio.file.StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+        return target;
+    }
+
+
     /**
      * 尝试从资源目录加载所有可用的本地数据源
-     * 包括GeoIP2和ip2region数据库
+     * 包括GeoIP2和ip2region数据库，两个数据库并行加载
      *
      * @return 可用的本地数据源列表
      */
     public static List<IpSource> tryLoadLocalSources() {
+        return tryLoadLocalSources(false);
+    }
+
+
+    /**
+     * 尝试从资源目录加载所有可用的本地数据源
+     * 包括GeoIP2和ip2region数据库
+     *
+     * @param lazy 是否延迟加载，true时只检查数据库文件是否存在，首次查询时才加载数据库；false时两个数据库并行加载
+     *
+     * @return 可用的本地数据源列表
+     */
+    public static List<IpSource> tryLoadLocalSources(boolean lazy) {
         List<IpSource> sources = new ArrayList<>();
-        // 尝试加载GeoIP2数据源
-        Optional<IpSource> geoIpSource = tryLoadGeoIpSource();
-        geoIpSource.ifPresent(sources::add);
+        if (lazy) {
+            ClassLoader classLoader = IpQueryEngineFactory.class.getClassLoader();
+            if (classLoader.getResource(RESOURCES_DIR + "/" + GEO_IP_DB_FILE) != null) {
+                sources.add(new LazyLocalSource(IpQueryEngineFactory::tryLoadGeoIpSource, "GeoIP2-Lazy", 95));
+            }
+            if (classLoader.getResource(RESOURCES_DIR + "/" + IP2REGION_DB_V4_FILE) != null
+                || classLoader.getResource(RESOURCES_DIR + "/" + IP2REGION_DB_V6_FILE) != null) {
+                sources.add(new LazyLocalSource(IpQueryEngineFactory::tryLoadIp2RegionSource, "IP2Region-Lazy", 95));
+            }
+            return sources;
+        }
+        // 尝试加载GeoIP2数据源，与ip2region数据源并行
+        CompletableFuture<Optional<IpSource>> geoIpSource = CompletableFuture.supplyAsync(IpQueryEngineFactory::tryLoadGeoIpSource, LOADER_EXECUTOR);
 
         // 尝试加载ip2region数据源
         Optional<IpSource> ip2RegionSource = tryLoadIp2RegionSource();
+        geoIpSource.join().ifPresent(sources::add);
         ip2RegionSource.ifPresent(sources::add);
         return sources;
     }
 
 
+    /**
+     * 尝试加载组合本地数据源，一次查询同时使用ip2region和GeoIP2并合并字段
+     * 只有一个数据库可用时直接返回该数据库的数据源
+     *
+     * @param lazy 是否延迟加载，含义与{@link #tryLoadLocalSources(boolean)}相同
+     *
+     * @return 组合本地数据源
+     */
+    public static Optional<IpSource> tryLoadCompositeLocalSource(boolean lazy) {
+        Optional<IpSource> geoIpSource;
+        Optional<IpSource> ip2RegionSource;
+        if (lazy) {
+            ClassLoader classLoader = IpQueryEngineFactory.class.getClassLoader();
+            geoIpSource = classLoader.getResource(RESOURCES_DIR + "/" + GEO_IP_DB_FILE) == null ? Optional.empty()
+                : Optional.of(new LazyLocalSource(IpQueryEngineFactory::tryLoadGeoIpSource, "GeoIP2-Lazy", 95));
+            ip2RegionSource = classLoader.getResource(RESOURCES_DIR + "/" + IP2REGION_DB_V4_FILE) == null
+                && classLoader.getResource(RESOURCES_DIR + "/" + IP2REGION_DB_V6_FILE) == null ? Optional.empty()
+                : Optional.of(new LazyLocalSource(IpQueryEngineFactory::tryLoadIp2RegionSource, "IP2Region-Lazy", 95));
+        } else {
+            CompletableFuture<Optional<IpSource>> geoIpFuture = CompletableFuture.supplyAsync(IpQueryEngineFactory::tryLoadGeoIpSource, LOADER_EXECUTOR);
+            ip2RegionSource = tryLoadIp2RegionSource();
+            geoIpSource = geoIpFuture.join();
+        }
+        if (geoIpSource.isPresent() && ip2RegionSource.isPresent()) {
+            return Optional.of(new CompositeLocalSource(ip2RegionSource.get(), geoIpSource.get(), "Local-Composite", 100));
+        }
+        return ip2RegionSource.isPresent() ? ip2RegionSource : geoIpSource;
+    }
+
+
+    /**
+     * 尝试加载合并索引本地数据源
+     * 启动时把ip2region与GeoIP2数据库的区间求交并预先合并，查询时只需一次索引查找即可得到两个库的合并结果
+     * 合并索引保存在临时目录中，数据库未变化时下次启动直接加载；首次构建需要遍历整个mmdb，IPv6部分耗时较长
+     *
+     * @return 合并索引本地数据源，ip2region IPv4数据库或GeoIP2数据库不存在时返回empty
+     */
+    public static Optional<IpSource> tryLoadOverlayLocalSource() {
+        ClassLoader classLoader = IpQueryEngineFactory.class.getClassLoader();
+        LocalIp2RegionResolver resolver = null;
+        try {
+            String v4DbFile = resourceFile(classLoader.getResource(RESOURCES_DIR + "/" + IP2REGION_DB_V4_FILE), IP2REGION_DB_V4_FILE);
+            String v6DbFile = resourceFile(classLoader.getResource(RESOURCES_DIR + "/" + IP2REGION_DB_V6_FILE), IP2REGION_DB_V6_FILE);
+            String geoIpDbFile = resourceFile(classLoader.getResource(RESOURCES_DIR + "/" + GEO_IP_DB_FILE), GEO_IP_DB_FILE);
+            if (v4DbFile == null || geoIpDbFile == null) {
+                return Optional.empty();
+            }
+            resolver = new LocalIp2RegionResolver(v4DbFile, v6DbFile, true, false, "Local-Overlay", 100);
+            OverlayIndexBuilder builder = new OverlayIndexBuilder();
+            resolver.setIpv4Index(builder.loadOrBuildIpv4(Path.of(v4DbFile), Path.of(geoIpDbFile), Path.of(TEMP_DIR, "overlay_v4.idx")));
+            if (v6DbFile != null) {
+                resolver.setIpv6Index(builder.loadOrBuildIpv6(Path.of(v6DbFile), Path.of(geoIpDbFile), Path.of(TEMP_DIR, "overlay_v6.idx")));
+            }
+            return Optional.of(resolver);
+        } catch (Exception | LinkageError e) {
+            // 缺少依赖或构建失败，返回empty
+            if (resolver != null) {
+                try {
+                    resolver.close();
+                } catch (Exception ignored) {
+                    // 忽略关闭异常
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+
     /**
      * 加载免费API数据源列表
      * 根据speedPriority参数决定数据源的权重分配策略
@@ -237,6 +437,59 @@ public class IpQueryEngineFactory {
         sources.add(ipMoeSource);
         sources.add(pacificSource);
         sources.add(zhengbingdongSource);
+        // 提前解析各接口的域名，首个请求不再等待DNS；解析同时填充JVM的地址缓存，JDK HttpClient同样受益
+        Set<String> hosts = new LinkedHashSet<>();
+        for (IpSource source : sources) {
+            String host = ((AbstractNetworkIpSource) source).getHost();
+            if (host != null) {
+                hosts.add(host);
+            }
+        }
+        DnsCache dnsCache = httpRequestHandler instanceof NioHttpRequestHandler nioHandler
+            ? nioHandler.getDnsCache() : DnsCache.shared();
+        dnsCache.preResolve(hosts);
+        return sources;
+    }
+
+
+    /**
+     * 从JSON配置加载网络数据源，每个数据源的定义见{@link SourceDefinition}
+     * 配置可以是数据源定义的数组，也可以是包含sources数组的对象
+     *
+     * @param config             配置文件路径
+     * @param httpRequestHandler HTTP请求处理器
+     *
+     * @return 网络数据源列表
+     * @throws IOException 读取配置文件失败
+     */
+    public static List<IpSource> loadConfiguredSources(Path config, HttpRequestHandler httpRequestHandler) throws IOException {
+        try (java.io.Reader reader = Files.newBufferedReader(config, StandardCharsets.UTF_8)) {
+            return loadConfiguredSources(reader, httpRequestHandler);
+        }
+    }
+
+
+    /**
+     * 从JSON配置加载网络数据源，每个数据源的定义见{@link SourceDefinition}
+     * 配置可以是数据源定义的数组，也可以是包含sources数组的对象
+     *
+     * @param config             配置内容
+     * @param httpRequestHandler HTTP请求处理器
+     *
+     * @return 网络数据源列表
+     */
+    public static List<IpSource> loadConfiguredSources(java.io.Reader config, HttpRequestHandler httpRequestHandler) {
+        JsonElement root = JsonParser.parseReader(config);
+        if (root.isJsonObject() && root.getAsJsonObject().has("sources")) {
+            root = root.getAsJsonObject().get("sources");
+        }
+        SourceDefinition[] definitions = root.isJsonArray()
+            ? new Gson().fromJson(root, SourceDefinition[].class)
+            : new SourceDefinition[]{new Gson().fromJson(root, SourceDefinition.class)};
+        List<IpSource> sources = new ArrayList<>();
+        for (SourceDefinition definition : definitions) {
+            sources.add(new ConfigurableNetworkResolver(definition, httpRequestHandler));
+        }
         return sources;
     }
 
@@ -332,4 +585,5 @@ public class IpQueryEngineFactory {
     public static IpQueryEngine createFromSources(List<IpSource> sources, int maxCacheSize, Duration expireAfterWrite, Duration expireAfterAccess) {
         return new IpQueryEngine(sources, new WeightedLoadBalancer(), new LocalFirstFallbackStrategy(), maxCacheSize, expireAfterWrite, expireAfterAccess);
     }
+
 }
@@ -0,0 +1,371 @@
+package cn.hehouhui.ip2region.core;
+
+import cn.hehouhui.ip2region.IpInfo;
+import cn.hehouhui.ip2region.http.HttpRequestHandler;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 抽象的支持批量请求的网络数据源，对单个IP的查询做微批处理。
+ * <pre>
+ * 1. 单个IP的查询不会立即发出请求，而是进入当前批次，批次在等待lingerMillis毫秒或凑满maxBatchSize个IP后发出
+ * 2. 每个批次只发送一次HTTP请求，只消耗一个限流许可和一个并发名额，相同限流速率下吞吐量最多提升maxBatchSize倍
+ * 3. 同一批次中的重复IP会被合并，只请求一次
+ * 4. 非阻塞查询（tryQuery、queryAsync）可以无需许可地加入已有批次，开启新批次时才需要立即获取限流许可
+ * </pre>
+ * 子类只需实现{@link #request(List)}，在一次请求中查询多个IP。
+ *
+ * @author HeHui
+ * @date 2025-12-04
+ */
+public abstract class AbstractBatchNetworkIpSource extends AbstractNetworkIpSource implements BatchIpSource {
+
+    private static final ScheduledExecutorService LINGER_TIMER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "auto-ip2region-batch-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final ExecutorService BATCH_EXECUTOR = DaemonExecutors.newBoundedPool("batch");
+
+    protected final int maxBatchSize;
+
+    protected final long lingerMillis;
+
+    // 记录已发送的批次数
+    protected final AtomicLong batchCount = new AtomicLong(0);
+
+    private final Object lock = new Object();
+
+    private PendingBatch pending;
+
+    /**
+     * 构造函数
+     *
+     * @param name               解析器名称
+     * @param weight             解析器权重
+     * @param permitsPerSecond   每秒许可数（限流速率，按批次计算）
+     * @param maxBatchSize       单次请求最多携带的IP数量
+     * @param lingerMillis       批次最长等待时间（毫秒）
+     * @param httpRequestHandler HTTP请求处理器
+     */
+    public AbstractBatchNetworkIpSource(String name, int weight, double permitsPerSecond, int maxBatchSize, long lingerMillis, HttpRequestHandler httpRequestHandler) {
+        super(name, weight, permitsPerSecond, httpRequestHandler);
+        if (maxBatchSize < 1 || lingerMillis < 0) {
+            throw new IllegalArgumentException("Invalid batch policy");
+        }
+        this.maxBatchSize = maxBatchSize;
+        this.lingerMillis = lingerMillis;
+    }
+
+    @Override
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * 获取已发送的批次数
+     *
+     * @return 批次数
+     */
+    public long getBatchCount() {
+        return batchCount.get();
+    }
+
+    /**
+     * 查询IP信息，IP会加入当前批次，批次发出并返回后才会返回
+     *
+     * @param ip IP地址
+     *
+     * @return IP信息，如果查询失败或结果不存在，返回包含"unknown"的IpInfo对象
+     *
+     * @throws Exception 查询异常，同{@link AbstractNetworkIpSource#query(String)}
+     */
+    @Override
+    public IpInfo query(String ip) throws Exception {
+        if (ip == null || ip.isEmpty()) {
+            return IpInfo.fromString(ip, "unknown");
+        }
+        ThrottledException paused = pausedException();
+        if (paused != null) {
+            throw paused;
+        }
+        return await(submit(ip, true));
+    }
+
+    /**
+     * 非阻塞查询IP信息，存在未发出的批次时直接加入，否则只有在可以立即获取限流许可时才开启新批次
+     *
+     * @param ip IP地址
+     *
+     * @return IP信息，限流器没有空闲许可或被上游限流时返回empty
+     *
+     * @throws Exception 查询异常
+     */
+    @Override
+    public Optional<IpInfo> tryQuery(String ip) throws Exception {
+        if (ip == null || ip.isEmpty()) {
+            return Optional.of(IpInfo.fromString(ip, "unknown"));
+        }
+        if (pausedException() != null) {
+            return Optional.empty();
+        }
+        CompletableFuture<IpInfo> future = submit(ip, false);
+        if (future == null) {
+            rejectedCount.incrementAndGet();
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(await(future));
+        } catch (ThrottledException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * 异步查询IP信息，与{@link #tryQuery(String)}相同不会等待限流器
+     *
+     * @param ip IP地址
+     *
+     * @return IP信息的Future，限流器没有空闲许可时以异常完成
+     */
+    @Override
+    public CompletableFuture<IpInfo> queryAsync(String ip) {
+        if (ip == null || ip.isEmpty()) {
+            return CompletableFuture.completedFuture(IpInfo.fromString(ip, "unknown"));
+        }
+        ThrottledException paused = pausedException();
+        if (paused != null) {
+            return CompletableFuture.failedFuture(paused);
+        }
+        CompletableFuture<IpInfo> future = submit(ip, false);
+        if (future == null) {
+            rejectedCount.incrementAndGet();
+            return CompletableFuture.failedFuture(new Exception(this.getName() + " Rate limit exceeded"));
+        }
+        return future;
+    }
+
+    /**
+     * 批量查询IP信息，去重后按maxBatchSize拆分并在调用线程上依次请求，每个批次消耗一个限流许可
+     *
+     * @param ips IP地址列表，可以包含重复IP
+     *
+     * @return IP信息列表，与参数顺序一一对应，重复IP共用同一个结果
+     *
+     * @throws Exception 查询异常
+     */
+    @Override
+    public List<IpInfo> queryBatch(List<String> ips) throws Exception {
+        ThrottledException paused = pausedException();
+        if (paused != null) {
+            throw paused;
+        }
+        // request(List)约定参数不包含重复IP，拆分前先去重
+        List<String> unique = new ArrayList<>(new LinkedHashSet<>(ips));
+        Map<String, IpInfo> resolved = new HashMap<>(unique.size() * 2);
+        for (int from = 0; from < unique.size(); from += maxBatchSize) {
+            List<String> chunk = unique.subList(from, Math.min(unique.size(), from + maxBatchSize));
+            updateAcquireTimeStats(rateLimiter.acquire());
+            List<IpInfo> infos = executeBatch(chunk);
+            for (int i = 0; i < chunk.size(); i++) {
+                resolved.put(chunk.get(i), infos.get(i));
+            }
+        }
+        List<IpInfo> results = new ArrayList<>(ips.size());
+        for (String ip : ips) {
+            results.add(resolved.get(ip));
+        }
+        return results;
+    }
+
+    /**
+     * 单个IP的请求，通过只包含一个IP的批量请求完成
+     *
+     * @param ip IP地址
+     *
+     * @return IP信息
+     *
+     * @throws Exception 请求异常
+     */
+    @Override
+    protected Optional<IpInfo> request(String ip) throws Exception {
+        return Optional.ofNullable(request(List.of(ip)).get(ip));
+    }
+
+    /**
+     * 在一次请求中查询多个IP，应通过{@link #checkStatus}检查响应，上游限流时暂停数据源并抛出{@link ThrottledException}
+     *
+     * @param ips IP地址列表，不包含重复IP，数量不超过maxBatchSize
+     *
+     * @return 以IP为键的查询结果，查询不到的IP可以不包含在结果中
+     *
+     * @throws Exception 请求异常
+     */
+    protected abstract Map<String, IpInfo> request(List<String> ips) throws Exception;
+
+    /**
+     * 将IP加入当前批次
+     *
+     * @param ip       IP地址
+     * @param blocking 是否允许在发出批次时阻塞等待限流许可
+     *
+     * @return IP信息的Future，非阻塞模式下需要开启新批次但没有空闲限流许可时返回null
+     */
+    private CompletableFuture<IpInfo> submit(String ip, boolean blocking) {
+        CompletableFuture<IpInfo> future = new CompletableFuture<>();
+        PendingBatch full = null;
+        synchronized (lock) {
+            if (pending == null) {
+                boolean prepaid = false;
+                if (!blocking) {
+                    if (!rateLimiter.tryAcquire()) {
+                        return null;
+                    }
+                    updateAcquireTimeStats(0);
+                    prepaid = true;
+                }
+                PendingBatch batch = new PendingBatch(prepaid);
+                batch.timer = LINGER_TIMER.schedule(() -> flush(batch), lingerMillis, TimeUnit.MILLISECONDS);
+                pending = batch;
+            }
+            pending.waiters.computeIfAbsent(ip, key -> new ArrayList<>(1)).add(future);
+            if (pending.waiters.size() >= maxBatchSize) {
+                full = pending;
+                full.timer.cancel(false);
+                pending = null;
+            }
+        }
+        if (full != null) {
+            dispatch(full);
+        }
+        return future;
+    }
+
+    /**
+     * 等待时间到期，发出批次
+     *
+     * @param batch 批次
+     */
+    private void flush(PendingBatch batch) {
+        synchronized (lock) {
+            if (pending != batch) {
+                // 批次已因凑满而发出
+                return;
+            }
+            pending = null;
+        }
+        dispatch(batch);
+    }
+
+    private void dispatch(PendingBatch batch) {
+        BATCH_EXECUTOR.execute(() -> {
+            List<String> ips = new ArrayList<>(batch.waiters.keySet());
+            try {
+                if (!batch.prepaid) {
+                    updateAcquireTimeStats(rateLimiter.acquire());
+                }
+                List<IpInfo> results = executeBatch(ips);
+                for (int i = 0; i < ips.size(); i++) {
+                    IpInfo info = results.get(i);
+                    batch.waiters.get(ips.get(i)).forEach(future -> future.complete(info));
+                }
+            } catch (Throwable e) {
+                batch.waiters.values().forEach(futures -> futures.forEach(future -> future.completeExceptionally(e)));
+            }
+        });
+    }
+
+    /**
+     * 在已获取限流许可的前提下发送一次批量请求并更新统计信息
+     *
+     * @param ips IP地址列表
+     *
+     * @return IP信息列表，与参数顺序一一对应
+     *
+     * @throws Exception 查询异常
+     */
+    private List<IpInfo> executeBatch(List<String> ips) throws Exception {
+        if (!concurrencyLimiter.tryAcquire()) {
+            rejectedCount.incrementAndGet();
+            throw new Exception(this.getName() + " Concurrency limit exceeded");
+        }
+        long startTime = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
+        Map<String, IpInfo> results;
+        try {
+            results = request(ips);
+        } catch (ThrottledException e) {
+            updateResponseTimeStats(System.currentTimeMillis() - startTime);
+            concurrencyLimiter.release(System.nanoTime() - startNanos, true);
+            throttledCount.incrementAndGet();
+            throw e;
+        } catch (Exception e) {
+            boolean dropped = e instanceof IOException || e instanceof InterruptedException;
+            long responseTime = System.currentTimeMillis() - startTime;
+            updateResponseTimeStats(responseTime);
+            latencyHistogram.record(responseTime);
+            concurrencyLimiter.release(System.nanoTime() - startNanos, dropped);
+            ips.forEach(ip -> updateFailureStats());
+            if (dropped) {
+                throw new Exception(this.getName() + " Network error occurred", e);
+            }
+            throw e;
+        }
+        long responseTime = System.currentTimeMillis() - startTime;
+        updateResponseTimeStats(responseTime);
+        latencyHistogram.record(responseTime);
+        concurrencyLimiter.release(System.nanoTime() - startNanos, false);
+        batchCount.incrementAndGet();
+
+        List<IpInfo> infos = new ArrayList<>(ips.size());
+        for (String ip : ips) {
+            IpInfo info = results == null ? null : results.get(ip);
+            if (info != null) {
+                updateSuccessStats();
+                infos.add(info);
+            } else {
+                updateFailureStats();
+                infos.add(IpInfo.fromString(ip, "unknown"));
+            }
+        }
+        return infos;
+    }
+
+    private static IpInfo await(CompletableFuture<IpInfo> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof Exception ex ? ex : new Exception(cause);
+        }
+    }
+
+    /**
+     * 尚未发出的批次，以IP为键合并重复查询
+     */
+    private static final class PendingBatch {
+        final Map<String, List<CompletableFuture<IpInfo>>> waiters = new LinkedHashMap<>();
+        final boolean prepaid;
+        ScheduledFuture<?> timer;
+
+        PendingBatch(boolean prepaid) {
+            this.prepaid = prepaid;
+        }
+    }
+}
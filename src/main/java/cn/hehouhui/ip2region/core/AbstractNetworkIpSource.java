@@ -1,11 +1,15 @@
 package cn.hehouhui.ip2region.core;
 
 import cn.hehouhui.ip2region.IpInfo;
+import cn.hehouhui.ip2region.http.AsyncHttpRequestHandler;
 import cn.hehouhui.ip2region.http.HttpRequestHandler;
+import cn.hehouhui.ip2region.http.HttpResult;
 import com.google.common.util.concurrent.RateLimiter;
 
 import java.io.IOException;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -18,6 +22,8 @@ public abstract class AbstractNetworkIpSource extends AbstractIpSource {
 
     protected final RateLimiter rateLimiter;
 
+    protected final AdaptiveConcurrencyLimiter concurrencyLimiter;
+
     // 记录最近一次限流等待时间
     protected volatile long lastAcquireTime = 0;
 
@@ -30,8 +36,45 @@ public abstract class AbstractNetworkIpSource extends AbstractIpSource {
     // 记录响应次数
     protected final AtomicLong responseCount = new AtomicLong(0);
 
+    // 记录因限流器无空闲许可或超出并发上限而被跳过的次数
+    protected final AtomicLong rejectedCount = new AtomicLong(0);
+
+    // 记录请求的延迟分布，用于推导自适应超时，失败和超时的请求按实际耗时计入
+    protected final LatencyHistogram latencyHistogram = new LatencyHistogram();
+
+    // 推导出的超时时间的重新计算间隔（毫秒）
+    private static final long TIMEOUT_REFRESH_MILLIS = 1000;
+
+    // 根据延迟分布推导出的超时时间（毫秒），小于0表示需要重新计算
+    private volatile long adaptiveTimeout = -1;
+
+    // 最近一次推导超时时间的时间戳（毫秒）
+    private volatile long adaptiveTimeoutAt = 0;
+
+    // 超时时间 = p99.9 * timeoutFactor，并限制在[minTimeout, maxTimeout]之间
+    protected volatile double timeoutFactor = 3.0;
+
+    protected volatile int minTimeout = 200;
+
+    protected volatile int maxTimeout = 5000;
+
+    // 记录被上游限流（429或带重试时间的503）的次数，不计入失败次数
+    protected final AtomicLong throttledCount = new AtomicLong(0);
+
+    // 上游限流后暂停到该时间点（毫秒），期间数据源不可用
+    protected volatile long pausedUntil = 0;
+
+    // 上游限流但没有给出重试时间时的暂停时长（毫秒）
+    protected volatile long defaultThrottlePause = 1000;
+
+    // 健康探测连续失败后标记为不可用，任意一次成功的请求或探测都会恢复
+    protected volatile boolean dead = false;
+
     protected final HttpRequestHandler httpRequestHandler;
 
+    // 覆盖数据源默认的接口地址，用于指向镜像或本地模拟服务，为null时使用默认地址
+    protected volatile String baseUrl;
+
 
     /**
      * 构造函数
@@ -53,9 +96,23 @@ public abstract class AbstractNetworkIpSource extends AbstractIpSource {
      * @param httpRequestHandler  HTTP请求处理器
      */
     public AbstractNetworkIpSource(String name, int weight, double permitsPerSecond, HttpRequestHandler httpRequestHandler) {
+        this(name, weight, permitsPerSecond, new AdaptiveConcurrencyLimiter(), httpRequestHandler);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param name                解析器名称
+     * @param weight              解析器权重
+     * @param permitsPerSecond    每秒许可数（限流速率）
+     * @param concurrencyLimiter  自适应并发限制器
+     * @param httpRequestHandler  HTTP请求处理器
+     */
+    public AbstractNetworkIpSource(String name, int weight, double permitsPerSecond, AdaptiveConcurrencyLimiter concurrencyLimiter, HttpRequestHandler httpRequestHandler) {
         super(name, weight);
         this.httpRequestHandler = httpRequestHandler;
         this.rateLimiter = RateLimiter.create(permitsPerSecond);
+        this.concurrencyLimiter = concurrencyLimiter;
     }
 
     /**
@@ -84,6 +141,185 @@ public abstract class AbstractNetworkIpSource extends AbstractIpSource {
         return responseCount;
     }
 
+    /**
+     * 获取因限流器无空闲许可或超出并发上限而被跳过的次数
+     *
+     * @return 跳过次数
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    /**
+     * 获取被上游限流的次数
+     *
+     * @return 限流次数
+     */
+    public long getThrottledCount() {
+        return throttledCount.get();
+    }
+
+    /**
+     * 获取限流暂停的结束时间
+     *
+     * @return 时间戳（毫秒），未暂停时不大于当前时间
+     */
+    public long getPausedUntil() {
+        return pausedUntil;
+    }
+
+    /**
+     * 设置上游限流但没有给出重试时间时的暂停时长
+     *
+     * @param defaultThrottlePause 暂停时长（毫秒）
+     */
+    public void setDefaultThrottlePause(long defaultThrottlePause) {
+        this.defaultThrottlePause = defaultThrottlePause;
+    }
+
+    /**
+     * 检查数据源是否可用，处于上游限流暂停期或被健康探测标记为不可用时不可用
+     *
+     * @return 是否可用
+     */
+    @Override
+    public boolean isAvailable() {
+        return !dead && System.currentTimeMillis() >= pausedUntil && super.isAvailable();
+    }
+
+    /**
+     * 是否已被健康探测标记为不可用
+     *
+     * @return 是否不可用
+     */
+    public boolean isDead() {
+        return dead;
+    }
+
+    /**
+     * 暂停数据源，已有更长的暂停时间时保持不变
+     *
+     * @param millis 暂停时长（毫秒）
+     */
+    protected void pause(long millis) {
+        long until = System.currentTimeMillis() + millis;
+        synchronized (this) {
+            if (until > pausedUntil) {
+                pausedUntil = until;
+            }
+        }
+    }
+
+    /**
+     * 检查数据源是否处于限流暂停期
+     *
+     * @return 暂停期内返回限流异常，否则返回null
+     */
+    protected ThrottledException pausedException() {
+        long remaining = pausedUntil - System.currentTimeMillis();
+        if (remaining <= 0) {
+            return null;
+        }
+        return new ThrottledException(this.getName() + " Throttled by upstream, retry after " + remaining + "ms", remaining);
+    }
+
+    /**
+     * 检查响应是否为上游限流，是则按Retry-After或限流重置响应头暂停数据源
+     *
+     * @param result 响应结果
+     *
+     * @return 响应结果
+     *
+     * @throws ThrottledException 上游返回429或带重试时间的503
+     */
+    protected HttpResult checkThrottled(HttpResult result) throws ThrottledException {
+        if (!result.isThrottled()) {
+            return result;
+        }
+        long retryAfter = result.retryAfterMillis().orElse(defaultThrottlePause);
+        pause(retryAfter);
+        throw new ThrottledException(this.getName() + " Throttled by upstream (" + result.getStatusCode() + "), retry after " + retryAfter + "ms", retryAfter);
+    }
+
+    /**
+     * 检查响应状态码，上游限流时按{@link #checkThrottled(HttpResult)}处理，其他非2xx响应视为请求失败，不再解析响应体
+     *
+     * @param result 响应结果
+     *
+     * @return 2xx响应结果
+     *
+     * @throws ThrottledException 上游限流
+     * @throws Exception          上游返回其他非2xx状态码
+     */
+    protected HttpResult checkStatus(HttpResult result) throws Exception {
+        checkThrottled(result);
+        if (!result.isSuccessful()) {
+            throw new Exception(this.getName() + " HTTP error: " + result.getStatusCode());
+        }
+        return result;
+    }
+
+    /**
+     * 获取自适应并发限制器
+     *
+     * @return 并发限制器
+     */
+    public AdaptiveConcurrencyLimiter getConcurrencyLimiter() {
+        return concurrencyLimiter;
+    }
+
+    /**
+     * 获取请求的延迟直方图
+     *
+     * @return 延迟直方图
+     */
+    public LatencyHistogram getLatencyHistogram() {
+        return latencyHistogram;
+    }
+
+    /**
+     * 设置自适应超时策略
+     *
+     * @param timeoutFactor p99.9延迟的放大倍数
+     * @param minTimeout    最小超时时间（毫秒）
+     * @param maxTimeout    最大超时时间（毫秒），样本不足时直接使用该值
+     */
+    public void setTimeoutPolicy(double timeoutFactor, int minTimeout, int maxTimeout) {
+        if (timeoutFactor <= 0 || minTimeout <= 0 || maxTimeout < minTimeout) {
+            throw new IllegalArgumentException("Invalid timeout policy");
+        }
+        this.timeoutFactor = timeoutFactor;
+        this.minTimeout = minTimeout;
+        this.maxTimeout = maxTimeout;
+        this.adaptiveTimeout = -1;
+    }
+
+    /**
+     * 计算本次请求的超时时间
+     * <pre>
+     * 1. 近期样本不足50个时使用最大超时时间
+     * 2. 否则取p99.9延迟乘以放大倍数，并限制在[minTimeout, maxTimeout]之间，结果每秒重新计算一次
+     * 3. 调用方在当前线程设置了截止时间（{@link QueryDeadline}）时，不超过剩余可用时间
+     * </pre>
+     *
+     * @return 超时时间（毫秒），至少为1
+     */
+    protected int requestTimeout() {
+        long now = System.currentTimeMillis();
+        long timeout = adaptiveTimeout;
+        if (timeout < 0 || now - adaptiveTimeoutAt >= TIMEOUT_REFRESH_MILLIS) {
+            timeout = maxTimeout;
+            if (latencyHistogram.getCount() >= 50) {
+                long adaptive = (long) (latencyHistogram.percentile(0.999) * timeoutFactor);
+                timeout = Math.min(maxTimeout, Math.max(minTimeout, adaptive));
+            }
+            adaptiveTimeout = timeout;
+            adaptiveTimeoutAt = now;
+        }
+        timeout = Math.min(timeout, QueryDeadline.remainingMillis());
+        return (int) Math.max(1, timeout);
+    }
+
     /**
      * 获取平均响应时间（毫秒）
      *
@@ -122,11 +358,12 @@ public abstract class AbstractNetworkIpSource extends AbstractIpSource {
      * 查询IP信息
      * <pre>
      * 该方法通过以下步骤查询IP信息：
-     * 1. 验证输入IP地址的有效性
-     * 2. 通过限流器获取执行许可
-     * 3. 记录请求开始时间并执行具体的请求逻辑
-     * 4. 记录响应时间并更新统计信息
-     * 5. 根据请求结果更新成功或失败的统计信息
+     * 1. 验证输入IP地址的有效性，数据源处于上游限流暂停期时立即拒绝
+     * 2. 获取并发名额，超出并发上限时立即拒绝
+     * 3. 通过限流器获取执行许可，等待失败时归还并发名额
+     * 4. 记录请求开始时间并执行具体的请求逻辑
+     * 5. 记录响应时间并更新统计信息，同时反馈给并发限制器
+     * 6. 根据请求结果更新成功或失败的统计信息
      *
      * 在整个过程中，会捕获并处理可能发生的异常，确保统计信息的准确性。
      * </pre>
@@ -136,6 +373,8 @@ public abstract class AbstractNetworkIpSource extends AbstractIpSource {
      *
      * @throws Exception 查询异常，可能包括：
      *                   - 网络异常（IOException, InterruptedException）
+     *                   - 被上游限流（{@link ThrottledException}）
+     *                   - 超出并发上限
      *                   - 其他在请求处理过程中发生的异常
      */
     @Override
@@ -143,39 +382,209 @@ public abstract class AbstractNetworkIpSource extends AbstractIpSource {
         if (ip == null || ip.isEmpty()) {
             return IpInfo.fromString(ip, "unknown");
         }
-        double waitTime = rateLimiter.acquire();
+        ThrottledException paused = pausedException();
+        if (paused != null) {
+            throw paused;
+        }
+        // 先占用并发名额再等待限流许可，被拒绝的请求不会消耗限流许可
+        if (!concurrencyLimiter.tryAcquire()) {
+            rejectedCount.incrementAndGet();
+            throw new Exception(this.getName() + " Concurrency limit exceeded");
+        }
+        double waitTime;
+        try {
+            waitTime = rateLimiter.acquire();
+        } catch (RuntimeException e) {
+            concurrencyLimiter.release();
+            throw e;
+        }
         updateAcquireTimeStats(waitTime);
+        return execute(ip);
+    }
+
+    /**
+     * 非阻塞查询IP信息
+     * <pre>
+     * 仅在并发名额和限流许可都可立即获取时才发起请求，否则立即返回empty，不会让调用线程等待限流器。
+     * 数据源处于上游限流暂停期，或本次请求被上游限流时同样返回empty。
+     * 引擎据此跳过已饱和的数据源，转向其他可用数据源或本地数据源。
+     * </pre>
+     *
+     * @param ip IP地址
+     *
+     * @return IP信息，超出并发上限、限流器没有空闲许可或被上游限流时返回empty
+     *
+     * @throws Exception 查询异常，同{@link #query(String)}
+     */
+    @Override
+    public Optional<IpInfo> tryQuery(String ip) throws Exception {
+        if (ip == null || ip.isEmpty()) {
+            return Optional.of(IpInfo.fromString(ip, "unknown"));
+        }
+        if (pausedException() != null) {
+            return Optional.empty();
+        }
+        if (!concurrencyLimiter.tryAcquire()) {
+            rejectedCount.incrementAndGet();
+            return Optional.empty();
+        }
+        if (!rateLimiter.tryAcquire()) {
+            concurrencyLimiter.release();
+            rejectedCount.incrementAndGet();
+            return Optional.empty();
+        }
+        updateAcquireTimeStats(0);
+        try {
+            return Optional.of(execute(ip));
+        } catch (ThrottledException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * 异步查询IP信息
+     * <pre>
+     * 1. HTTP请求处理器实现了{@link AsyncHttpRequestHandler}时，请求与解析在HTTP客户端的执行器上完成，调用线程不会被阻塞
+     * 2. 与{@link #tryQuery(String)}相同，不会等待限流器，超出并发上限或没有空闲限流许可时Future以异常完成
+     * 3. 数据源不是{@link AbstractUrlNetworkIpSource}时，退化为在调用线程上同步执行
+     * </pre>
+     *
+     * @param ip IP地址
+     *
+     * @return IP信息的Future
+     */
+    @Override
+    public CompletableFuture<IpInfo> queryAsync(String ip) {
+        if (ip == null || ip.isEmpty()) {
+            return CompletableFuture.completedFuture(IpInfo.fromString(ip, "unknown"));
+        }
+        ThrottledException paused = pausedException();
+        if (paused != null) {
+            return CompletableFuture.failedFuture(paused);
+        }
+        if (!concurrencyLimiter.tryAcquire()) {
+            rejectedCount.incrementAndGet();
+            return CompletableFuture.failedFuture(new Exception(this.getName() + " Concurrency limit exceeded"));
+        }
+        if (!rateLimiter.tryAcquire()) {
+            concurrencyLimiter.release();
+            rejectedCount.incrementAndGet();
+            return CompletableFuture.failedFuture(new Exception(this.getName() + " Rate limit exceeded"));
+        }
+        updateAcquireTimeStats(0);
+        if (!(httpRequestHandler instanceof AsyncHttpRequestHandler asyncHandler)
+            || !(this instanceof AbstractUrlNetworkIpSource urlSource)) {
+            try {
+                return CompletableFuture.completedFuture(execute(ip));
+            } catch (Exception e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
 
         long startTime = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
+        String url;
         try {
-            Optional<IpInfo> ipInfo = request(ip);
-            long responseTime = System.currentTimeMillis() - startTime;
-            updateResponseTimeStats(responseTime);
-
-            if (ipInfo.isPresent()) {
-                updateSuccessStats();
-                return ipInfo.get();
-            } else {
-                updateFailureStats();
-                return IpInfo.fromString(ip, "unknown");
+            url = urlSource.requestUrl(ip);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(onFailure(e, startTime, startNanos));
+        }
+        return asyncHandler.getResultAsync(url, requestTimeout()).handle((result, error) -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                throw new CompletionException(onFailure(cause, startTime, startNanos));
             }
-        } catch (IOException | InterruptedException e) {
-            long responseTime = System.currentTimeMillis() - startTime;
-            updateResponseTimeStats(responseTime);
-            updateFailureStats();
-            throw new Exception(this.getName() + " Network error occurred", e);
+            Optional<IpInfo> ipInfo;
+            try {
+                ipInfo = urlSource.parse(ip, checkStatus(result).getBody());
+            } catch (Exception e) {
+                throw new CompletionException(onFailure(e, startTime, startNanos));
+            }
+            return onComplete(ip, ipInfo, startTime, startNanos);
+        });
+    }
+
+    /**
+     * 在已获取并发名额和限流许可的前提下执行请求并更新统计信息，结束时释放并发名额
+     *
+     * @param ip IP地址
+     *
+     * @return IP信息，如果查询失败或结果不存在，返回包含"unknown"的IpInfo对象
+     *
+     * @throws Exception 查询异常
+     */
+    private IpInfo execute(String ip) throws Exception {
+        long startTime = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
+        Optional<IpInfo> ipInfo;
+        try {
+            ipInfo = request(ip);
         } catch (Exception e) {
-            long responseTime = System.currentTimeMillis() - startTime;
-            updateResponseTimeStats(responseTime);
-            updateFailureStats();
-            throw e;
+            throw onFailure(e, startTime, startNanos);
         }
+        return onComplete(ip, ipInfo, startTime, startNanos);
     }
 
+    /**
+     * 请求正常返回后更新统计信息并释放并发名额
+     *
+     * @param ip         IP地址
+     * @param ipInfo     解析结果
+     * @param startTime  请求开始时间（毫秒）
+     * @param startNanos 请求开始时间（纳秒）
+     *
+     * @return IP信息，结果不存在时返回包含"unknown"的IpInfo对象
+     */
+    private IpInfo onComplete(String ip, Optional<IpInfo> ipInfo, long startTime, long startNanos) {
+        long responseTime = System.currentTimeMillis() - startTime;
+        updateResponseTimeStats(responseTime);
+        concurrencyLimiter.release(System.nanoTime() - startNanos, false);
+        latencyHistogram.record(responseTime);
 
+        if (ipInfo.isPresent()) {
+            updateSuccessStats();
+            dead = false;
+            return ipInfo.get();
+        } else {
+            updateFailureStats();
+            return IpInfo.fromString(ip, "unknown");
+        }
+    }
+
+    /**
+     * 请求失败后更新统计信息并释放并发名额
+     *
+     * @param error      异常
+     * @param startTime  请求开始时间（毫秒）
+     * @param startNanos 请求开始时间（纳秒）
+     *
+     * @return 需要向调用方抛出的异常，网络异常会被包装
+     */
+    private Exception onFailure(Throwable error, long startTime, long startNanos) {
+        long responseTime = System.currentTimeMillis() - startTime;
+        updateResponseTimeStats(responseTime);
+        if (error instanceof ThrottledException throttled) {
+            // 上游限流说明已过载，按丢弃反馈给并发限制器，但不计入失败次数
+            throttledCount.incrementAndGet();
+            concurrencyLimiter.release(System.nanoTime() - startNanos, true);
+            return throttled;
+        }
+        // 失败和超时的请求同样按实际耗时计入，避免只统计成功样本而低估上游延迟
+        latencyHistogram.record(responseTime);
+        boolean dropped = error instanceof IOException || error instanceof InterruptedException;
+        updateFailureStats();
+        concurrencyLimiter.release(System.nanoTime() - startNanos, dropped);
+        if (dropped) {
+            return new Exception(this.getName() + " Network error occurred", error);
+        }
+        return error instanceof Exception e ? e : new Exception(error);
+    }
 
     /**
      * 发送请求并解析IP信息
+     * <pre>
+     * 通过URL查询的数据源可继承{@link AbstractUrlNetworkIpSource}，只需提供请求URL与响应解析
+     * </pre>
      *
      * @param ip IP地址
      *
@@ -184,4 +593,43 @@ public abstract class AbstractNetworkIpSource extends AbstractIpSource {
      * @throws Exception 请求异常
      */
     protected abstract Optional<IpInfo> request(String ip) throws Exception;
+
+    /**
+     * 设置接口地址，覆盖数据源默认的协议、主机和端口，路径与查询参数保持不变
+     *
+     * @param baseUrl 接口地址，如 http://127.0.0.1:8080/taobao，为null时恢复默认地址
+     */
+    public void setBaseUrl(String baseUrl) {
+        this.baseUrl = baseUrl == null || !baseUrl.endsWith("/") ? baseUrl : baseUrl.substring(0, baseUrl.length() - 1);
+    }
+
+    /**
+     * 获取覆盖后的接口地址
+     *
+     * @return 接口地址，未覆盖时返回null
+     */
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    /**
+     * 获取接口所在的主机名，用于DNS预解析
+     *
+     * @return 主机名，数据源未提供请求URL时返回null
+     */
+    public String getHost() {
+        return null;
+    }
+
+    /**
+     * 获取本次请求使用的接口地址
+     *
+     * @param defaultBaseUrl 数据源默认的接口地址
+     *
+     * @return 设置了覆盖地址时返回覆盖地址，否则返回默认地址
+     */
+    protected String baseUrl(String defaultBaseUrl) {
+        String override = baseUrl;
+        return override == null ? defaultBaseUrl : override;
+    }
 }
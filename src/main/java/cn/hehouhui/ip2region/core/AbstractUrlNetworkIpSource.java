@@ -0,0 +1,104 @@
+package cn.hehouhui.ip2region.core;
+
+import cn.hehouhui.ip2region.IpInfo;
+import cn.hehouhui.ip2region.http.HttpRequestHandler;
+import cn.hehouhui.ip2region.http.HttpResult;
+
+import java.net.URI;
+import java.util.Optional;
+
+/**
+ * 通过GET请求URL查询的网络数据源
+ * <pre>
+ * 1. 子类只需提供{@link #requestUrl(String)}和{@link #parse(String, String)}，请求与状态码检查由本类完成
+ * 2. 异步查询时请求与解析在HTTP客户端的执行器上完成，不占用调用线程
+ * 3. 接口主机名可通过{@link #getHost()}获取，用于DNS预解析
+ * </pre>
+ *
+ * @author HeHui
+ * @date 2025-12-04
+ */
+public abstract class AbstractUrlNetworkIpSource extends AbstractNetworkIpSource {
+
+    /**
+     * 构造函数
+     *
+     * @param weight             数据源权重
+     * @param permitsPerSecond   每秒许可数（限流速率）
+     * @param httpRequestHandler HTTP请求处理器
+     */
+    public AbstractUrlNetworkIpSource(int weight, double permitsPerSecond, HttpRequestHandler httpRequestHandler) {
+        super(weight, permitsPerSecond, httpRequestHandler);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param name               解析器名称
+     * @param weight             解析器权重
+     * @param permitsPerSecond   每秒许可数（限流速率）
+     * @param httpRequestHandler HTTP请求处理器
+     */
+    public AbstractUrlNetworkIpSource(String name, int weight, double permitsPerSecond, HttpRequestHandler httpRequestHandler) {
+        super(name, weight, permitsPerSecond, httpRequestHandler);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param name               解析器名称
+     * @param weight             解析器权重
+     * @param permitsPerSecond   每秒许可数（限流速率）
+     * @param concurrencyLimiter 自适应并发限制器
+     * @param httpRequestHandler HTTP请求处理器
+     */
+    public AbstractUrlNetworkIpSource(String name, int weight, double permitsPerSecond, AdaptiveConcurrencyLimiter concurrencyLimiter, HttpRequestHandler httpRequestHandler) {
+        super(name, weight, permitsPerSecond, concurrencyLimiter, httpRequestHandler);
+    }
+
+    /**
+     * 通过{@link #requestUrl(String)}构建URL，发送GET请求后交给{@link #parse(String, String)}解析，
+     * 上游限流时按响应头暂停数据源并抛出{@link ThrottledException}，其他非2xx响应直接视为失败
+     *
+     * @param ip IP地址
+     *
+     * @return IP信息
+     *
+     * @throws Exception 请求异常
+     */
+    @Override
+    protected Optional<IpInfo> request(String ip) throws Exception {
+        HttpResult result = httpRequestHandler.getResult(requestUrl(ip), requestTimeout());
+        return parse(ip, checkStatus(result).getBody());
+    }
+
+    @Override
+    public String getHost() {
+        try {
+            return URI.create(requestUrl("127.0.0.1")).getHost();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 构建查询指定IP的请求URL
+     *
+     * @param ip IP地址
+     *
+     * @return 请求URL
+     */
+    protected abstract String requestUrl(String ip);
+
+    /**
+     * 解析响应内容
+     *
+     * @param ip       IP地址
+     * @param response 响应字符串
+     *
+     * @return IP信息，响应内容无效时返回empty
+     *
+     * @throws Exception 解析异常或接口返回错误
+     */
+    protected abstract Optional<IpInfo> parse(String ip, String response) throws Exception;
+}
@@ -0,0 +1,156 @@
+package cn.hehouhui.ip2region.core;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 自适应并发限制器，基于TCP Vegas思想根据观测到的RTT动态调整并发上限。
+ * <pre>
+ * 算法：
+ * 1. 记录无负载时的最小RTT作为基线（rttNoLoad）
+ * 2. 每次请求完成后估算排队长度：queue = limit * (1 - rttNoLoad / rtt)
+ * 3. queue小于alpha时增大并发上限，大于beta时减小并发上限
+ * 4. 请求被丢弃（超时、连接重置等）时并发上限乘以0.9
+ * 5. 每隔一定的采样次数重置基线，以适应上游延迟的长期变化
+ * 超出并发上限的请求会被立即拒绝，由调用方转向其他数据源。
+ * </pre>
+ *
+ * @author HeHui
+ * @date 2025-12-04
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final int probeInterval;
+
+    // 当前正在执行的请求数
+    private final AtomicInteger inFlight = new AtomicInteger(0);
+
+    // 当前并发上限
+    private volatile int limit;
+
+    // 无负载时的RTT基线（纳秒）
+    private long rttNoLoad = 0;
+
+    // 距离下一次重置基线的采样次数
+    private int samplesUntilProbe;
+
+    /**
+     * 构造函数，初始并发上限10，范围[1, 50]
+     */
+    public AdaptiveConcurrencyLimiter() {
+        this(10, 1, 50);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param initialLimit 初始并发上限
+     * @param minLimit     最小并发上限
+     * @param maxLimit     最大并发上限
+     */
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Invalid concurrency limit range: [" + minLimit + ", " + maxLimit + "]");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = Math.min(maxLimit, Math.max(minLimit, initialLimit));
+        this.probeInterval = 1000;
+        this.samplesUntilProbe = nextProbeInterval();
+    }
+
+    /**
+     * 尝试获取一个并发名额，不会阻塞
+     *
+     * @return 是否获取成功，超出并发上限时返回false
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 释放并发名额，不记录采样（请求未真正发出时使用）
+     */
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * 释放并发名额并根据本次请求的RTT调整并发上限
+     *
+     * @param rttNanos 本次请求的RTT（纳秒）
+     * @param dropped  请求是否被丢弃（超时、连接重置等）
+     */
+    public void release(long rttNanos, boolean dropped) {
+        int currentInFlight = inFlight.getAndDecrement();
+        if (rttNanos <= 0) {
+            return;
+        }
+        synchronized (this) {
+            int currentLimit = limit;
+            if (dropped) {
+                limit = Math.max(minLimit, (int) (currentLimit * 0.9));
+                return;
+            }
+            if (--samplesUntilProbe <= 0) {
+                // 周期性重置基线，避免上游延迟整体上升后基线长期偏低
+                samplesUntilProbe = nextProbeInterval();
+                rttNoLoad = rttNanos;
+                return;
+            }
+            if (rttNoLoad == 0 || rttNanos < rttNoLoad) {
+                rttNoLoad = rttNanos;
+                return;
+            }
+            int queue = (int) Math.ceil(currentLimit * (1 - (double) rttNoLoad / rttNanos));
+            int step = Math.max(1, (int) Math.log10(currentLimit));
+            int alpha = 3 * step;
+            int beta = 6 * step;
+
+            int newLimit = currentLimit;
+            if (queue < alpha) {
+                // 并发未被充分使用时不增大上限，避免上限无意义地膨胀
+                if (currentInFlight * 2 >= currentLimit) {
+                    newLimit = currentLimit + step;
+                }
+            } else if (queue > beta) {
+                newLimit = currentLimit - step;
+            }
+            limit = Math.min(maxLimit, Math.max(minLimit, newLimit));
+        }
+    }
+
+    /**
+     * 获取当前并发上限
+     *
+     * @return 并发上限
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * 获取当前正在执行的请求数
+     *
+     * @return 正在执行的请求数
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private int nextProbeInterval() {
+        return probeInterval + ThreadLocalRandom.current().nextInt(probeInterval);
+    }
+}
@@ -0,0 +1,30 @@
+package cn.hehouhui.ip2region.core;
+
+import cn.hehouhui.ip2region.IpInfo;
+
+import java.util.List;
+
+/**
+ * 支持批量查询的IP数据源接口，适用于一次请求可以携带多个IP的上游接口。
+ *
+ * @author HeHui
+ * @date 2025-12-04
+ */
+public interface BatchIpSource extends IpSource {
+
+    /**
+     * 批量查询IP信息
+     *
+     * @param ips IP地址列表
+     * @return IP信息列表，与参数顺序一一对应，单个IP查询不到时对应包含"unknown"的IpInfo对象
+     * @throws Exception 查询异常
+     */
+    List<IpInfo> queryBatch(List<String> ips) throws Exception;
+
+    /**
+     * 获取单次请求最多携带的IP数量
+     *
+     * @return 单次请求最多携带的IP数量
+     */
+    int getMaxBatchSize();
+}
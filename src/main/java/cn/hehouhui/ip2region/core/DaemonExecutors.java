@@ -0,0 +1,79 @@
+package cn.hehouhui.ip2region.core;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 后台线程池工具，库内部执行阻塞任务的线程池统一在这里创建
+ * <pre>
+ * 1. 线程均为守护线程，不会阻止JVM退出，线程名为 auto-ip2region-&lt;用途&gt;-&lt;序号&gt;
+ * 2. 线程数有上限，任务超出上限时排队等待，突发请求不会无限创建线程
+ * 3. 空闲线程60秒后回收，没有任务时不占用线程
+ * </pre>
+ *
+ * @author HeHui
+ * @date 2025-12-04
+ */
+public final class DaemonExecutors {
+
+    private DaemonExecutors() {
+    }
+
+    /**
+     * 默认的线程数上限：CPU核数的2倍，限制在4到64之间
+     *
+     * @return 线程数上限
+     */
+    public static int defaultMaxThreads() {
+        return Math.max(4, Math.min(64, Runtime.getRuntime().availableProcessors() * 2));
+    }
+
+    /**
+     * 创建线程数有上限的守护线程池，上限为{@link #defaultMaxThreads()}
+     *
+     * @param purpose 用途，用于线程名
+     *
+     * @return 线程池
+     */
+    public static ExecutorService newBoundedPool(String purpose) {
+        return newBoundedPool(purpose, defaultMaxThreads());
+    }
+
+    /**
+     * 创建线程数有上限的守护线程池
+     *
+     * @param purpose    用途，用于线程名
+     * @param maxThreads 线程数上限
+     *
+     * @return 线程池
+     */
+    public static ExecutorService newBoundedPool(String purpose, int maxThreads) {
+        if (maxThreads <= 0) {
+            throw new IllegalArgumentException("maxThreads must be positive");
+        }
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(maxThreads, maxThreads, 60, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), threadFactory(purpose));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * 创建守护线程工厂
+     *
+     * @param purpose 用途，用于线程名
+     *
+     * @return 线程工厂
+     */
+    public static ThreadFactory threadFactory(String purpose) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "auto-ip2region-" + purpose + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
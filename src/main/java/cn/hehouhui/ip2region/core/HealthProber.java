@@ -0,0 +1,239 @@
+package cn.hehouhui.ip2region.core;
+
+import cn.hehouhui.ip2region.IpInfo;
+import com.google.common.util.concurrent.RateLimiter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 网络数据源后台健康探测器，用预留的少量限流额度查询探测IP，让数据源在真实请求到来之前就被标记为不可用或恢复
+ * <pre>
+ * 1. 只探测空闲（一段时间内没有请求）或当前不可用的数据源，正常承接流量的数据源由真实请求反映健康状况
+ * 2. 每个数据源的探测速率不超过其限流速率的一定比例，且探测只通过tryAcquire获取限流许可和并发名额，不与真实请求争抢
+ * 3. 处于上游限流暂停期的数据源不探测
+ * 4. 探测结果能够解析出国家信息才算成功；连续失败达到阈值时标记为不可用，任意一次成功即恢复
+ * 5. 同一数据源同时只有一个探测在执行
+ * </pre>
+ *
+ * @author HeHui
+ * @date 2025-12-04
+ */
+public class HealthProber implements AutoCloseable {
+
+    /**
+     * 默认探测IP
+     */
+    public static final List<String> DEFAULT_CANARY_IPS = List.of("8.8.8.8", "114.114.114.114", "1.1.1.1", "223.5.5.5");
+
+    private final List<AbstractNetworkIpSource> sources;
+
+    private final List<String> canaryIps;
+
+    private final long idleMillis;
+
+    private final double reservedShare;
+
+    private final int deadThreshold;
+
+    private final ScheduledExecutorService scheduler;
+
+    private final ExecutorService probeExecutor;
+
+    private final Map<AbstractNetworkIpSource, RateLimiter> probeLimiters = new ConcurrentHashMap<>();
+
+    private final Map<AbstractNetworkIpSource, AtomicInteger> consecutiveFailures = new ConcurrentHashMap<>();
+
+    private final Set<AbstractNetworkIpSource> inFlight = ConcurrentHashMap.newKeySet();
+
+    private final AtomicInteger canaryCursor = new AtomicInteger();
+
+    private final AtomicLong probeCount = new AtomicLong(0);
+
+    private final AtomicLong probeFailureCount = new AtomicLong(0);
+
+    /**
+     * 探测结果
+     */
+    public enum Outcome {
+        /**
+         * 未发起探测：数据源正忙、暂停中或没有空闲的探测额度
+         */
+        SKIPPED,
+        /**
+         * 探测成功
+         */
+        HEALTHY,
+        /**
+         * 探测失败
+         */
+        UNHEALTHY,
+        /**
+         * 被上游限流
+         */
+        THROTTLED
+    }
+
+    /**
+     * 构造函数，使用默认探测IP，空闲10秒后开始探测，预留5%的限流额度，连续失败3次标记为不可用
+     *
+     * @param sources        数据源，非网络数据源会被忽略
+     * @param intervalMillis 探测间隔（毫秒）
+     */
+    public HealthProber(List<IpSource> sources, long intervalMillis) {
+        this(sources, DEFAULT_CANARY_IPS, intervalMillis, 10_000, 0.05, 3);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param sources        数据源，非网络数据源会被忽略
+     * @param canaryIps      探测IP，轮流使用
+     * @param intervalMillis 探测间隔（毫秒）
+     * @param idleMillis     数据源没有请求超过该时间后开始探测（毫秒）
+     * @param reservedShare  探测可使用的限流额度比例，取值(0, 1]
+     * @param deadThreshold  连续探测失败多少次后标记为不可用
+     */
+    public HealthProber(List<IpSource> sources, List<String> canaryIps, long intervalMillis, long idleMillis, double reservedShare, int deadThreshold) {
+        if (canaryIps.isEmpty() || reservedShare <= 0 || reservedShare > 1 || deadThreshold < 1) {
+            throw new IllegalArgumentException("Invalid health probe settings");
+        }
+        this.sources = sources.stream()
+            .filter(AbstractNetworkIpSource.class::isInstance)
+            .map(AbstractNetworkIpSource.class::cast)
+            .toList();
+        this.canaryIps = List.copyOf(canaryIps);
+        this.idleMillis = idleMillis;
+        this.reservedShare = reservedShare;
+        this.deadThreshold = deadThreshold;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "auto-ip2region-health-prober");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.probeExecutor = DaemonExecutors.newBoundedPool("health-probe");
+        this.scheduler.scheduleWithFixedDelay(this::probeAll, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 在后台探测所有需要探测的数据源
+     */
+    public void probeAll() {
+        for (AbstractNetworkIpSource source : sources) {
+            if (needsProbe(source) && inFlight.add(source)) {
+                probeExecutor.execute(() -> {
+                    try {
+                        probe(source);
+                    } finally {
+                        inFlight.remove(source);
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * 数据源是否需要探测：空闲、当前不可用或已被标记为不可用，且不在上游限流暂停期
+     *
+     * @param source 数据源
+     * @return 是否需要探测
+     */
+    protected boolean needsProbe(AbstractNetworkIpSource source) {
+        long now = System.currentTimeMillis();
+        if (now < source.getPausedUntil()) {
+            return false;
+        }
+        long lastActivity = Math.max(source.lastSuccessTime, source.lastFailureTime);
+        return source.isDead() || !source.isAvailable() || now - lastActivity >= idleMillis;
+    }
+
+    /**
+     * 在当前线程探测一次数据源
+     *
+     * @param source 数据源
+     * @return 探测结果
+     */
+    public Outcome probe(AbstractNetworkIpSource source) {
+        if (source.pausedException() != null) {
+            return Outcome.SKIPPED;
+        }
+        RateLimiter probeLimiter = probeLimiters.computeIfAbsent(source,
+            key -> RateLimiter.create(key.rateLimiter.getRate() * reservedShare));
+        if (!probeLimiter.tryAcquire()) {
+            return Outcome.SKIPPED;
+        }
+        if (!source.concurrencyLimiter.tryAcquire()) {
+            return Outcome.SKIPPED;
+        }
+        if (!source.rateLimiter.tryAcquire()) {
+            source.concurrencyLimiter.release();
+            return Outcome.SKIPPED;
+        }
+        String ip = canaryIps.get(Math.floorMod(canaryCursor.getAndIncrement(), canaryIps.size()));
+        probeCount.incrementAndGet();
+        long startNanos = System.nanoTime();
+        Outcome outcome;
+        try {
+            Optional<IpInfo> ipInfo = source.request(ip);
+            outcome = ipInfo.map(IpInfo::getCountry).filter(country -> !country.isEmpty() && !"unknown".equals(country)).isPresent()
+                ? Outcome.HEALTHY : Outcome.UNHEALTHY;
+        } catch (ThrottledException e) {
+            outcome = Outcome.THROTTLED;
+        } catch (Exception e) {
+            outcome = Outcome.UNHEALTHY;
+        }
+        source.concurrencyLimiter.release(System.nanoTime() - startNanos, outcome == Outcome.THROTTLED);
+        record(source, outcome);
+        return outcome;
+    }
+
+    private void record(AbstractNetworkIpSource source, Outcome outcome) {
+        AtomicInteger failures = consecutiveFailures.computeIfAbsent(source, key -> new AtomicInteger());
+        if (outcome == Outcome.HEALTHY) {
+            failures.set(0);
+            source.updateSuccessStats();
+            source.dead = false;
+        } else if (outcome == Outcome.UNHEALTHY) {
+            probeFailureCount.incrementAndGet();
+            source.updateFailureStats();
+            if (failures.incrementAndGet() >= deadThreshold) {
+                source.dead = true;
+            }
+        } else if (outcome == Outcome.THROTTLED) {
+            source.throttledCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * 获取已发起的探测次数
+     *
+     * @return 探测次数
+     */
+    public long getProbeCount() {
+        return probeCount.get();
+    }
+
+    /**
+     * 获取失败的探测次数
+     *
+     * @return 失败次数
+     */
+    public long getProbeFailureCount() {
+        return probeFailureCount.get();
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        probeExecutor.shutdownNow();
+    }
+}
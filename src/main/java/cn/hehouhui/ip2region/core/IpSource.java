@@ -2,6 +2,9 @@ package cn.hehouhui.ip2region.core;
 
 import cn.hehouhui.ip2region.IpInfo;
 
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * IP数据源接口，代表一个具体的IP查询实现。
  * 可以是本地数据库实现，也可以是远程API实现。
@@ -20,6 +23,41 @@ public interface IpSource {
      */
     IpInfo query(String ip) throws Exception;
 
+    /**
+     * 非阻塞查询IP信息
+     * <pre>
+     * 与{@link #query(String)}不同，该方法不会等待限流许可：
+     * 当数据源当前无法立即执行查询（例如限流器没有空闲许可）时直接返回empty，
+     * 调用方可以据此转向其他数据源，而不是阻塞等待。
+     * 默认实现直接委托给{@link #query(String)}，适用于本地数据源等没有限流的实现。
+     * </pre>
+     *
+     * @param ip IP地址
+     * @return IP信息，数据源饱和时返回empty
+     * @throws Exception 查询异常
+     */
+    default Optional<IpInfo> tryQuery(String ip) throws Exception {
+        return Optional.of(query(ip));
+    }
+
+    /**
+     * 异步查询IP信息
+     * <pre>
+     * 默认实现在调用线程上同步执行{@link #query(String)}，适用于本地数据源；
+     * 网络数据源会覆盖该方法，使请求不阻塞调用线程。
+     * </pre>
+     *
+     * @param ip IP地址
+     * @return IP信息的Future，查询异常时以异常完成
+     */
+    default CompletableFuture<IpInfo> queryAsync(String ip) {
+        try {
+            return CompletableFuture.completedFuture(query(ip));
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
     /**
      * 获取数据源名称
      *
@@ -0,0 +1,146 @@
+package cn.hehouhui.ip2region.core;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 延迟直方图，以对数分桶的方式记录响应时间分布，用于计算分位数。
+ * <pre>
+ * 1. 0-15毫秒每毫秒一个桶，之后每个2的幂区间再细分为8个桶，相对误差不超过12.5%
+ * 2. 采用当前窗口+上一窗口的双窗口结构，窗口到期后整体滚动，使分位数反映近期的延迟分布
+ * 3. 记录操作无锁，只涉及一次原子自增
+ * </pre>
+ *
+ * @author HeHui
+ * @date 2025-12-04
+ */
+public class LatencyHistogram {
+
+    private static final int LINEAR_BUCKETS = 16;
+
+    private static final int SUB_BUCKET_BITS = 3;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    // 覆盖到2^20毫秒（约17分钟），足以容纳任何HTTP超时
+    private static final int MAX_EXPONENT = 20;
+
+    private static final int BUCKET_COUNT = LINEAR_BUCKETS + (MAX_EXPONENT - 4 + 1) * SUB_BUCKETS;
+
+    private final long windowMillis;
+
+    private volatile AtomicLongArray current = new AtomicLongArray(BUCKET_COUNT);
+
+    private volatile AtomicLongArray previous = new AtomicLongArray(BUCKET_COUNT);
+
+    private volatile long windowStart = System.currentTimeMillis();
+
+    /**
+     * 构造函数，默认窗口60秒
+     */
+    public LatencyHistogram() {
+        this(60_000);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param windowMillis 窗口长度（毫秒）
+     */
+    public LatencyHistogram(long windowMillis) {
+        this.windowMillis = windowMillis;
+    }
+
+    /**
+     * 记录一次响应时间
+     *
+     * @param millis 响应时间（毫秒）
+     */
+    public void record(long millis) {
+        rotateIfNecessary();
+        current.incrementAndGet(bucketIndex(Math.max(0, millis)));
+    }
+
+    /**
+     * 获取近期样本数
+     *
+     * @return 样本数
+     */
+    public long getCount() {
+        rotateIfNecessary();
+        AtomicLongArray cur = current;
+        AtomicLongArray prev = previous;
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            total += cur.get(i) + prev.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * 计算近期响应时间的分位数
+     *
+     * @param quantile 分位（0.0-1.0），如0.999表示p99.9
+     *
+     * @return 分位数对应的响应时间上界（毫秒），没有样本时返回0
+     */
+    public long percentile(double quantile) {
+        rotateIfNecessary();
+        AtomicLongArray cur = current;
+        AtomicLongArray prev = previous;
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            total += cur.get(i) + prev.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+        // 两次遍历之间桶计数只会增加，第二次遍历的累计值一定能达到目标，无需复制计数
+        long target = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += cur.get(i) + prev.get(i);
+            if (seen >= target) {
+                return bucketUpperBound(i);
+            }
+        }
+        return bucketUpperBound(BUCKET_COUNT - 1);
+    }
+
+    private void rotateIfNecessary() {
+        long now = System.currentTimeMillis();
+        if (now - windowStart < windowMillis) {
+            return;
+        }
+        synchronized (this) {
+            if (now - windowStart < windowMillis) {
+                return;
+            }
+            // 超过两个窗口没有滚动说明期间没有任何数据，上一窗口也应清空
+            previous = now - windowStart < windowMillis * 2 ? current : new AtomicLongArray(BUCKET_COUNT);
+            current = new AtomicLongArray(BUCKET_COUNT);
+            windowStart = now;
+        }
+    }
+
+    private static int bucketIndex(long millis) {
+        if (millis < LINEAR_BUCKETS) {
+            return (int) millis;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(millis);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        int subBucket = (int) ((millis >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+        return LINEAR_BUCKETS + (exponent - 4) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long bucketUpperBound(int index) {
+        if (index < LINEAR_BUCKETS) {
+            return index;
+        }
+        int exponent = (index - LINEAR_BUCKETS) / SUB_BUCKETS + 4;
+        int subBucket = (index - LINEAR_BUCKETS) % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return (1L << exponent) + (subBucket + 1) * width - 1;
+    }
+}
@@ -0,0 +1,61 @@
+package cn.hehouhui.ip2region.core;
+
+/**
+ * 查询截止时间，在当前线程上传递调用方给定的整体超时，供数据源收紧单次请求的超时时间。
+ * <pre>
+ * 截止时间保存在ThreadLocal中，只对在设置线程上计算的超时生效：
+ * 1. {@link IpSource#queryAsync(String)}在调用线程上发起请求时读取一次，之后的回调不再检查
+ * 2. {@link AbstractBatchNetworkIpSource}对单个IP查询做微批处理时在批处理线程上发出请求，不受截止时间约束；
+ *    {@link BatchIpSource#queryBatch(java.util.List)}在调用线程上请求，仍然受约束
+ * 需要整体超时的调用方应对返回的Future自行设置超时。
+ * </pre>
+ *
+ * @author HeHui
+ * @date 2025-12-04
+ */
+public final class QueryDeadline {
+
+    private static final ThreadLocal<Long> DEADLINE = new ThreadLocal<>();
+
+    private QueryDeadline() {
+    }
+
+    /**
+     * 在当前线程上设置截止时间
+     *
+     * @param deadlineNanos 截止时间（{@link System#nanoTime()}时间基准）
+     *
+     * @return 设置前的截止时间，没有时返回null，用于调用结束后恢复
+     */
+    public static Long set(long deadlineNanos) {
+        Long previous = DEADLINE.get();
+        DEADLINE.set(deadlineNanos);
+        return previous;
+    }
+
+    /**
+     * 恢复当前线程之前的截止时间
+     *
+     * @param previous {@link #set(long)}返回的值
+     */
+    public static void restore(Long previous) {
+        if (previous == null) {
+            DEADLINE.remove();
+        } else {
+            DEADLINE.set(previous);
+        }
+    }
+
+    /**
+     * 获取当前线程剩余的可用时间
+     *
+     * @return 剩余毫秒数，没有设置截止时间时返回{@link Long#MAX_VALUE}
+     */
+    public static long remainingMillis() {
+        Long deadline = DEADLINE.get();
+        if (deadline == null) {
+            return Long.MAX_VALUE;
+        }
+        return (deadline - System.nanoTime()) / 1_000_000;
+    }
+}
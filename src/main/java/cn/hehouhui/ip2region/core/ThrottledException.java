@@ -0,0 +1,35 @@
+package cn.hehouhui.ip2region.core;
+
+/**
+ * 数据源被上游限流异常，上游返回429、带重试时间的503或数据源仍处于限流暂停期时抛出。
+ * 与普通查询失败不同，限流不计入数据源的失败统计，调用方应转向其他数据源。
+ *
+ * @author HeHui
+ * @date 2025-12-04
+ */
+public class ThrottledException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long retryAfterMillis;
+
+    /**
+     * 构造函数
+     *
+     * @param message          异常信息
+     * @param retryAfterMillis 距离可以重试的时间（毫秒）
+     */
+    public ThrottledException(String message, long retryAfterMillis) {
+        super(message);
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    /**
+     * 获取距离可以重试的时间
+     *
+     * @return 时间（毫秒）
+     */
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
@@ -0,0 +1,56 @@
+package cn.hehouhui.ip2region.http;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 异步HTTP请求处理器接口，请求结果通过CompletableFuture返回，调用线程不会被阻塞
+ *
+ * @author HeHui
+ * @date 2025-12-04
+ */
+public interface AsyncHttpRequestHandler extends HttpRequestHandler {
+
+    /**
+     * 异步发送HTTP GET请求
+     *
+     * @param url     请求URL
+     * @param timeout 超时时间（毫秒）
+     * @return 响应字符串的Future，网络异常时以IOException异常完成
+     */
+    CompletableFuture<String> getAsync(String url, int timeout);
+
+    /**
+     * 异步发送HTTP POST请求
+     *
+     * @param url     请求URL
+     * @param body    请求体
+     * @param timeout 超时时间（毫秒）
+     * @return 响应字符串的Future，网络异常时以IOException异常完成
+     */
+    CompletableFuture<String> postAsync(String url, String body, int timeout);
+
+    /**
+     * 异步发送HTTP GET请求并返回包含状态码和响应头的完整结果
+     * 默认实现委托给{@link #getAsync(String, int)}，无法获取状态码时视为200
+     *
+     * @param url     请求URL
+     * @param timeout 超时时间（毫秒）
+     * @return 响应结果的Future，网络异常时以IOException异常完成
+     */
+    default CompletableFuture<HttpResult> getResultAsync(String url, int timeout) {
+        return getAsync(url, timeout).thenApply(HttpResult::ok);
+    }
+
+    /**
+     * 异步发送HTTP POST请求并返回包含状态码和响应头的完整结果
+     * 默认实现委托给{@link #postAsync(String, String, int)}，无法获取状态码时视为200
+     *
+     * @param url     请求URL
+     * @param body    请求体
+     * @param timeout 超时时间（毫秒）
+     * @return 响应结果的Future，网络异常时以IOException异常完成
+     */
+    default CompletableFuture<HttpResult> postResultAsync(String url, String body, int timeout) {
+        return postAsync(url, body, timeout).thenApply(HttpResult::ok);
+    }
+}
@@ -0,0 +1,112 @@
+package cn.hehouhui.ip2region.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * 响应体解码工具，按Content-Encoding解压并按Content-Type中的charset解码为字符串。
+ * <pre>
+ * 支持的编码：identity、gzip（x-gzip）、deflate（zlib封装或裸deflate）。
+ * JDK没有内置brotli解码器，因此请求头中不会声明br，服务端仍返回br时视为IO异常。
+ * </pre>
+ *
+ * @author HeHui
+ * @date 2025-12-04
+ */
+public final class ContentDecoder {
+
+    /**
+     * 请求头中声明支持的编码，与本类的解码能力保持一致
+     */
+    public static final String SUPPORTED_ENCODINGS = "gzip, deflate";
+
+    private ContentDecoder() {
+    }
+
+    /**
+     * 解码响应体
+     *
+     * @param body            原始响应体
+     * @param contentEncoding Content-Encoding响应头，可为null
+     * @param contentType     Content-Type响应头，可为null
+     * @return 解码后的字符串
+     * @throws IOException 压缩数据损坏或编码不受支持
+     */
+    public static String decode(byte[] body, String contentEncoding, String contentType) throws IOException {
+        if (body == null || body.length == 0) {
+            return "";
+        }
+        Charset charset = charsetOf(contentType);
+        String encoding = contentEncoding == null ? "" : contentEncoding.trim().toLowerCase(Locale.ROOT);
+        switch (encoding) {
+            case "":
+            case "identity":
+                return new String(body, charset);
+            case "gzip":
+            case "x-gzip":
+                return new String(readFully(new GZIPInputStream(new ByteArrayInputStream(body), 512)), charset);
+            case "deflate":
+                return new String(inflate(body), charset);
+            default:
+                throw new IOException("Unsupported Content-Encoding: " + contentEncoding);
+        }
+    }
+
+    /**
+     * 解压deflate数据，兼容规范的zlib封装和部分服务端返回的裸deflate流
+     *
+     * @param body 压缩数据
+     * @return 解压后的数据
+     * @throws IOException 数据损坏
+     */
+    private static byte[] inflate(byte[] body) throws IOException {
+        // zlib头的第一个字节低4位为8（deflate），且前两个字节按大端序能被31整除
+        boolean zlibWrapped = body.length >= 2 && (body[0] & 0x0F) == 8 && (((body[0] & 0xFF) << 8) | (body[1] & 0xFF)) % 31 == 0;
+        Inflater inflater = new Inflater(!zlibWrapped);
+        try {
+            return readFully(new InflaterInputStream(new ByteArrayInputStream(body), inflater, 512));
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        try (in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(1024);
+            in.transferTo(out);
+            return out.toByteArray();
+        }
+    }
+
+    /**
+     * 从Content-Type中解析字符集，缺省或无法识别时使用UTF-8
+     *
+     * @param contentType Content-Type响应头
+     * @return 字符集
+     */
+    private static Charset charsetOf(String contentType) {
+        if (contentType == null) {
+            return StandardCharsets.UTF_8;
+        }
+        for (String param : contentType.split(";")) {
+            String trimmed = param.trim();
+            if (trimmed.regionMatches(true, 0, "charset=", 0, 8)) {
+                String name = trimmed.substring(8).replace("\"", "").trim();
+                try {
+                    return Charset.forName(name);
+                } catch (IllegalArgumentException e) {
+                    return StandardCharsets.UTF_8;
+                }
+            }
+        }
+        return StandardCharsets.UTF_8;
+    }
+}
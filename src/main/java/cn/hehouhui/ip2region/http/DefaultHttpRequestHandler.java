@@ -1,24 +1,36 @@
 package cn.hehouhui.ip2region.http;
 
+import cn.hehouhui.ip2region.core.DaemonExecutors;
+
 import java.io.IOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
-import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * 默认HTTP请求处理器实现，基于JDK内置的HttpClient
+ * <pre>
+ * 1. 默认构造的实例共享同一个HttpClient，所有数据源复用同一个连接池（keep-alive）
+ * 2. 优先使用HTTP/2，上游不支持时自动降级为HTTP/1.1
+ * 3. 运行在Java 21及以上时使用虚拟线程执行器，否则使用守护线程的缓存线程池
+ * </pre>
  *
  * @author HeHui
  * @date 2025-12-01
  */
-public class DefaultHttpRequestHandler implements HttpRequestHandler {
+public class DefaultHttpRequestHandler implements AsyncHttpRequestHandler {
 
-    private final HttpClient httpClient;
+    private static volatile HttpClient sharedHttpClient;
 
-    private final Random random = new Random();
+    private final HttpClient httpClient;
 
     // 真实的User-Agent列表
     private static final String[] USER_AGENTS = {
@@ -48,10 +60,11 @@ public class DefaultHttpRequestHandler implements HttpRequestHandler {
     };
 
     // 常用的Accept-Encoding头
+    // 只声明ContentDecoder能够解码的编码
     private static final String[] ACCEPT_ENCODING_HEADERS = {
-        "gzip, deflate, br",
-        "gzip, deflate",
-        "br, gzip",
+        ContentDecoder.SUPPORTED_ENCODINGS,
+        "gzip",
+        "deflate, gzip",
         "identity"
     };
 
@@ -64,12 +77,10 @@ public class DefaultHttpRequestHandler implements HttpRequestHandler {
     };
 
     /**
-     * 构造函数，创建默认的HTTP客户端
+     * 构造函数，使用共享的默认HTTP客户端
      */
     public DefaultHttpRequestHandler() {
-        this.httpClient = HttpClient.newBuilder()
-            .connectTimeout(Duration.ofSeconds(5))
-            .build();
+        this.httpClient = sharedHttpClient();
     }
 
     /**
@@ -81,8 +92,130 @@ public class DefaultHttpRequestHandler implements HttpRequestHandler {
         this.httpClient = httpClient;
     }
 
+    /**
+     * 获取共享的默认HTTP客户端，首次调用时创建
+     *
+     * @return HTTP客户端
+     */
+    public static HttpClient sharedHttpClient() {
+        if (sharedHttpClient == null) {
+            synchronized (DefaultHttpRequestHandler.class) {
+                if (sharedHttpClient == null) {
+                    sharedHttpClient = HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_2)
+                        .connectTimeout(Duration.ofSeconds(5))
+                        .executor(defaultExecutor())
+                        .build();
+                }
+            }
+        }
+        return sharedHttpClient;
+    }
+
+    /**
+     * 创建HTTP客户端使用的执行器
+     * Java 21及以上使用虚拟线程，否则使用线程数有上限的守护线程池
+     *
+     * @return 执行器
+     */
+    private static Executor defaultExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return DaemonExecutors.newBoundedPool("http");
+        }
+    }
+
     @Override
     public String get(String url, int timeout) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = httpClient.send(buildGetRequest(url, timeout), HttpResponse.BodyHandlers.ofByteArray());
+        return decodeBody(response);
+    }
+
+    @Override
+    public String post(String url, String body, int timeout) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = httpClient.send(buildPostRequest(url, body, timeout), HttpResponse.BodyHandlers.ofByteArray());
+        return decodeBody(response);
+    }
+
+    @Override
+    public CompletableFuture<String> getAsync(String url, int timeout) {
+        return httpClient.sendAsync(buildGetRequest(url, timeout), HttpResponse.BodyHandlers.ofByteArray())
+            .thenApply(DefaultHttpRequestHandler::decodeBodyUnchecked);
+    }
+
+    @Override
+    public CompletableFuture<String> postAsync(String url, String body, int timeout) {
+        return httpClient.sendAsync(buildPostRequest(url, body, timeout), HttpResponse.BodyHandlers.ofByteArray())
+            .thenApply(DefaultHttpRequestHandler::decodeBodyUnchecked);
+    }
+
+    @Override
+    public HttpResult getResult(String url, int timeout) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = httpClient.send(buildGetRequest(url, timeout), HttpResponse.BodyHandlers.ofByteArray());
+        return toResult(response);
+    }
+
+    @Override
+    public HttpResult postResult(String url, String body, int timeout) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = httpClient.send(buildPostRequest(url, body, timeout), HttpResponse.BodyHandlers.ofByteArray());
+        return toResult(response);
+    }
+
+    @Override
+    public CompletableFuture<HttpResult> getResultAsync(String url, int timeout) {
+        return httpClient.sendAsync(buildGetRequest(url, timeout), HttpResponse.BodyHandlers.ofByteArray())
+            .thenApply(DefaultHttpRequestHandler::toResultUnchecked);
+    }
+
+    @Override
+    public CompletableFuture<HttpResult> postResultAsync(String url, String body, int timeout) {
+        return httpClient.sendAsync(buildPostRequest(url, body, timeout), HttpResponse.BodyHandlers.ofByteArray())
+            .thenApply(DefaultHttpRequestHandler::toResultUnchecked);
+    }
+
+    private static HttpResult toResult(HttpResponse<byte[]> response) throws IOException {
+        return new HttpResult(response.statusCode(), response.headers().map(), decodeBody(response));
+    }
+
+    private static HttpResult toResultUnchecked(HttpResponse<byte[]> response) {
+        try {
+            return toResult(response);
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    /**
+     * 按响应头解压并解码响应体
+     * 响应体均为小体积JSON，先完整接收再解压，解压过程不会阻塞HTTP客户端的执行器
+     *
+     * @param response 原始响应
+     * @return 响应字符串
+     * @throws IOException 压缩数据损坏或编码不受支持
+     */
+    private static String decodeBody(HttpResponse<byte[]> response) throws IOException {
+        return ContentDecoder.decode(response.body(),
+            response.headers().firstValue("Content-Encoding").orElse(null),
+            response.headers().firstValue("Content-Type").orElse(null));
+    }
+
+    private static String decodeBodyUnchecked(HttpResponse<byte[]> response) {
+        try {
+            return decodeBody(response);
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    /**
+     * 构建GET请求
+     *
+     * @param url     请求URL
+     * @param timeout 超时时间（毫秒）
+     * @return 请求
+     */
+    private HttpRequest buildGetRequest(String url, int timeout) {
         HttpRequest.Builder requestBuilder = HttpRequest.newBuilder()
             .uri(URI.create(url))
             .timeout(Duration.ofMillis(timeout))
@@ -91,14 +224,18 @@ public class DefaultHttpRequestHandler implements HttpRequestHandler {
         // 随机添加请求头
         addRandomHeaders(requestBuilder);
 
-        HttpRequest request = requestBuilder.build();
-
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-        return response.body();
+        return requestBuilder.build();
     }
 
-    @Override
-    public String post(String url, String body, int timeout) throws IOException, InterruptedException {
+    /**
+     * 构建POST请求
+     *
+     * @param url     请求URL
+     * @param body    请求体
+     * @param timeout 超时时间（毫秒）
+     * @return 请求
+     */
+    private HttpRequest buildPostRequest(String url, String body, int timeout) {
         HttpRequest.Builder requestBuilder = HttpRequest.newBuilder()
             .uri(URI.create(url))
             .timeout(Duration.ofMillis(timeout))
@@ -108,10 +245,7 @@ public class DefaultHttpRequestHandler implements HttpRequestHandler {
         // 随机添加请求头
         addRandomHeaders(requestBuilder);
 
-        HttpRequest request = requestBuilder.build();
-
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-        return response.body();
+        return requestBuilder.build();
     }
 
     /**
@@ -119,6 +253,7 @@ public class DefaultHttpRequestHandler implements HttpRequestHandler {
      * @param builder 请求构建器
      */
     private void addRandomHeaders(HttpRequest.Builder builder) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
         builder.header("User-Agent", USER_AGENTS[random.nextInt(USER_AGENTS.length)])
                .header("Accept-Language", ACCEPT_LANGUAGE_HEADERS[random.nextInt(ACCEPT_LANGUAGE_HEADERS.length)])
                .header("Accept-Encoding", ACCEPT_ENCODING_HEADERS[random.nextInt(ACCEPT_ENCODING_HEADERS.length)]);
@@ -0,0 +1,240 @@
+package cn.hehouhui.ip2region.http;
+
+import cn.hehouhui.ip2region.core.LatencyHistogram;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.security.Security;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 上游主机DNS缓存，避免建连时同步解析域名带来的延迟抖动
+ * <pre>
+ * 1. 首次访问的主机同步解析，之后由后台线程按固定间隔刷新，请求线程不再等待DNS
+ * 2. 刷新失败时继续使用上一次成功的解析结果，DNS短暂故障不会导致整批请求失败
+ * 3. 同一主机返回多条A/AAAA记录时按轮询方式依次使用
+ * 4. 解析耗时单独记录到延迟直方图，不计入HTTP请求的响应时间
+ * 5. 解析通过{@link InetAddress#getAllByName(String)}完成，同时填充JVM的地址缓存，不使用本缓存的HTTP客户端也能受益；
+ *    共享实例的刷新间隔不超过JVM地址缓存的有效期（networkaddress.cache.ttl），保证JVM缓存不会过期
+ * </pre>
+ *
+ * @author HeHui
+ * @date 2025-12-04
+ */
+public class DnsCache implements AutoCloseable {
+
+    private static volatile DnsCache shared;
+
+    // 未配置networkaddress.cache.ttl时JDK的默认缓存时间（秒）
+    private static final int DEFAULT_JVM_CACHE_TTL_SECONDS = 30;
+
+    private static final long MAX_REFRESH_INTERVAL_MILLIS = 60_000;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService refresher;
+
+    private final LatencyHistogram resolutionHistogram = new LatencyHistogram();
+
+    private final AtomicLong resolutionCount = new AtomicLong(0);
+
+    private final AtomicLong failureCount = new AtomicLong(0);
+
+    /**
+     * 构造函数
+     *
+     * @param refreshIntervalMillis 后台刷新间隔（毫秒）
+     */
+    public DnsCache(long refreshIntervalMillis) {
+        this.refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "auto-ip2region-dns-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.refresher.scheduleWithFixedDelay(this::refreshAll, refreshIntervalMillis, refreshIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 获取共享的DNS缓存，刷新间隔见{@link #defaultRefreshIntervalMillis()}
+     *
+     * @return DNS缓存
+     */
+    public static DnsCache shared() {
+        if (shared == null) {
+            synchronized (DnsCache.class) {
+                if (shared == null) {
+                    shared = new DnsCache(defaultRefreshIntervalMillis());
+                }
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * 默认的刷新间隔：JVM地址缓存的有效期，最长60秒
+     * <pre>
+     * 有效期取自安全属性networkaddress.cache.ttl，其次是系统属性sun.net.inetaddr.ttl，都未配置时为30秒。
+     * 配置为永久缓存（负数）或不缓存（0）时JVM缓存不会因刷新而保持，使用60秒。
+     * </pre>
+     *
+     * @return 刷新间隔（毫秒）
+     */
+    public static long defaultRefreshIntervalMillis() {
+        String ttl = Security.getProperty("networkaddress.cache.ttl");
+        if (ttl == null) {
+            ttl = System.getProperty("sun.net.inetaddr.ttl");
+        }
+        long seconds = DEFAULT_JVM_CACHE_TTL_SECONDS;
+        if (ttl != null) {
+            try {
+                seconds = Long.parseLong(ttl.trim());
+            } catch (NumberFormatException e) {
+                // 无法解析时使用JDK默认值
+            }
+        }
+        if (seconds <= 0) {
+            return MAX_REFRESH_INTERVAL_MILLIS;
+        }
+        return Math.min(MAX_REFRESH_INTERVAL_MILLIS, TimeUnit.SECONDS.toMillis(seconds));
+    }
+
+    /**
+     * 在后台线程预先解析主机，不阻塞调用方；解析失败的主机会在首次使用时再次尝试
+     *
+     * @param hosts 主机名
+     */
+    public void preResolve(Collection<String> hosts) {
+        List<String> copy = List.copyOf(hosts);
+        refresher.execute(() -> {
+            for (String host : copy) {
+                try {
+                    resolve(host);
+                } catch (UnknownHostException ignored) {
+                    // 首次使用时再次解析
+                }
+            }
+        });
+    }
+
+    /**
+     * 获取主机地址，多条记录时轮询返回
+     *
+     * @param host 主机名
+     * @return 地址
+     * @throws UnknownHostException 首次解析失败
+     */
+    public InetAddress resolve(String host) throws UnknownHostException {
+        Entry entry = entries.get(host);
+        if (entry == null) {
+            entry = entries.computeIfAbsent(host, key -> new Entry());
+        }
+        InetAddress[] addresses = entry.addresses;
+        if (addresses == null) {
+            synchronized (entry) {
+                addresses = entry.addresses;
+                if (addresses == null) {
+                    addresses = lookup(host);
+                    entry.addresses = addresses;
+                }
+            }
+        }
+        return addresses[Math.floorMod(entry.cursor.getAndIncrement(), addresses.length)];
+    }
+
+    /**
+     * 获取主机缓存的全部地址
+     *
+     * @param host 主机名
+     * @return 地址，未解析过时返回空数组
+     */
+    public InetAddress[] getCachedAddresses(String host) {
+        Entry entry = entries.get(host);
+        InetAddress[] addresses = entry == null ? null : entry.addresses;
+        return addresses == null ? new InetAddress[0] : addresses.clone();
+    }
+
+    /**
+     * 获取已缓存的主机
+     *
+     * @return 主机名集合
+     */
+    public Set<String> getHosts() {
+        return Set.copyOf(entries.keySet());
+    }
+
+    /**
+     * 获取DNS解析耗时的直方图
+     *
+     * @return 延迟直方图
+     */
+    public LatencyHistogram getResolutionHistogram() {
+        return resolutionHistogram;
+    }
+
+    /**
+     * 获取DNS解析次数（含后台刷新）
+     *
+     * @return 解析次数
+     */
+    public long getResolutionCount() {
+        return resolutionCount.get();
+    }
+
+    /**
+     * 获取DNS解析失败次数（含后台刷新）
+     *
+     * @return 失败次数
+     */
+    public long getFailureCount() {
+        return failureCount.get();
+    }
+
+    /**
+     * 刷新所有已缓存的主机，失败时保留旧的解析结果
+     */
+    public void refreshAll() {
+        for (Map.Entry<String, Entry> item : entries.entrySet()) {
+            try {
+                item.getValue().addresses = lookup(item.getKey());
+            } catch (UnknownHostException ignored) {
+                // 保留上一次成功的结果
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        refresher.shutdownNow();
+    }
+
+    private InetAddress[] lookup(String host) throws UnknownHostException {
+        long startNanos = System.nanoTime();
+        resolutionCount.incrementAndGet();
+        try {
+            InetAddress[] addresses = InetAddress.getAllByName(host);
+            if (addresses.length == 0) {
+                throw new UnknownHostException(host);
+            }
+            return addresses;
+        } catch (UnknownHostException e) {
+            failureCount.incrementAndGet();
+            throw e;
+        } finally {
+            resolutionHistogram.record((System.nanoTime() - startNanos) / 1_000_000);
+        }
+    }
+
+    private static final class Entry {
+        volatile InetAddress[] addresses;
+        final AtomicInteger cursor = new AtomicInteger();
+    }
+}
@@ -0,0 +1,512 @@
+package cn.hehouhui.ip2region.http;
+
+import cn.hehouhui.ip2region.core.DaemonExecutors;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpTimeoutException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 故障注入HTTP请求处理器，装饰真实的处理器，按主机注入延迟、超时、连接重置、429/5xx和损坏的响应体。
+ * <pre>
+ * 1. 每次请求先按URL主机查找脚本，脚本中的故障按顺序逐个消费
+ * 2. 脚本耗尽或未配置时按主机的概率规则随机注入，未配置主机规则时使用"*"规则，都没有时直接透传
+ * 3. 随机数使用固定种子，相同的请求序列得到相同的故障序列，便于对比不同路由配置的p50/p99与成功率；
+ *    所有线程共享同一个随机数生成器，只有单线程按固定顺序发出请求时故障序列才可复现，并发请求的交错顺序不确定
+ * 4. 被装饰的处理器不支持异步时，异步请求在专用的守护线程池上阻塞执行，不占用公共ForkJoinPool
+ * </pre>
+ * 限流和5xx故障不会访问被装饰的处理器；通过只返回响应体的{@link #get(String, int)}调用时，只能拿到错误响应体。
+ *
+ * @author HeHui
+ * @date 2025-12-04
+ */
+public class FaultInjectingHttpRequestHandler implements AsyncHttpRequestHandler {
+
+    /**
+     * 匹配所有主机的规则键
+     */
+    public static final String ANY_HOST = "*";
+
+    private static final ExecutorService BLOCKING_EXECUTOR = DaemonExecutors.newBoundedPool("fault");
+
+    private final HttpRequestHandler delegate;
+
+    private final Random random;
+
+    private final Map<String, FaultRule> rules = new ConcurrentHashMap<>();
+
+    private final Map<String, Queue<Fault>> scripts = new ConcurrentHashMap<>();
+
+    private final Map<FaultType, AtomicLong> injectedCounts = new EnumMap<>(FaultType.class);
+
+    /**
+     * 构造函数
+     *
+     * @param delegate 被装饰的HTTP请求处理器
+     * @param seed     随机种子
+     */
+    public FaultInjectingHttpRequestHandler(HttpRequestHandler delegate, long seed) {
+        this.delegate = delegate;
+        this.random = new Random(seed);
+        for (FaultType type : FaultType.values()) {
+            injectedCounts.put(type, new AtomicLong());
+        }
+    }
+
+    /**
+     * 设置主机的概率规则
+     *
+     * @param host 主机名，{@link #ANY_HOST}表示所有未单独配置的主机
+     * @param rule 概率规则
+     * @return 当前处理器
+     */
+    public FaultInjectingHttpRequestHandler rule(String host, FaultRule rule) {
+        rules.put(host, rule);
+        return this;
+    }
+
+    /**
+     * 追加主机的故障脚本，后续请求按顺序依次注入这些故障
+     *
+     * @param host   主机名
+     * @param faults 故障序列
+     * @return 当前处理器
+     */
+    public FaultInjectingHttpRequestHandler script(String host, Fault... faults) {
+        Queue<Fault> queue = scripts.computeIfAbsent(host, key -> new ArrayDeque<>());
+        synchronized (queue) {
+            queue.addAll(Arrays.asList(faults));
+        }
+        return this;
+    }
+
+    /**
+     * 清除所有规则和脚本
+     */
+    public void reset() {
+        rules.clear();
+        scripts.clear();
+    }
+
+    /**
+     * 获取已注入的故障次数
+     *
+     * @param type 故障类型
+     * @return 注入次数
+     */
+    public long getInjectedCount(FaultType type) {
+        return injectedCounts.get(type).get();
+    }
+
+    @Override
+    public String get(String url, int timeout) throws IOException, InterruptedException {
+        return getResult(url, timeout).getBody();
+    }
+
+    @Override
+    public String post(String url, String body, int timeout) throws IOException, InterruptedException {
+        return postResult(url, body, timeout).getBody();
+    }
+
+    @Override
+    public HttpResult getResult(String url, int timeout) throws IOException, InterruptedException {
+        Fault fault = nextFault(url);
+        delay(fault, timeout);
+        HttpResult injected = injectedResult(fault);
+        if (injected != null) {
+            return injected;
+        }
+        return corruptIfNeeded(fault, delegate.getResult(url, timeout));
+    }
+
+    @Override
+    public HttpResult postResult(String url, String body, int timeout) throws IOException, InterruptedException {
+        Fault fault = nextFault(url);
+        delay(fault, timeout);
+        HttpResult injected = injectedResult(fault);
+        if (injected != null) {
+            return injected;
+        }
+        return corruptIfNeeded(fault, delegate.postResult(url, body, timeout));
+    }
+
+    @Override
+    public CompletableFuture<String> getAsync(String url, int timeout) {
+        return getResultAsync(url, timeout).thenApply(HttpResult::getBody);
+    }
+
+    @Override
+    public CompletableFuture<String> postAsync(String url, String body, int timeout) {
+        return postResultAsync(url, body, timeout).thenApply(HttpResult::getBody);
+    }
+
+    @Override
+    public CompletableFuture<HttpResult> getResultAsync(String url, int timeout) {
+        Fault fault = nextFault(url);
+        return injectAsync(fault, timeout, () -> delegate instanceof AsyncHttpRequestHandler async
+            ? async.getResultAsync(url, timeout)
+            : blocking(() -> delegate.getResult(url, timeout)));
+    }
+
+    @Override
+    public CompletableFuture<HttpResult> postResultAsync(String url, String body, int timeout) {
+        Fault fault = nextFault(url);
+        return injectAsync(fault, timeout, () -> delegate instanceof AsyncHttpRequestHandler async
+            ? async.postResultAsync(url, body, timeout)
+            : blocking(() -> delegate.postResult(url, body, timeout)));
+    }
+
+    /**
+     * 异步注入故障，延迟通过延迟执行器实现，不占用调用线程
+     *
+     * @param fault   故障
+     * @param timeout 超时时间（毫秒）
+     * @param request 发送真实请求
+     * @return 响应结果的Future
+     */
+    private CompletableFuture<HttpResult> injectAsync(Fault fault, int timeout, AsyncRequest request) {
+        long delay = Math.min(fault.latencyMillis, timeout);
+        boolean timedOut = fault.type == FaultType.TIMEOUT || fault.latencyMillis >= timeout;
+        if (fault.type == FaultType.TIMEOUT) {
+            delay = timeout;
+        }
+        CompletableFuture<Void> delayed = delay > 0
+            ? CompletableFuture.runAsync(() -> { }, CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS))
+            : CompletableFuture.completedFuture(null);
+        return delayed.thenCompose(ignored -> {
+            if (timedOut) {
+                return CompletableFuture.failedFuture(new HttpTimeoutException("request timed out"));
+            }
+            if (fault.type == FaultType.CONNECTION_RESET) {
+                return CompletableFuture.failedFuture(new IOException("Connection reset"));
+            }
+            HttpResult injected = injectedResult(fault);
+            if (injected != null) {
+                return CompletableFuture.completedFuture(injected);
+            }
+            return request.send().thenApply(result -> corruptIfNeeded(fault, result));
+        });
+    }
+
+    private static CompletableFuture<HttpResult> blocking(BlockingRequest request) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return request.send();
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
+            }
+        }, BLOCKING_EXECUTOR);
+    }
+
+    /**
+     * 选择本次请求注入的故障
+     *
+     * @param url 请求URL
+     * @return 故障
+     */
+    private Fault nextFault(String url) {
+        String host = URI.create(url).getHost();
+        Fault fault = null;
+        Queue<Fault> script = host == null ? null : scripts.get(host);
+        if (script != null) {
+            synchronized (script) {
+                fault = script.poll();
+            }
+        }
+        if (fault == null) {
+            FaultRule rule = host == null ? null : rules.get(host);
+            if (rule == null) {
+                rule = rules.get(ANY_HOST);
+            }
+            if (rule != null) {
+                synchronized (random) {
+                    fault = rule.sample(random);
+                }
+            }
+        }
+        if (fault == null) {
+            fault = Fault.none();
+        }
+        injectedCounts.get(fault.type).incrementAndGet();
+        return fault;
+    }
+
+    private static void delay(Fault fault, int timeout) throws IOException, InterruptedException {
+        if (fault.type == FaultType.TIMEOUT) {
+            Thread.sleep(timeout);
+            throw new HttpTimeoutException("request timed out");
+        }
+        if (fault.latencyMillis > 0) {
+            Thread.sleep(Math.min(fault.latencyMillis, timeout));
+            if (fault.latencyMillis >= timeout) {
+                throw new HttpTimeoutException("request timed out");
+            }
+        }
+        if (fault.type == FaultType.CONNECTION_RESET) {
+            throw new IOException("Connection reset");
+        }
+    }
+
+    private static HttpResult injectedResult(Fault fault) {
+        switch (fault.type) {
+            case THROTTLE:
+                return new HttpResult(429, Map.of("Retry-After", List.of(String.valueOf(fault.retryAfterSeconds))),
+                    "{\"error\":\"Too Many Requests\"}");
+            case SERVER_ERROR:
+                return new HttpResult(fault.statusCode, Map.of(),
+                    "<html><body><h1>" + fault.statusCode + " Server Error</h1></body></html>");
+            default:
+                return null;
+        }
+    }
+
+    private static HttpResult corruptIfNeeded(Fault fault, HttpResult result) {
+        if (fault.type != FaultType.CORRUPT_BODY || result.getBody() == null) {
+            return result;
+        }
+        // 截断响应体，模拟连接中途断开或代理返回的不完整JSON
+        String body = result.getBody();
+        return new HttpResult(result.getStatusCode(), result.getHeaders(), body.substring(0, body.length() / 2));
+    }
+
+    @FunctionalInterface
+    private interface AsyncRequest {
+        CompletableFuture<HttpResult> send();
+    }
+
+    @FunctionalInterface
+    private interface BlockingRequest {
+        HttpResult send() throws IOException, InterruptedException;
+    }
+
+    /**
+     * 故障类型
+     */
+    public enum FaultType {
+        /**
+         * 不注入故障，可能带有额外延迟
+         */
+        NONE,
+        /**
+         * 等待到超时时间后抛出HttpTimeoutException
+         */
+        TIMEOUT,
+        /**
+         * 抛出连接重置的IOException
+         */
+        CONNECTION_RESET,
+        /**
+         * 返回429和Retry-After
+         */
+        THROTTLE,
+        /**
+         * 返回5xx
+         */
+        SERVER_ERROR,
+        /**
+         * 截断真实的响应体
+         */
+        CORRUPT_BODY
+    }
+
+    /**
+     * 单次注入的故障
+     */
+    public static final class Fault {
+
+        private final FaultType type;
+
+        private final long latencyMillis;
+
+        private final int statusCode;
+
+        private final long retryAfterSeconds;
+
+        private Fault(FaultType type, long latencyMillis, int statusCode, long retryAfterSeconds) {
+            this.type = type;
+            this.latencyMillis = latencyMillis;
+            this.statusCode = statusCode;
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        public static Fault none() {
+            return new Fault(FaultType.NONE, 0, 0, 0);
+        }
+
+        public static Fault latency(long millis) {
+            return new Fault(FaultType.NONE, millis, 0, 0);
+        }
+
+        public static Fault timeout() {
+            return new Fault(FaultType.TIMEOUT, 0, 0, 0);
+        }
+
+        public static Fault connectionReset() {
+            return new Fault(FaultType.CONNECTION_RESET, 0, 0, 0);
+        }
+
+        public static Fault throttle(long retryAfterSeconds) {
+            return new Fault(FaultType.THROTTLE, 0, 429, retryAfterSeconds);
+        }
+
+        public static Fault serverError(int statusCode) {
+            return new Fault(FaultType.SERVER_ERROR, 0, statusCode, 0);
+        }
+
+        public static Fault corruptBody() {
+            return new Fault(FaultType.CORRUPT_BODY, 0, 0, 0);
+        }
+
+        /**
+         * 在当前故障上叠加延迟
+         *
+         * @param millis 延迟（毫秒）
+         * @return 新的故障
+         */
+        public Fault withLatency(long millis) {
+            return new Fault(type, millis, statusCode, retryAfterSeconds);
+        }
+
+        public FaultType getType() {
+            return type;
+        }
+    }
+
+    /**
+     * 概率故障规则，每次请求先按均匀分布生成延迟，再按各故障概率抽取一种故障
+     */
+    public static final class FaultRule {
+
+        private final long minLatencyMillis;
+
+        private final long maxLatencyMillis;
+
+        private final double timeoutRate;
+
+        private final double resetRate;
+
+        private final double throttleRate;
+
+        private final double serverErrorRate;
+
+        private final double corruptRate;
+
+        private final long retryAfterSeconds;
+
+        private FaultRule(Builder builder) {
+            this.minLatencyMillis = builder.minLatencyMillis;
+            this.maxLatencyMillis = builder.maxLatencyMillis;
+            this.timeoutRate = builder.timeoutRate;
+            this.resetRate = builder.resetRate;
+            this.throttleRate = builder.throttleRate;
+            this.serverErrorRate = builder.serverErrorRate;
+            this.corruptRate = builder.corruptRate;
+            this.retryAfterSeconds = builder.retryAfterSeconds;
+        }
+
+        public static Builder builder() {
+            return new Builder();
+        }
+
+        private Fault sample(Random random) {
+            long latency = minLatencyMillis + (long) (random.nextDouble() * (maxLatencyMillis - minLatencyMillis));
+            double roll = random.nextDouble();
+            Fault fault;
+            if ((roll -= timeoutRate) < 0) {
+                fault = Fault.timeout();
+            } else if ((roll -= resetRate) < 0) {
+                fault = Fault.connectionReset();
+            } else if ((roll -= throttleRate) < 0) {
+                fault = Fault.throttle(retryAfterSeconds);
+            } else if ((roll -= serverErrorRate) < 0) {
+                fault = Fault.serverError(random.nextBoolean() ? 500 : 502);
+            } else if (roll - corruptRate < 0) {
+                fault = Fault.corruptBody();
+            } else {
+                fault = Fault.none();
+            }
+            return fault.withLatency(latency);
+        }
+
+        /**
+         * 概率故障规则构建器
+         */
+        public static final class Builder {
+
+            private long minLatencyMillis;
+
+            private long maxLatencyMillis;
+
+            private double timeoutRate;
+
+            private double resetRate;
+
+            private double throttleRate;
+
+            private double serverErrorRate;
+
+            private double corruptRate;
+
+            private long retryAfterSeconds = 1;
+
+            private Builder() {
+            }
+
+            public Builder latency(long minMillis, long maxMillis) {
+                this.minLatencyMillis = minMillis;
+                this.maxLatencyMillis = maxMillis;
+                return this;
+            }
+
+            public Builder timeoutRate(double timeoutRate) {
+                this.timeoutRate = timeoutRate;
+                return this;
+            }
+
+            public Builder resetRate(double resetRate) {
+                this.resetRate = resetRate;
+                return this;
+            }
+
+            public Builder throttleRate(double throttleRate, long retryAfterSeconds) {
+                this.throttleRate = throttleRate;
+                this.retryAfterSeconds = retryAfterSeconds;
+                return this;
+            }
+
+            public Builder serverErrorRate(double serverErrorRate) {
+                this.serverErrorRate = serverErrorRate;
+                return this;
+            }
+
+            public Builder corruptRate(double corruptRate) {
+                this.corruptRate = corruptRate;
+                return this;
+            }
+
+            public FaultRule build() {
+                if (maxLatencyMillis < minLatencyMillis
+                    || timeoutRate + resetRate + throttleRate + serverErrorRate + corruptRate > 1.0) {
+                    throw new IllegalArgumentException("Invalid fault rule");
+                }
+                return new FaultRule(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package cn.hehouhui.ip2region.http;
+
+import java.net.URI;
+
+/**
+ * 一次HTTP调用的描述，在拦截器链中传递，拦截器可基于它派生新的调用（例如缩短超时时间）
+ *
+ * @author HeHui
+ * @date 2025-12-04
+ */
+public final class HttpCall {
+
+    /**
+     * 请求方法
+     */
+    public enum Method {
+        GET, POST
+    }
+
+    private final Method method;
+
+    private final String url;
+
+    private final String body;
+
+    private final int timeout;
+
+    private String host;
+
+    /**
+     * 构造函数
+     *
+     * @param method  请求方法
+     * @param url     请求URL
+     * @param body    请求体，GET请求为null
+     * @param timeout 超时时间（毫秒）
+     */
+    public HttpCall(Method method, String url, String body, int timeout) {
+        this.method = method;
+        this.url = url;
+        this.body = body;
+        this.timeout = timeout;
+    }
+
+    public static HttpCall get(String url, int timeout) {
+        return new HttpCall(Method.GET, url, null, timeout);
+    }
+
+    public static HttpCall post(String url, String body, int timeout) {
+        return new HttpCall(Method.POST, url, body, timeout);
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public int getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * 获取请求URL中的主机名，首次调用时解析
+     *
+     * @return 主机名，URL无法解析时返回空字符串
+     */
+    public String getHost() {
+        String cached = host;
+        if (cached == null) {
+            try {
+                cached = URI.create(url).getHost();
+            } catch (IllegalArgumentException e) {
+                cached = null;
+            }
+            cached = cached == null ? "" : cached;
+            host = cached;
+        }
+        return cached;
+    }
+
+    /**
+     * 派生超时时间不同的调用
+     *
+     * @param timeout 超时时间（毫秒）
+     * @return 新的调用
+     */
+    public HttpCall withTimeout(int timeout) {
+        return new HttpCall(method, url, body, timeout);
+    }
+
+    @Override
+    public String toString() {
+        return method + " " + url;
+    }
+}
@@ -0,0 +1,79 @@
+package cn.hehouhui.ip2region.http;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * HTTP拦截器，在{@link InterceptingHttpRequestHandler}中按安装顺序组成拦截器链，
+ * 用于在不修改数据源的情况下添加计时、重试、追踪等横切逻辑。
+ * <p>
+ * 同步请求经过{@link #intercept(Chain)}，异步请求经过{@link #interceptAsync(Chain)}。
+ * 只实现同步方法的拦截器在异步请求中会在调用线程上同步执行其后的整条链，需要非阻塞时应同时实现异步方法。
+ *
+ * @author HeHui
+ * @date 2025-12-04
+ */
+@FunctionalInterface
+public interface HttpInterceptor {
+
+    /**
+     * 拦截一次HTTP调用
+     * 实现通常在调用{@link Chain#proceed(HttpCall)}前后添加逻辑，也可以多次调用（重试）或不调用（短路）
+     *
+     * @param chain 拦截器链
+     * @return 响应结果
+     * @throws IOException          IO异常
+     * @throws InterruptedException 中断异常
+     */
+    HttpResult intercept(Chain chain) throws IOException, InterruptedException;
+
+    /**
+     * 异步拦截一次HTTP调用
+     * 实现通常把逻辑组合为{@link Chain#proceedAsync(HttpCall)}返回的Future的后续阶段，不阻塞调用线程；
+     * 默认实现在调用线程上执行{@link #intercept(Chain)}
+     *
+     * @param chain 拦截器链
+     * @return 响应结果的Future，失败时以IOException等异常完成
+     */
+    default CompletableFuture<HttpResult> interceptAsync(Chain chain) {
+        try {
+            return CompletableFuture.completedFuture(intercept(chain));
+        } catch (IOException | RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * 拦截器链
+     */
+    interface Chain {
+
+        /**
+         * 获取当前调用
+         *
+         * @return 当前调用
+         */
+        HttpCall call();
+
+        /**
+         * 将调用交给下一个拦截器，最后一个拦截器之后由被装饰的处理器发送请求
+         *
+         * @param call 调用
+         * @return 响应结果
+         * @throws IOException          IO异常
+         * @throws InterruptedException 中断异常
+         */
+        HttpResult proceed(HttpCall call) throws IOException, InterruptedException;
+
+        /**
+         * 异步地将调用交给下一个拦截器，最后一个拦截器之后由被装饰的处理器的异步接口发送请求
+         *
+         * @param call 调用
+         * @return 响应结果的Future
+         */
+        CompletableFuture<HttpResult> proceedAsync(HttpCall call);
+    }
+}
@@ -36,5 +36,32 @@ public interface HttpRequestHandler {
      */
     String post(String url, String body, int timeout) throws IOException, InterruptedException;
 
+    /**
+     * 发送HTTP GET请求并返回包含状态码和响应头的完整结果
+     * 默认实现委托给{@link #get(String, int)}，无法获取状态码时视为200
+     *
+     * @param url     请求URL
+     * @param timeout 超时时间（毫秒）
+     * @return 响应结果
+     * @throws IOException          IO异常
+     * @throws InterruptedException 中断异常
+     */
+    default HttpResult getResult(String url, int timeout) throws IOException, InterruptedException {
+        return HttpResult.ok(get(url, timeout));
+    }
 
+    /**
+     * 发送HTTP POST请求并返回包含状态码和响应头的完整结果
+     * 默认实现委托给{@link #post(String, String, int)}，无法获取状态码时视为200
+     *
+     * @param url     请求URL
+     * @param body    请求体
+     * @param timeout 超时时间（毫秒）
+     * @return 响应结果
+     * @throws IOException          IO异常
+     * @throws InterruptedException 中断异常
+     */
+    default HttpResult postResult(String url, String body, int timeout) throws IOException, InterruptedException {
+        return HttpResult.ok(post(url, body, timeout));
+    }
 }
@@ -0,0 +1,163 @@
+package cn.hehouhui.ip2region.http;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * HTTP响应结果，包含状态码、响应头和解码后的响应体
+ *
+ * @author HeHui
+ * @date 2025-12-04
+ */
+public class HttpResult {
+
+    // 大于该值的限流重置时间视为Unix时间戳（秒），否则视为剩余秒数
+    private static final long EPOCH_SECONDS_THRESHOLD = 1_000_000_000L;
+
+    private final int statusCode;
+
+    private final Map<String, List<String>> headers;
+
+    private final String body;
+
+    /**
+     * 构造函数
+     *
+     * @param statusCode 状态码
+     * @param headers    响应头，名称不区分大小写
+     * @param body       响应体
+     */
+    public HttpResult(int statusCode, Map<String, List<String>> headers, String body) {
+        this.statusCode = statusCode;
+        Map<String, List<String>> caseInsensitive = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        if (headers != null) {
+            caseInsensitive.putAll(headers);
+        }
+        this.headers = Collections.unmodifiableMap(caseInsensitive);
+        this.body = body;
+    }
+
+    /**
+     * 创建只包含响应体的成功结果，用于只能返回响应体的请求处理器
+     *
+     * @param body 响应体
+     * @return 响应结果
+     */
+    public static HttpResult ok(String body) {
+        return new HttpResult(200, Map.of(), body);
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public Map<String, List<String>> getHeaders() {
+        return headers;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    /**
+     * 获取响应头的第一个值
+     *
+     * @param name 响应头名称，不区分大小写
+     * @return 响应头的值
+     */
+    public Optional<String> header(String name) {
+        List<String> values = headers.get(name);
+        if (values == null || values.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(values.get(0));
+    }
+
+    /**
+     * 是否为2xx状态码
+     *
+     * @return 是否成功
+     */
+    public boolean isSuccessful() {
+        return statusCode >= 200 && statusCode < 300;
+    }
+
+    /**
+     * 是否被上游限流
+     * <pre>
+     * 1. 429 Too Many Requests总是视为限流
+     * 2. 503 Service Unavailable只有带有重试时间（见{@link #retryAfterMillis()}）时才视为限流，否则属于普通的服务端错误
+     * </pre>
+     *
+     * @return 是否被限流
+     */
+    public boolean isThrottled() {
+        return statusCode == 429 || (statusCode == 503 && retryAfterMillis().isPresent());
+    }
+
+    /**
+     * 解析上游要求的重试等待时间
+     * <pre>
+     * 按以下顺序读取响应头，取第一个能解析的值：
+     * 1. Retry-After：秒数或HTTP日期
+     * 2. RateLimit-Reset、X-RateLimit-Reset：剩余秒数，或Unix时间戳（秒）
+     * </pre>
+     *
+     * @return 重试等待时间（毫秒），响应头缺失或无法解析时返回empty
+     */
+    public Optional<Long> retryAfterMillis() {
+        Optional<Long> retryAfter = header("Retry-After").flatMap(HttpResult::parseRetryAfter);
+        if (retryAfter.isPresent()) {
+            return retryAfter;
+        }
+        for (String name : new String[]{"RateLimit-Reset", "X-RateLimit-Reset"}) {
+            Optional<Long> reset = header(name).flatMap(HttpResult::parseReset);
+            if (reset.isPresent()) {
+                return reset;
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static Optional<Long> parseRetryAfter(String value) {
+        String trimmed = value.trim();
+        try {
+            return Optional.of(Math.max(0, Long.parseLong(trimmed)) * 1000);
+        } catch (NumberFormatException ignored) {
+            // 不是秒数，尝试按HTTP日期解析
+        }
+        try {
+            long until = ZonedDateTime.parse(trimmed, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+            return Optional.of(Math.max(0, until - System.currentTimeMillis()));
+        } catch (DateTimeParseException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static Optional<Long> parseReset(String value) {
+        try {
+            // 部分实现返回小数秒
+            double seconds = Double.parseDouble(value.trim());
+            if (seconds > EPOCH_SECONDS_THRESHOLD) {
+                return Optional.of(Math.max(0, (long) (seconds * 1000) - System.currentTimeMillis()));
+            }
+            return Optional.of((long) (Math.max(0, seconds) * 1000));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "HttpResult{" +
+            "statusCode=" + statusCode +
+            ", body='" + body + '\'' +
+            '}';
+    }
+}
@@ -0,0 +1,198 @@
+package cn.hehouhui.ip2region.http;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 支持拦截器链的HTTP请求处理器，装饰真实的处理器
+ * <pre>
+ * 1. 拦截器按安装顺序执行，第一个安装的拦截器位于最外层
+ * 2. 拦截器可以在运行期间添加或移除，正在执行的调用不受影响
+ * 3. 没有安装任何拦截器时直接调用被装饰的处理器，不创建拦截器链
+ * 4. 异步请求经过各拦截器的{@link HttpInterceptor#interceptAsync(HttpInterceptor.Chain)}，
+ *    链尾使用被装饰的处理器的异步接口，不占用额外线程；被装饰的处理器不支持异步时在调用线程上同步发送
+ * </pre>
+ *
+ * @author HeHui
+ * @date 2025-12-04
+ */
+public class InterceptingHttpRequestHandler implements AsyncHttpRequestHandler {
+
+    private final HttpRequestHandler delegate;
+
+    private final List<HttpInterceptor> interceptors = new CopyOnWriteArrayList<>();
+
+    /**
+     * 构造函数
+     *
+     * @param delegate     被装饰的HTTP请求处理器
+     * @param interceptors 拦截器
+     */
+    public InterceptingHttpRequestHandler(HttpRequestHandler delegate, HttpInterceptor... interceptors) {
+        this.delegate = delegate;
+        this.interceptors.addAll(List.of(interceptors));
+    }
+
+    /**
+     * 在链尾添加拦截器
+     *
+     * @param interceptor 拦截器
+     * @return 当前处理器
+     */
+    public InterceptingHttpRequestHandler addInterceptor(HttpInterceptor interceptor) {
+        interceptors.add(interceptor);
+        return this;
+    }
+
+    /**
+     * 移除拦截器
+     *
+     * @param interceptor 拦截器
+     * @return 是否移除成功
+     */
+    public boolean removeInterceptor(HttpInterceptor interceptor) {
+        return interceptors.remove(interceptor);
+    }
+
+    /**
+     * 获取已安装的拦截器
+     *
+     * @return 拦截器列表（只读快照）
+     */
+    public List<HttpInterceptor> getInterceptors() {
+        return List.copyOf(interceptors);
+    }
+
+    @Override
+    public String get(String url, int timeout) throws IOException, InterruptedException {
+        if (interceptors.isEmpty()) {
+            return delegate.get(url, timeout);
+        }
+        return execute(HttpCall.get(url, timeout)).getBody();
+    }
+
+    @Override
+    public String post(String url, String body, int timeout) throws IOException, InterruptedException {
+        if (interceptors.isEmpty()) {
+            return delegate.post(url, body, timeout);
+        }
+        return execute(HttpCall.post(url, body, timeout)).getBody();
+    }
+
+    @Override
+    public HttpResult getResult(String url, int timeout) throws IOException, InterruptedException {
+        if (interceptors.isEmpty()) {
+            return delegate.getResult(url, timeout);
+        }
+        return execute(HttpCall.get(url, timeout));
+    }
+
+    @Override
+    public HttpResult postResult(String url, String body, int timeout) throws IOException, InterruptedException {
+        if (interceptors.isEmpty()) {
+            return delegate.postResult(url, body, timeout);
+        }
+        return execute(HttpCall.post(url, body, timeout));
+    }
+
+    @Override
+    public CompletableFuture<String> getAsync(String url, int timeout) {
+        return getResultAsync(url, timeout).thenApply(HttpResult::getBody);
+    }
+
+    @Override
+    public CompletableFuture<String> postAsync(String url, String body, int timeout) {
+        return postResultAsync(url, body, timeout).thenApply(HttpResult::getBody);
+    }
+
+    @Override
+    public CompletableFuture<HttpResult> getResultAsync(String url, int timeout) {
+        if (interceptors.isEmpty()) {
+            return sendAsync(HttpCall.get(url, timeout));
+        }
+        return executeAsync(HttpCall.get(url, timeout));
+    }
+
+    @Override
+    public CompletableFuture<HttpResult> postResultAsync(String url, String body, int timeout) {
+        if (interceptors.isEmpty()) {
+            return sendAsync(HttpCall.post(url, body, timeout));
+        }
+        return executeAsync(HttpCall.post(url, body, timeout));
+    }
+
+    private HttpResult execute(HttpCall call) throws IOException, InterruptedException {
+        // 使用快照，调用过程中增删拦截器不影响本次调用
+        return new RealChain(List.copyOf(interceptors), 0, call).proceed(call);
+    }
+
+    private CompletableFuture<HttpResult> executeAsync(HttpCall call) {
+        return new RealChain(List.copyOf(interceptors), 0, call).proceedAsync(call);
+    }
+
+    private HttpResult send(HttpCall call) throws IOException, InterruptedException {
+        if (call.getMethod() == HttpCall.Method.POST) {
+            return delegate.postResult(call.getUrl(), call.getBody(), call.getTimeout());
+        }
+        return delegate.getResult(call.getUrl(), call.getTimeout());
+    }
+
+    private CompletableFuture<HttpResult> sendAsync(HttpCall call) {
+        if (delegate instanceof AsyncHttpRequestHandler async) {
+            if (call.getMethod() == HttpCall.Method.POST) {
+                return async.postResultAsync(call.getUrl(), call.getBody(), call.getTimeout());
+            }
+            return async.getResultAsync(call.getUrl(), call.getTimeout());
+        }
+        try {
+            return CompletableFuture.completedFuture(send(call));
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private final class RealChain implements HttpInterceptor.Chain {
+
+        private final List<HttpInterceptor> interceptors;
+
+        private final int index;
+
+        private final HttpCall call;
+
+        RealChain(List<HttpInterceptor> interceptors, int index, HttpCall call) {
+            this.interceptors = interceptors;
+            this.index = index;
+            this.call = call;
+        }
+
+        @Override
+        public HttpCall call() {
+            return call;
+        }
+
+        @Override
+        public HttpResult proceed(HttpCall call) throws IOException, InterruptedException {
+            if (index >= interceptors.size()) {
+                return send(call);
+            }
+            return interceptors.get(index).intercept(new RealChain(interceptors, index + 1, call));
+        }
+
+        @Override
+        public CompletableFuture<HttpResult> proceedAsync(HttpCall call) {
+            if (index >= interceptors.size()) {
+                return sendAsync(call);
+            }
+            try {
+                return interceptors.get(index).interceptAsync(new RealChain(interceptors, index + 1, call));
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,613 @@
+package cn.hehouhui.ip2region.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 基于NIO SocketChannel的精简HTTP/1.1客户端，针对小GET请求、小JSON响应的IP查询场景
+ * <pre>
+ * 1. 按host:port维护keep-alive连接池，连接复用期间不重复建连
+ * 2. 每个host:port预先编码请求模板，发送时只需写入路径部分
+ * 3. 每个连接持有固定的直接缓冲区和Selector，读写超时通过Selector实现，不创建额外线程
+ * 4. 只处理http://的GET请求；https://与POST请求交给回退处理器（默认为{@link DefaultHttpRequestHandler}）
+ * 5. 复用的连接已被对端关闭时，使用新连接重发一次（GET请求是幂等的）
+ * 6. 主机地址通过{@link DnsCache}获取，建连时不同步等待DNS，某个地址连接失败时尝试下一条记录
+ * </pre>
+ *
+ * @author HeHui
+ * @date 2025-12-04
+ */
+public class NioHttpRequestHandler implements HttpRequestHandler, AutoCloseable {
+
+    private static final String USER_AGENT = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/131.0.0.0 Safari/537.36";
+
+    private static final byte[] GET_PREFIX = "GET ".getBytes(StandardCharsets.US_ASCII);
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    // 状态行和响应头的最大长度
+    private static final int MAX_LINE_LENGTH = 8 * 1024;
+
+    // 响应体的最大长度，IP查询接口的响应通常只有几百字节
+    private static final int MAX_BODY_SIZE = 1024 * 1024;
+
+    private final HttpRequestHandler fallback;
+
+    private final int maxIdlePerHost;
+
+    private final long keepAliveMillis;
+
+    private final DnsCache dnsCache;
+
+    private final Map<String, Deque<Connection>> pool = new ConcurrentHashMap<>();
+
+    private final Map<String, byte[]> templates = new ConcurrentHashMap<>();
+
+    // 记录新建连接的次数，用于观察连接复用情况
+    private final AtomicLong openedConnections = new AtomicLong(0);
+
+    /**
+     * 构造函数，https与POST请求使用默认HTTP请求处理器
+     */
+    public NioHttpRequestHandler() {
+        this(new DefaultHttpRequestHandler(), 8, 30_000);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param fallback        处理https与POST请求的回退处理器
+     * @param maxIdlePerHost  每个host:port最多保留的空闲连接数
+     * @param keepAliveMillis 空闲连接的最长保留时间（毫秒）
+     */
+    public NioHttpRequestHandler(HttpRequestHandler fallback, int maxIdlePerHost, long keepAliveMillis) {
+        this(fallback, maxIdlePerHost, keepAliveMillis, DnsCache.shared());
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param fallback        处理https与POST请求的回退处理器
+     * @param maxIdlePerHost  每个host:port最多保留的空闲连接数
+     * @param keepAliveMillis 空闲连接的最长保留时间（毫秒）
+     * @param dnsCache        DNS缓存
+     */
+    public NioHttpRequestHandler(HttpRequestHandler fallback, int maxIdlePerHost, long keepAliveMillis, DnsCache dnsCache) {
+        this.fallback = fallback;
+        this.maxIdlePerHost = maxIdlePerHost;
+        this.keepAliveMillis = keepAliveMillis;
+        this.dnsCache = dnsCache;
+    }
+
+    @Override
+    public String get(String url, int timeout) throws IOException, InterruptedException {
+        return getResult(url, timeout).getBody();
+    }
+
+    @Override
+    public String post(String url, String body, int timeout) throws IOException, InterruptedException {
+        return fallback.post(url, body, timeout);
+    }
+
+    @Override
+    public HttpResult getResult(String url, int timeout) throws IOException, InterruptedException {
+        URI uri = URI.create(url);
+        if (!"http".equalsIgnoreCase(uri.getScheme()) || uri.getHost() == null) {
+            return fallback.getResult(url, timeout);
+        }
+        String host = uri.getHost();
+        int port = uri.getPort() < 0 ? 80 : uri.getPort();
+        String key = host + ":" + port;
+        // 请求行按字节写出，非ASCII字符先按UTF-8百分号编码
+        URI ascii = URI.create(uri.toASCIIString());
+        String path = ascii.getRawPath() == null || ascii.getRawPath().isEmpty() ? "/" : ascii.getRawPath();
+        if (ascii.getRawQuery() != null) {
+            path = path + "?" + ascii.getRawQuery();
+        }
+        long deadline = System.nanoTime() + timeout * 1_000_000L;
+
+        Connection connection = acquire(key);
+        boolean reused = connection != null;
+        if (connection == null) {
+            connection = connect(key, host, port, deadline);
+        }
+        try {
+            return exchange(connection, key, path, deadline);
+        } catch (StaleConnectionException e) {
+            connection.close();
+            if (!reused) {
+                throw new IOException("Connection closed by peer", e);
+            }
+            // 复用的连接在空闲期间被对端关闭，换新连接重发
+            Connection fresh = connect(key, host, port, deadline);
+            try {
+                return exchange(fresh, key, path, deadline);
+            } catch (StaleConnectionException retryError) {
+                fresh.close();
+                throw new IOException("Connection closed by peer", retryError);
+            } catch (IOException | RuntimeException retryError) {
+                fresh.close();
+                throw retryError;
+            }
+        } catch (IOException | RuntimeException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 获取新建连接的次数
+     *
+     * @return 新建连接次数
+     */
+    public long getOpenedConnectionCount() {
+        return openedConnections.get();
+    }
+
+    /**
+     * 获取DNS缓存
+     *
+     * @return DNS缓存
+     */
+    public DnsCache getDnsCache() {
+        return dnsCache;
+    }
+
+    /**
+     * 关闭所有空闲连接
+     */
+    @Override
+    public void close() {
+        for (Deque<Connection> connections : pool.values()) {
+            Connection connection;
+            while ((connection = connections.pollFirst()) != null) {
+                connection.close();
+            }
+        }
+    }
+
+    /**
+     * 发送请求并读取响应，连接可复用时归还连接池
+     *
+     * @param connection 连接
+     * @param key        host:port
+     * @param path       路径与查询参数
+     * @param deadline   截止时间（纳秒）
+     * @return 响应结果
+     * @throws IOException 网络异常或超时
+     */
+    private HttpResult exchange(Connection connection, String key, String path, long deadline) throws IOException {
+        byte[] template = templates.computeIfAbsent(key, NioHttpRequestHandler::encodeTemplate);
+        ByteBuffer out = connection.out;
+        out.clear();
+        int length = GET_PREFIX.length + path.length() + template.length;
+        if (length > out.capacity()) {
+            out = ByteBuffer.allocate(length);
+        }
+        out.put(GET_PREFIX);
+        for (int i = 0; i < path.length(); i++) {
+            out.put((byte) path.charAt(i));
+        }
+        out.put(template);
+        out.flip();
+        try {
+            connection.write(out, deadline);
+        } catch (IOException e) {
+            throw new StaleConnectionException(e);
+        }
+
+        connection.in.clear().flip();
+        String statusLine;
+        try {
+            statusLine = connection.readLine(deadline);
+        } catch (EOFException e) {
+            throw new StaleConnectionException(e);
+        }
+        int statusCode = parseStatusCode(statusLine);
+        // 跳过100 Continue、103 Early Hints等临时响应，最终响应紧随其后
+        while (statusCode >= 100 && statusCode < 200) {
+            if (statusCode == 101) {
+                throw new IOException("Unexpected protocol switch: " + statusLine);
+            }
+            while (!connection.readLine(deadline).isEmpty()) {
+                // 忽略临时响应的响应头
+            }
+            statusLine = connection.readLine(deadline);
+            statusCode = parseStatusCode(statusLine);
+        }
+        boolean keepAlive = statusLine.startsWith("HTTP/1.1");
+
+        Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        String line;
+        while (!(line = connection.readLine(deadline)).isEmpty()) {
+            int colon = line.indexOf(':');
+            if (colon > 0) {
+                headers.computeIfAbsent(line.substring(0, colon).trim(), name -> new ArrayList<>(1))
+                    .add(line.substring(colon + 1).trim());
+            }
+        }
+        String connectionHeader = first(headers, "Connection");
+        if (connectionHeader != null) {
+            keepAlive = !"close".equalsIgnoreCase(connectionHeader)
+                && (keepAlive || "keep-alive".equalsIgnoreCase(connectionHeader));
+        }
+
+        byte[] body;
+        String transferEncoding = first(headers, "Transfer-Encoding");
+        String contentLength = first(headers, "Content-Length");
+        if (statusCode == 204 || statusCode == 304) {
+            body = new byte[0];
+        } else if (transferEncoding != null && transferEncoding.toLowerCase().contains("chunked")) {
+            body = readChunked(connection, deadline);
+        } else if (contentLength != null) {
+            body = connection.readFully(parseContentLength(contentLength), deadline);
+        } else {
+            body = connection.readToEof(deadline);
+            keepAlive = false;
+        }
+
+        String decoded = ContentDecoder.decode(body, first(headers, "Content-Encoding"), first(headers, "Content-Type"));
+        if (keepAlive && !connection.in.hasRemaining()) {
+            release(key, connection);
+        } else {
+            connection.close();
+        }
+        return new HttpResult(statusCode, headers, decoded);
+    }
+
+    private static byte[] readChunked(Connection connection, long deadline) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(1024);
+        while (true) {
+            String sizeLine = connection.readLine(deadline);
+            int semicolon = sizeLine.indexOf(';');
+            String sizeText = (semicolon < 0 ? sizeLine : sizeLine.substring(0, semicolon)).trim();
+            int size;
+            try {
+                size = Integer.parseInt(sizeText, 16);
+            } catch (NumberFormatException e) {
+                throw new IOException("Invalid chunk size: " + sizeText, e);
+            }
+            if (size < 0 || size > MAX_BODY_SIZE - body.size()) {
+                throw new IOException("Response body exceeds " + MAX_BODY_SIZE + " bytes");
+            }
+            if (size == 0) {
+                // 跳过trailer
+                while (!connection.readLine(deadline).isEmpty()) {
+                    // 忽略trailer字段
+                }
+                return body.toByteArray();
+            }
+            connection.readFully(size, body, deadline);
+            connection.readLine(deadline);
+        }
+    }
+
+    private static int parseContentLength(String contentLength) throws IOException {
+        long length;
+        try {
+            length = Long.parseLong(contentLength.trim());
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid Content-Length: " + contentLength, e);
+        }
+        if (length < 0) {
+            throw new IOException("Invalid Content-Length: " + contentLength);
+        }
+        if (length > MAX_BODY_SIZE) {
+            throw new IOException("Response body exceeds " + MAX_BODY_SIZE + " bytes");
+        }
+        return (int) length;
+    }
+
+    private static int parseStatusCode(String statusLine) throws IOException {
+        int space = statusLine.indexOf(' ');
+        if (!statusLine.startsWith("HTTP/") || space < 0 || statusLine.length() < space + 4) {
+            throw new IOException("Invalid status line: " + statusLine);
+        }
+        try {
+            return Integer.parseInt(statusLine.substring(space + 1, space + 4));
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid status line: " + statusLine, e);
+        }
+    }
+
+    private static String first(Map<String, List<String>> headers, String name) {
+        List<String> values = headers.get(name);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    /**
+     * 预编码请求模板，即请求行中路径之后的全部内容
+     *
+     * @param key host:port
+     * @return 模板字节
+     */
+    private static byte[] encodeTemplate(String key) {
+        String hostHeader = key.endsWith(":80") ? key.substring(0, key.length() - 3) : key;
+        return (" HTTP/1.1\r\n"
+            + "Host: " + hostHeader + "\r\n"
+            + "User-Agent: " + USER_AGENT + "\r\n"
+            + "Accept: application/json, text/plain, */*\r\n"
+            + "Accept-Encoding: " + ContentDecoder.SUPPORTED_ENCODINGS + "\r\n"
+            + "Connection: keep-alive\r\n"
+            + "\r\n").getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private Connection acquire(String key) {
+        Deque<Connection> connections = pool.get(key);
+        if (connections == null) {
+            return null;
+        }
+        Connection connection;
+        long now = System.currentTimeMillis();
+        while ((connection = connections.pollFirst()) != null) {
+            if (connection.channel.isOpen() && now - connection.idleSince < keepAliveMillis) {
+                return connection;
+            }
+            connection.close();
+        }
+        return null;
+    }
+
+    private void release(String key, Connection connection) {
+        Deque<Connection> connections = pool.computeIfAbsent(key, k -> new ConcurrentLinkedDeque<>());
+        if (connections.size() >= maxIdlePerHost) {
+            connection.close();
+            return;
+        }
+        connection.idleSince = System.currentTimeMillis();
+        connections.offerFirst(connection);
+    }
+
+    /**
+     * 建立新连接
+     *
+     * @param key      host:port
+     * @param host     主机名
+     * @param port     端口
+     * @param deadline 截止时间（纳秒）
+     * @return 连接
+     * @throws IOException 连接失败或超时
+     */
+    protected Connection connect(String key, String host, int port, long deadline) throws IOException {
+        // 每次取到的是轮询的下一条记录，连接被拒绝时换下一个地址，最多把缓存的地址都试一遍
+        int attempts = Math.max(1, dnsCache.getCachedAddresses(host).length);
+        IOException failure = null;
+        for (int i = 0; i < attempts; i++) {
+            try {
+                return connect(new InetSocketAddress(dnsCache.resolve(host), port), deadline);
+            } catch (HttpTimeoutException e) {
+                throw e;
+            } catch (IOException e) {
+                if (failure != null) {
+                    e.addSuppressed(failure);
+                }
+                failure = e;
+            }
+        }
+        throw failure;
+    }
+
+    /**
+     * 连接到已解析的地址
+     *
+     * @param address  地址
+     * @param deadline 截止时间（纳秒）
+     * @return 连接
+     * @throws IOException 连接失败或超时
+     */
+    protected final Connection connect(InetSocketAddress address, long deadline) throws IOException {
+        SocketChannel channel = SocketChannel.open();
+        Selector selector = null;
+        try {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            selector = Selector.open();
+            if (!channel.connect(address)) {
+                SelectionKey key = channel.register(selector, SelectionKey.OP_CONNECT);
+                while (!channel.finishConnect()) {
+                    awaitReady(selector, deadline);
+                }
+                key.interestOps(0);
+            }
+            openedConnections.incrementAndGet();
+            return new Connection(channel, selector);
+        } catch (IOException | RuntimeException e) {
+            if (selector != null) {
+                selector.close();
+            }
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static void awaitReady(Selector selector, long deadline) throws IOException {
+        long remaining = (deadline - System.nanoTime()) / 1_000_000;
+        if (remaining <= 0) {
+            throw new HttpTimeoutException("request timed out");
+        }
+        selector.select(remaining);
+        selector.selectedKeys().clear();
+    }
+
+    /**
+     * 复用的连接已被对端关闭
+     */
+    private static final class StaleConnectionException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        StaleConnectionException(Throwable cause) {
+            super(cause);
+        }
+    }
+
+    /**
+     * 池化的连接，持有固定的直接缓冲区和Selector
+     */
+    protected static final class Connection {
+
+        final SocketChannel channel;
+
+        final Selector selector;
+
+        // 读缓冲区始终处于读模式：position为下一个未读字节，limit为已读入数据的末尾
+        final ByteBuffer in = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        final ByteBuffer out = ByteBuffer.allocateDirect(4 * 1024);
+
+        final byte[] lineBuffer = new byte[256];
+
+        volatile long idleSince;
+
+        Connection(SocketChannel channel, Selector selector) throws IOException {
+            this.channel = channel;
+            this.selector = selector;
+            channel.register(selector, 0);
+        }
+
+        void write(ByteBuffer buffer, long deadline) throws IOException {
+            SelectionKey key = channel.keyFor(selector);
+            while (buffer.hasRemaining()) {
+                if (channel.write(buffer) == 0) {
+                    key.interestOps(SelectionKey.OP_WRITE);
+                    awaitReady(selector, deadline);
+                }
+            }
+            key.interestOps(0);
+        }
+
+        /**
+         * 读入更多数据
+         *
+         * @param deadline 截止时间（纳秒）
+         * @throws IOException 连接已关闭或超时
+         */
+        void fill(long deadline) throws IOException {
+            in.compact();
+            try {
+                SelectionKey key = channel.keyFor(selector);
+                int read;
+                while ((read = channel.read(in)) == 0) {
+                    if (!in.hasRemaining()) {
+                        throw new IOException("Read buffer is full");
+                    }
+                    key.interestOps(SelectionKey.OP_READ);
+                    awaitReady(selector, deadline);
+                }
+                key.interestOps(0);
+                if (read < 0) {
+                    throw new EOFException("Connection closed by peer");
+                }
+            } finally {
+                in.flip();
+            }
+        }
+
+        String readLine(long deadline) throws IOException {
+            int length = 0;
+            byte[] line = lineBuffer;
+            while (true) {
+                while (in.hasRemaining()) {
+                    byte b = in.get();
+                    if (b == '\n') {
+                        if (length > 0 && line[length - 1] == '\r') {
+                            length--;
+                        }
+                        return new String(line, 0, length, StandardCharsets.ISO_8859_1);
+                    }
+                    if (length == line.length) {
+                        if (length >= MAX_LINE_LENGTH) {
+                            throw new IOException("Response line too long");
+                        }
+                        byte[] grown = new byte[length * 2];
+                        System.arraycopy(line, 0, grown, 0, length);
+                        line = grown;
+                    }
+                    line[length++] = b;
+                }
+                fill(deadline);
+            }
+        }
+
+        byte[] readFully(int length, long deadline) throws IOException {
+            byte[] bytes = new byte[length];
+            int offset = 0;
+            while (offset < length) {
+                if (!in.hasRemaining()) {
+                    fill(deadline);
+                }
+                int n = Math.min(in.remaining(), length - offset);
+                in.get(bytes, offset, n);
+                offset += n;
+            }
+            return bytes;
+        }
+
+        /**
+         * 读取指定长度的数据并追加到输出流，分块响应不需要为每块单独分配数组
+         */
+        void readFully(int length, ByteArrayOutputStream target, long deadline) throws IOException {
+            byte[] chunk = new byte[Math.min(length, 1024)];
+            int remaining = length;
+            while (remaining > 0) {
+                if (!in.hasRemaining()) {
+                    fill(deadline);
+                }
+                int n = Math.min(Math.min(in.remaining(), remaining), chunk.length);
+                in.get(chunk, 0, n);
+                target.write(chunk, 0, n);
+                remaining -= n;
+            }
+        }
+
+        byte[] readToEof(long deadline) throws IOException {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(1024);
+            byte[] chunk = new byte[1024];
+            while (true) {
+                while (in.hasRemaining()) {
+                    int n = Math.min(in.remaining(), chunk.length);
+                    in.get(chunk, 0, n);
+                    out.write(chunk, 0, n);
+                }
+                if (out.size() > MAX_BODY_SIZE) {
+                    throw new IOException("Response body exceeds " + MAX_BODY_SIZE + " bytes");
+                }
+                try {
+                    fill(deadline);
+                } catch (EOFException e) {
+                    return out.toByteArray();
+                }
+            }
+        }
+
+        void close() {
+            try {
+                selector.close();
+            } catch (IOException ignored) {
+                // 忽略关闭异常
+            }
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // 忽略关闭异常
+            }
+        }
+    }
+}
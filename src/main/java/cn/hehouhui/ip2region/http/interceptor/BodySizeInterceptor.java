@@ -0,0 +1,71 @@
+package cn.hehouhui.ip2region.http.interceptor;
+
+import cn.hehouhui.ip2region.http.HttpInterceptor;
+import cn.hehouhui.ip2region.http.HttpResult;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 响应体大小统计拦截器，按主机统计响应次数、解码后响应体的总字符数和最大字符数
+ *
+ * @author HeHui
+ * @date 2025-12-04
+ */
+public class BodySizeInterceptor implements HttpInterceptor {
+
+    private final Map<String, HostStats> stats = new ConcurrentHashMap<>();
+
+    @Override
+    public HttpResult intercept(Chain chain) throws IOException, InterruptedException {
+        return record(chain, chain.proceed(chain.call()));
+    }
+
+    @Override
+    public CompletableFuture<HttpResult> interceptAsync(Chain chain) {
+        return chain.proceedAsync(chain.call()).thenApply(result -> record(chain, result));
+    }
+
+    private HttpResult record(Chain chain, HttpResult result) {
+        int size = result.getBody() == null ? 0 : result.getBody().length();
+        HostStats hostStats = stats.computeIfAbsent(chain.call().getHost(), host -> new HostStats());
+        hostStats.responseCount.incrementAndGet();
+        hostStats.totalChars.addAndGet(size);
+        hostStats.maxChars.accumulateAndGet(size, Math::max);
+        return result;
+    }
+
+    /**
+     * 获取有响应记录的主机
+     *
+     * @return 主机名集合
+     */
+    public Set<String> getHosts() {
+        return Set.copyOf(stats.keySet());
+    }
+
+    public long getResponseCount(String host) {
+        HostStats hostStats = stats.get(host);
+        return hostStats == null ? 0 : hostStats.responseCount.get();
+    }
+
+    public long getTotalChars(String host) {
+        HostStats hostStats = stats.get(host);
+        return hostStats == null ? 0 : hostStats.totalChars.get();
+    }
+
+    public long getMaxChars(String host) {
+        HostStats hostStats = stats.get(host);
+        return hostStats == null ? 0 : hostStats.maxChars.get();
+    }
+
+    private static final class HostStats {
+        final AtomicLong responseCount = new AtomicLong();
+        final AtomicLong totalChars = new AtomicLong();
+        final AtomicLong maxChars = new AtomicLong();
+    }
+}
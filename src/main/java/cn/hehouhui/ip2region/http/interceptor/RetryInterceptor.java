@@ -0,0 +1,183 @@
+package cn.hehouhui.ip2region.http.interceptor;
+
+import cn.hehouhui.ip2region.http.HttpCall;
+import cn.hehouhui.ip2region.http.HttpInterceptor;
+import cn.hehouhui.ip2region.http.HttpResult;
+
+import java.io.IOException;
+import java.net.http.HttpTimeoutException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 有界重试拦截器
+ * <pre>
+ * 1. 只重试连接类IO异常和500/502/504，超时不重试，避免把一次慢请求放大为多次
+ * 2. 429和503属于上游限流，交给数据源按Retry-After暂停，不在此重试
+ * 3. 每次重试前等待backoffMillis * 重试次数，且所有尝试共享原调用的超时预算，预算耗尽时停止重试
+ * 4. 默认只重试GET，POST不一定幂等，连接异常时上游可能已经处理了请求，需要显式开启
+ * </pre>
+ *
+ * @author HeHui
+ * @date 2025-12-04
+ */
+public class RetryInterceptor implements HttpInterceptor {
+
+    private final int maxRetries;
+
+    private final long backoffMillis;
+
+    private final boolean retryPost;
+
+    private final AtomicLong retryCount = new AtomicLong(0);
+
+    /**
+     * 构造函数
+     *
+     * @param maxRetries    最大重试次数
+     * @param backoffMillis 重试退避时间（毫秒）
+     */
+    public RetryInterceptor(int maxRetries, long backoffMillis) {
+        this(maxRetries, backoffMillis, false);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param maxRetries    最大重试次数
+     * @param backoffMillis 重试退避时间（毫秒）
+     * @param retryPost     是否重试POST请求，只应在上游接口幂等时开启
+     */
+    public RetryInterceptor(int maxRetries, long backoffMillis, boolean retryPost) {
+        if (maxRetries < 0 || backoffMillis < 0) {
+            throw new IllegalArgumentException("Invalid retry policy");
+        }
+        this.maxRetries = maxRetries;
+        this.backoffMillis = backoffMillis;
+        this.retryPost = retryPost;
+    }
+
+    @Override
+    public HttpResult intercept(Chain chain) throws IOException, InterruptedException {
+        HttpCall call = chain.call();
+        if (call.getMethod() == HttpCall.Method.POST && !retryPost) {
+            return chain.proceed(call);
+        }
+        long deadline = System.nanoTime() + call.getTimeout() * 1_000_000L;
+        for (int attempt = 0; ; attempt++) {
+            HttpResult result;
+            try {
+                result = chain.proceed(call);
+            } catch (HttpTimeoutException e) {
+                throw e;
+            } catch (IOException e) {
+                call = nextAttempt(call, attempt, deadline);
+                if (call == null) {
+                    throw e;
+                }
+                continue;
+            }
+            if (!isRetryable(result.getStatusCode())) {
+                return result;
+            }
+            call = nextAttempt(call, attempt, deadline);
+            if (call == null) {
+                return result;
+            }
+        }
+    }
+
+    @Override
+    public CompletableFuture<HttpResult> interceptAsync(Chain chain) {
+        HttpCall call = chain.call();
+        if (call.getMethod() == HttpCall.Method.POST && !retryPost) {
+            return chain.proceedAsync(call);
+        }
+        return attemptAsync(chain, call, 0, System.nanoTime() + call.getTimeout() * 1_000_000L);
+    }
+
+    /**
+     * 异步发起一次尝试，需要重试时在退避后通过thenCompose重新发起
+     *
+     * @param chain    拦截器链
+     * @param call     本次调用
+     * @param attempt  尝试序号（从0开始）
+     * @param deadline 超时预算的截止时间（纳秒）
+     * @return 最终结果
+     */
+    private CompletableFuture<HttpResult> attemptAsync(Chain chain, HttpCall call, int attempt, long deadline) {
+        return chain.proceedAsync(call).handle((result, error) -> {
+            boolean retryable;
+            if (error == null) {
+                retryable = isRetryable(result.getStatusCode());
+            } else {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error;
+                retryable = cause instanceof IOException && !(cause instanceof HttpTimeoutException);
+            }
+            long remaining = retryable ? remainingMillis(attempt, deadline) : 0;
+            if (remaining <= 0) {
+                return error == null ? CompletableFuture.completedFuture(result)
+                    : CompletableFuture.<HttpResult>failedFuture(error);
+            }
+            retryCount.incrementAndGet();
+            HttpCall next = call.withTimeout((int) remaining);
+            long backoff = backoffMillis * (attempt + 1);
+            // 退避通过延迟执行器等待，不占用线程
+            Executor executor = backoff > 0
+                ? CompletableFuture.delayedExecutor(backoff, TimeUnit.MILLISECONDS) : Runnable::run;
+            return CompletableFuture.supplyAsync(() -> next, executor)
+                .thenCompose(c -> attemptAsync(chain, c, attempt + 1, deadline));
+        }).thenCompose(Function.identity());
+    }
+
+    /**
+     * 准备下一次尝试
+     *
+     * @param call     当前调用
+     * @param attempt  已完成的尝试序号（从0开始）
+     * @param deadline 超时预算的截止时间（纳秒）
+     * @return 下一次尝试的调用，不应再重试时返回null
+     * @throws InterruptedException 退避等待被中断
+     */
+    private HttpCall nextAttempt(HttpCall call, int attempt, long deadline) throws InterruptedException {
+        long remaining = remainingMillis(attempt, deadline);
+        if (remaining <= 0) {
+            return null;
+        }
+        long backoff = backoffMillis * (attempt + 1);
+        if (backoff > 0) {
+            Thread.sleep(backoff);
+        }
+        retryCount.incrementAndGet();
+        return call.withTimeout((int) remaining);
+    }
+
+    /**
+     * 计算下一次重试可用的超时时间，已达最大重试次数或扣除退避后没有剩余时间时返回0
+     */
+    private long remainingMillis(int attempt, long deadline) {
+        if (attempt >= maxRetries) {
+            return 0;
+        }
+        long remaining = (deadline - System.nanoTime()) / 1_000_000 - backoffMillis * (attempt + 1);
+        return Math.max(remaining, 0);
+    }
+
+    private static boolean isRetryable(int statusCode) {
+        return statusCode == 500 || statusCode == 502 || statusCode == 504;
+    }
+
+    /**
+     * 获取累计重试次数
+     *
+     * @return 重试次数
+     */
+    public long getRetryCount() {
+        return retryCount.get();
+    }
+}
@@ -0,0 +1,60 @@
+package cn.hehouhui.ip2region.http.interceptor;
+
+import cn.hehouhui.ip2region.core.LatencyHistogram;
+import cn.hehouhui.ip2region.http.HttpInterceptor;
+import cn.hehouhui.ip2region.http.HttpResult;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 计时拦截器，按主机记录HTTP调用的延迟分布，失败的调用同样计入
+ *
+ * @author HeHui
+ * @date 2025-12-04
+ */
+public class TimingInterceptor implements HttpInterceptor {
+
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    @Override
+    public HttpResult intercept(Chain chain) throws IOException, InterruptedException {
+        long startNanos = System.nanoTime();
+        try {
+            return chain.proceed(chain.call());
+        } finally {
+            histograms.computeIfAbsent(chain.call().getHost(), host -> new LatencyHistogram())
+                .record((System.nanoTime() - startNanos) / 1_000_000);
+        }
+    }
+
+    @Override
+    public CompletableFuture<HttpResult> interceptAsync(Chain chain) {
+        long startNanos = System.nanoTime();
+        return chain.proceedAsync(chain.call()).whenComplete((result, error) ->
+            histograms.computeIfAbsent(chain.call().getHost(), host -> new LatencyHistogram())
+                .record((System.nanoTime() - startNanos) / 1_000_000));
+    }
+
+    /**
+     * 获取指定主机的延迟直方图
+     *
+     * @param host 主机名
+     * @return 延迟直方图，没有调用记录时返回null
+     */
+    public LatencyHistogram getHistogram(String host) {
+        return histograms.get(host);
+    }
+
+    /**
+     * 获取有调用记录的主机
+     *
+     * @return 主机名集合
+     */
+    public Set<String> getHosts() {
+        return Set.copyOf(histograms.keySet());
+    }
+}
@@ -0,0 +1,130 @@
+package cn.hehouhui.ip2region.http.interceptor;
+
+import cn.hehouhui.ip2region.http.HttpCall;
+import cn.hehouhui.ip2region.http.HttpInterceptor;
+import cn.hehouhui.ip2region.http.HttpResult;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 追踪拦截器，为每次HTTP调用生成追踪记录并交给调用方提供的接收器（例如写日志或上报链路追踪系统）
+ *
+ * @author HeHui
+ * @date 2025-12-04
+ */
+public class TracingInterceptor implements HttpInterceptor {
+
+    private final AtomicLong sequence = new AtomicLong(0);
+
+    private final Consumer<Trace> sink;
+
+    /**
+     * 构造函数
+     *
+     * @param sink 追踪记录接收器，应当快速返回，不能抛出异常
+     */
+    public TracingInterceptor(Consumer<Trace> sink) {
+        this.sink = sink;
+    }
+
+    @Override
+    public HttpResult intercept(Chain chain) throws IOException, InterruptedException {
+        HttpCall call = chain.call();
+        long traceId = sequence.incrementAndGet();
+        long startNanos = System.nanoTime();
+        try {
+            HttpResult result = chain.proceed(call);
+            sink.accept(new Trace(traceId, call, result.getStatusCode(), System.nanoTime() - startNanos, null));
+            return result;
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            sink.accept(new Trace(traceId, call, 0, System.nanoTime() - startNanos, e));
+            throw e;
+        }
+    }
+
+    @Override
+    public CompletableFuture<HttpResult> interceptAsync(Chain chain) {
+        HttpCall call = chain.call();
+        long traceId = sequence.incrementAndGet();
+        long startNanos = System.nanoTime();
+        return chain.proceedAsync(call).whenComplete((result, error) -> {
+            long elapsedNanos = System.nanoTime() - startNanos;
+            if (error == null) {
+                sink.accept(new Trace(traceId, call, result.getStatusCode(), elapsedNanos, null));
+            } else {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error;
+                sink.accept(new Trace(traceId, call, 0, elapsedNanos, cause));
+            }
+        });
+    }
+
+    /**
+     * 追踪记录
+     */
+    public static final class Trace {
+
+        private final long traceId;
+
+        private final HttpCall call;
+
+        private final int statusCode;
+
+        private final long elapsedNanos;
+
+        private final Throwable error;
+
+        Trace(long traceId, HttpCall call, int statusCode, long elapsedNanos, Throwable error) {
+            this.traceId = traceId;
+            this.call = call;
+            this.statusCode = statusCode;
+            this.elapsedNanos = elapsedNanos;
+            this.error = error;
+        }
+
+        public long getTraceId() {
+            return traceId;
+        }
+
+        public HttpCall getCall() {
+            return call;
+        }
+
+        /**
+         * 获取状态码
+         *
+         * @return 状态码，调用异常时为0
+         */
+        public int getStatusCode() {
+            return statusCode;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * 获取调用异常
+         *
+         * @return 异常，调用正常返回时为null
+         */
+        public Throwable getError() {
+            return error;
+        }
+
+        @Override
+        public String toString() {
+            return "Trace{" +
+                "traceId=" + traceId +
+                ", call=" + call +
+                ", statusCode=" + statusCode +
+                ", elapsedMillis=" + elapsedNanos / 1_000_000 +
+                (error == null ? "" : ", error=" + error) +
+                '}';
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package cn.hehouhui.ip2region.index;
+
+import cn.hehouhui.ip2region.IpInfo;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 不可变的地理位置记录，由索引预先构建并在所有查询间共享
+ * <pre>
+ * 与{@link IpInfo}相比不包含IP地址，同一区域的所有IP共用一个实例；
+ * 需要返回给调用方时通过{@link #toIpInfo(String)}复制为新的IpInfo，避免调用方修改共享数据。
+ * </pre>
+ *
+ * @author HeHui
+ * @date 2025-12-04
+ */
+public final class IpLocation {
+
+    private final String country;
+
+    private final String region;
+
+    private final String province;
+
+    private final String city;
+
+    private final String isp;
+
+    private final String asn;
+
+    private final String asnOwner;
+
+    private final Double latitude;
+
+    private final Double longitude;
+
+    private final String timezone;
+
+    private final int hash;
+
+    /**
+     * 构造函数
+     *
+     * @param country   国家
+     * @param region    地区
+     * @param province  省份
+     * @param city      城市
+     * @param isp       ISP
+     * @param asn       ASN
+     * @param asnOwner  ASN所有者
+     * @param latitude  纬度
+     * @param longitude 经度
+     * @param timezone  时区
+     */
+    public IpLocation(String country, String region, String province, String city, String isp,
+                      String asn, String asnOwner, Double latitude, Double longitude, String timezone) {
+        this.country = country;
+        this.region = region;
+        this.province = province;
+        this.city = city;
+        this.isp = isp;
+        this.asn = asn;
+        this.asnOwner = asnOwner;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.timezone = timezone;
+        this.hash = Objects.hash(country, region, province, city, isp, asn, asnOwner, latitude, longitude, timezone);
+    }
+
+    /**
+     * 解析ip2region的区域字符串，字段含义与{@link cn.hehouhui.ip2region.resolver.LocalIp2RegionResolver}一致：国家|省份|城市|ISP
+     * 与{@code split("\\|")}的结果保持一致：末尾的空字段视为缺失（null），中间的空字段保留为空字符串
+     *
+     * @param regionString 区域字符串
+     * @return 地理位置记录
+     */
+    public static IpLocation fromRegion(String regionString) {
+        String[] fields = new String[4];
+        int start = 0;
+        for (int i = 0; i < fields.length; i++) {
+            int end = regionString.indexOf('|', start);
+            if (end < 0) {
+                fields[i] = regionString.substring(start);
+                start = regionString.length();
+                break;
+            }
+            fields[i] = regionString.substring(start, end);
+            start = end + 1;
+        }
+        // 第4个字段之后还有非空内容时，前面的空字段不在末尾
+        boolean trailing = true;
+        for (int i = start; i < regionString.length() && trailing; i++) {
+            trailing = regionString.charAt(i) == '|';
+        }
+        for (int i = fields.length - 1; trailing && i > 0 && (fields[i] == null || fields[i].isEmpty()); i--) {
+            fields[i] = null;
+        }
+        return new IpLocation(fields[0], null, fields[1], fields[2], fields[3], null, null, null, null, null);
+    }
+
+    /**
+     * 从IpInfo复制位置字段，IP以及用途类型、代理等非位置字段被忽略
+     *
+     * @param ipInfo IP信息
+     * @return 地理位置记录
+     */
+    public static IpLocation fromIpInfo(IpInfo ipInfo) {
+        return new IpLocation(ipInfo.getCountry(), ipInfo.getRegion(), ipInfo.getProvince(), ipInfo.getCity(), ipInfo.getIsp(),
+            ipInfo.getAsn(), ipInfo.getAsnOwner(), ipInfo.getLatitude(), ipInfo.getLongitude(), ipInfo.getTimezone());
+    }
+
+    /**
+     * 解析mmdb记录，字段含义与{@link cn.hehouhui.ip2region.resolver.GeoIP2Resolver}一致
+     *
+     * @param record  mmdb记录，可以是City、Country、ASN或ISP数据库的记录
+     * @param locales 名称语言，按顺序取第一个存在的名称
+     * @return 地理位置记录，记录为null时返回null
+     */
+    public static IpLocation fromGeoIp(Map<String, Object> record, List<String> locales) {
+        if (record == null) {
+            return null;
+        }
+        String province = null;
+        if (record.get("subdivisions") instanceof List<?> subdivisions && !subdivisions.isEmpty()) {
+            province = name(subdivisions.get(0), locales);
+        }
+        Map<?, ?> location = record.get("location") instanceof Map<?, ?> map ? map : Map.of();
+        Map<?, ?> traits = record.get("traits") instanceof Map<?, ?> map ? map : record;
+        Object asn = traits.get("autonomous_system_number");
+        return new IpLocation(name(record.get("country"), locales), null, province, name(record.get("city"), locales),
+            string(traits.get("isp")), asn == null ? null : asn.toString(), string(traits.get("autonomous_system_organization")),
+            number(location.get("latitude")), number(location.get("longitude")), string(location.get("time_zone")));
+    }
+
+    private static String name(Object node, List<String> locales) {
+        if (node instanceof Map<?, ?> map && map.get("names") instanceof Map<?, ?> names) {
+            for (String locale : locales) {
+                Object name = names.get(locale);
+                if (name != null) {
+                    return name.toString();
+                }
+            }
+        }
+        return null;
+    }
+
+    private static String string(Object value) {
+        return value == null ? null : value.toString();
+    }
+
+    private static Double number(Object value) {
+        return value instanceof Number number ? number.doubleValue() : null;
+    }
+
+    /**
+     * 复制为IpInfo
+     *
+     * @param ip IP地址
+     * @return 新的IpInfo
+     */
+    public IpInfo toIpInfo(String ip) {
+        IpInfo ipInfo = new IpInfo();
+        ipInfo.setIp(ip);
+        ipInfo.setCountry(country);
+        ipInfo.setRegion(region);
+        ipInfo.setProvince(province);
+        ipInfo.setCity(city);
+        ipInfo.setIsp(isp);
+        ipInfo.setAsn(asn);
+        ipInfo.setAsnOwner(asnOwner);
+        ipInfo.setLatitude(latitude);
+        ipInfo.setLongitude(longitude);
+        ipInfo.setTimezone(timezone);
+        return ipInfo;
+    }
+
+    public String getCountry() {
+        return country;
+    }
+
+    public String getRegion() {
+        return region;
+    }
+
+    public String getProvince() {
+        return province;
+    }
+
+    public String getCity() {
+        return city;
+    }
+
+    public String getIsp() {
+        return isp;
+    }
+
+    public String getAsn() {
+        return asn;
+    }
+
+    public String getAsnOwner() {
+        return asnOwner;
+    }
+
+    public Double getLatitude() {
+        return latitude;
+    }
+
+    public Double getLongitude() {
+        return longitude;
+    }
+
+    public String getTimezone() {
+        return timezone;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof IpLocation that) || hash != that.hash) {
+            return false;
+        }
+        return Objects.equals(country, that.country) && Objects.equals(region, that.region)
+            && Objects.equals(province, that.province) && Objects.equals(city, that.city)
+            && Objects.equals(isp, that.isp) && Objects.equals(asn, that.asn)
+            && Objects.equals(asnOwner, that.asnOwner) && Objects.equals(latitude, that.latitude)
+            && Objects.equals(longitude, that.longitude) && Objects.equals(timezone, that.timezone);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "IpLocation{" +
+            "country='" + country + '\'' +
+            ", province='" + province + '\'' +
+            ", city='" + city + '\'' +
+            ", isp='" + isp + '\'' +
+            '}';
+    }
+}
@@ -0,0 +1,411 @@
+package cn.hehouhui.ip2region.index;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 编译后的IPv4区间索引，查询只需数组读取，不分配对象
+ * <pre>
+ * 1. 所有区间按起始IP排序存放在int数组中，每个区间对应一个去重后的{@link IpLocation}编号
+ * 2. 第一级按IP的高16位直接定位到候选区间范围，第二级在该范围内二分查找，通常只需几次比较
+ * 3. 相邻且位置相同的区间在构建时合并，数据库中没有覆盖的IP返回null
+ * 4. 可保存为紧凑的二进制文件，下次启动时通过内存映射批量读入，无需重新遍历xdb
+ * </pre>
+ * 索引构建后不可变，可在多个线程间共享。
+ *
+ * @author HeHui
+ * @date 2025-12-04
+ */
+public final class Ipv4RangeIndex {
+
+    private static final int MAGIC = 0x49503458;
+
+    private static final int FORMAT_VERSION = 2;
+
+    private static final int HEADER_LENGTH = 32;
+
+    // 区间起始IP，存储为ip ^ Integer.MIN_VALUE以便按有符号整数比较
+    private final int[] starts;
+
+    // 区间对应的位置编号，-1表示未覆盖
+    private final int[] ids;
+
+    private final IpLocation[] locations;
+
+    // buckets[h]为包含 h << 16 的区间下标，buckets[65536]为最后一个区间下标
+    private final int[] buckets;
+
+    private Ipv4RangeIndex(int[] starts, int[] ids, IpLocation[] locations) {
+        this.starts = starts;
+        this.ids = ids;
+        this.locations = locations;
+        this.buckets = new int[65537];
+        int segment = 0;
+        for (int h = 0; h < 65536; h++) {
+            int key = (h << 16) ^ Integer.MIN_VALUE;
+            while (segment + 1 < starts.length && starts[segment + 1] <= key) {
+                segment++;
+            }
+            buckets[h] = segment;
+        }
+        buckets[65536] = starts.length - 1;
+    }
+
+    /**
+     * 创建索引构建器
+     *
+     * @return 构建器
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * 从ip2region的IPv4 xdb文件构建索引
+     *
+     * @param xdbFile xdb文件
+     * @return 索引
+     * @throws IOException 文件无法读取或不是IPv4数据库
+     */
+    public static Ipv4RangeIndex build(Path xdbFile) throws IOException {
+        XdbFile xdb = XdbFile.open(xdbFile);
+        if (xdb.isIpv6()) {
+            throw new IOException("Not an IPv4 xdb file: " + xdbFile);
+        }
+        Builder builder = builder();
+        // 相同区域字符串只解析一次
+        Map<String, IpLocation> parsed = new HashMap<>();
+        xdb.forEachSegment((startIp, endIp, region) ->
+            builder.add(toInt(startIp) & 0xFFFFFFFFL, toInt(endIp) & 0xFFFFFFFFL, parsed.computeIfAbsent(region, IpLocation::fromRegion)));
+        return builder.build();
+    }
+
+    /**
+     * 加载已保存的索引，索引文件不存在或与xdb文件不一致时从xdb重新构建并保存
+     *
+     * @param xdbFile   xdb文件
+     * @param indexFile 索引文件
+     * @return 索引
+     * @throws IOException 文件无法读取或写入
+     */
+    public static Ipv4RangeIndex loadOrBuild(Path xdbFile, Path indexFile) throws IOException {
+        long sourceSize = Files.size(xdbFile);
+        long sourceModified = Files.getLastModifiedTime(xdbFile).toMillis();
+        if (Files.isRegularFile(indexFile)) {
+            try {
+                Ipv4RangeIndex index = load(indexFile, sourceSize, sourceModified);
+                if (index != null) {
+                    return index;
+                }
+            } catch (IOException | RuntimeException e) {
+                // 索引文件损坏，重新构建
+            }
+        }
+        Ipv4RangeIndex index = build(xdbFile);
+        index.save(indexFile, sourceSize, sourceModified);
+        return index;
+    }
+
+    /**
+     * 加载已保存的索引
+     *
+     * @param indexFile 索引文件
+     * @return 索引
+     * @throws IOException 文件无法读取或格式错误
+     */
+    public static Ipv4RangeIndex load(Path indexFile) throws IOException {
+        return load(indexFile, -1, -1);
+    }
+
+    static Ipv4RangeIndex load(Path indexFile, long sourceSize, long sourceModified) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.capacity() < HEADER_LENGTH || buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION) {
+            throw new IOException("Invalid IPv4 index file: " + indexFile);
+        }
+        if (sourceSize >= 0 && (buffer.getLong(8) != sourceSize || buffer.getLong(16) != sourceModified)) {
+            return null;
+        }
+        int segmentCount = buffer.getInt(24);
+        int locationCount = buffer.getInt(28);
+        int[] starts = new int[segmentCount];
+        int[] ids = new int[segmentCount];
+        buffer.position(HEADER_LENGTH);
+        buffer.asIntBuffer().get(starts).get(ids);
+        ByteBuffer in = buffer.position(HEADER_LENGTH + segmentCount * 8).slice();
+        IpLocation[] locations = new IpLocation[locationCount];
+        for (int i = 0; i < locationCount; i++) {
+            locations[i] = LocationCodec.read(in);
+        }
+        return new Ipv4RangeIndex(starts, ids, locations);
+    }
+
+    /**
+     * 保存索引
+     *
+     * @param indexFile 索引文件
+     * @throws IOException 写入失败
+     */
+    public void save(Path indexFile) throws IOException {
+        save(indexFile, -1, -1);
+    }
+
+    void save(Path indexFile, long sourceSize, long sourceModified) throws IOException {
+        Path dir = indexFile.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tempFile = Files.createTempFile(dir, indexFile.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile), 64 * 1024))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeLong(sourceSize);
+                out.writeLong(sourceModified);
+                out.writeInt(starts.length);
+                out.writeInt(locations.length);
+                for (int start : starts) {
+                    out.writeInt(start);
+                }
+                for (int id : ids) {
+                    out.writeInt(id);
+                }
+                for (IpLocation location : locations) {
+                    LocationCodec.write(out, location);
+                }
+            }
+            Files.move(tempFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * 查询IP所在区间的位置
+     *
+     * @param ip IPv4地址的32位整数形式
+     * @return 位置，未覆盖时返回null
+     */
+    public IpLocation lookup(int ip) {
+        int key = ip ^ Integer.MIN_VALUE;
+        int lo = buckets[ip >>> 16];
+        int hi = buckets[(ip >>> 16) + 1];
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (starts[mid] <= key) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        int id = ids[lo];
+        return id < 0 ? null : locations[id];
+    }
+
+    /**
+     * 查询IP所在区间的位置
+     *
+     * @param ip IPv4地址字符串
+     * @return 位置，不是合法的IPv4地址或未覆盖时返回null
+     */
+    public IpLocation lookup(String ip) {
+        long value = parseIpv4(ip);
+        return value < 0 ? null : lookup((int) value);
+    }
+
+    /**
+     * 获取区间数量（合并后）
+     *
+     * @return 区间数量
+     */
+    public int getSegmentCount() {
+        return starts.length;
+    }
+
+    /**
+     * 获取去重后的位置数量
+     *
+     * @return 位置数量
+     */
+    public int getLocationCount() {
+        return locations.length;
+    }
+
+    /**
+     * 获取区间的起始IP
+     *
+     * @param segment 区间下标
+     * @return 无符号32位整数值
+     */
+    long segmentStart(int segment) {
+        return (starts[segment] ^ Integer.MIN_VALUE) & 0xFFFFFFFFL;
+    }
+
+    /**
+     * 获取区间的位置编号
+     *
+     * @param segment 区间下标
+     * @return 位置编号，-1表示未覆盖
+     */
+    int segmentId(int segment) {
+        return ids[segment];
+    }
+
+    /**
+     * 按编号获取位置
+     *
+     * @param id 位置编号，-1表示未覆盖
+     * @return 位置，未覆盖时返回null
+     */
+    IpLocation location(int id) {
+        return id < 0 ? null : locations[id];
+    }
+
+    /**
+     * 解析点分十进制的IPv4地址，不分配对象
+     *
+     * @param ip IP地址字符串
+     * @return 无符号32位整数值，不是合法的IPv4地址时返回-1
+     */
+    public static long parseIpv4(String ip) {
+        return ip == null ? -1 : parseIpv4(ip, 0, ip.length());
+    }
+
+    /**
+     * 解析字符串中指定范围内的点分十进制IPv4地址，不分配对象
+     *
+     * @param ip   字符串
+     * @param from 起始下标（包含）
+     * @param to   结束下标（不包含）
+     * @return 无符号32位整数值，不是合法的IPv4地址时返回-1
+     */
+    static long parseIpv4(String ip, int from, int to) {
+        int length = to - from;
+        if (length < 7 || length > 15) {
+            return -1;
+        }
+        long result = 0;
+        int octet = 0;
+        int digits = 0;
+        int dots = 0;
+        for (int i = from; i < to; i++) {
+            char c = ip.charAt(i);
+            if (c == '.') {
+                if (digits == 0 || ++dots > 3) {
+                    return -1;
+                }
+                result = (result << 8) | octet;
+                octet = 0;
+                digits = 0;
+            } else if (c >= '0' && c <= '9') {
+                if (digits > 0 && octet == 0) {
+                    // 不接受前导0
+                    return -1;
+                }
+                octet = octet * 10 + (c - '0');
+                if (++digits > 3 || octet > 255) {
+                    return -1;
+                }
+            } else {
+                return -1;
+            }
+        }
+        if (digits == 0 || dots != 3) {
+            return -1;
+        }
+        return (result << 8) | octet;
+    }
+
+    static int toInt(byte[] ip) {
+        return ((ip[0] & 0xFF) << 24) | ((ip[1] & 0xFF) << 16) | ((ip[2] & 0xFF) << 8) | (ip[3] & 0xFF);
+    }
+
+    /**
+     * 索引构建器，区间必须按起始IP从小到大添加且互不重叠
+     */
+    public static final class Builder {
+
+        private int[] starts = new int[1024];
+
+        private int[] ids = new int[1024];
+
+        private int size = 0;
+
+        // 下一个未覆盖的IP
+        private long next = 0;
+
+        private final Map<IpLocation, Integer> locationIds = new HashMap<>();
+
+        private final List<IpLocation> locations = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        /**
+         * 添加区间
+         *
+         * @param startIp  起始IP（无符号32位整数）
+         * @param endIp    结束IP（包含，无符号32位整数）
+         * @param location 位置，为null表示未覆盖
+         * @return 构建器
+         */
+        public Builder add(long startIp, long endIp, IpLocation location) {
+            if (startIp < next || endIp < startIp || endIp > 0xFFFFFFFFL) {
+                throw new IllegalArgumentException("Ranges must be ascending and non-overlapping: " + startIp + "-" + endIp);
+            }
+            if (startIp > next) {
+                append(next, -1);
+            }
+            int id = -1;
+            if (location != null) {
+                id = locationIds.computeIfAbsent(location, key -> {
+                    locations.add(key);
+                    return locations.size() - 1;
+                });
+            }
+            append(startIp, id);
+            next = endIp + 1;
+            return this;
+        }
+
+        private void append(long startIp, int id) {
+            if (size > 0 && ids[size - 1] == id) {
+                // 与前一个区间位置相同，合并
+                return;
+            }
+            if (size == starts.length) {
+                starts = Arrays.copyOf(starts, size * 2);
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            starts[size] = (int) startIp ^ Integer.MIN_VALUE;
+            ids[size] = id;
+            size++;
+        }
+
+        /**
+         * 构建索引
+         *
+         * @return 索引
+         */
+        public Ipv4RangeIndex build() {
+            if (next <= 0xFFFFFFFFL) {
+                append(next, -1);
+            }
+            return new Ipv4RangeIndex(Arrays.copyOf(starts, size), Arrays.copyOf(ids, size),
+                locations.toArray(new IpLocation[0]));
+        }
+    }
+}
@@ -0,0 +1,503 @@
+package cn.hehouhui.ip2region.index;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 编译后的IPv6区间索引，128位地址以高低两个long表示，查询只需数组读取，不分配对象
+ * <pre>
+ * 1. 所有区间按起始地址排序，起始地址的高64位和低64位分别存放在两个long数组中，每个区间对应一个去重后的{@link IpLocation}编号
+ * 2. 第一级按地址的高16位直接定位到候选区间范围，第二级在该范围内按(高64位, 低64位)二分查找
+ * 3. 相邻且位置相同的区间在构建时合并，数据库中没有覆盖的地址返回null
+ * 4. 字符串形式的地址在查询时就地解析，支持::压缩和末尾内嵌IPv4的写法，不创建InetAddress
+ * 5. 可保存为紧凑的二进制文件，下次启动时通过内存映射批量读入
+ * </pre>
+ * 索引构建后不可变，可在多个线程间共享。
+ *
+ * @author HeHui
+ * @date 2025-12-04
+ */
+public final class Ipv6RangeIndex {
+
+    private static final int MAGIC = 0x49503658;
+
+    private static final int FORMAT_VERSION = 2;
+
+    private static final int HEADER_LENGTH = 32;
+
+    // 区间起始地址的高、低64位，均存储为 value ^ Long.MIN_VALUE 以便按有符号整数比较
+    private final long[] startHighs;
+
+    private final long[] startLows;
+
+    // 区间对应的位置编号，-1表示未覆盖
+    private final int[] ids;
+
+    private final IpLocation[] locations;
+
+    // buckets[h]为包含 h << 112 的区间下标，buckets[65536]为最后一个区间下标
+    private final int[] buckets;
+
+    private Ipv6RangeIndex(long[] startHighs, long[] startLows, int[] ids, IpLocation[] locations) {
+        this.startHighs = startHighs;
+        this.startLows = startLows;
+        this.ids = ids;
+        this.locations = locations;
+        this.buckets = new int[65537];
+        int segment = 0;
+        for (int h = 0; h < 65536; h++) {
+            long key = ((long) h << 48) ^ Long.MIN_VALUE;
+            // 桶的起始地址低64位为0，编码后为Long.MIN_VALUE，区间起始地址的低64位不会更小
+            while (segment + 1 < startHighs.length && (startHighs[segment + 1] < key
+                || (startHighs[segment + 1] == key && startLows[segment + 1] == Long.MIN_VALUE))) {
+                segment++;
+            }
+            buckets[h] = segment;
+        }
+        buckets[65536] = startHighs.length - 1;
+    }
+
+    /**
+     * 创建索引构建器
+     *
+     * @return 构建器
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * 从ip2region的IPv6 xdb文件构建索引
+     *
+     * @param xdbFile xdb文件
+     * @return 索引
+     * @throws IOException 文件无法读取或不是IPv6数据库
+     */
+    public static Ipv6RangeIndex build(Path xdbFile) throws IOException {
+        XdbFile xdb = XdbFile.open(xdbFile);
+        if (!xdb.isIpv6()) {
+            throw new IOException("Not an IPv6 xdb file: " + xdbFile);
+        }
+        Builder builder = builder();
+        // 相同区域字符串只解析一次
+        Map<String, IpLocation> parsed = new HashMap<>();
+        xdb.forEachSegment((startIp, endIp, region) ->
+            builder.add(toLong(startIp, 0), toLong(startIp, 8), toLong(endIp, 0), toLong(endIp, 8),
+                parsed.computeIfAbsent(region, IpLocation::fromRegion)));
+        return builder.build();
+    }
+
+    /**
+     * 加载已保存的索引，索引文件不存在或与xdb文件不一致时从xdb重新构建并保存
+     *
+     * @param xdbFile   xdb文件
+     * @param indexFile 索引文件
+     * @return 索引
+     * @throws IOException 文件无法读取或写入
+     */
+    public static Ipv6RangeIndex loadOrBuild(Path xdbFile, Path indexFile) throws IOException {
+        long sourceSize = Files.size(xdbFile);
+        long sourceModified = Files.getLastModifiedTime(xdbFile).toMillis();
+        if (Files.isRegularFile(indexFile)) {
+            try {
+                Ipv6RangeIndex index = load(indexFile, sourceSize, sourceModified);
+                if (index != null) {
+                    return index;
+                }
+            } catch (IOException | RuntimeException e) {
+                // 索引文件损坏，重新构建
+            }
+        }
+        Ipv6RangeIndex index = build(xdbFile);
+        index.save(indexFile, sourceSize, sourceModified);
+        return index;
+    }
+
+    /**
+     * 加载已保存的索引
+     *
+     * @param indexFile 索引文件
+     * @return 索引
+     * @throws IOException 文件无法读取或格式错误
+     */
+    public static Ipv6RangeIndex load(Path indexFile) throws IOException {
+        return load(indexFile, -1, -1);
+    }
+
+    static Ipv6RangeIndex load(Path indexFile, long sourceSize, long sourceModified) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.capacity() < HEADER_LENGTH || buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION) {
+            throw new IOException("Invalid IPv6 index file: " + indexFile);
+        }
+        if (sourceSize >= 0 && (buffer.getLong(8) != sourceSize || buffer.getLong(16) != sourceModified)) {
+            return null;
+        }
+        int segmentCount = buffer.getInt(24);
+        int locationCount = buffer.getInt(28);
+        long[] startHighs = new long[segmentCount];
+        long[] startLows = new long[segmentCount];
+        int[] ids = new int[segmentCount];
+        buffer.position(HEADER_LENGTH);
+        LongBuffer longs = buffer.asLongBuffer();
+        longs.get(startHighs).get(startLows);
+        buffer.position(HEADER_LENGTH + segmentCount * 16);
+        buffer.asIntBuffer().get(ids);
+        ByteBuffer in = buffer.position(HEADER_LENGTH + segmentCount * 20).slice();
+        IpLocation[] locations = new IpLocation[locationCount];
+        for (int i = 0; i < locationCount; i++) {
+            locations[i] = LocationCodec.read(in);
+        }
+        return new Ipv6RangeIndex(startHighs, startLows, ids, locations);
+    }
+
+    /**
+     * 保存索引
+     *
+     * @param indexFile 索引文件
+     * @throws IOException 写入失败
+     */
+    public void save(Path indexFile) throws IOException {
+        save(indexFile, -1, -1);
+    }
+
+    void save(Path indexFile, long sourceSize, long sourceModified) throws IOException {
+        Path dir = indexFile.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tempFile = Files.createTempFile(dir, indexFile.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile), 64 * 1024))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeLong(sourceSize);
+                out.writeLong(sourceModified);
+                out.writeInt(startHighs.length);
+                out.writeInt(locations.length);
+                for (long high : startHighs) {
+                    out.writeLong(high);
+                }
+                for (long low : startLows) {
+                    out.writeLong(low);
+                }
+                for (int id : ids) {
+                    out.writeInt(id);
+                }
+                for (IpLocation location : locations) {
+                    LocationCodec.write(out, location);
+                }
+            }
+            Files.move(tempFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * 查询地址所在区间的位置
+     *
+     * @param high 地址的高64位
+     * @param low  地址的低64位
+     * @return 位置，未覆盖时返回null
+     */
+    public IpLocation lookup(long high, long low) {
+        long highKey = high ^ Long.MIN_VALUE;
+        long lowKey = low ^ Long.MIN_VALUE;
+        int bucket = (int) (high >>> 48);
+        int lo = buckets[bucket];
+        int hi = buckets[bucket + 1];
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            long midHigh = startHighs[mid];
+            if (midHigh < highKey || (midHigh == highKey && startLows[mid] <= lowKey)) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        int id = ids[lo];
+        return id < 0 ? null : locations[id];
+    }
+
+    /**
+     * 查询地址所在区间的位置，地址在查询时就地解析，不分配对象
+     *
+     * @param ip IPv6地址字符串
+     * @return 位置，不是合法的IPv6地址或未覆盖时返回null
+     */
+    public IpLocation lookup(String ip) {
+        if (ip == null) {
+            return null;
+        }
+        int length = ip.length();
+        if (length < 2 || length > 45) {
+            return null;
+        }
+        // ::之前的分组累加到head，之后的分组累加到tail
+        long headHigh = 0;
+        long headLow = 0;
+        long tailHigh = 0;
+        long tailLow = 0;
+        int headGroups = 0;
+        int tailGroups = 0;
+        boolean compressed = false;
+        int i = 0;
+        if (ip.charAt(0) == ':') {
+            if (ip.charAt(1) != ':') {
+                return null;
+            }
+            compressed = true;
+            i = 2;
+        }
+        while (i < length) {
+            int groupStart = i;
+            int value = 0;
+            while (i < length && i - groupStart < 5) {
+                int digit = Character.digit(ip.charAt(i), 16);
+                if (digit < 0) {
+                    break;
+                }
+                value = (value << 4) | digit;
+                i++;
+            }
+            int groups = 1;
+            long groupValue = value;
+            if (i < length && ip.charAt(i) == '.') {
+                // 末尾内嵌的IPv4地址占两个分组
+                long v4 = Ipv4RangeIndex.parseIpv4(ip, groupStart, length);
+                if (v4 < 0) {
+                    return null;
+                }
+                groups = 2;
+                groupValue = v4;
+                i = length;
+            } else if (i == groupStart || i - groupStart > 4) {
+                return null;
+            }
+            int bits = groups * 16;
+            if (compressed) {
+                tailHigh = (tailHigh << bits) | (tailLow >>> (64 - bits));
+                tailLow = (tailLow << bits) | groupValue;
+                tailGroups += groups;
+            } else {
+                headHigh = (headHigh << bits) | (headLow >>> (64 - bits));
+                headLow = (headLow << bits) | groupValue;
+                headGroups += groups;
+            }
+            if (headGroups + tailGroups > 8) {
+                return null;
+            }
+            if (i == length) {
+                break;
+            }
+            if (ip.charAt(i) != ':') {
+                return null;
+            }
+            i++;
+            if (i < length && ip.charAt(i) == ':') {
+                if (compressed) {
+                    return null;
+                }
+                compressed = true;
+                i++;
+            } else if (i == length) {
+                // 末尾只有一个冒号
+                return null;
+            }
+        }
+        int groups = headGroups + tailGroups;
+        if (compressed ? groups > 7 : groups != 8) {
+            return null;
+        }
+        // head左移到高位，为::代表的0分组和tail留出位置
+        int shift = (8 - headGroups) * 16;
+        if (shift >= 128) {
+            headHigh = 0;
+            headLow = 0;
+        } else if (shift >= 64) {
+            headHigh = headLow << (shift - 64);
+            headLow = 0;
+        } else if (shift > 0) {
+            headHigh = (headHigh << shift) | (headLow >>> (64 - shift));
+            headLow = headLow << shift;
+        }
+        return lookup(headHigh | tailHigh, headLow | tailLow);
+    }
+
+    /**
+     * 获取区间数量（合并后）
+     *
+     * @return 区间数量
+     */
+    public int getSegmentCount() {
+        return startHighs.length;
+    }
+
+    /**
+     * 获取去重后的位置数量
+     *
+     * @return 位置数量
+     */
+    public int getLocationCount() {
+        return locations.length;
+    }
+
+    /**
+     * 获取区间起始地址的高64位
+     *
+     * @param segment 区间下标
+     * @return 高64位
+     */
+    long segmentStartHigh(int segment) {
+        return startHighs[segment] ^ Long.MIN_VALUE;
+    }
+
+    /**
+     * 获取区间起始地址的低64位
+     *
+     * @param segment 区间下标
+     * @return 低64位
+     */
+    long segmentStartLow(int segment) {
+        return startLows[segment] ^ Long.MIN_VALUE;
+    }
+
+    /**
+     * 获取区间的位置编号
+     *
+     * @param segment 区间下标
+     * @return 位置编号，-1表示未覆盖
+     */
+    int segmentId(int segment) {
+        return ids[segment];
+    }
+
+    /**
+     * 按编号获取位置
+     *
+     * @param id 位置编号，-1表示未覆盖
+     * @return 位置，未覆盖时返回null
+     */
+    IpLocation location(int id) {
+        return id < 0 ? null : locations[id];
+    }
+
+    static long toLong(byte[] ip, int offset) {
+        long value = 0;
+        for (int i = offset; i < offset + 8; i++) {
+            value = (value << 8) | (ip[i] & 0xFF);
+        }
+        return value;
+    }
+
+    /**
+     * 索引构建器，区间必须按起始地址从小到大添加且互不重叠
+     */
+    public static final class Builder {
+
+        private long[] startHighs = new long[1024];
+
+        private long[] startLows = new long[1024];
+
+        private int[] ids = new int[1024];
+
+        private int size = 0;
+
+        // 下一个未覆盖的地址，done表示已覆盖到最大地址
+        private long nextHigh = 0;
+
+        private long nextLow = 0;
+
+        private boolean done = false;
+
+        private final Map<IpLocation, Integer> locationIds = new HashMap<>();
+
+        private final List<IpLocation> locations = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        /**
+         * 添加区间
+         *
+         * @param startHigh 起始地址的高64位
+         * @param startLow  起始地址的低64位
+         * @param endHigh   结束地址（包含）的高64位
+         * @param endLow    结束地址（包含）的低64位
+         * @param location  位置，为null表示未覆盖
+         * @return 构建器
+         */
+        public Builder add(long startHigh, long startLow, long endHigh, long endLow, IpLocation location) {
+            if (done || compare(startHigh, startLow, nextHigh, nextLow) < 0 || compare(endHigh, endLow, startHigh, startLow) < 0) {
+                throw new IllegalArgumentException("Ranges must be ascending and non-overlapping");
+            }
+            if (compare(startHigh, startLow, nextHigh, nextLow) > 0) {
+                append(nextHigh, nextLow, -1);
+            }
+            int id = -1;
+            if (location != null) {
+                id = locationIds.computeIfAbsent(location, key -> {
+                    locations.add(key);
+                    return locations.size() - 1;
+                });
+            }
+            append(startHigh, startLow, id);
+            if (endHigh == -1L && endLow == -1L) {
+                done = true;
+            } else {
+                nextLow = endLow + 1;
+                nextHigh = nextLow == 0 ? endHigh + 1 : endHigh;
+            }
+            return this;
+        }
+
+        private static int compare(long aHigh, long aLow, long bHigh, long bLow) {
+            int result = Long.compareUnsigned(aHigh, bHigh);
+            return result != 0 ? result : Long.compareUnsigned(aLow, bLow);
+        }
+
+        private void append(long startHigh, long startLow, int id) {
+            if (size > 0 && ids[size - 1] == id) {
+                // 与前一个区间位置相同，合并
+                return;
+            }
+            if (size == ids.length) {
+                startHighs = Arrays.copyOf(startHighs, size * 2);
+                startLows = Arrays.copyOf(startLows, size * 2);
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            startHighs[size] = startHigh ^ Long.MIN_VALUE;
+            startLows[size] = startLow ^ Long.MIN_VALUE;
+            ids[size] = id;
+            size++;
+        }
+
+        /**
+         * 构建索引
+         *
+         * @return 索引
+         */
+        public Ipv6RangeIndex build() {
+            if (!done) {
+                append(nextHigh, nextLow, -1);
+            }
+            return new Ipv6RangeIndex(Arrays.copyOf(startHighs, size), Arrays.copyOf(startLows, size),
+                Arrays.copyOf(ids, size), locations.toArray(new IpLocation[0]));
+        }
+    }
+}
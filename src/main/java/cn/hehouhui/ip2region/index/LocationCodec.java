@@ -0,0 +1,67 @@
+package cn.hehouhui.ip2region.index;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 地理位置记录的二进制编解码，供索引文件保存与加载使用
+ *
+ * @author HeHui
+ * @date 2025-12-04
+ */
+final class LocationCodec {
+
+    private LocationCodec() {
+    }
+
+    static void write(DataOutputStream out, IpLocation location) throws IOException {
+        writeString(out, location.getCountry());
+        writeString(out, location.getRegion());
+        writeString(out, location.getProvince());
+        writeString(out, location.getCity());
+        writeString(out, location.getIsp());
+        writeString(out, location.getAsn());
+        writeString(out, location.getAsnOwner());
+        writeDouble(out, location.getLatitude());
+        writeDouble(out, location.getLongitude());
+        writeString(out, location.getTimezone());
+    }
+
+    static IpLocation read(ByteBuffer in) {
+        return new IpLocation(readString(in), readString(in), readString(in), readString(in), readString(in),
+            readString(in), readString(in), readDouble(in), readDouble(in), readString(in));
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeDouble(DataOutputStream out, Double value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeDouble(value);
+        }
+    }
+
+    private static Double readDouble(ByteBuffer in) {
+        return in.get() != 0 ? in.getDouble() : null;
+    }
+}
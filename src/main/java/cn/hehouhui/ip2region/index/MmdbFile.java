@@ -0,0 +1,127 @@
+package cn.hehouhui.ip2region.index;
+
+import com.maxmind.db.CHMCache;
+import com.maxmind.db.DatabaseRecord;
+import com.maxmind.db.Reader;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * MaxMind mmdb文件的网段遍历器，用于在构建时把mmdb的搜索树展开为连续的网段
+ * <pre>
+ * 1. 从地址0开始，每次查询当前地址所在的网段，得到数据与前缀长度后跳到网段结束地址的下一个地址
+ * 2. 没有数据的网段同样会被访问，数据为null，因此遍历结果连续覆盖整个地址空间
+ * 3. 使用节点缓存，相同数据地址的网段共用同一个解码结果
+ * </pre>
+ * IPv6数据库中::/96、::ffff:0:0/96等区域通常指向IPv4子树，遍历IPv6时这些区域会逐个网段展开，耗时明显长于IPv4。
+ *
+ * @author HeHui
+ * @date 2025-12-04
+ */
+public final class MmdbFile implements Closeable {
+
+    // Map.class的泛型视图，mmdb解码器按Map.class解码，键总是字符串
+    @SuppressWarnings("unchecked")
+    private static final Class<Map<String, Object>> RECORD_TYPE = (Class<Map<String, Object>>) (Class<?>) Map.class;
+
+    private final Reader reader;
+
+    /**
+     * 网段遍历回调
+     */
+    @FunctionalInterface
+    public interface NetworkVisitor {
+        /**
+         * 访问一个网段
+         *
+         * @param startIp 起始IP，网络字节序，回调返回后会被复用
+         * @param endIp   结束IP（包含），网络字节序，回调返回后会被复用
+         * @param record  网段数据，没有数据时为null
+         */
+        void visit(byte[] startIp, byte[] endIp, Map<String, Object> record);
+    }
+
+    private MmdbFile(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * 以内存映射方式打开mmdb文件
+     *
+     * @param path 文件路径
+     * @return mmdb文件
+     * @throws IOException 文件无法读取或格式错误
+     */
+    public static MmdbFile open(Path path) throws IOException {
+        return new MmdbFile(new Reader(path.toFile(), Reader.FileMode.MEMORY_MAPPED, new CHMCache()));
+    }
+
+    /**
+     * 是否包含IPv6数据
+     *
+     * @return 是否包含IPv6
+     */
+    public boolean isIpv6() {
+        return reader.getMetadata().getIpVersion() == 6;
+    }
+
+    /**
+     * 按IP从小到大遍历所有网段
+     *
+     * @param ipv6    是否遍历IPv6地址空间，数据库不包含IPv6时不能为true
+     * @param visitor 回调
+     * @throws IOException 读取失败
+     */
+    public void forEachNetwork(boolean ipv6, NetworkVisitor visitor) throws IOException {
+        if (ipv6 && !isIpv6()) {
+            throw new IOException("Not an IPv6 mmdb file");
+        }
+        int bits = ipv6 ? 128 : 32;
+        byte[] startIp = new byte[bits / 8];
+        byte[] endIp = new byte[bits / 8];
+        while (true) {
+            InetAddress address = InetAddress.getByAddress(startIp);
+            DatabaseRecord<Map<String, Object>> record = reader.getRecord(address, RECORD_TYPE);
+            int prefix = record.getNetwork().getPrefixLength();
+            if (ipv6 && address instanceof Inet4Address) {
+                // ::ffff:a.b.c.d会被转换为IPv4地址，在IPv4子树中查询，前缀长度需加上96位
+                prefix += 96;
+            }
+            // 结束地址为前缀之后的位全部置1
+            for (int i = 0; i < endIp.length; i++) {
+                int hostBits = Math.min(8, Math.max(0, (i + 1) * 8 - prefix));
+                endIp[i] = (byte) (startIp[i] | ((1 << hostBits) - 1));
+            }
+            visitor.visit(startIp, endIp, record.getData());
+            if (!increment(endIp)) {
+                return;
+            }
+            System.arraycopy(endIp, 0, startIp, 0, endIp.length);
+        }
+    }
+
+    /**
+     * 地址加1
+     *
+     * @param ip 地址，网络字节序
+     * @return 是否未溢出，已经是最大地址时返回false
+     */
+    private static boolean increment(byte[] ip) {
+        for (int i = ip.length - 1; i >= 0; i--) {
+            if (++ip[i] != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,307 @@
+package cn.hehouhui.ip2region.index;
+
+import cn.hehouhui.ip2region.IpInfoMerger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * 合并索引构建器，把ip2region xdb与GeoIP2 mmdb的区间边界求交，预先合并每个区间的位置
+ * <pre>
+ * 1. 两个数据库分别编译为区间索引，再按区间边界的并集切分地址空间，每个切分后的区间只对应一对位置
+ * 2. 每对位置只合并一次，与{@link cn.hehouhui.ip2region.resolver.CompositeLocalSource}共用{@link IpInfoMerger}的合并规则：
+ *    区域库（ip2region）的位置满足覆盖条件时以区域库为准，否则以全球库（GeoIP2）为准，另一个库只补充缺失的字段
+ * 3. 相邻且合并结果相同的区间在构建时合并，查询时只需一次索引查找即可得到两个库的合并结果
+ * 4. 构建较慢，可保存为索引文件，下次启动时两个数据库文件都未变化则直接加载
+ * </pre>
+ * 覆盖条件无法记录在索引文件中，不同覆盖条件构建的索引应使用不同的索引文件。
+ *
+ * @author HeHui
+ * @date 2025-12-04
+ */
+public final class OverlayIndexBuilder {
+
+    /**
+     * 默认覆盖条件：区域库解析为国内IP
+     */
+    public static final Predicate<IpLocation> CHINA_COVERAGE = location -> "中国".equals(location.getCountry());
+
+    private static final long IPV4_MAX = 0xFFFFFFFFL;
+
+    private final Predicate<IpLocation> regionalCoverage;
+
+    private final List<String> locales;
+
+    /**
+     * 构造函数，使用{@link #CHINA_COVERAGE}覆盖条件和英文名称
+     */
+    public OverlayIndexBuilder() {
+        this(CHINA_COVERAGE, List.of("en"));
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param regionalCoverage 区域库覆盖条件，区域库的位置满足该条件时以区域库为准
+     * @param locales          mmdb名称语言，按顺序取第一个存在的名称
+     */
+    public OverlayIndexBuilder(Predicate<IpLocation> regionalCoverage, List<String> locales) {
+        if (regionalCoverage == null || locales == null || locales.isEmpty()) {
+            throw new IllegalArgumentException("regionalCoverage and locales must not be empty");
+        }
+        this.regionalCoverage = regionalCoverage;
+        this.locales = List.copyOf(locales);
+    }
+
+    /**
+     * 从xdb和mmdb文件构建合并后的IPv4索引
+     *
+     * @param xdbFile  ip2region IPv4 xdb文件
+     * @param mmdbFile GeoIP2 mmdb文件
+     * @return 合并索引
+     * @throws IOException 文件无法读取或格式错误
+     */
+    public Ipv4RangeIndex buildIpv4(Path xdbFile, Path mmdbFile) throws IOException {
+        Ipv4RangeIndex regional = Ipv4RangeIndex.build(xdbFile);
+        try (MmdbFile mmdb = MmdbFile.open(mmdbFile)) {
+            return overlay(regional, globalIpv4(mmdb));
+        }
+    }
+
+    /**
+     * 从xdb和mmdb文件构建合并后的IPv6索引
+     *
+     * @param xdbFile  ip2region IPv6 xdb文件
+     * @param mmdbFile GeoIP2 mmdb文件，不包含IPv6数据时结果只有xdb的位置
+     * @return 合并索引
+     * @throws IOException 文件无法读取或格式错误
+     */
+    public Ipv6RangeIndex buildIpv6(Path xdbFile, Path mmdbFile) throws IOException {
+        Ipv6RangeIndex regional = Ipv6RangeIndex.build(xdbFile);
+        try (MmdbFile mmdb = MmdbFile.open(mmdbFile)) {
+            return overlay(regional, mmdb.isIpv6() ? globalIpv6(mmdb) : Ipv6RangeIndex.builder().build());
+        }
+    }
+
+    /**
+     * 加载已保存的合并IPv4索引，索引文件不存在或任一数据库文件变化时重新构建并保存
+     *
+     * @param xdbFile   ip2region IPv4 xdb文件
+     * @param mmdbFile  GeoIP2 mmdb文件
+     * @param indexFile 索引文件
+     * @return 合并索引
+     * @throws IOException 文件无法读取或写入
+     */
+    public Ipv4RangeIndex loadOrBuildIpv4(Path xdbFile, Path mmdbFile, Path indexFile) throws IOException {
+        long sourceSize = sizeFingerprint(xdbFile, mmdbFile);
+        long sourceModified = modifiedFingerprint(xdbFile, mmdbFile);
+        if (Files.isRegularFile(indexFile)) {
+            try {
+                Ipv4RangeIndex index = Ipv4RangeIndex.load(indexFile, sourceSize, sourceModified);
+                if (index != null) {
+                    return index;
+                }
+            } catch (IOException | RuntimeException e) {
+                // 索引文件损坏，重新构建
+            }
+        }
+        Ipv4RangeIndex index = buildIpv4(xdbFile, mmdbFile);
+        index.save(indexFile, sourceSize, sourceModified);
+        return index;
+    }
+
+    /**
+     * 加载已保存的合并IPv6索引，索引文件不存在或任一数据库文件变化时重新构建并保存
+     *
+     * @param xdbFile   ip2region IPv6 xdb文件
+     * @param mmdbFile  GeoIP2 mmdb文件
+     * @param indexFile 索引文件
+     * @return 合并索引
+     * @throws IOException 文件无法读取或写入
+     */
+    public Ipv6RangeIndex loadOrBuildIpv6(Path xdbFile, Path mmdbFile, Path indexFile) throws IOException {
+        long sourceSize = sizeFingerprint(xdbFile, mmdbFile);
+        long sourceModified = modifiedFingerprint(xdbFile, mmdbFile);
+        if (Files.isRegularFile(indexFile)) {
+            try {
+                Ipv6RangeIndex index = Ipv6RangeIndex.load(indexFile, sourceSize, sourceModified);
+                if (index != null) {
+                    return index;
+                }
+            } catch (IOException | RuntimeException e) {
+                // 索引文件损坏，重新构建
+            }
+        }
+        Ipv6RangeIndex index = buildIpv6(xdbFile, mmdbFile);
+        index.save(indexFile, sourceSize, sourceModified);
+        return index;
+    }
+
+    /**
+     * 把mmdb的IPv4网段编译为区间索引
+     *
+     * @param mmdb mmdb文件
+     * @return 区间索引
+     * @throws IOException 读取失败
+     */
+    public Ipv4RangeIndex globalIpv4(MmdbFile mmdb) throws IOException {
+        Ipv4RangeIndex.Builder builder = Ipv4RangeIndex.builder();
+        // 节点缓存使相同数据的网段得到同一个解码结果，每个结果只解析一次
+        Map<Map<String, Object>, IpLocation> parsed = new IdentityHashMap<>();
+        mmdb.forEachNetwork(false, (startIp, endIp, record) ->
+            builder.add(Ipv4RangeIndex.toInt(startIp) & IPV4_MAX, Ipv4RangeIndex.toInt(endIp) & IPV4_MAX, parse(parsed, record)));
+        return builder.build();
+    }
+
+    /**
+     * 把mmdb的IPv6网段编译为区间索引
+     *
+     * @param mmdb mmdb文件
+     * @return 区间索引
+     * @throws IOException 读取失败
+     */
+    public Ipv6RangeIndex globalIpv6(MmdbFile mmdb) throws IOException {
+        Ipv6RangeIndex.Builder builder = Ipv6RangeIndex.builder();
+        Map<Map<String, Object>, IpLocation> parsed = new IdentityHashMap<>();
+        mmdb.forEachNetwork(true, (startIp, endIp, record) ->
+            builder.add(Ipv6RangeIndex.toLong(startIp, 0), Ipv6RangeIndex.toLong(startIp, 8),
+                Ipv6RangeIndex.toLong(endIp, 0), Ipv6RangeIndex.toLong(endIp, 8), parse(parsed, record)));
+        return builder.build();
+    }
+
+    private IpLocation parse(Map<Map<String, Object>, IpLocation> parsed, Map<String, Object> record) {
+        return record == null ? null : parsed.computeIfAbsent(record, key -> IpLocation.fromGeoIp(key, locales));
+    }
+
+    /**
+     * 合并两个IPv4索引
+     *
+     * @param regional 区域库索引
+     * @param global   全球库索引
+     * @return 合并索引
+     */
+    public Ipv4RangeIndex overlay(Ipv4RangeIndex regional, Ipv4RangeIndex global) {
+        Ipv4RangeIndex.Builder builder = Ipv4RangeIndex.builder();
+        Map<Long, IpLocation> merged = new HashMap<>();
+        int regionalCount = regional.getSegmentCount();
+        int globalCount = global.getSegmentCount();
+        int i = 0;
+        int j = 0;
+        long start = 0;
+        while (true) {
+            long regionalEnd = i + 1 < regionalCount ? regional.segmentStart(i + 1) - 1 : IPV4_MAX;
+            long globalEnd = j + 1 < globalCount ? global.segmentStart(j + 1) - 1 : IPV4_MAX;
+            long end = Math.min(regionalEnd, globalEnd);
+            builder.add(start, end, merge(merged, regional.segmentId(i), regional, global.segmentId(j), global));
+            if (end == IPV4_MAX) {
+                return builder.build();
+            }
+            if (regionalEnd == end) {
+                i++;
+            }
+            if (globalEnd == end) {
+                j++;
+            }
+            start = end + 1;
+        }
+    }
+
+    /**
+     * 合并两个IPv6索引
+     *
+     * @param regional 区域库索引
+     * @param global   全球库索引
+     * @return 合并索引
+     */
+    public Ipv6RangeIndex overlay(Ipv6RangeIndex regional, Ipv6RangeIndex global) {
+        Ipv6RangeIndex.Builder builder = Ipv6RangeIndex.builder();
+        Map<Long, IpLocation> merged = new HashMap<>();
+        int regionalCount = regional.getSegmentCount();
+        int globalCount = global.getSegmentCount();
+        int i = 0;
+        int j = 0;
+        long startHigh = 0;
+        long startLow = 0;
+        while (true) {
+            // 下一个区间的起始地址，-1表示已到最大地址
+            long regionalNextHigh = i + 1 < regionalCount ? regional.segmentStartHigh(i + 1) : -1;
+            long regionalNextLow = i + 1 < regionalCount ? regional.segmentStartLow(i + 1) : 0;
+            long globalNextHigh = j + 1 < globalCount ? global.segmentStartHigh(j + 1) : -1;
+            long globalNextLow = j + 1 < globalCount ? global.segmentStartLow(j + 1) : 0;
+            int order = compare(regionalNextHigh, regionalNextLow, globalNextHigh, globalNextLow, i + 1 < regionalCount, j + 1 < globalCount);
+            long nextHigh = order <= 0 ? regionalNextHigh : globalNextHigh;
+            long nextLow = order <= 0 ? regionalNextLow : globalNextLow;
+            boolean last = i + 1 >= regionalCount && j + 1 >= globalCount;
+            IpLocation location = merge(merged, regional.segmentId(i), regional, global.segmentId(j), global);
+            if (last) {
+                builder.add(startHigh, startLow, -1L, -1L, location);
+                return builder.build();
+            }
+            // 结束地址为下一个起始地址减1
+            long endLow = nextLow - 1;
+            long endHigh = nextLow == 0 ? nextHigh - 1 : nextHigh;
+            builder.add(startHigh, startLow, endHigh, endLow, location);
+            if (order <= 0) {
+                i++;
+            }
+            if (order >= 0) {
+                j++;
+            }
+            startHigh = nextHigh;
+            startLow = nextLow;
+        }
+    }
+
+    /**
+     * 比较两个下一个区间的起始地址，不存在的起始地址视为无穷大
+     */
+    private static int compare(long aHigh, long aLow, long bHigh, long bLow, boolean aExists, boolean bExists) {
+        if (!aExists || !bExists) {
+            return aExists ? -1 : bExists ? 1 : 0;
+        }
+        int result = Long.compareUnsigned(aHigh, bHigh);
+        return result != 0 ? result : Long.compareUnsigned(aLow, bLow);
+    }
+
+    private IpLocation merge(Map<Long, IpLocation> merged, int regionalId, Ipv4RangeIndex regional, int globalId, Ipv4RangeIndex global) {
+        long key = ((long) (regionalId + 1) << 32) | (globalId + 1);
+        return merged.computeIfAbsent(key, k -> merge(regional.location(regionalId), global.location(globalId)));
+    }
+
+    private IpLocation merge(Map<Long, IpLocation> merged, int regionalId, Ipv6RangeIndex regional, int globalId, Ipv6RangeIndex global) {
+        long key = ((long) (regionalId + 1) << 32) | (globalId + 1);
+        return merged.computeIfAbsent(key, k -> merge(regional.location(regionalId), global.location(globalId)));
+    }
+
+    /**
+     * 合并两个库的位置
+     *
+     * @param regional 区域库位置，可为null
+     * @param global   全球库位置，可为null
+     * @return 合并后的位置，两者都为null时返回null
+     */
+    public IpLocation merge(IpLocation regional, IpLocation global) {
+        if (regional == null || global == null) {
+            return regional != null ? regional : global;
+        }
+        IpLocation primary = regionalCoverage.test(regional) ? regional : global;
+        IpLocation secondary = primary == regional ? global : regional;
+        return IpLocation.fromIpInfo(IpInfoMerger.merge(primary.toIpInfo(null), secondary.toIpInfo(null)));
+    }
+
+    private static long sizeFingerprint(Path xdbFile, Path mmdbFile) throws IOException {
+        return Files.size(xdbFile) * 31 + Files.size(mmdbFile);
+    }
+
+    private long modifiedFingerprint(Path xdbFile, Path mmdbFile) throws IOException {
+        // 名称语言不同时构建结果不同，一并计入
+        long modified = Files.getLastModifiedTime(xdbFile).toMillis() * 31 + Files.getLastModifiedTime(mmdbFile).toMillis();
+        return modified * 31 + locales.hashCode();
+    }
+}
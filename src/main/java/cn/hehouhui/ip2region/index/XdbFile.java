@@ -0,0 +1,144 @@
+package cn.hehouhui.ip2region.index;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * ip2region xdb文件的只读遍历器，用于在加载时把xdb的段索引编译为内存索引
+ * <pre>
+ * xdb文件结构（多字节整数均为小端序）：
+ * 1. 256字节文件头：版本(2) 索引策略(2) 创建时间(4) 段索引起始地址(4) 段索引结束地址(4) IP版本(2) 数据指针字节数(2)
+ * 2. 256*256*8字节的向量索引，遍历时不需要
+ * 3. 区域数据
+ * 4. 段索引：起始IP、结束IP、数据长度(2)、数据地址(4)；IPv4地址以小端序存储，IPv6地址以网络字节序存储
+ * </pre>
+ *
+ * @author HeHui
+ * @date 2025-12-04
+ */
+public final class XdbFile {
+
+    private static final int HEADER_LENGTH = 256;
+
+    private final MappedByteBuffer buffer;
+
+    private final int ipBytes;
+
+    private final int startIndexPtr;
+
+    private final int endIndexPtr;
+
+    private final int segmentSize;
+
+    /**
+     * 段遍历回调
+     */
+    @FunctionalInterface
+    public interface SegmentVisitor {
+        /**
+         * 访问一个段
+         *
+         * @param startIp 起始IP，网络字节序，回调返回后会被复用
+         * @param endIp   结束IP（包含），网络字节序，回调返回后会被复用
+         * @param region  区域字符串，相同数据地址的段共用同一个实例
+         */
+        void visit(byte[] startIp, byte[] endIp, String region);
+    }
+
+    private XdbFile(MappedByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.capacity() < HEADER_LENGTH) {
+            throw new IOException("Invalid xdb file: header is truncated");
+        }
+        this.startIndexPtr = buffer.getInt(8);
+        this.endIndexPtr = buffer.getInt(12);
+        // 早期版本的文件头没有IP版本字段，只支持IPv4
+        int ipVersion = buffer.getShort(16) & 0xFFFF;
+        int ptrBytes = buffer.getShort(18) & 0xFFFF;
+        if (ptrBytes != 0 && ptrBytes != 4) {
+            throw new IOException("Unsupported xdb data pointer size: " + ptrBytes);
+        }
+        this.ipBytes = ipVersion == 6 ? 16 : 4;
+        this.segmentSize = ipBytes * 2 + 2 + 4;
+        if (startIndexPtr < HEADER_LENGTH || endIndexPtr < startIndexPtr || endIndexPtr + segmentSize > buffer.capacity()) {
+            throw new IOException("Invalid xdb file: segment index out of range");
+        }
+    }
+
+    /**
+     * 以内存映射方式打开xdb文件
+     *
+     * @param path 文件路径
+     * @return xdb文件
+     * @throws IOException 文件无法读取或格式错误
+     */
+    public static XdbFile open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new XdbFile(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * 是否为IPv6数据库
+     *
+     * @return 是否为IPv6
+     */
+    public boolean isIpv6() {
+        return ipBytes == 16;
+    }
+
+    /**
+     * 获取段数量
+     *
+     * @return 段数量
+     */
+    public int getSegmentCount() {
+        return (endIndexPtr - startIndexPtr) / segmentSize + 1;
+    }
+
+    /**
+     * 按IP从小到大遍历所有段
+     *
+     * @param visitor 回调
+     */
+    public void forEachSegment(SegmentVisitor visitor) {
+        ByteBuffer view = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        byte[] startIp = new byte[ipBytes];
+        byte[] endIp = new byte[ipBytes];
+        Map<Integer, String> regions = new HashMap<>();
+        for (int p = startIndexPtr; p <= endIndexPtr; p += segmentSize) {
+            readIp(view, p, startIp);
+            readIp(view, p + ipBytes, endIp);
+            int dataLength = view.getShort(p + ipBytes * 2) & 0xFFFF;
+            int dataPtr = view.getInt(p + ipBytes * 2 + 2);
+            String region = regions.computeIfAbsent(dataPtr, ptr -> {
+                byte[] data = new byte[dataLength];
+                view.get(ptr, data);
+                return new String(data, StandardCharsets.UTF_8);
+            });
+            visitor.visit(startIp, endIp, region);
+        }
+    }
+
+    private void readIp(ByteBuffer view, int offset, byte[] ip) {
+        view.get(offset, ip);
+        if (ipBytes == 4) {
+            // IPv4以小端序存储，转换为网络字节序
+            byte b = ip[0];
+            ip[0] = ip[3];
+            ip[3] = b;
+            b = ip[1];
+            ip[1] = ip[2];
+            ip[2] = b;
+        }
+    }
+}
@@ -0,0 +1,370 @@
+package cn.hehouhui.ip2region.json;
+
+import cn.hehouhui.ip2region.IpInfo;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+
+/**
+ * 声明式JSON字段映射器，基于Gson的JsonReader单次流式遍历响应，直接写入IpInfo。
+ * <pre>
+ * 1. 字段路径使用点号分隔，数组下标使用方括号，例如 data.country、regions[0]、as.info
+ * 2. 构建时将所有路径编译为一棵路径树，遍历时只进入被映射的节点，其余字段直接跳过
+ * 3. 值为JSON null的字段视为不存在
+ * 4. 通过expect/require声明的条件全部满足、且reject声明的条件都不满足时映射才算成功
+ * 5. 严格按JSON语法解析，根节点必须是对象，HTML错误页、纯文本或数组响应都视为格式错误
+ * </pre>
+ * 映射器构建后不可变，可在多个线程间共享。
+ *
+ * @author HeHui
+ * @date 2025-12-04
+ */
+public final class JsonFieldMapper {
+
+    private final Node root;
+
+    private final List<Binding> defaults;
+
+    private final int expectationCount;
+
+    private JsonFieldMapper(Node root, List<Binding> defaults, int expectationCount) {
+        this.root = root;
+        this.defaults = defaults;
+        this.expectationCount = expectationCount;
+    }
+
+    /**
+     * 创建映射器构建器
+     *
+     * @return 构建器
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * 将JSON响应映射为IpInfo
+     *
+     * @param json JSON响应字符串
+     * @return IP信息，声明的条件不满足时返回empty
+     * @throws JsonSyntaxException JSON格式错误或根节点不是对象
+     */
+    public Optional<IpInfo> map(String json) {
+        IpInfo ipInfo = new IpInfo();
+        // 先写入默认值，遍历过程中出现的字段会覆盖它们
+        for (Binding binding : defaults) {
+            binding.setter.accept(ipInfo, binding.value);
+        }
+        // [0]为已满足的expect/require条件数，[1]为命中的reject条件数
+        int[] conditions = {0, 0};
+        try (JsonReader reader = new JsonReader(new StringReader(json))) {
+            JsonToken token = reader.peek();
+            if (token != JsonToken.BEGIN_OBJECT) {
+                throw new JsonSyntaxException("Expected a JSON object but was " + token);
+            }
+            walk(reader, root, ipInfo, conditions);
+        } catch (IOException e) {
+            throw new JsonSyntaxException(e);
+        }
+        if (conditions[0] < expectationCount || conditions[1] > 0) {
+            return Optional.empty();
+        }
+        return Optional.of(ipInfo);
+    }
+
+    private void walk(JsonReader reader, Node node, IpInfo ipInfo, int[] conditions) throws IOException {
+        JsonToken token = reader.peek();
+        if (node.bindings != null && (token == JsonToken.BEGIN_OBJECT || token == JsonToken.BEGIN_ARRAY)) {
+            // 对象和数组只能满足require声明的存在性条件
+            for (Binding binding : node.bindings) {
+                if (binding.kind == Kind.EXPECT && binding.value == null) {
+                    conditions[0]++;
+                }
+            }
+        }
+        switch (token) {
+            case BEGIN_OBJECT:
+                if (node.fields == null) {
+                    reader.skipValue();
+                    return;
+                }
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    Node child = node.fields.get(reader.nextName());
+                    if (child == null) {
+                        reader.skipValue();
+                    } else {
+                        walk(reader, child, ipInfo, conditions);
+                    }
+                }
+                reader.endObject();
+                return;
+            case BEGIN_ARRAY:
+                if (node.elements == null) {
+                    reader.skipValue();
+                    return;
+                }
+                reader.beginArray();
+                int index = 0;
+                while (reader.hasNext()) {
+                    Node child = index < node.elements.length ? node.elements[index] : null;
+                    if (child == null) {
+                        reader.skipValue();
+                    } else {
+                        walk(reader, child, ipInfo, conditions);
+                    }
+                    index++;
+                }
+                reader.endArray();
+                return;
+            case NULL:
+                reader.nextNull();
+                return;
+            case BOOLEAN:
+                apply(node, String.valueOf(reader.nextBoolean()), ipInfo, conditions);
+                return;
+            case STRING:
+            case NUMBER:
+                apply(node, reader.nextString(), ipInfo, conditions);
+                return;
+            default:
+                reader.skipValue();
+        }
+    }
+
+    private void apply(Node node, String value, IpInfo ipInfo, int[] conditions) {
+        if (node.bindings == null) {
+            return;
+        }
+        for (Binding binding : node.bindings) {
+            switch (binding.kind) {
+                case EXPECT:
+                    if (binding.value == null || binding.value.equals(value)) {
+                        conditions[0]++;
+                    }
+                    break;
+                case REJECT:
+                    if (binding.value.equals(value)) {
+                        conditions[1]++;
+                    }
+                    break;
+                default:
+                    binding.setter.accept(ipInfo, value);
+            }
+        }
+    }
+
+    /**
+     * 路径树节点
+     */
+    private static final class Node {
+        Map<String, Node> fields;
+        Node[] elements;
+        List<Binding> bindings;
+    }
+
+    private enum Kind {
+        SET, EXPECT, REJECT
+    }
+
+    /**
+     * 字段绑定，SET时value为默认值，EXPECT/REJECT时value为比较值（EXPECT为null表示只要求字段存在）
+     */
+    private static final class Binding {
+        final Kind kind;
+        final BiConsumer<IpInfo, String> setter;
+        final String value;
+
+        Binding(Kind kind, BiConsumer<IpInfo, String> setter, String value) {
+            this.kind = kind;
+            this.setter = setter;
+            this.value = value;
+        }
+    }
+
+    /**
+     * 映射器构建器
+     */
+    public static final class Builder {
+
+        private final Node root = new Node();
+
+        private final List<Binding> defaults = new ArrayList<>();
+
+        private int expectationCount = 0;
+
+        private Builder() {
+        }
+
+        /**
+         * 声明成功条件：指定路径的值（字符串形式）必须等于期望值
+         *
+         * @param path     字段路径
+         * @param expected 期望值，数字和布尔值按JSON字面量比较，如"0"、"true"
+         * @return 构建器
+         */
+        public Builder expect(String path, String expected) {
+            Objects.requireNonNull(expected, "expected");
+            bind(path, new Binding(Kind.EXPECT, null, expected));
+            expectationCount++;
+            return this;
+        }
+
+        /**
+         * 声明成功条件：指定路径必须存在且不为null
+         *
+         * @param path 字段路径
+         * @return 构建器
+         */
+        public Builder require(String path) {
+            bind(path, new Binding(Kind.EXPECT, null, null));
+            expectationCount++;
+            return this;
+        }
+
+        /**
+         * 声明失败条件：指定路径的值（字符串形式）等于给定值时映射失败
+         *
+         * @param path  字段路径
+         * @param value 表示失败的值，如"true"
+         * @return 构建器
+         */
+        public Builder reject(String path, String value) {
+            Objects.requireNonNull(value, "value");
+            bind(path, new Binding(Kind.REJECT, null, value));
+            return this;
+        }
+
+        /**
+         * 映射字符串字段
+         *
+         * @param path   字段路径
+         * @param setter 赋值方法
+         * @return 构建器
+         */
+        public Builder string(String path, BiConsumer<IpInfo, String> setter) {
+            return field(path, setter);
+        }
+
+        /**
+         * 映射字符串字段，字段不存在或为null时使用默认值
+         *
+         * @param path         字段路径
+         * @param setter       赋值方法
+         * @param defaultValue 默认值
+         * @return 构建器
+         */
+        public Builder string(String path, BiConsumer<IpInfo, String> setter, String defaultValue) {
+            Binding binding = new Binding(Kind.SET, setter, defaultValue);
+            bind(path, binding);
+            defaults.add(binding);
+            return this;
+        }
+
+        /**
+         * 映射数值字段，兼容以字符串形式返回的数值，无法解析时忽略
+         *
+         * @param path   字段路径
+         * @param setter 赋值方法
+         * @return 构建器
+         */
+        public Builder number(String path, BiConsumer<IpInfo, Double> setter) {
+            return field(path, (ipInfo, value) -> {
+                try {
+                    setter.accept(ipInfo, Double.parseDouble(value));
+                } catch (NumberFormatException ignored) {
+                    // 忽略解析错误
+                }
+            });
+        }
+
+        /**
+         * 映射布尔字段，兼容以字符串形式返回的布尔值
+         *
+         * @param path   字段路径
+         * @param setter 赋值方法
+         * @return 构建器
+         */
+        public Builder bool(String path, BiConsumer<IpInfo, Boolean> setter) {
+            return field(path, (ipInfo, value) -> setter.accept(ipInfo, Boolean.parseBoolean(value)));
+        }
+
+        /**
+         * 映射字段并自定义处理逻辑
+         *
+         * @param path    字段路径
+         * @param handler 处理逻辑，参数为IpInfo和字段的字符串值
+         * @return 构建器
+         */
+        public Builder field(String path, BiConsumer<IpInfo, String> handler) {
+            bind(path, new Binding(Kind.SET, handler, null));
+            return this;
+        }
+
+        /**
+         * 构建映射器
+         *
+         * @return 映射器
+         */
+        public JsonFieldMapper build() {
+            return new JsonFieldMapper(root, List.copyOf(defaults), expectationCount);
+        }
+
+        private void bind(String path, Binding binding) {
+            Node node = root;
+            for (String segment : path.split("\\.")) {
+                String name = segment;
+                int bracket = segment.indexOf('[');
+                if (bracket >= 0) {
+                    name = segment.substring(0, bracket);
+                }
+                if (!name.isEmpty()) {
+                    node = child(node, name);
+                }
+                while (bracket >= 0) {
+                    int close = segment.indexOf(']', bracket);
+                    if (close < 0) {
+                        throw new IllegalArgumentException("Invalid field path: " + path);
+                    }
+                    node = element(node, Integer.parseInt(segment.substring(bracket + 1, close)));
+                    bracket = segment.indexOf('[', close);
+                }
+            }
+            if (node.bindings == null) {
+                node.bindings = new ArrayList<>();
+            }
+            node.bindings.add(binding);
+        }
+
+        private static Node child(Node parent, String name) {
+            if (parent.fields == null) {
+                parent.fields = new HashMap<>();
+            }
+            return parent.fields.computeIfAbsent(name, key -> new Node());
+        }
+
+        private static Node element(Node parent, int index) {
+            if (parent.elements == null || parent.elements.length <= index) {
+                Node[] elements = new Node[index + 1];
+                if (parent.elements != null) {
+                    System.arraycopy(parent.elements, 0, elements, 0, parent.elements.length);
+                }
+                parent.elements = elements;
+            }
+            if (parent.elements[index] == null) {
+                parent.elements[index] = new Node();
+            }
+            return parent.elements[index];
+        }
+    }
+}
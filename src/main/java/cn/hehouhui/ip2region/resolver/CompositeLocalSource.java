@@ -0,0 +1,141 @@
+package cn.hehouhui.ip2region.resolver;
+
+import cn.hehouhui.ip2region.IpInfo;
+import cn.hehouhui.ip2region.IpInfoMerger;
+import cn.hehouhui.ip2region.core.AbstractIpSource;
+import cn.hehouhui.ip2region.core.IpSource;
+
+import java.io.IOException;
+import java.util.function.Predicate;
+
+/**
+ * 组合本地数据源，一次查询同时使用ip2region和GeoIP2两个本地数据库，并按覆盖范围合并字段
+ * <pre>
+ * 1. 两个数据库都只在本地查询，耗时为微秒级，每次查询都同时查两个库
+ * 2. 区域库（通常为ip2region）的结果满足覆盖条件时（默认为国内IP），以区域库的国家、省份、城市、ISP为准；
+ *    否则以全球库（通常为GeoIP2）的结果为准
+ * 3. 另一个库只补充主结果中缺失的字段，如经纬度、时区、ASN，合并规则见{@link IpInfoMerger}
+ * 4. 任意一个库查询失败时使用另一个库的结果，两个都失败时查询失败
+ * </pre>
+ *
+ * @author HeHui
+ * @date 2025-12-04
+ */
+public class CompositeLocalSource extends AbstractIpSource implements AutoCloseable {
+
+    /**
+     * 默认覆盖条件：区域库解析为国内IP
+     */
+    public static final Predicate<IpInfo> CHINA_COVERAGE = ipInfo -> "中国".equals(ipInfo.getCountry());
+
+    private final IpSource regional;
+
+    private final IpSource global;
+
+    private final Predicate<IpInfo> regionalCoverage;
+
+    /**
+     * 构造函数，区域库使用{@link #CHINA_COVERAGE}覆盖条件
+     *
+     * @param regional 区域库数据源，如ip2region
+     * @param global   全球库数据源，如GeoIP2
+     * @param name     数据源名称，应包含local以便降级策略识别为本地数据源
+     * @param weight   数据源权重
+     */
+    public CompositeLocalSource(IpSource regional, IpSource global, String name, int weight) {
+        this(regional, global, CHINA_COVERAGE, name, weight);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param regional         区域库数据源，如ip2region
+     * @param global           全球库数据源，如GeoIP2
+     * @param regionalCoverage 区域库覆盖条件，区域库的结果满足该条件时以区域库为准
+     * @param name             数据源名称，应包含local以便降级策略识别为本地数据源
+     * @param weight           数据源权重
+     */
+    public CompositeLocalSource(IpSource regional, IpSource global, Predicate<IpInfo> regionalCoverage, String name, int weight) {
+        super(name, weight);
+        if (regional == null || global == null || regionalCoverage == null) {
+            throw new IllegalArgumentException("regional, global and regionalCoverage must not be null");
+        }
+        this.regional = regional;
+        this.global = global;
+        this.regionalCoverage = regionalCoverage;
+    }
+
+    @Override
+    public IpInfo query(String ip) throws Exception {
+        IpInfo regionalInfo = null;
+        IpInfo globalInfo = null;
+        Exception error = null;
+        try {
+            regionalInfo = regional.query(ip);
+        } catch (Exception e) {
+            error = e;
+        }
+        try {
+            globalInfo = global.query(ip);
+        } catch (Exception e) {
+            if (error != null) {
+                e.addSuppressed(error);
+            }
+            error = e;
+        }
+        if (regionalInfo == null && globalInfo == null) {
+            updateFailureStats();
+            throw new Exception(getName() + " failed to resolve " + ip, error);
+        }
+        IpInfo merged;
+        if (regionalInfo != null && (globalInfo == null || regionalCoverage.test(regionalInfo))) {
+            merged = IpInfoMerger.merge(regionalInfo, globalInfo);
+        } else {
+            merged = IpInfoMerger.merge(globalInfo, regionalInfo);
+        }
+        merged.setIp(ip);
+        updateSuccessStats();
+        return merged;
+    }
+
+    public IpSource getRegional() {
+        return regional;
+    }
+
+    public IpSource getGlobal() {
+        return global;
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return regional.isAvailable() || global.isAvailable();
+    }
+
+    /**
+     * 关闭两个数据库，一个关闭失败时仍然关闭另一个
+     *
+     * @throws IOException 关闭失败
+     */
+    @Override
+    public void close() throws IOException {
+        IOException error = null;
+        for (IpSource source : new IpSource[]{regional, global}) {
+            if (source instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (Exception e) {
+                    IOException failure = e instanceof IOException io ? io : new IOException(getName() + " failed to close " + source.getName(), e);
+                    if (error != null) {
+                        failure.addSuppressed(error);
+                    }
+                    error = failure;
+                }
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package cn.hehouhui.ip2region.resolver;
+
+import cn.hehouhui.ip2region.IpInfo;
+import cn.hehouhui.ip2region.core.AbstractUrlNetworkIpSource;
+import cn.hehouhui.ip2region.http.HttpRequestHandler;
+import cn.hehouhui.ip2region.json.JsonFieldMapper;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+
+/**
+ * 由{@link SourceDefinition}配置生成的网络数据源，无需为每个接口编写解析器子类。
+ * <pre>
+ * 1. 构造时把URL模板拆分为接口地址和路径片段，请求时只做字符串拼接
+ * 2. 成功条件与字段映射在构造时编译为{@link JsonFieldMapper}，解析时单次流式遍历响应
+ * 3. 配置了timeoutMillis时作为自适应超时策略的上限
+ * 4. 必须配置expect或require，否则任何JSON对象（包括错误响应）都会被当作成功结果
+ * </pre>
+ *
+ * @author HeHui
+ * @date 2025-12-04
+ */
+public class ConfigurableNetworkResolver extends AbstractUrlNetworkIpSource {
+
+    private static final String IP_PLACEHOLDER = "{ip}";
+
+    private static final Map<String, BiConsumer<IpInfo, String>> STRING_FIELDS = Map.ofEntries(
+        Map.entry("ip", IpInfo::setIp),
+        Map.entry("country", IpInfo::setCountry),
+        Map.entry("region", IpInfo::setRegion),
+        Map.entry("province", IpInfo::setProvince),
+        Map.entry("city", IpInfo::setCity),
+        Map.entry("isp", IpInfo::setIsp),
+        Map.entry("asn", IpInfo::setAsn),
+        Map.entry("asnOwner", IpInfo::setAsnOwner),
+        Map.entry("timezone", IpInfo::setTimezone),
+        Map.entry("usageType", IpInfo::setUsageType),
+        Map.entry("risk", IpInfo::setRisk),
+        Map.entry("crawlerName", IpInfo::setCrawlerName)
+    );
+
+    private static final Map<String, BiConsumer<IpInfo, Double>> NUMBER_FIELDS = Map.of(
+        "longitude", IpInfo::setLongitude,
+        "latitude", IpInfo::setLatitude
+    );
+
+    private static final Map<String, BiConsumer<IpInfo, Boolean>> BOOLEAN_FIELDS = Map.of(
+        "nativeIp", IpInfo::setNativeIp,
+        "proxy", IpInfo::setProxy
+    );
+
+    private final String defaultBaseUrl;
+
+    // 路径模板按{ip}拆分后的片段，片段之间插入IP地址
+    private final String[] pathSegments;
+
+    private final JsonFieldMapper mapper;
+
+    /**
+     * 构造函数
+     *
+     * @param definition         数据源定义
+     * @param httpRequestHandler HTTP请求处理器
+     */
+    public ConfigurableNetworkResolver(SourceDefinition definition, HttpRequestHandler httpRequestHandler) {
+        super(definition.getName(), definition.getWeight(), definition.getPermitsPerSecond(), httpRequestHandler);
+        String url = definition.getUrl();
+        if (definition.getName() == null || url == null || !url.contains(IP_PLACEHOLDER)) {
+            throw new IllegalArgumentException("Source definition requires a name and a url containing " + IP_PLACEHOLDER + ": " + definition.getName());
+        }
+        int schemeEnd = url.indexOf("://");
+        int pathStart = schemeEnd < 0 ? -1 : url.indexOf('/', schemeEnd + 3);
+        if (schemeEnd < 0 || pathStart < 0) {
+            throw new IllegalArgumentException(getName() + " has an invalid url: " + url);
+        }
+        this.defaultBaseUrl = url.substring(0, pathStart);
+        this.pathSegments = url.substring(pathStart).split("\\{ip}", -1);
+        this.mapper = compile(definition);
+        if (definition.getTimeoutMillis() > 0) {
+            setTimeoutPolicy(timeoutFactor, Math.min(minTimeout, definition.getTimeoutMillis()), definition.getTimeoutMillis());
+        }
+    }
+
+    private JsonFieldMapper compile(SourceDefinition definition) {
+        if (definition.getExpect().isEmpty() && definition.getRequire().isEmpty()) {
+            throw new IllegalArgumentException(getName() + " requires at least one expect or require condition");
+        }
+        JsonFieldMapper.Builder builder = JsonFieldMapper.builder();
+        definition.getExpect().forEach(builder::expect);
+        definition.getRequire().forEach(builder::require);
+        definition.getReject().forEach(builder::reject);
+        for (Map.Entry<String, String> entry : definition.getFields().entrySet()) {
+            String property = entry.getKey();
+            String path = entry.getValue();
+            String defaultValue = definition.getDefaults().get(property);
+            if (STRING_FIELDS.containsKey(property)) {
+                if (defaultValue != null) {
+                    builder.string(path, STRING_FIELDS.get(property), defaultValue);
+                } else {
+                    builder.string(path, STRING_FIELDS.get(property));
+                }
+            } else if (NUMBER_FIELDS.containsKey(property)) {
+                builder.number(path, NUMBER_FIELDS.get(property));
+            } else if (BOOLEAN_FIELDS.containsKey(property)) {
+                builder.bool(path, BOOLEAN_FIELDS.get(property));
+            } else {
+                throw new IllegalArgumentException(getName() + " maps unknown field: " + property);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * 构建请求URL
+     *
+     * @param ip IP地址
+     *
+     * @return 请求URL
+     */
+    @Override
+    protected String requestUrl(String ip) {
+        StringBuilder url = new StringBuilder(128).append(baseUrl(defaultBaseUrl)).append(pathSegments[0]);
+        for (int i = 1; i < pathSegments.length; i++) {
+            url.append(ip).append(pathSegments[i]);
+        }
+        return url.toString();
+    }
+
+    /**
+     * 解析响应内容
+     *
+     * @param ip       IP地址
+     * @param response 响应字符串
+     *
+     * @return IP信息
+     *
+     * @throws Exception 解析异常或接口返回错误
+     */
+    @Override
+    protected Optional<IpInfo> parse(String ip, String response) throws Exception {
+        if (response == null || response.isEmpty()) {
+            return Optional.empty();
+        }
+        Optional<IpInfo> ipInfo = mapper.map(response);
+        if (ipInfo.isEmpty()) {
+            throw new Exception(getName() + " API Error: " + response);
+        }
+        if (ipInfo.get().getIp() == null) {
+            ipInfo.get().setIp(ip);
+        }
+        return ipInfo;
+    }
+}
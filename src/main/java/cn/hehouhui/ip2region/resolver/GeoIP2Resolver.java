@@ -2,25 +2,62 @@ package cn.hehouhui.ip2region.resolver;
 
 import cn.hehouhui.ip2region.IpInfo;
 import cn.hehouhui.ip2region.core.AbstractIpSource;
+import com.google.common.net.InetAddresses;
+import com.maxmind.db.CHMCache;
 import com.maxmind.db.Reader;
 import com.maxmind.geoip2.DatabaseReader;
+import com.maxmind.geoip2.exception.AddressNotFoundException;
 import com.maxmind.geoip2.exception.GeoIp2Exception;
+import com.maxmind.geoip2.model.AnonymousIpResponse;
+import com.maxmind.geoip2.model.AsnResponse;
 import com.maxmind.geoip2.model.CityResponse;
+import com.maxmind.geoip2.model.IspResponse;
 
 import java.io.File;
 import java.io.IOException;
 import java.net.InetAddress;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * GeoIP2本地数据库解析器，基于MaxMind GeoIP2数据库实现。
+ * <pre>
+ * City数据库不包含ASN、ISP和代理信息，可以额外打开以下数据库，在同一次查询中补充：
+ * 1. ASN数据库（GeoLite2-ASN）：填充ASN和ASN所有者
+ * 2. ISP数据库（GeoIP2-ISP）：填充ISP、ASN和ASN所有者，优先于ASN数据库
+ * 3. 匿名IP数据库（GeoIP2-Anonymous-IP）：填充是否为代理
+ * 运行期间可以重新打开这些数据库，切换后由最后一个使用旧数据库的查询关闭旧数据库，替换操作不会等待。
+ * </pre>
+ * 所有数据库均以内存映射方式打开。
+ * <p>
+ * 快速模式下City数据库不经过{@link DatabaseReader}：IP只按字面量解析，不会触发DNS查询；
+ * 记录解码为只包含所需字段的{@link GeoIpCityRecord}，不再构建完整的CityResponse。
+ * 两种模式都使用有界的节点缓存，热点数据段解码一次后直接复用。
  *
  * @author HeHui
  * @date 2025-12-02
  */
-public class GeoIP2Resolver extends AbstractIpSource {
+public class GeoIP2Resolver extends AbstractIpSource implements AutoCloseable {
+
+    /**
+     * 节点缓存容量，缓存满后新的数据段不再缓存
+     */
+    public static final int CACHE_CAPACITY = 4096;
+
     private final DatabaseReader reader;
 
+    // 快速模式下的City数据库读取器，为null时使用reader
+    private final Reader cityReader;
+
+    private final List<String> locales;
+
+    private final AtomicReference<RefCountedHandle<DatabaseReader>> asnDatabase = new AtomicReference<>();
+
+    private final AtomicReference<RefCountedHandle<DatabaseReader>> ispDatabase = new AtomicReference<>();
+
+    private final AtomicReference<RefCountedHandle<DatabaseReader>> anonymousIpDatabase = new AtomicReference<>();
+
     /**
      * 构造函数
      *
@@ -31,8 +68,30 @@ public class GeoIP2Resolver extends AbstractIpSource {
      * @throws IOException 文件读取异常
      */
     public GeoIP2Resolver(File dbFile, List<String> locales, String name, int weight) throws IOException {
+        this(dbFile, locales, false, name, weight);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param dbFile           GeoIP2数据库文件
+     * @param locales          语言列表，用于获取GeoIP2数据库中的信息
+     * @param fastMode         是否使用快速模式，快速模式只接受IP字面量
+     * @param name             解析器名称
+     * @param weight           解析器权重
+     * @throws IOException 文件读取异常
+     */
+    public GeoIP2Resolver(File dbFile, List<String> locales, boolean fastMode, String name, int weight) throws IOException {
         super(name, weight);
-        this.reader = new DatabaseReader.Builder(dbFile).locales(locales).fileMode(Reader.FileMode.MEMORY_MAPPED).build();
+        this.locales = List.copyOf(locales);
+        if (fastMode) {
+            this.reader = null;
+            this.cityReader = new Reader(dbFile, Reader.FileMode.MEMORY_MAPPED, new CHMCache(CACHE_CAPACITY));
+        } else {
+            this.reader = new DatabaseReader.Builder(dbFile).locales(locales).fileMode(Reader.FileMode.MEMORY_MAPPED)
+                .withCache(new CHMCache(CACHE_CAPACITY)).build();
+            this.cityReader = null;
+        }
     }
 
     /**
@@ -45,10 +104,15 @@ public class GeoIP2Resolver extends AbstractIpSource {
     public GeoIP2Resolver(DatabaseReader reader, String name, int weight) {
         super(name, weight);
         this.reader = reader;
+        this.cityReader = null;
+        this.locales = List.of("en");
     }
 
     @Override
     public IpInfo query(String ip) throws Exception {
+        if (cityReader != null) {
+            return fastQuery(ip);
+        }
         try {
             InetAddress ipAddress = InetAddress.getByName(ip);
             CityResponse response = reader.city(ipAddress);
@@ -72,7 +136,8 @@ public class GeoIP2Resolver extends AbstractIpSource {
             // 填充ISP信息
             if (response.getTraits() != null) {
                 ipInfo.setIsp(response.getTraits().getIsp());
-                ipInfo.setAsn(String.valueOf(response.getTraits().getAutonomousSystemNumber()));
+                Integer asn = response.getTraits().getAutonomousSystemNumber();
+                ipInfo.setAsn(asn == null ? null : String.valueOf(asn));
                 ipInfo.setAsnOwner(response.getTraits().getAutonomousSystemOrganization());
             }
 
@@ -83,6 +148,54 @@ public class GeoIP2Resolver extends AbstractIpSource {
                 ipInfo.setTimezone(response.getLocation().getTimeZone());
             }
 
+            fillNetworkInfo(ipAddress, ipInfo);
+            updateSuccessStats();
+            return ipInfo;
+        } catch (IOException | GeoIp2Exception e) {
+            updateFailureStats();
+            throw e;
+        }
+    }
+
+    /**
+     * 快速模式查询：按字面量解析IP，只解码需要的字段
+     *
+     * @param ip IP地址
+     *
+     * @return IpInfo对象
+     *
+     * @throws Exception 查询异常
+     */
+    private IpInfo fastQuery(String ip) throws Exception {
+        InetAddress ipAddress;
+        try {
+            ipAddress = InetAddresses.forString(ip);
+        } catch (IllegalArgumentException e) {
+            updateFailureStats();
+            throw new Exception(getName() + " invalid ip: " + ip, e);
+        }
+        try {
+            GeoIpCityRecord record = cityReader.get(ipAddress, GeoIpCityRecord.class);
+            if (record == null) {
+                throw new AddressNotFoundException("The address " + ip + " is not in the database.");
+            }
+            IpInfo ipInfo = new IpInfo();
+            ipInfo.setIp(ip);
+            if (record.getCountry() != null) {
+                ipInfo.setCountry(record.getCountry().getName(locales));
+            }
+            if (record.getSubdivisions() != null && !record.getSubdivisions().isEmpty()) {
+                ipInfo.setProvince(record.getSubdivisions().get(0).getName(locales));
+            }
+            if (record.getCity() != null) {
+                ipInfo.setCity(record.getCity().getName(locales));
+            }
+            if (record.getLocation() != null) {
+                ipInfo.setLatitude(record.getLocation().getLatitude());
+                ipInfo.setLongitude(record.getLocation().getLongitude());
+                ipInfo.setTimezone(record.getLocation().getTimeZone());
+            }
+            fillNetworkInfo(ipAddress, ipInfo);
             updateSuccessStats();
             return ipInfo;
         } catch (IOException | GeoIp2Exception e) {
@@ -91,6 +204,142 @@ public class GeoIP2Resolver extends AbstractIpSource {
         }
     }
 
+    /**
+     * 是否为快速模式
+     *
+     * @return 是否为快速模式
+     */
+    public boolean isFastMode() {
+        return cityReader != null;
+    }
+
+    /**
+     * 从ASN、ISP、匿名IP数据库补充网络信息，未打开的数据库跳过
+     *
+     * @param ipAddress IP地址
+     * @param ipInfo    查询结果
+     *
+     * @throws IOException     数据库读取异常
+     * @throws GeoIp2Exception 数据库类型不匹配
+     */
+    private void fillNetworkInfo(InetAddress ipAddress, IpInfo ipInfo) throws IOException, GeoIp2Exception {
+        RefCountedHandle<DatabaseReader> isp = RefCountedHandle.acquire(ispDatabase);
+        RefCountedHandle<DatabaseReader> asn = RefCountedHandle.acquire(asnDatabase);
+        RefCountedHandle<DatabaseReader> anonymousIp = RefCountedHandle.acquire(anonymousIpDatabase);
+        try {
+            Optional<? extends AsnResponse> asnResponse = Optional.empty();
+            if (isp != null) {
+                Optional<IspResponse> ispResponse = isp.get().tryIsp(ipAddress);
+                ispResponse.map(IspResponse::getIsp).ifPresent(ipInfo::setIsp);
+                asnResponse = ispResponse;
+            }
+            if (asnResponse.isEmpty() && asn != null) {
+                asnResponse = asn.get().tryAsn(ipAddress);
+            }
+            asnResponse.ifPresent(response -> {
+                if (response.getAutonomousSystemNumber() != null) {
+                    ipInfo.setAsn(String.valueOf(response.getAutonomousSystemNumber()));
+                }
+                if (response.getAutonomousSystemOrganization() != null) {
+                    ipInfo.setAsnOwner(response.getAutonomousSystemOrganization());
+                }
+            });
+            if (anonymousIp != null) {
+                // 匿名IP数据库只收录匿名网络，没有记录表示不是代理
+                ipInfo.setProxy(anonymousIp.get().tryAnonymousIp(ipAddress).map(GeoIP2Resolver::isProxy).orElse(false));
+            }
+        } finally {
+            release(isp);
+            release(asn);
+            release(anonymousIp);
+        }
+    }
+
+    private static void release(RefCountedHandle<DatabaseReader> database) {
+        if (database != null) {
+            database.release();
+        }
+    }
+
+    private static boolean isProxy(AnonymousIpResponse response) {
+        return response.isAnonymous() || response.isAnonymousVpn() || response.isPublicProxy()
+            || response.isResidentialProxy() || response.isTorExitNode();
+    }
+
+    /**
+     * 打开ASN数据库（GeoLite2-ASN或GeoIP2-ASN），已打开时替换并在旧数据库上的查询结束后关闭旧数据库
+     *
+     * @param dbFile ASN数据库文件
+     *
+     * @return 当前解析器
+     * @throws IOException 文件读取异常
+     */
+    public GeoIP2Resolver openAsnDatabase(File dbFile) throws IOException {
+        replace(asnDatabase, open(dbFile, "ASN"));
+        return this;
+    }
+
+    /**
+     * 打开ISP数据库（GeoIP2-ISP），已打开时替换并在旧数据库上的查询结束后关闭旧数据库
+     *
+     * @param dbFile ISP数据库文件
+     *
+     * @return 当前解析器
+     * @throws IOException 文件读取异常
+     */
+    public GeoIP2Resolver openIspDatabase(File dbFile) throws IOException {
+        replace(ispDatabase, open(dbFile, "ISP"));
+        return this;
+    }
+
+    /**
+     * 打开匿名IP数据库（GeoIP2-Anonymous-IP），已打开时替换并在旧数据库上的查询结束后关闭旧数据库
+     *
+     * @param dbFile 匿名IP数据库文件
+     *
+     * @return 当前解析器
+     * @throws IOException 文件读取异常
+     */
+    public GeoIP2Resolver openAnonymousIpDatabase(File dbFile) throws IOException {
+        replace(anonymousIpDatabase, open(dbFile, "Anonymous-IP"));
+        return this;
+    }
+
+    /**
+     * 原子替换数据库，旧数据库在最后一个使用它的查询结束后关闭
+     *
+     * @param database 数据库引用
+     * @param reader   新数据库，为null时只关闭旧数据库
+     */
+    private static void replace(AtomicReference<RefCountedHandle<DatabaseReader>> database, DatabaseReader reader) {
+        RefCountedHandle<DatabaseReader> previous =
+            database.getAndSet(reader == null ? null : new RefCountedHandle<>(reader, GeoIP2Resolver::closeQuietly));
+        if (previous != null) {
+            previous.retire();
+        }
+    }
+
+    private static DatabaseReader open(File dbFile, String databaseType) throws IOException {
+        DatabaseReader reader = new DatabaseReader.Builder(dbFile).fileMode(Reader.FileMode.MEMORY_MAPPED)
+            .withCache(new CHMCache(CACHE_CAPACITY)).build();
+        String type = reader.getMetadata().getDatabaseType();
+        if (type == null || !type.contains(databaseType)) {
+            reader.close();
+            throw new IllegalArgumentException(dbFile + " is not a " + databaseType + " database: " + type);
+        }
+        return reader;
+    }
+
+    private static void closeQuietly(DatabaseReader reader) {
+        if (reader != null) {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                // 忽略关闭异常
+            }
+        }
+    }
+
     @Override
     public boolean isAvailable() {
         // 本地数据源始终可用
@@ -103,6 +352,12 @@ public class GeoIP2Resolver extends AbstractIpSource {
      * @throws IOException IO异常
      */
     public void close() throws IOException {
+        replace(asnDatabase, null);
+        replace(ispDatabase, null);
+        replace(anonymousIpDatabase, null);
+        if (cityReader != null) {
+            cityReader.close();
+        }
         if (reader != null) {
             reader.close();
         }
@@ -0,0 +1,140 @@
+package cn.hehouhui.ip2region.resolver;
+
+import com.maxmind.db.MaxMindDbConstructor;
+import com.maxmind.db.MaxMindDbParameter;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * GeoIP2 City记录的精简模型，只包含{@link GeoIP2Resolver}需要的字段
+ * <pre>
+ * 通过{@link com.maxmind.db.Reader#get}直接解码，未声明的字段（大洲、注册国家、邮编、精度半径、geoname_id等）在解码时跳过；
+ * 记录不可变，可以放入节点缓存在查询间共享。
+ * </pre>
+ *
+ * @author HeHui
+ * @date 2025-12-04
+ */
+public final class GeoIpCityRecord {
+
+    private final Named country;
+
+    private final List<Named> subdivisions;
+
+    private final Named city;
+
+    private final Location location;
+
+    /**
+     * 构造函数，由MaxMind解码器调用
+     *
+     * @param country      国家
+     * @param subdivisions 行政区划，第一个为省份
+     * @param city         城市
+     * @param location     位置
+     */
+    @MaxMindDbConstructor
+    public GeoIpCityRecord(@MaxMindDbParameter(name = "country") Named country,
+                           @MaxMindDbParameter(name = "subdivisions") List<Named> subdivisions,
+                           @MaxMindDbParameter(name = "city") Named city,
+                           @MaxMindDbParameter(name = "location") Location location) {
+        this.country = country;
+        this.subdivisions = subdivisions;
+        this.city = city;
+        this.location = location;
+    }
+
+    public Named getCountry() {
+        return country;
+    }
+
+    public List<Named> getSubdivisions() {
+        return subdivisions;
+    }
+
+    public Named getCity() {
+        return city;
+    }
+
+    public Location getLocation() {
+        return location;
+    }
+
+    /**
+     * 带多语言名称的记录
+     */
+    public static final class Named {
+
+        private final Map<String, String> names;
+
+        /**
+         * 构造函数，由MaxMind解码器调用
+         *
+         * @param names 各语言的名称
+         */
+        @MaxMindDbConstructor
+        public Named(@MaxMindDbParameter(name = "names") Map<String, String> names) {
+            this.names = names;
+        }
+
+        /**
+         * 按语言顺序获取第一个存在的名称
+         *
+         * @param locales 语言列表
+         * @return 名称，不存在时返回null
+         */
+        public String getName(List<String> locales) {
+            if (names == null) {
+                return null;
+            }
+            for (String locale : locales) {
+                String name = names.get(locale);
+                if (name != null) {
+                    return name;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 位置
+     */
+    public static final class Location {
+
+        private final Double latitude;
+
+        private final Double longitude;
+
+        private final String timeZone;
+
+        /**
+         * 构造函数，由MaxMind解码器调用
+         *
+         * @param latitude  纬度
+         * @param longitude 经度
+         * @param timeZone  时区
+         */
+        @MaxMindDbConstructor
+        public Location(@MaxMindDbParameter(name = "latitude") Double latitude,
+                        @MaxMindDbParameter(name = "longitude") Double longitude,
+                        @MaxMindDbParameter(name = "time_zone") String timeZone) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.timeZone = timeZone;
+        }
+
+        public Double getLatitude() {
+            return latitude;
+        }
+
+        public Double getLongitude() {
+            return longitude;
+        }
+
+        public String getTimeZone() {
+            return timeZone;
+        }
+    }
+}
@@ -2,11 +2,10 @@ package cn.hehouhui.ip2region.resolver;
 
 import cn.hehouhui.ip2region.IpInfo;
 import cn.hehouhui.ip2region.core.AbstractIpSource;
-import cn.hehouhui.ip2region.core.AbstractNetworkIpSource;
+import cn.hehouhui.ip2region.core.AbstractUrlNetworkIpSource;
 import cn.hehouhui.ip2region.http.DefaultHttpRequestHandler;
 import cn.hehouhui.ip2region.http.HttpRequestHandler;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
+import cn.hehouhui.ip2region.json.JsonFieldMapper;
 
 import java.io.IOException;
 import java.util.Optional;
@@ -17,9 +16,19 @@ import java.util.Optional;
  * @author HeHui
  * @date 2025-12-01
  */
-public class Ip9Resolver extends AbstractNetworkIpSource {
+public class Ip9Resolver extends AbstractUrlNetworkIpSource {
 
+    private static final String DEFAULT_BASE_URL = "https://ip9.com.cn";
 
+    private static final JsonFieldMapper MAPPER = JsonFieldMapper.builder()
+        .expect("ret", "200")
+        .require("data")
+        .string("data.ip", IpInfo::setIp, "")
+        .string("data.country", IpInfo::setCountry, "")
+        .string("data.prov", IpInfo::setProvince, "")
+        .string("data.city", IpInfo::setCity, "")
+        .string("data.isp", IpInfo::setIsp, "")
+        .build();
 
     /**
      * 构造函数
@@ -45,35 +54,33 @@ public class Ip9Resolver extends AbstractNetworkIpSource {
     }
 
     /**
-     * 发送请求并解析IP信息
+     * 构建请求URL
      *
      * @param ip IP地址
      *
+     * @return 请求URL
+     */
+    @Override
+    protected String requestUrl(String ip) {
+        return baseUrl(DEFAULT_BASE_URL) + "/get?ip=" + ip;
+    }
+
+    /**
+     * 解析响应内容
+     *
+     * @param ip       IP地址
+     * @param response 响应字符串
+     *
      * @return IP信息
      *
-     * @throws Exception 请求异常
+     * @throws Exception 解析异常或接口返回错误
      */
     @Override
-    protected Optional<IpInfo> request(String ip) throws Exception {
-        String urlString = "https://ip9.com.cn/get?ip=" + ip;
-        String response = httpRequestHandler.get(urlString, 5000);
-
-        JsonObject jsonResponse = JsonParser.parseString(response).getAsJsonObject();
-
-        // 检查返回码
-        int ret = jsonResponse.get("ret").getAsInt();
-        if (ret != 200) {
-            throw new Exception(getName() + " API Error: ret=" + ret);
+    protected Optional<IpInfo> parse(String ip, String response) throws Exception {
+        Optional<IpInfo> ipInfo = MAPPER.map(response);
+        if (ipInfo.isEmpty()) {
+            throw new Exception(getName() + " API Error: " + response);
         }
-
-        JsonObject data = jsonResponse.getAsJsonObject("data");
-        IpInfo ipInfo = new IpInfo();
-        ipInfo.setIp(data.has("ip") && !data.get("ip").isJsonNull() ? data.get("ip").getAsString() : "");
-        ipInfo.setCountry(data.has("country") && !data.get("country").isJsonNull() ? data.get("country").getAsString() : "");
-        ipInfo.setProvince(data.has("prov") && !data.get("prov").isJsonNull() ? data.get("prov").getAsString() : "");
-        ipInfo.setCity(data.has("city") && !data.get("city").isJsonNull() ? data.get("city").getAsString() : "");
-        ipInfo.setIsp(data.has("isp") && !data.get("isp").isJsonNull() ? data.get("isp").getAsString() : "");
-
-        return Optional.of(ipInfo);
+        return ipInfo;
     }
 }
@@ -2,11 +2,10 @@ package cn.hehouhui.ip2region.resolver;
 
 import cn.hehouhui.ip2region.IpInfo;
 import cn.hehouhui.ip2region.core.AbstractIpSource;
-import cn.hehouhui.ip2region.core.AbstractNetworkIpSource;
+import cn.hehouhui.ip2region.core.AbstractUrlNetworkIpSource;
 import cn.hehouhui.ip2region.http.DefaultHttpRequestHandler;
 import cn.hehouhui.ip2region.http.HttpRequestHandler;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
+import cn.hehouhui.ip2region.json.JsonFieldMapper;
 
 import java.io.IOException;
 import java.util.Optional;
@@ -17,7 +16,23 @@ import java.util.Optional;
  * @author HeHui
  * @date 2025-12-01
  */
-public class IpApiCoResolver extends AbstractNetworkIpSource {
+public class IpApiCoResolver extends AbstractUrlNetworkIpSource {
+
+    private static final String DEFAULT_BASE_URL = "https://ipapi.co";
+
+    private static final JsonFieldMapper MAPPER = JsonFieldMapper.builder()
+        .reject("error", "true")
+        .require("country_name")
+        .string("ip", IpInfo::setIp, "")
+        .string("country_name", IpInfo::setCountry, "")
+        .string("region", IpInfo::setProvince, "")
+        .string("city", IpInfo::setCity, "")
+        .string("org", IpInfo::setIsp, "")
+        .string("asn", IpInfo::setAsn)
+        .number("longitude", IpInfo::setLongitude)
+        .number("latitude", IpInfo::setLatitude)
+        .string("timezone", IpInfo::setTimezone)
+        .build();
 
     /**
      * 构造函数
@@ -43,50 +58,33 @@ public class IpApiCoResolver extends AbstractNetworkIpSource {
     }
 
     /**
-     * 发送请求并解析IP信息
+     * 构建请求URL
      *
      * @param ip IP地址
      *
+     * @return 请求URL
+     */
+    @Override
+    protected String requestUrl(String ip) {
+        return baseUrl(DEFAULT_BASE_URL) + "/" + ip + "/json/";
+    }
+
+    /**
+     * 解析响应内容
+     *
+     * @param ip       IP地址
+     * @param response 响应字符串
+     *
      * @return IP信息
      *
-     * @throws Exception 请求异常
+     * @throws Exception 解析异常或接口返回错误
      */
     @Override
-    protected Optional<IpInfo> request(String ip) throws Exception {
-        String urlString = "https://ipapi.co/" + ip + "/json/";
-        String response = httpRequestHandler.get(urlString, 5000);
-
-        JsonObject jsonResponse = JsonParser.parseString(response).getAsJsonObject();
-
-        // Check if response contains error
-        if (jsonResponse.has("error")) {
-            throw new Exception(getName() + " API Error: " + jsonResponse.get("reason").getAsString());
+    protected Optional<IpInfo> parse(String ip, String response) throws Exception {
+        Optional<IpInfo> ipInfo = MAPPER.map(response);
+        if (ipInfo.isEmpty()) {
+            throw new Exception(getName() + " API Error: " + response);
         }
-
-        IpInfo ipInfo = new IpInfo();
-        ipInfo.setIp(jsonResponse.has("ip") && !jsonResponse.get("ip").isJsonNull() ? jsonResponse.get("ip").getAsString() : "");
-        ipInfo.setCountry(jsonResponse.has("country_name") && !jsonResponse.get("country_name").isJsonNull() ? jsonResponse.get("country_name").getAsString() : "");
-        ipInfo.setProvince(jsonResponse.has("region") && !jsonResponse.get("region").isJsonNull() ? jsonResponse.get("region").getAsString() : "");
-        ipInfo.setCity(jsonResponse.has("city") && !jsonResponse.get("city").isJsonNull() ? jsonResponse.get("city").getAsString() : "");
-        ipInfo.setIsp(jsonResponse.has("org") && !jsonResponse.get("org").isJsonNull() ? jsonResponse.get("org").getAsString() : "");
-
-        // 填充新增字段
-        if (jsonResponse.has("asn") && !jsonResponse.get("asn").isJsonNull()) {
-            ipInfo.setAsn(jsonResponse.get("asn").getAsString());
-        }
-
-        if (jsonResponse.has("longitude") && !jsonResponse.get("longitude").isJsonNull()) {
-            ipInfo.setLongitude(jsonResponse.get("longitude").getAsDouble());
-        }
-
-        if (jsonResponse.has("latitude") && !jsonResponse.get("latitude").isJsonNull()) {
-            ipInfo.setLatitude(jsonResponse.get("latitude").getAsDouble());
-        }
-
-        if (jsonResponse.has("timezone") && !jsonResponse.get("timezone").isJsonNull()) {
-            ipInfo.setTimezone(jsonResponse.get("timezone").getAsString());
-        }
-
-        return Optional.of(ipInfo);
+        return ipInfo;
     }
 }
@@ -2,11 +2,10 @@ package cn.hehouhui.ip2region.resolver;
 
 import cn.hehouhui.ip2region.IpInfo;
 import cn.hehouhui.ip2region.core.AbstractIpSource;
-import cn.hehouhui.ip2region.core.AbstractNetworkIpSource;
+import cn.hehouhui.ip2region.core.AbstractUrlNetworkIpSource;
 import cn.hehouhui.ip2region.http.DefaultHttpRequestHandler;
 import cn.hehouhui.ip2region.http.HttpRequestHandler;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
+import cn.hehouhui.ip2region.json.JsonFieldMapper;
 
 import java.io.IOException;
 import java.util.Optional;
@@ -17,7 +16,18 @@ import java.util.Optional;
  * @author HeHui
  * @date 2025-12-01
  */
-public class IpInfoResolver extends AbstractNetworkIpSource {
+public class IpInfoResolver extends AbstractUrlNetworkIpSource {
+
+    private static final String DEFAULT_BASE_URL = "http://ipinfo.io";
+
+    private static final JsonFieldMapper MAPPER = JsonFieldMapper.builder()
+        .require("country")
+        .string("ip", IpInfo::setIp, "")
+        .string("country", IpInfo::setCountry, "")
+        .string("region", IpInfo::setProvince, "")
+        .string("city", IpInfo::setCity, "")
+        .string("org", IpInfo::setIsp, "")
+        .build();
 
     /**
      * 构造函数
@@ -43,36 +53,36 @@ public class IpInfoResolver extends AbstractNetworkIpSource {
     }
 
     /**
-     * 发送请求并解析IP信息
+     * 构建请求URL
      *
      * @param ip IP地址
      *
+     * @return 请求URL
+     */
+    @Override
+    protected String requestUrl(String ip) {
+        return baseUrl(DEFAULT_BASE_URL) + "/" + ip + "/json";
+    }
+
+    /**
+     * 解析响应内容
+     *
+     * @param ip       IP地址
+     * @param response 响应字符串
+     *
      * @return IP信息
      *
-     * @throws Exception 请求异常
+     * @throws Exception 解析异常或接口返回错误
      */
     @Override
-    protected Optional<IpInfo> request(String ip) throws Exception {
-        String urlString = "http://ipinfo.io/" + ip + "/json";
-        String response = httpRequestHandler.get(urlString, 5000);
+    protected Optional<IpInfo> parse(String ip, String response) throws Exception {
         if (response == null || response.isEmpty()) {
             return Optional.empty();
         }
-        JsonObject jsonResponse = null;
         try {
-            jsonResponse = JsonParser.parseString(response).getAsJsonObject();
+            return MAPPER.map(response);
         } catch (Exception e) {
             throw new RuntimeException(getName() + " / " + response, e);
         }
-
-
-        IpInfo ipInfo = new IpInfo();
-        ipInfo.setIp(jsonResponse.has("ip") && !jsonResponse.get("ip").isJsonNull() ? jsonResponse.get("ip").getAsString() : "");
-        ipInfo.setCountry(jsonResponse.has("country") && !jsonResponse.get("country").isJsonNull() ? jsonResponse.get("country").getAsString() : "");
-        ipInfo.setProvince(jsonResponse.has("region") && !jsonResponse.get("region").isJsonNull() ? jsonResponse.get("region").getAsString() : "");
-        ipInfo.setCity(jsonResponse.has("city") && !jsonResponse.get("city").isJsonNull() ? jsonResponse.get("city").getAsString() : "");
-        ipInfo.setIsp(jsonResponse.has("org") && !jsonResponse.get("org").isJsonNull() ? jsonResponse.get("org").getAsString() : "");
-
-        return Optional.of(ipInfo);
     }
 }
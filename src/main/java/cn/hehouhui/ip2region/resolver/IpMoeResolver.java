@@ -1,10 +1,9 @@
 package cn.hehouhui.ip2region.resolver;
 
 import cn.hehouhui.ip2region.IpInfo;
-import cn.hehouhui.ip2region.core.AbstractNetworkIpSource;
+import cn.hehouhui.ip2region.core.AbstractUrlNetworkIpSource;
 import cn.hehouhui.ip2region.http.HttpRequestHandler;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
+import cn.hehouhui.ip2region.json.JsonFieldMapper;
 
 import java.util.Optional;
 
@@ -14,7 +13,26 @@ import java.util.Optional;
  * @author HeHui
  * @date 2025-12-02
  */
-public class IpMoeResolver extends AbstractNetworkIpSource {
+public class IpMoeResolver extends AbstractUrlNetworkIpSource {
+
+    private static final String DEFAULT_BASE_URL = "https://ip-moe.zerodream.net";
+
+    private static final JsonFieldMapper MAPPER = JsonFieldMapper.builder()
+        .expect("status", "200")
+        .string("addr", IpInfo::setIp)
+        .string("country", IpInfo::setCountry)
+        .field("area", IpMoeResolver::applyArea)
+        .string("provider", IpInfo::setIsp)
+        .string("asn", IpInfo::setAsn)
+        .string("asn_owner", IpInfo::setAsnOwner)
+        .string("timezone", IpInfo::setTimezone)
+        .string("usage_type", IpInfo::setUsageType)
+        .string("risk", IpInfo::setRisk)
+        .bool("proxy", IpInfo::setProxy)
+        .string("crawler", IpInfo::setCrawlerName)
+        .number("longitude", IpInfo::setLongitude)
+        .number("latitude", IpInfo::setLatitude)
+        .build();
 
     /**
      * 构造函数
@@ -29,80 +47,54 @@ public class IpMoeResolver extends AbstractNetworkIpSource {
     }
 
     /**
-     * 发送请求并解析IP信息
+     * 构建请求URL
      *
      * @param ip IP地址
      *
+     * @return 请求URL
+     */
+    @Override
+    protected String requestUrl(String ip) {
+        return baseUrl(DEFAULT_BASE_URL) + "/?ip=" + ip + "&iso";
+    }
+
+    /**
+     * 解析响应内容
+     *
+     * @param ip       IP地址
+     * @param response 响应字符串
+     *
      * @return IP信息
      *
-     * @throws Exception 请求异常
+     * @throws Exception 解析异常或接口返回错误
      */
     @Override
-    protected Optional<IpInfo> request(String ip) throws Exception {
-        String url = "https://ip-moe.zerodream.net/?ip=" + ip + "&iso";
-        String response = httpRequestHandler.get(url, 5000);
+    protected Optional<IpInfo> parse(String ip, String response) throws Exception {
         if (response == null || response.isEmpty()) {
             return Optional.empty();
         }
-        JsonObject jsonResponse = JsonParser.parseString(response).getAsJsonObject();
-        int status = jsonResponse.get("status").getAsInt();
-
-        if (status != 200) {
-            return Optional.empty();
-        }
+        Optional<IpInfo> ipInfo = MAPPER.map(response);
+        ipInfo.ifPresent(info -> {
+            if (info.getProvince() == null) {
+                info.setProvince("");
+            }
+        });
+        return ipInfo;
+    }
 
-        IpInfo ipInfo = new IpInfo();
-        ipInfo.setIp(jsonResponse.get("addr").getAsString());
-        ipInfo.setCountry(jsonResponse.get("country").getAsString());
-        String city = jsonResponse.get("area").getAsString();
-        ipInfo.setProvince("");
-        if (city != null && city.contains("省")) {
+    /**
+     * 拆分area字段，包含"省"时前半部分为省份，其余为城市
+     *
+     * @param ipInfo IP信息
+     * @param area   area字段值
+     */
+    private static void applyArea(IpInfo ipInfo, String area) {
+        String city = area;
+        if (city.contains("省")) {
             int index = city.indexOf("省");
-            String province = city.substring(0, index + 1);
-            ipInfo.setProvince(province);
+            ipInfo.setProvince(city.substring(0, index + 1));
             city = city.substring(index + 1);
         }
         ipInfo.setCity(city);
-        ipInfo.setIsp(jsonResponse.get("provider").getAsString());
-
-        // 尝试填充新字段
-        if (jsonResponse.has("asn") && !jsonResponse.get("asn").isJsonNull()) {
-            ipInfo.setAsn(jsonResponse.get("asn").getAsString());
-        }
-
-        if (jsonResponse.has("asn_owner") && !jsonResponse.get("asn_owner").isJsonNull()) {
-            ipInfo.setAsnOwner(jsonResponse.get("asn_owner").getAsString());
-        }
-
-        if (jsonResponse.has("timezone") && !jsonResponse.get("timezone").isJsonNull()) {
-            ipInfo.setTimezone(jsonResponse.get("timezone").getAsString());
-        }
-
-        if (jsonResponse.has("usage_type") && !jsonResponse.get("usage_type").isJsonNull()) {
-            ipInfo.setUsageType(jsonResponse.get("usage_type").getAsString());
-        }
-
-        if (jsonResponse.has("risk") && !jsonResponse.get("risk").isJsonNull()) {
-            ipInfo.setRisk(jsonResponse.get("risk").getAsString());
-        }
-
-        if (jsonResponse.has("proxy") && !jsonResponse.get("proxy").isJsonNull()) {
-            ipInfo.setProxy(jsonResponse.get("proxy").getAsBoolean());
-        }
-
-        if (jsonResponse.has("crawler") && !jsonResponse.get("crawler").isJsonNull()) {
-            ipInfo.setCrawlerName(jsonResponse.get("crawler").getAsString());
-        }
-
-        // 经纬度信息
-        if (jsonResponse.has("longitude") && !jsonResponse.get("longitude").isJsonNull()) {
-            ipInfo.setLongitude(jsonResponse.get("longitude").getAsDouble());
-        }
-
-        if (jsonResponse.has("latitude") && !jsonResponse.get("latitude").isJsonNull()) {
-            ipInfo.setLatitude(jsonResponse.get("latitude").getAsDouble());
-        }
-
-        return Optional.of(ipInfo);
     }
 }
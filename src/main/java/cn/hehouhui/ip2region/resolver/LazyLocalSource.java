@@ -0,0 +1,111 @@
+package cn.hehouhui.ip2region.resolver;
+
+import cn.hehouhui.ip2region.IpInfo;
+import cn.hehouhui.ip2region.core.AbstractIpSource;
+import cn.hehouhui.ip2region.core.IpSource;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * 延迟加载的本地数据源，首次查询时才加载数据库，缩短应用启动时间
+ * <pre>
+ * 1. 多个线程同时首次查询时只加载一次，其余线程等待加载完成
+ * 2. 加载失败后数据源标记为不可用，不再重复尝试
+ * </pre>
+ *
+ * @author HeHui
+ * @date 2025-12-04
+ */
+public class LazyLocalSource extends AbstractIpSource implements AutoCloseable {
+
+    private final Supplier<Optional<IpSource>> loader;
+
+    private volatile IpSource delegate;
+
+    private volatile boolean failed = false;
+
+    /**
+     * 构造函数
+     *
+     * @param loader 数据源加载方法，加载失败时返回empty
+     * @param name   数据源名称
+     * @param weight 数据源权重
+     */
+    public LazyLocalSource(Supplier<Optional<IpSource>> loader, String name, int weight) {
+        super(name, weight);
+        this.loader = loader;
+    }
+
+    @Override
+    public IpInfo query(String ip) throws Exception {
+        IpSource source = delegate();
+        if (source == null) {
+            updateFailureStats();
+            throw new Exception(getName() + " failed to load database");
+        }
+        try {
+            IpInfo ipInfo = source.query(ip);
+            updateSuccessStats();
+            return ipInfo;
+        } catch (Exception e) {
+            updateFailureStats();
+            throw e;
+        }
+    }
+
+    private IpSource delegate() {
+        IpSource source = delegate;
+        if (source == null && !failed) {
+            synchronized (this) {
+                source = delegate;
+                if (source == null && !failed) {
+                    source = loader.get().orElse(null);
+                    delegate = source;
+                    failed = source == null;
+                }
+            }
+        }
+        return source;
+    }
+
+    /**
+     * 是否已加载数据库
+     *
+     * @return 是否已加载
+     */
+    public boolean isLoaded() {
+        return delegate != null;
+    }
+
+    @Override
+    public boolean isAvailable() {
+        // 尚未加载时视为可用，加载失败后不可用
+        return !failed;
+    }
+
+    /**
+     * 关闭已加载的数据源，未加载时不做任何处理
+     *
+     * @throws IOException 关闭失败
+     */
+    @Override
+    public void close() throws IOException {
+        IpSource source = delegate;
+        if (source instanceof Closeable closeable) {
+            closeable.close();
+        } else if (source instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (IOException | RuntimeException e) {
+                throw e;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                throw new IOException(getName() + " failed to close", e);
+            }
+        }
+    }
+}
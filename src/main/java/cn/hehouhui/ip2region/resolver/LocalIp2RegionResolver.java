@@ -2,11 +2,18 @@ package cn.hehouhui.ip2region.resolver;
 
 import cn.hehouhui.ip2region.IpInfo;
 import cn.hehouhui.ip2region.core.AbstractIpSource;
+import cn.hehouhui.ip2region.core.LatencyHistogram;
+import cn.hehouhui.ip2region.index.IpLocation;
+import cn.hehouhui.ip2region.index.Ipv4RangeIndex;
+import cn.hehouhui.ip2region.index.Ipv6RangeIndex;
 import org.lionsoul.ip2region.Config;
 import org.lionsoul.ip2region.Ip2Region;
 import org.lionsoul.ip2region.xdb.XdbException;
 
 import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * 本地IP解析器，基于ip2region数据库实现。
@@ -14,13 +21,37 @@ import java.io.IOException;
  * @author HeHui
  * @date 2025-12-01
  */
-public class LocalIp2RegionResolver extends AbstractIpSource {
+public class LocalIp2RegionResolver extends AbstractIpSource implements AutoCloseable {
+
+    // 区域字符串缓存上限，ip2region数据库中不同的区域字符串通常只有几千个
+    static final int MAX_CACHED_REGIONS = 65536;
 
     private final Ip2Region searcher;
 
+    // 与IPv4、IPv6两个searcher池一一对应的许可，调用方在这里排队以便统计等待时间；为null时不限制
+    private final Semaphore ipv4Permits;
+
+    private final Semaphore ipv6Permits;
+
+    private final int searcherCount;
+
+    private final LatencyHistogram poolWaitHistogram = new LatencyHistogram();
+
+    private final LongAdder poolWaitCount = new LongAdder();
+
+    private final LongAdder poolWaitNanos = new LongAdder();
+
+    // 已解析的区域字符串，同一区域的查询共用同一个位置记录
+    private final ConcurrentHashMap<String, IpLocation> regions = new ConcurrentHashMap<>();
+
+    // 可选的IPv4编译索引，设置后IPv4查询不再经过searcher
+    private volatile Ipv4RangeIndex ipv4Index;
+
+    // 可选的IPv6编译索引，设置后IPv6查询不再经过searcher
+    private volatile Ipv6RangeIndex ipv6Index;
 
     /**
-     * 构造函数
+     * 构造函数，searcher池大小按CPU核数自动确定，见{@link #defaultSearcherCount()}
      *
      * @param v4DbFile      ip2region数据库ipv4文件路径
      * @param v6DbFile      ip2region数据库ipv6文件路径
@@ -32,27 +63,38 @@ public class LocalIp2RegionResolver extends AbstractIpSource {
      * @throws IOException IO异常
      */
     public LocalIp2RegionResolver(String v4DbFile, String v6DbFile, boolean isVectorIndex, boolean isBuffer, String name, int weight) throws IOException, XdbException {
+        this(v4DbFile, v6DbFile, isVectorIndex, isBuffer, defaultSearcherCount(), name, weight);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param v4DbFile      ip2region数据库ipv4文件路径
+     * @param v6DbFile      ip2region数据库ipv6文件路径
+     * @param isVectorIndex 是否使用向量索引
+     * @param isBuffer      是否使用缓存
+     * @param searchers     searcher池大小
+     * @param name          解析器名称
+     * @param weight        解析器权重
+     *
+     * @throws IOException IO异常
+     */
+    public LocalIp2RegionResolver(String v4DbFile, String v6DbFile, boolean isVectorIndex, boolean isBuffer, int searchers, String name, int weight) throws IOException, XdbException {
         super(name, weight);
-        Config ipv4Config;
+        if (searchers <= 0) {
+            throw new IllegalArgumentException("searchers must be positive");
+        }
+        int cachePolicy = isBuffer ? Config.BufferCache : isVectorIndex ? Config.VIndexCache : Config.NoCache;
+        Config ipv4Config = Config.custom().setCachePolicy(cachePolicy).setXdbPath(v4DbFile).setSeachers(searchers).asV4();
         Config ipv6Config = null;
-        if (isBuffer) {
-            ipv4Config = Config.custom().setCachePolicy(Config.BufferCache).setXdbPath(v4DbFile).setSeachers(15).asV4();
-            if (v6DbFile != null && !v6DbFile.isEmpty()) {
-                ipv6Config = Config.custom().setCachePolicy(Config.BufferCache).setXdbPath(v6DbFile).setSeachers(15).asV6();
-            }
-        } else if (isVectorIndex) {
-            ipv4Config = Config.custom().setCachePolicy(Config.VIndexCache).setXdbPath(v4DbFile).setSeachers(15).asV4();
-            if (v6DbFile != null && !v6DbFile.isEmpty()) {
-                ipv6Config = Config.custom().setCachePolicy(Config.VIndexCache).setXdbPath(v6DbFile).setSeachers(15).asV6();
-            }
-        } else {
-            ipv4Config = Config.custom().setCachePolicy(Config.NoCache).setXdbPath(v4DbFile).setSeachers(15).asV4();
-            if (v6DbFile != null && !v6DbFile.isEmpty()) {
-                ipv6Config = Config.custom().setCachePolicy(Config.NoCache).setXdbPath(v6DbFile).setSeachers(15).asV6();
-            }
+        if (v6DbFile != null && !v6DbFile.isEmpty()) {
+            ipv6Config = Config.custom().setCachePolicy(cachePolicy).setXdbPath(v6DbFile).setSeachers(searchers).asV6();
         }
         this.searcher = Ip2Region.create(ipv4Config, ipv6Config);
-
+        this.searcherCount = searchers;
+        // ip2region为IPv4和IPv6各建一个大小为searchers的池，两个池互不占用
+        this.ipv4Permits = new Semaphore(searchers);
+        this.ipv6Permits = ipv6Config == null ? null : new Semaphore(searchers);
     }
 
 
@@ -66,6 +108,18 @@ public class LocalIp2RegionResolver extends AbstractIpSource {
     public LocalIp2RegionResolver(Ip2Region searcher, String name, int weight) {
         super(name, weight);
         this.searcher = searcher;
+        this.searcherCount = 0;
+        this.ipv4Permits = null;
+        this.ipv6Permits = null;
+    }
+
+    /**
+     * 默认的searcher池大小：CPU核数的2倍，限制在4到64之间
+     *
+     * @return searcher池大小
+     */
+    public static int defaultSearcherCount() {
+        return Math.max(4, Math.min(64, Runtime.getRuntime().availableProcessors() * 2));
     }
 
 
@@ -80,28 +134,166 @@ public class LocalIp2RegionResolver extends AbstractIpSource {
      */
     @Override
     public IpInfo query(String ip) throws Exception {
-
+        IpLocation location = null;
+        boolean ipv6 = ip != null && ip.indexOf(':') >= 0;
+        if (ipv6) {
+            Ipv6RangeIndex index = ipv6Index;
+            if (index != null) {
+                location = index.lookup(ip);
+            }
+        } else {
+            Ipv4RangeIndex index = ipv4Index;
+            if (index != null) {
+                location = index.lookup(ip);
+            }
+        }
+        if (location != null) {
+            updateSuccessStats();
+            return location.toIpInfo(ip);
+        }
+        acquirePermit(ipv6);
         try {
             String region = searcher.search(ip);
             updateSuccessStats();
-            String[] split = region.split("\\|");
-            IpInfo ipInfo = new IpInfo();
-            ipInfo.setIp(ip);
-            ipInfo.setCountry(split[0]);
-            if (split.length > 1) {
-                ipInfo.setProvince(split[1]);
-            }
-            if (split.length > 2) {
-                ipInfo.setCity(split[2]);
-            }
-            if (split.length > 3) {
-                ipInfo.setIsp(split[3]);
-            }
-            return ipInfo;
+            return parseRegion(region).toIpInfo(ip);
         } catch (Exception e) {
             updateFailureStats();
             throw e;
+        } finally {
+            releasePermit(ipv6);
+        }
+    }
+
+    /**
+     * 获取对应IP版本的searcher许可，有空闲许可时只需一次CAS，否则阻塞并记录等待时间
+     *
+     * @param ipv6 是否为IPv6
+     *
+     * @throws InterruptedException 等待时被中断
+     */
+    void acquirePermit(boolean ipv6) throws InterruptedException {
+        Semaphore permits = permits(ipv6);
+        if (permits == null || permits.tryAcquire()) {
+            return;
         }
+        long start = System.nanoTime();
+        permits.acquire();
+        long waited = System.nanoTime() - start;
+        poolWaitCount.increment();
+        poolWaitNanos.add(waited);
+        poolWaitHistogram.record(waited / 1_000_000);
+    }
+
+    /**
+     * 归还对应IP版本的searcher许可
+     *
+     * @param ipv6 是否为IPv6
+     */
+    void releasePermit(boolean ipv6) {
+        Semaphore permits = permits(ipv6);
+        if (permits != null) {
+            permits.release();
+        }
+    }
+
+    /**
+     * 获取对应IP版本的searcher许可
+     *
+     * @param ipv6 是否为IPv6
+     *
+     * @return 许可，不限制时返回null
+     */
+    Semaphore permits(boolean ipv6) {
+        return ipv6 ? ipv6Permits : ipv4Permits;
+    }
+
+    /**
+     * 解析区域字符串，结果按字符串缓存，缓存达到上限后新的区域字符串只解析不缓存
+     *
+     * @param region 区域字符串
+     *
+     * @return 位置记录
+     */
+    IpLocation parseRegion(String region) {
+        IpLocation location = regions.get(region);
+        if (location == null) {
+            location = IpLocation.fromRegion(region);
+            if (regions.size() < MAX_CACHED_REGIONS) {
+                regions.putIfAbsent(region, location);
+            }
+        }
+        return location;
+    }
+
+    /**
+     * 设置IPv4编译索引，通常由{@link Ipv4RangeIndex#loadOrBuild}从同一个xdb文件构建
+     *
+     * @param ipv4Index IPv4索引，为null时恢复使用searcher查询
+     */
+    public void setIpv4Index(Ipv4RangeIndex ipv4Index) {
+        this.ipv4Index = ipv4Index;
+    }
+
+    public Ipv4RangeIndex getIpv4Index() {
+        return ipv4Index;
+    }
+
+    /**
+     * 设置IPv6编译索引，通常由{@link Ipv6RangeIndex#loadOrBuild}从同一个xdb文件构建
+     *
+     * @param ipv6Index IPv6索引，为null时恢复使用searcher查询
+     */
+    public void setIpv6Index(Ipv6RangeIndex ipv6Index) {
+        this.ipv6Index = ipv6Index;
+    }
+
+    public Ipv6RangeIndex getIpv6Index() {
+        return ipv6Index;
+    }
+
+    /**
+     * 获取每个IP版本的searcher池大小
+     *
+     * @return searcher池大小，使用外部传入的searcher时返回0
+     */
+    public int getSearcherCount() {
+        return searcherCount;
+    }
+
+    /**
+     * 获取已缓存的区域字符串数量
+     *
+     * @return 缓存数量，不超过65536
+     */
+    public int getCachedRegionCount() {
+        return regions.size();
+    }
+
+    /**
+     * 获取因searcher池耗尽而等待的次数
+     *
+     * @return 等待次数
+     */
+    public long getPoolWaitCount() {
+        return poolWaitCount.sum();
+    }
+
+    /**
+     * 获取等待searcher的累计时间
+     *
+     * @return 累计等待时间（纳秒）
+     */
+    public long getPoolWaitNanos() {
+        return poolWaitNanos.sum();
+    }
+
+    /**
+     * 获取等待searcher的时间分布（毫秒）
+     *
+     * @return 等待时间直方图
+     */
+    public LatencyHistogram getPoolWaitHistogram() {
+        return poolWaitHistogram;
     }
 
     @Override
@@ -2,11 +2,10 @@ package cn.hehouhui.ip2region.resolver;
 
 import cn.hehouhui.ip2region.IpInfo;
 import cn.hehouhui.ip2region.core.AbstractIpSource;
-import cn.hehouhui.ip2region.core.AbstractNetworkIpSource;
+import cn.hehouhui.ip2region.core.AbstractUrlNetworkIpSource;
 import cn.hehouhui.ip2region.http.DefaultHttpRequestHandler;
 import cn.hehouhui.ip2region.http.HttpRequestHandler;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
+import cn.hehouhui.ip2region.json.JsonFieldMapper;
 
 import java.io.IOException;
 import java.util.Optional;
@@ -17,7 +16,17 @@ import java.util.Optional;
  * @author HeHui
  * @date 2025-12-01
  */
-public class PacificIpResolver extends AbstractNetworkIpSource {
+public class PacificIpResolver extends AbstractUrlNetworkIpSource {
+
+    private static final String DEFAULT_BASE_URL = "http://whois.pconline.com.cn";
+
+    private static final JsonFieldMapper MAPPER = JsonFieldMapper.builder()
+        .require("pro")
+        .string("ip", IpInfo::setIp, "")
+        .string("pro", IpInfo::setProvince, "")
+        .string("city", IpInfo::setCity, "")
+        .string("addr", IpInfo::setIsp, "")
+        .build();
 
     /**
      * 构造函数
@@ -43,30 +52,35 @@ public class PacificIpResolver extends AbstractNetworkIpSource {
     }
 
     /**
-     * 发送请求并解析IP信息
+     * 构建请求URL
      *
      * @param ip IP地址
      *
+     * @return 请求URL
+     */
+    @Override
+    protected String requestUrl(String ip) {
+        return baseUrl(DEFAULT_BASE_URL) + "/ipJson.jsp?ip=" + ip + "&json=true";
+    }
+
+    /**
+     * 解析响应内容
+     *
+     * @param ip       IP地址
+     * @param response 响应字符串
+     *
      * @return IP信息
      *
-     * @throws Exception 请求异常
+     * @throws Exception 解析异常或接口返回错误
      */
     @Override
-    protected Optional<IpInfo> request(String ip) throws Exception {
-        String urlString = "http://whois.pconline.com.cn/ipJson.jsp?ip=" + ip + "&json=true";
-        String response = httpRequestHandler.get(urlString, 5000);
+    protected Optional<IpInfo> parse(String ip, String response) throws Exception {
         if (response == null || response.isEmpty()) {
             return Optional.empty();
         }
-        JsonObject jsonResponse = JsonParser.parseString(response).getAsJsonObject();
-
-        IpInfo ipInfo = new IpInfo();
-        ipInfo.setIp(jsonResponse.has("ip") && !jsonResponse.get("ip").isJsonNull() ? jsonResponse.get("ip").getAsString() : "");
-        ipInfo.setCountry("中国"); // 该API主要针对中国IP
-        ipInfo.setProvince(jsonResponse.has("pro") && !jsonResponse.get("pro").isJsonNull() ? jsonResponse.get("pro").getAsString() : "");
-        ipInfo.setCity(jsonResponse.has("city") && !jsonResponse.get("city").isJsonNull() ? jsonResponse.get("city").getAsString() : "");
-        ipInfo.setIsp(jsonResponse.has("addr") && !jsonResponse.get("addr").isJsonNull() ? jsonResponse.get("addr").getAsString() : "");
-
-        return Optional.of(ipInfo);
+        Optional<IpInfo> ipInfo = MAPPER.map(response);
+        // 该API主要针对中国IP
+        ipInfo.ifPresent(info -> info.setCountry("中国"));
+        return ipInfo;
     }
 }
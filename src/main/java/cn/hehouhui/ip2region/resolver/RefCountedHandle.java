@@ -0,0 +1,97 @@
+package cn.hehouhui.ip2region.resolver;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * 引用计数的可替换资源，用于热替换数据库时在最后一个进行中的查询结束后关闭旧数据库
+ * <pre>
+ * 1. 创建时持有者占一个引用，每个查询通过{@link #acquire(AtomicReference)}再占一个引用，查询结束后{@link #release()}
+ * 2. 替换后对旧资源调用{@link #retire()}归还持有者的引用，计数归零时由最后一个归还引用的线程关闭资源
+ * 3. 计数归零后不再允许获取引用，获取失败的查询会重新读取引用拿到新资源，不会用到已关闭的资源
+ * </pre>
+ *
+ * @param <T> 资源类型
+ *
+ * @author HeHui
+ * @date 2025-12-04
+ */
+final class RefCountedHandle<T> {
+
+    private final T resource;
+
+    private final Consumer<T> closer;
+
+    private final AtomicInteger references = new AtomicInteger(1);
+
+    private final AtomicBoolean retired = new AtomicBoolean(false);
+
+    /**
+     * 构造函数
+     *
+     * @param resource 资源
+     * @param closer   关闭资源的方法，只会被调用一次
+     */
+    RefCountedHandle(T resource, Consumer<T> closer) {
+        this.resource = resource;
+        this.closer = closer;
+    }
+
+    /**
+     * 获取引用指向的当前资源并占用一个引用，资源在获取期间被替换并关闭时改用新资源
+     *
+     * @param reference 资源引用
+     * @param <T>       资源类型
+     *
+     * @return 已占用引用的资源，引用为null时返回null
+     */
+    static <T> RefCountedHandle<T> acquire(AtomicReference<RefCountedHandle<T>> reference) {
+        while (true) {
+            RefCountedHandle<T> current = reference.get();
+            if (current == null || current.retain()) {
+                return current;
+            }
+        }
+    }
+
+    private boolean retain() {
+        while (true) {
+            int count = references.get();
+            if (count == 0) {
+                return false;
+            }
+            if (references.compareAndSet(count, count + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 获取资源，只能在占用引用期间使用
+     *
+     * @return 资源
+     */
+    T get() {
+        return resource;
+    }
+
+    /**
+     * 归还一个引用，计数归零时关闭资源
+     */
+    void release() {
+        if (references.decrementAndGet() == 0) {
+            closer.accept(resource);
+        }
+    }
+
+    /**
+     * 归还持有者的引用，资源从引用中移除后调用，重复调用无效果
+     */
+    void retire() {
+        if (retired.compareAndSet(false, true)) {
+            release();
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package cn.hehouhui.ip2region.resolver;
+
+import cn.hehouhui.ip2region.IpInfo;
+import cn.hehouhui.ip2region.core.AbstractIpSource;
+import cn.hehouhui.ip2region.core.IpSource;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * 可热更新的本地数据源，数据库文件更新后在后台加载新版本并原子切换，无需重启应用
+ * <pre>
+ * 1. 通过WatchService监听数据库文件所在目录，文件创建或修改后等待写入稳定再重新加载
+ * 2. 新版本在后台加载并用预热IP查询一遍，预热失败时继续使用旧版本
+ * 3. 新旧版本通过AtomicReference原子切换，旧版本由最后一个使用它的查询关闭，切换不会等待查询结束
+ * 4. 每个版本的解析缓存、索引等状态随版本一起创建和丢弃；引擎只缓存网络数据源的结果，不受本地数据库更新影响
+ * 5. 更新数据库时建议先写入临时文件再原子重命名，避免加载到写了一半的文件
+ * </pre>
+ *
+ * @author HeHui
+ * @date 2025-12-04
+ */
+public class ReloadableLocalSource extends AbstractIpSource implements AutoCloseable {
+
+    /**
+     * 从数据库文件创建本地数据源
+     */
+    @FunctionalInterface
+    public interface Loader {
+        /**
+         * 加载数据源
+         *
+         * @param dbFile 数据库文件
+         * @return 数据源
+         * @throws Exception 加载失败
+         */
+        IpSource load(Path dbFile) throws Exception;
+    }
+
+    private final Path dbFile;
+
+    private final Loader loader;
+
+    private final List<String> warmupIps;
+
+    private final AtomicReference<RefCountedHandle<IpSource>> current = new AtomicReference<>();
+
+    private final AtomicInteger version = new AtomicInteger(0);
+
+    private final Object reloadLock = new Object();
+
+    private volatile Consumer<ReloadableLocalSource> reloadListener;
+
+    private volatile long quietMillis = 500;
+
+    private volatile Exception lastReloadError;
+
+    private volatile WatchService watchService;
+
+    /**
+     * 构造函数，立即加载一次数据库
+     *
+     * @param dbFile    数据库文件
+     * @param loader    数据源加载方法
+     * @param warmupIps 预热IP，新版本切换前会先查询这些IP
+     * @param name      数据源名称
+     * @param weight    数据源权重
+     * @throws Exception 首次加载失败
+     */
+    public ReloadableLocalSource(Path dbFile, Loader loader, List<String> warmupIps, String name, int weight) throws Exception {
+        super(name, weight);
+        this.dbFile = dbFile.toAbsolutePath();
+        this.loader = loader;
+        this.warmupIps = List.copyOf(warmupIps);
+        this.current.set(newGeneration(load()));
+    }
+
+    /**
+     * 开始监听数据库文件的变化
+     *
+     * @return 当前数据源
+     * @throws IOException 无法注册目录监听
+     */
+    public ReloadableLocalSource watch() throws IOException {
+        synchronized (reloadLock) {
+            if (watchService != null) {
+                return this;
+            }
+            WatchService service = FileSystems.getDefault().newWatchService();
+            dbFile.getParent().register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            watchService = service;
+            Thread thread = new Thread(() -> watchLoop(service), "auto-ip2region-reload-" + getName());
+            thread.setDaemon(true);
+            thread.start();
+            return this;
+        }
+    }
+
+    private void watchLoop(WatchService service) {
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (dbFile.getFileName().equals(event.context())) {
+                        changed = true;
+                    }
+                }
+                key.reset();
+                if (!changed) {
+                    continue;
+                }
+                // 文件可能还在写入，等到一段时间内没有新的事件再加载
+                WatchKey next;
+                while ((next = service.poll(quietMillis, TimeUnit.MILLISECONDS)) != null) {
+                    next.pollEvents();
+                    next.reset();
+                }
+                reload();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // 停止监听
+        }
+    }
+
+    /**
+     * 立即重新加载数据库：加载并预热新版本，原子切换后旧版本在最后一个使用它的查询结束时关闭
+     *
+     * @return 是否切换成功，加载或预热失败时继续使用旧版本
+     */
+    public boolean reload() {
+        synchronized (reloadLock) {
+            IpSource loaded;
+            try {
+                loaded = load();
+            } catch (Exception e) {
+                lastReloadError = e;
+                return false;
+            }
+            RefCountedHandle<IpSource> retired = current.getAndSet(newGeneration(loaded));
+            lastReloadError = null;
+            if (retired != null) {
+                retired.retire();
+            }
+            Consumer<ReloadableLocalSource> listener = reloadListener;
+            if (listener != null) {
+                listener.accept(this);
+            }
+            return true;
+        }
+    }
+
+    private IpSource load() throws Exception {
+        if (!Files.isRegularFile(dbFile)) {
+            throw new IOException(getName() + " database file not found: " + dbFile);
+        }
+        IpSource source = loader.load(dbFile);
+        try {
+            for (String ip : warmupIps) {
+                source.query(ip);
+            }
+        } catch (Exception e) {
+            closeQuietly(source);
+            throw e;
+        }
+        return source;
+    }
+
+    @Override
+    public IpInfo query(String ip) throws Exception {
+        RefCountedHandle<IpSource> generation = RefCountedHandle.acquire(current);
+        if (generation == null) {
+            throw new IllegalStateException(getName() + " is closed");
+        }
+        try {
+            IpInfo ipInfo = generation.get().query(ip);
+            updateSuccessStats();
+            return ipInfo;
+        } catch (Exception e) {
+            updateFailureStats();
+            throw e;
+        } finally {
+            generation.release();
+        }
+    }
+
+    /**
+     * 为新加载的数据源分配版本号，并包装为引用计数的版本
+     *
+     * @param source 数据源
+     *
+     * @return 新版本
+     */
+    private RefCountedHandle<IpSource> newGeneration(IpSource source) {
+        version.incrementAndGet();
+        return new RefCountedHandle<>(source, ReloadableLocalSource::closeQuietly);
+    }
+
+    @Override
+    public boolean isAvailable() {
+        // 本地数据源始终可用
+        return true;
+    }
+
+    /**
+     * 获取当前数据库版本号，每次成功重新加载后加1
+     *
+     * @return 版本号
+     */
+    public int getVersion() {
+        return version.get();
+    }
+
+    /**
+     * 获取当前版本的底层数据源
+     *
+     * @return 数据源，关闭后返回null
+     */
+    public IpSource getDelegate() {
+        RefCountedHandle<IpSource> generation = current.get();
+        return generation == null ? null : generation.get();
+    }
+
+    /**
+     * 获取最近一次重新加载失败的原因
+     *
+     * @return 异常，最近一次重新加载成功时返回null
+     */
+    public Exception getLastReloadError() {
+        return lastReloadError;
+    }
+
+    /**
+     * 设置切换成功后的回调，可用于清理依赖旧版本数据的外部缓存
+     *
+     * @param reloadListener 回调
+     */
+    public void setReloadListener(Consumer<ReloadableLocalSource> reloadListener) {
+        this.reloadListener = reloadListener;
+    }
+
+    /**
+     * 设置文件写入稳定的判断时间
+     *
+     * @param quietMillis 最后一次文件事件后等待的时间（毫秒）
+     */
+    public void setQuietMillis(long quietMillis) {
+        this.quietMillis = quietMillis;
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (reloadLock) {
+            if (watchService != null) {
+                watchService.close();
+                watchService = null;
+            }
+            RefCountedHandle<IpSource> retired = current.getAndSet(null);
+            if (retired != null) {
+                retired.retire();
+            }
+        }
+    }
+
+    private static void closeQuietly(IpSource source) {
+        if (source instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception ignored) {
+                // 忽略关闭异常
+            }
+        }
+    }
+}
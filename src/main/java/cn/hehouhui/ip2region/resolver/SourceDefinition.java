@@ -0,0 +1,159 @@
+package cn.hehouhui.ip2region.resolver;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 网络数据源的声明式定义，通常由JSON配置文件反序列化得到，交给{@link ConfigurableNetworkResolver}编译。
+ * <pre>
+ * {
+ *   "name": "InternalGeo",
+ *   "url": "https://geo.example.com/v1/lookup?ip={ip}",
+ *   "permitsPerSecond": 20,
+ *   "weight": 80,
+ *   "timeoutMillis": 800,
+ *   "expect": {"code": "0"},
+ *   "require": ["data"],
+ *   "reject": {"data.bogon": "true"},
+ *   "fields": {"country": "data.country", "province": "data.region", "latitude": "data.loc[0]"},
+ *   "defaults": {"isp": ""}
+ * }
+ * </pre>
+ * 字段路径的语法与{@link cn.hehouhui.ip2region.json.JsonFieldMapper}一致，fields的键为{@link cn.hehouhui.ip2region.IpInfo}的属性名。
+ *
+ * @author HeHui
+ * @date 2025-12-04
+ */
+public class SourceDefinition {
+
+    /**
+     * 数据源名称
+     */
+    private String name;
+
+    /**
+     * 请求URL模板，{ip}会被替换为查询的IP地址
+     */
+    private String url;
+
+    /**
+     * 每秒许可数（限流速率）
+     */
+    private double permitsPerSecond = 1;
+
+    /**
+     * 权重
+     */
+    private int weight = 10;
+
+    /**
+     * 最大超时时间（毫秒），为0时使用默认超时策略
+     */
+    private int timeoutMillis;
+
+    /**
+     * 成功条件：字段路径 -> 期望值，与require至少配置一项
+     */
+    private Map<String, String> expect = new LinkedHashMap<>();
+
+    /**
+     * 成功条件：必须存在且不为null的字段路径
+     */
+    private List<String> require = List.of();
+
+    /**
+     * 失败条件：字段路径 -> 表示失败的值
+     */
+    private Map<String, String> reject = new LinkedHashMap<>();
+
+    /**
+     * 字段映射：IpInfo属性名 -> 字段路径
+     */
+    private Map<String, String> fields = new LinkedHashMap<>();
+
+    /**
+     * 字段缺失时的默认值：IpInfo属性名 -> 默认值，仅支持字符串属性
+     */
+    private Map<String, String> defaults = new LinkedHashMap<>();
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    public double getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+
+    public void setPermitsPerSecond(double permitsPerSecond) {
+        this.permitsPerSecond = permitsPerSecond;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+
+    public void setWeight(int weight) {
+        this.weight = weight;
+    }
+
+    public int getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    public void setTimeoutMillis(int timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public Map<String, String> getExpect() {
+        return expect == null ? Map.of() : expect;
+    }
+
+    public void setExpect(Map<String, String> expect) {
+        this.expect = expect;
+    }
+
+    public List<String> getRequire() {
+        return require == null ? List.of() : require;
+    }
+
+    public void setRequire(List<String> require) {
+        this.require = require;
+    }
+
+    public Map<String, String> getReject() {
+        return reject == null ? Map.of() : reject;
+    }
+
+    public void setReject(Map<String, String> reject) {
+        this.reject = reject;
+    }
+
+    public Map<String, String> getFields() {
+        return fields == null ? Map.of() : fields;
+    }
+
+    public void setFields(Map<String, String> fields) {
+        this.fields = fields;
+    }
+
+    public Map<String, String> getDefaults() {
+        return defaults == null ? Map.of() : defaults;
+    }
+
+    public void setDefaults(Map<String, String> defaults) {
+        this.defaults = defaults;
+    }
+}
@@ -1,11 +1,10 @@
 package cn.hehouhui.ip2region.resolver;
 
 import cn.hehouhui.ip2region.IpInfo;
-import cn.hehouhui.ip2region.core.AbstractNetworkIpSource;
+import cn.hehouhui.ip2region.core.AbstractUrlNetworkIpSource;
 import cn.hehouhui.ip2region.http.DefaultHttpRequestHandler;
 import cn.hehouhui.ip2region.http.HttpRequestHandler;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
+import cn.hehouhui.ip2region.json.JsonFieldMapper;
 
 import java.util.Optional;
 
@@ -15,7 +14,19 @@ import java.util.Optional;
  * @author HeHui
  * @date 2025-12-01
  */
-public class TaobaoIpResolver extends AbstractNetworkIpSource {
+public class TaobaoIpResolver extends AbstractUrlNetworkIpSource {
+
+    private static final String DEFAULT_BASE_URL = "https://ip.taobao.com";
+
+    private static final JsonFieldMapper MAPPER = JsonFieldMapper.builder()
+        .expect("code", "0")
+        .require("data")
+        .string("data.ip", IpInfo::setIp)
+        .string("data.country", IpInfo::setCountry, "")
+        .string("data.region", IpInfo::setProvince, "")
+        .string("data.city", IpInfo::setCity, "")
+        .string("data.isp", IpInfo::setIsp, "")
+        .build();
 
     private String accessKey = "alibaba-inc";
 
@@ -43,49 +54,38 @@ public class TaobaoIpResolver extends AbstractNetworkIpSource {
     }
 
     /**
-     * 发送请求并解析IP信息
+     * 构建请求URL
      *
      * @param ip IP地址
      *
+     * @return 请求URL
+     */
+    @Override
+    protected String requestUrl(String ip) {
+        return baseUrl(DEFAULT_BASE_URL) + "/outGetIpInfo?ip=" + ip + "&accessKey=" + accessKey;
+    }
+
+    /**
+     * 解析响应内容
+     *
+     * @param ip       IP地址
+     * @param response 响应字符串
+     *
      * @return IP信息
      *
-     * @throws Exception 请求异常
+     * @throws Exception 解析异常或接口返回错误
      */
     @Override
-    protected Optional<IpInfo> request(String ip) throws Exception {
-        String urlString = "https://ip.taobao.com/outGetIpInfo?ip=" + ip + "&accessKey=" + accessKey;
-        String response = httpRequestHandler.get(urlString, 5000);
+    protected Optional<IpInfo> parse(String ip, String response) throws Exception {
         if (response == null || response.isEmpty()) {
             return Optional.empty();
         }
-        JsonObject jsonResponse = JsonParser.parseString(response).getAsJsonObject();
-        int code = jsonResponse.get("code").getAsInt();
-
-        if (code != 0) {
-            throw new Exception("API Error: " + jsonResponse.get("msg").getAsString());
+        // 当前淘宝API不提供ASN、经纬度、时区等字段
+        Optional<IpInfo> ipInfo = MAPPER.map(response);
+        if (ipInfo.isEmpty()) {
+            throw new Exception(getName() + " API Error: " + response);
         }
-
-        JsonObject data = jsonResponse.getAsJsonObject("data");
-        IpInfo ipInfo = new IpInfo();
-        ipInfo.setIp(data.get("ip").getAsString());
-        ipInfo.setCountry(data.has("country") && !data.get("country").isJsonNull() ? data.get("country").getAsString() : "");
-        ipInfo.setProvince(data.has("region") && !data.get("region").isJsonNull() ? data.get("region").getAsString() : "");
-        ipInfo.setCity(data.has("city") && !data.get("city").isJsonNull() ? data.get("city").getAsString() : "");
-        ipInfo.setIsp(data.has("isp") && !data.get("isp").isJsonNull() ? data.get("isp").getAsString() : "");
-
-        // 当前淘宝API不提供以下字段，但为将来扩展保留
-        // ipInfo.setAsn(...);
-        // ipInfo.setAsnOwner(...);
-        // ipInfo.setLongitude(...);
-        // ipInfo.setLatitude(...);
-        // ipInfo.setTimezone(...);
-        // ipInfo.setUsageType(...);
-        // ipInfo.setNativeIp(...);
-        // ipInfo.setRisk(...);
-        // ipInfo.setProxy(...);
-        // ipInfo.setCrawlerName(...);
-
-        return Optional.of(ipInfo);
+        return ipInfo;
     }
 
     public String getAccessKey() {
@@ -1,10 +1,9 @@
 package cn.hehouhui.ip2region.resolver;
 
 import cn.hehouhui.ip2region.IpInfo;
-import cn.hehouhui.ip2region.core.AbstractNetworkIpSource;
+import cn.hehouhui.ip2region.core.AbstractUrlNetworkIpSource;
 import cn.hehouhui.ip2region.http.HttpRequestHandler;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
+import cn.hehouhui.ip2region.json.JsonFieldMapper;
 
 import java.util.Optional;
 
@@ -14,8 +13,20 @@ import java.util.Optional;
  * @author HeHui
  * @date 2025-12-02 09:45
  */
-public class VoreResolver extends AbstractNetworkIpSource {
+public class VoreResolver extends AbstractUrlNetworkIpSource {
 
+    private static final String DEFAULT_BASE_URL = "https://api.vore.top";
+
+    private static final JsonFieldMapper MAPPER = JsonFieldMapper.builder()
+        .expect("code", "200")
+        .require("ipdata")
+        .string("ipinfo.text", IpInfo::setIp)
+        .string("ipdata.info1", IpInfo::setProvince, "")
+        .string("ipdata.info2", IpInfo::setCity, "")
+        .string("ipdata.isp", IpInfo::setIsp, "")
+        // 可以将行政编码存储在ASN字段中
+        .string("adcode.a", IpInfo::setAsn)
+        .build();
 
     /**
      * 构造函数
@@ -30,47 +41,35 @@ public class VoreResolver extends AbstractNetworkIpSource {
     }
 
     /**
-     * 发送请求并解析IP信息
+     * 构建请求URL
      *
      * @param ip IP地址
      *
+     * @return 请求URL
+     */
+    @Override
+    protected String requestUrl(String ip) {
+        return baseUrl(DEFAULT_BASE_URL) + "/api/IPdata?ip=" + ip;
+    }
+
+    /**
+     * 解析响应内容
+     *
+     * @param ip       IP地址
+     * @param response 响应字符串
+     *
      * @return IP信息
      *
-     * @throws Exception 请求异常
+     * @throws Exception 解析异常或接口返回错误
      */
     @Override
-    protected Optional<IpInfo> request(String ip) throws Exception {
-        String url = "https://api.vore.top/api/IPdata?ip=" + ip;
-        String response = httpRequestHandler.get(url, 5000);
+    protected Optional<IpInfo> parse(String ip, String response) throws Exception {
         if (response == null || response.isEmpty()) {
             return Optional.empty();
         }
-
-        JsonObject jsonResponse = JsonParser.parseString(response).getAsJsonObject();
-        int code = jsonResponse.get("code").getAsInt();
-
-        if (code != 200) {
-            return Optional.empty();
-        }
-
-        IpInfo ipInfo = new IpInfo();
-        ipInfo.setIp(jsonResponse.getAsJsonObject("ipinfo").get("text").getAsString());
-
-        JsonObject ipData = jsonResponse.getAsJsonObject("ipdata");
-        ipInfo.setCountry("中国"); // 根据文档示例，这个API主要提供中国IP信息
-        ipInfo.setProvince(ipData.has("info1") && !ipData.get("info1").isJsonNull() ? ipData.get("info1").getAsString() : "");
-        ipInfo.setCity(ipData.has("info2") && !ipData.get("info2").isJsonNull() ? ipData.get("info2").getAsString() : "");
-        ipInfo.setIsp(ipData.has("isp") && !ipData.get("isp").isJsonNull() ? ipData.get("isp").getAsString() : "");
-
-        // 尝试填充新字段
-        JsonObject adcode = jsonResponse.getAsJsonObject("adcode");
-        if (adcode != null) {
-            if (adcode.has("a") && !adcode.get("a").isJsonNull()) {
-                // 可以将行政编码存储在ASN字段中
-                ipInfo.setAsn(adcode.get("a").getAsString());
-            }
-        }
-
-        return Optional.of(ipInfo);
+        Optional<IpInfo> ipInfo = MAPPER.map(response);
+        // 根据文档示例，这个API主要提供中国IP信息
+        ipInfo.ifPresent(info -> info.setCountry("中国"));
+        return ipInfo;
     }
 }
@@ -2,12 +2,10 @@ package cn.hehouhui.ip2region.resolver;
 
 import cn.hehouhui.ip2region.IpInfo;
 import cn.hehouhui.ip2region.core.AbstractIpSource;
-import cn.hehouhui.ip2region.core.AbstractNetworkIpSource;
+import cn.hehouhui.ip2region.core.AbstractUrlNetworkIpSource;
 import cn.hehouhui.ip2region.http.DefaultHttpRequestHandler;
 import cn.hehouhui.ip2region.http.HttpRequestHandler;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
+import cn.hehouhui.ip2region.json.JsonFieldMapper;
 
 import java.io.IOException;
 import java.util.Optional;
@@ -18,7 +16,18 @@ import java.util.Optional;
  * @author HeHui
  * @date 2025-12-01
  */
-public class XxlbResolver extends AbstractNetworkIpSource {
+public class XxlbResolver extends AbstractUrlNetworkIpSource {
+
+    private static final String DEFAULT_BASE_URL = "https://ipapi.xxlb.org";
+
+    private static final JsonFieldMapper MAPPER = JsonFieldMapper.builder()
+        .require("country.name")
+        .string("ip", IpInfo::setIp, "")
+        .string("country.name", IpInfo::setCountry, "")
+        .string("regions[0]", IpInfo::setProvince)
+        .string("regions[1]", IpInfo::setCity)
+        .string("as.info", IpInfo::setIsp)
+        .build();
 
     /**
      * 构造函数
@@ -44,45 +53,32 @@ public class XxlbResolver extends AbstractNetworkIpSource {
     }
 
     /**
-     * 发送请求并解析IP信息
+     * 构建请求URL
      *
      * @param ip IP地址
      *
+     * @return 请求URL
+     */
+    @Override
+    protected String requestUrl(String ip) {
+        return baseUrl(DEFAULT_BASE_URL) + "/?ip=" + ip;
+    }
+
+    /**
+     * 解析响应内容
+     *
+     * @param ip       IP地址
+     * @param response 响应字符串
+     *
      * @return IP信息
      *
-     * @throws Exception 请求异常
+     * @throws Exception 解析异常或接口返回错误
      */
     @Override
-    protected Optional<IpInfo> request(String ip) throws Exception {
-        String urlString = "https://ipapi.xxlb.org/?ip=" + ip;
-        String response = httpRequestHandler.get(urlString, 5000);
+    protected Optional<IpInfo> parse(String ip, String response) throws Exception {
         if (response == null || response.isEmpty()) {
             return Optional.empty();
         }
-        JsonObject jsonResponse = JsonParser.parseString(response).getAsJsonObject();
-
-        IpInfo ipInfo = new IpInfo();
-        ipInfo.setIp(jsonResponse.has("ip") && !jsonResponse.get("ip").isJsonNull() ? jsonResponse.get("ip").getAsString() : "");
-        ipInfo.setCountry(jsonResponse.has("country") && jsonResponse.getAsJsonObject("country").has("name")
-            && !jsonResponse.getAsJsonObject("country").get("name").isJsonNull()
-            ? jsonResponse.getAsJsonObject("country").get("name").getAsString() : "");
-
-        // 处理地区信息
-        if (jsonResponse.has("regions") && !jsonResponse.get("regions").isJsonNull()) {
-            JsonArray regions = jsonResponse.getAsJsonArray("regions");
-            if (!regions.isEmpty()) {
-                ipInfo.setProvince(regions.get(0).getAsString());
-            }
-            if (regions.size() > 1) {
-                ipInfo.setCity(regions.get(1).getAsString());
-            }
-        }
-
-        // 处理ISP信息
-        if (jsonResponse.has("as") && !jsonResponse.getAsJsonObject("as").get("info").isJsonNull()) {
-            ipInfo.setIsp(jsonResponse.getAsJsonObject("as").get("info").getAsString());
-        }
-
-        return Optional.of(ipInfo);
+        return MAPPER.map(response);
     }
 }
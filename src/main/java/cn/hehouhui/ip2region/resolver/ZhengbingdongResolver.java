@@ -1,11 +1,10 @@
 package cn.hehouhui.ip2region.resolver;
 
 import cn.hehouhui.ip2region.IpInfo;
-import cn.hehouhui.ip2region.core.AbstractNetworkIpSource;
+import cn.hehouhui.ip2region.core.AbstractUrlNetworkIpSource;
 import cn.hehouhui.ip2region.http.DefaultHttpRequestHandler;
 import cn.hehouhui.ip2region.http.HttpRequestHandler;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
+import cn.hehouhui.ip2region.json.JsonFieldMapper;
 
 import java.util.Optional;
 
@@ -17,7 +16,28 @@ import java.util.Optional;
  * @author HeHui
  * @date 2025-12-03
  */
-public class ZhengbingdongResolver extends AbstractNetworkIpSource {
+public class ZhengbingdongResolver extends AbstractUrlNetworkIpSource {
+
+    private static final String DEFAULT_BASE_URL = "https://ip.zhengbingdong.com";
+
+    private static final JsonFieldMapper MAPPER = JsonFieldMapper.builder()
+        .expect("ret", "200")
+        .require("data")
+        .string("data.ip", IpInfo::setIp, "")
+        .string("data.country", IpInfo::setCountry, "")
+        .string("data.prov", IpInfo::setProvince, "")
+        .string("data.city", IpInfo::setCity, "")
+        .string("data.isp", IpInfo::setIsp, "")
+        .string("data.country_code", IpInfo::setAsn)
+        .number("data.lng", IpInfo::setLongitude)
+        .number("data.lat", IpInfo::setLatitude)
+        .string("data.area", IpInfo::setRegion)
+        .build();
+
+    // 只检查状态码，用于区分接口错误与查询不到数据（data为null）
+    private static final JsonFieldMapper STATUS = JsonFieldMapper.builder()
+        .expect("ret", "200")
+        .build();
 
     /**
      * 构造函数，默认每秒允许10个请求（600次/分钟）
@@ -42,63 +62,33 @@ public class ZhengbingdongResolver extends AbstractNetworkIpSource {
     }
 
     /**
-     * 发送请求并解析IP信息
+     * 构建请求URL
      *
      * @param ip IP地址
-     * @return IP信息
-     * @throws Exception 请求异常
+     *
+     * @return 请求URL
      */
     @Override
-    protected Optional<IpInfo> request(String ip) throws Exception {
-        String urlString = "https://ip.zhengbingdong.com/v1/get?ip=" + ip;
-        String response = httpRequestHandler.get(urlString, 5000);
-
-        JsonObject jsonResponse = JsonParser.parseString(response).getAsJsonObject();
-
-        // 检查响应状态码
-        if (!jsonResponse.has("ret") || jsonResponse.get("ret").getAsInt() != 200) {
-            throw new Exception("API Error: Invalid response status");
-        }
-
-        // 获取data对象
-        if (!jsonResponse.has("data") || jsonResponse.get("data").isJsonNull()) {
-            return Optional.empty();
-        }
-
-        JsonObject data = jsonResponse.getAsJsonObject("data");
-
-        IpInfo ipInfo = new IpInfo();
-        ipInfo.setIp(data.has("ip") && !data.get("ip").isJsonNull() ? data.get("ip").getAsString() : "");
-        ipInfo.setCountry(data.has("country") && !data.get("country").isJsonNull() ? data.get("country").getAsString() : "");
-        ipInfo.setProvince(data.has("prov") && !data.get("prov").isJsonNull() ? data.get("prov").getAsString() : "");
-        ipInfo.setCity(data.has("city") && !data.get("city").isJsonNull() ? data.get("city").getAsString() : "");
-        ipInfo.setIsp(data.has("isp") && !data.get("isp").isJsonNull() ? data.get("isp").getAsString() : "");
-
-        // 填充新增字段
-        if (data.has("country_code") && !data.get("country_code").isJsonNull()) {
-            ipInfo.setAsn(data.get("country_code").getAsString());
-        }
-
-        if (data.has("lng") && !data.get("lng").isJsonNull()) {
-            try {
-                ipInfo.setLongitude(Double.parseDouble(data.get("lng").getAsString()));
-            } catch (NumberFormatException ignored) {
-                // 忽略解析错误
-            }
-        }
-
-        if (data.has("lat") && !data.get("lat").isJsonNull()) {
-            try {
-                ipInfo.setLatitude(Double.parseDouble(data.get("lat").getAsString()));
-            } catch (NumberFormatException ignored) {
-                // 忽略解析错误
-            }
-        }
+    protected String requestUrl(String ip) {
+        return baseUrl(DEFAULT_BASE_URL) + "/v1/get?ip=" + ip;
+    }
 
-        if (data.has("area") && !data.get("area").isJsonNull()) {
-            ipInfo.setRegion(data.get("area").getAsString());
+    /**
+     * 解析响应内容
+     *
+     * @param ip       IP地址
+     * @param response 响应字符串
+     *
+     * @return IP信息
+     *
+     * @throws Exception 解析异常或接口返回错误
+     */
+    @Override
+    protected Optional<IpInfo> parse(String ip, String response) throws Exception {
+        Optional<IpInfo> ipInfo = MAPPER.map(response);
+        if (ipInfo.isEmpty() && STATUS.map(response).isEmpty()) {
+            throw new Exception(getName() + " API Error: Invalid response status");
         }
-
-        return Optional.of(ipInfo);
+        return ipInfo;
     }
 }
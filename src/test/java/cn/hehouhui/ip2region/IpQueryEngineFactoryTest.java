@@ -0,0 +1,166 @@
+package cn.hehouhui.ip2region;
+
+import cn.hehouhui.ip2region.core.AbstractNetworkIpSource;
+import cn.hehouhui.ip2region.core.IpSource;
+import cn.hehouhui.ip2region.http.DefaultHttpRequestHandler;
+import cn.hehouhui.ip2region.mock.MockUpstreamServer;
+import cn.hehouhui.ip2region.resolver.ConfigurableNetworkResolver;
+import cn.hehouhui.ip2region.resolver.IpApiCoResolver;
+import cn.hehouhui.ip2region.resolver.SourceDefinition;
+import cn.hehouhui.ip2region.resolver.TaobaoIpResolver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * IP查询引擎工厂单元测试类
+ *
+ * @author HeHui
+ * @date 2025-12-04
+ */
+public class IpQueryEngineFactoryTest {
+
+    private MockUpstreamServer server;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        server = new MockUpstreamServer(42L);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.close();
+    }
+
+    @Test
+    public void testConfiguredSources() throws Exception {
+        String config = "{\"sources\": [{"
+            + "\"name\": \"ConfiguredTaobao\", \"url\": \"https://ip.taobao.com/outGetIpInfo?ip={ip}&accessKey=alibaba-inc\","
+            + "\"permitsPerSecond\": 100, \"weight\": 20, \"timeoutMillis\": 800,"
+            + "\"expect\": {\"code\": \"0\"},"
+            + "\"fields\": {\"ip\": \"data.ip\", \"country\": \"data.country\", \"province\": \"data.region\","
+            + " \"city\": \"data.city\", \"isp\": \"data.isp\"},"
+            + "\"defaults\": {\"isp\": \"\"}"
+            + "}, {"
+            + "\"name\": \"Strict\", \"url\": \"https://ip.taobao.com/outGetIpInfo?ip={ip}\", \"permitsPerSecond\": 100,"
+            + "\"expect\": {\"code\": \"1\"}, \"fields\": {\"country\": \"data.country\"}"
+            + "}, {"
+            + "\"name\": \"ConfiguredIpApiCo\", \"url\": \"https://ipapi.co/{ip}/json/\", \"permitsPerSecond\": 100,"
+            + "\"require\": [\"country_name\"],"
+            + "\"fields\": {\"country\": \"country_name\", \"latitude\": \"latitude\", \"longitude\": \"longitude\"}"
+            + "}]}";
+        List<IpSource> sources = IpQueryEngineFactory.loadConfiguredSources(new StringReader(config), new DefaultHttpRequestHandler());
+        assertEquals(3, sources.size());
+        AbstractNetworkIpSource configured = server.bind((AbstractNetworkIpSource) sources.get(0), "taobao");
+        AbstractNetworkIpSource strict = server.bind((AbstractNetworkIpSource) sources.get(1), "taobao");
+        assertEquals("ConfiguredTaobao", configured.getName());
+        assertEquals(20, configured.getWeight());
+        assertEquals("127.0.0.1", configured.getHost());
+
+        IpInfo expected = server.bind(new TaobaoIpResolver(100, "Taobao", 10, new DefaultHttpRequestHandler()), "taobao").query("8.8.8.8");
+        IpInfo info = configured.query("8.8.8.8");
+        assertEquals(expected.getIp(), info.getIp());
+        assertEquals(expected.getCountry(), info.getCountry());
+        assertEquals(expected.getProvince(), info.getProvince());
+        assertEquals(expected.getCity(), info.getCity());
+        assertEquals(expected.getIsp(), info.getIsp());
+
+        AbstractNetworkIpSource coordinates = server.bind((AbstractNetworkIpSource) sources.get(2), "ipapico");
+        IpInfo expectedCoordinates = server.bind(new IpApiCoResolver(100, "IpApiCo", 10, new DefaultHttpRequestHandler()), "ipapico").query("8.8.8.8");
+        IpInfo coordinatesInfo = coordinates.query("8.8.8.8");
+        assertEquals(expectedCoordinates.getCountry(), coordinatesInfo.getCountry());
+        assertEquals(expectedCoordinates.getLatitude(), coordinatesInfo.getLatitude());
+        assertEquals(expectedCoordinates.getLongitude(), coordinatesInfo.getLongitude());
+        assertNotNull(coordinatesInfo.getLatitude());
+
+        // 成功条件不满足时视为接口错误
+        assertThrows(Exception.class, () -> strict.query("8.8.8.8"));
+        assertEquals(1, strict.getFailureCount());
+
+        SourceDefinition unknownField = new SourceDefinition();
+        unknownField.setName("Broken");
+        unknownField.setUrl("https://example.com/?ip={ip}");
+        unknownField.setFields(Map.of("postcode", "data.zip"));
+        unknownField.setRequire(List.of("data"));
+        assertThrows(IllegalArgumentException.class, () -> new ConfigurableNetworkResolver(unknownField, new DefaultHttpRequestHandler()));
+
+        // 没有成功条件时错误响应也会被当作成功结果，构造时拒绝
+        SourceDefinition unconditional = new SourceDefinition();
+        unconditional.setName("Unconditional");
+        unconditional.setUrl("https://example.com/?ip={ip}");
+        unconditional.setFields(Map.of("country", "data.country"));
+        assertThrows(IllegalArgumentException.class, () -> new ConfigurableNetworkResolver(unconditional, new DefaultHttpRequestHandler()));
+    }
+
+    @Test
+    public void testExtractResource(@TempDir Path dir) throws Exception {
+        byte[] content = "ip2region-test-database|".repeat(200).getBytes(StandardCharsets.UTF_8);
+        URL url = jarResource(dir.resolve("db.jar"), content);
+        Path out = dir.resolve("out");
+
+        Path extracted = IpQueryEngineFactory.extractResource(url, "test.xdb", out);
+        assertArrayEquals(content, Files.readAllBytes(extracted));
+        // 目录名由jar条目的CRC32与大小组成
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        assertEquals(Long.toHexString(crc.getValue()) + "-" + content.length, extracted.getParent().getFileName().toString());
+        // 临时文件重命名为目标文件后不残留
+        try (Stream<Path> files = Files.list(extracted.getParent())) {
+            assertEquals(List.of(extracted), files.toList());
+        }
+
+        // 大小一致时直接复用，不重新提取
+        byte[] marked = content.clone();
+        marked[0] = 'X';
+        Files.write(extracted, marked);
+        assertEquals(extracted, IpQueryEngineFactory.extractResource(url, "test.xdb", out));
+        assertArrayEquals(marked, Files.readAllBytes(extracted));
+
+        // 大小不一致说明上次提取不完整，重新提取
+        Files.write(extracted, new byte[1]);
+        assertEquals(extracted, IpQueryEngineFactory.extractResource(url, "test.xdb", out));
+        assertArrayEquals(content, Files.readAllBytes(extracted));
+
+        // 内容与中央目录中的CRC32不一致时提取失败，不留下目标文件和临时文件
+        Path corruptJar = dir.resolve("corrupt.jar");
+        URL corrupt = jarResource(corruptJar, content);
+        byte[] bytes = Files.readAllBytes(corruptJar);
+        int central = bytes.length - 4;
+        while (!(bytes[central] == 'P' && bytes[central + 1] == 'K' && bytes[central + 2] == 1 && bytes[central + 3] == 2)) {
+            central--;
+        }
+        bytes[central + 16] ^= 0x01;
+        Files.write(corruptJar, bytes);
+        Path corruptOut = dir.resolve("corrupt");
+        assertThrows(IOException.class, () -> IpQueryEngineFactory.extractResource(corrupt, "test.xdb", corruptOut));
+        try (Stream<Path> files = Files.walk(corruptOut)) {
+            assertTrue(files.noneMatch(Files::isRegularFile));
+        }
+    }
+
+    private static URL jarResource(Path jar, byte[] content) throws IOException {
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar))) {
+            out.putNextEntry(new JarEntry("auto-ip2region/test.xdb"));
+            out.write(content);
+            out.closeEntry();
+        }
+        return URI.create("jar:" + jar.toUri() + "!/auto-ip2region/test.xdb").toURL();
+    }
+}
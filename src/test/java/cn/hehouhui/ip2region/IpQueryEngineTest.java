@@ -1,6 +1,12 @@
 package cn.hehouhui.ip2region;
 
+import cn.hehouhui.ip2region.core.AbstractNetworkIpSource;
+import cn.hehouhui.ip2region.core.AbstractUrlNetworkIpSource;
 import cn.hehouhui.ip2region.core.IpSource;
+import cn.hehouhui.ip2region.core.ThrottledException;
+import cn.hehouhui.ip2region.fallback.LocalFirstFallbackStrategy;
+import cn.hehouhui.ip2region.http.HttpRequestHandler;
+import cn.hehouhui.ip2region.http.HttpResult;
 import cn.hehouhui.ip2region.resolver.GeoIP2Resolver;
 import cn.hehouhui.ip2region.resolver.LocalIp2RegionResolver;
 import org.junit.jupiter.api.Test;
@@ -12,7 +18,9 @@ import java.io.IOException;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -143,6 +151,133 @@ public class IpQueryEngineTest {
     }
 
 
+    @Test
+    public void testSaturatedSourceIsSkipped() throws Exception {
+        // 限流速率极低的数据源，消耗掉首个许可后即处于饱和状态
+        AbstractNetworkIpSource saturated = new AbstractNetworkIpSource("Saturated", 100, 0.001, null) {
+            @Override
+            protected Optional<IpInfo> request(String ip) {
+                return Optional.of(new IpInfo(ip, "saturated", "", "", "", ""));
+            }
+        };
+        // 限流速率足够高，空闲数据源每次非阻塞查询都能拿到许可
+        AbstractNetworkIpSource idle = new AbstractNetworkIpSource("Idle", 10, 100_000, null) {
+            @Override
+            protected Optional<IpInfo> request(String ip) {
+                return Optional.of(new IpInfo(ip, "idle", "", "", "", ""));
+            }
+        };
+        assertTrue(saturated.tryQuery("1.1.1.1").isPresent());
+        assertFalse(saturated.tryQuery("1.1.1.2").isPresent());
+        // 使两个数据源执行次数相同，负载均衡器将按权重优先选择饱和的数据源
+        idle.query("1.1.1.3");
+
+        List<IpSource> sources = new ArrayList<>();
+        sources.add(saturated);
+        sources.add(idle);
+        IpQueryEngine engine = IpQueryEngineFactory.createFromSources(sources);
+
+        long start = System.nanoTime();
+        IpInfo info = engine.query("8.8.8.8");
+        assertEquals("idle", info.getCountry());
+        assertTrue(System.nanoTime() - start < 1_000_000_000L);
+        assertTrue(saturated.getRejectedCount() >= 2);
+    }
+
+    @Test
+    public void testQueryDeadlineCapsFallbackTimeout() throws Exception {
+        List<Integer> timeouts = new CopyOnWriteArrayList<>();
+        AbstractNetworkIpSource hanging = new AbstractNetworkIpSource("Hanging", 100, 100, null) {
+            @Override
+            protected Optional<IpInfo> request(String ip) throws Exception {
+                int timeout = requestTimeout();
+                timeouts.add(timeout);
+                // 模拟请求挂起到超时后失败
+                Thread.sleep(timeout);
+                throw new IOException("Read timed out");
+            }
+        };
+        AbstractNetworkIpSource fallback = new AbstractNetworkIpSource("Fallback", 100, 100, null) {
+            @Override
+            protected Optional<IpInfo> request(String ip) {
+                timeouts.add(requestTimeout());
+                return Optional.of(new IpInfo(ip, "fallback", "", "", "", ""));
+            }
+        };
+        List<IpSource> sources = new ArrayList<>();
+        sources.add(hanging);
+        sources.add(fallback);
+        IpQueryEngine engine = new IpQueryEngine(sources, available -> hanging, new LocalFirstFallbackStrategy(),
+            1024, Duration.ofMinutes(10), Duration.ofMinutes(3));
+
+        long start = System.nanoTime();
+        IpInfo info = engine.query("8.8.8.8", Duration.ofMillis(300));
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        assertEquals("fallback", info.getCountry());
+        assertEquals(2, timeouts.size());
+        assertTrue(timeouts.get(0) <= 300, "首选数据源的超时不应超过整体超时: " + timeouts.get(0));
+        assertTrue(timeouts.get(1) <= 50, "降级数据源只能使用剩余的时间: " + timeouts.get(1));
+        assertTrue(elapsedMillis < 1000, "整体耗时应受截止时间约束: " + elapsedMillis);
+
+        // 截止时间只在本次调用内有效
+        engine.invalidateAllCache();
+        timeouts.clear();
+        engine.query("8.8.4.4", Duration.ofSeconds(10));
+        assertTrue(timeouts.get(0) > 300, "新的调用使用新的截止时间: " + timeouts.get(0));
+    }
+
+    @Test
+    public void testThrottledSourceIsPaused() throws Exception {
+        HttpRequestHandler throttledHandler = new HttpRequestHandler() {
+            @Override
+            public String get(String url, int timeout) {
+                return "";
+            }
+
+            @Override
+            public String post(String url, String body, int timeout) {
+                return "";
+            }
+
+            @Override
+            public HttpResult getResult(String url, int timeout) {
+                return new HttpResult(429, Map.of("retry-after", List.of("2")), "");
+            }
+        };
+        AbstractNetworkIpSource throttled = new AbstractUrlNetworkIpSource("Throttled", 100, 100, throttledHandler) {
+            @Override
+            protected String requestUrl(String ip) {
+                return "http://127.0.0.1/" + ip;
+            }
+
+            @Override
+            protected Optional<IpInfo> parse(String ip, String response) {
+                return Optional.of(new IpInfo(ip, "throttled", "", "", "", ""));
+            }
+        };
+        AbstractNetworkIpSource idle = new AbstractNetworkIpSource("Idle", 10, 100, null) {
+            @Override
+            protected Optional<IpInfo> request(String ip) {
+                return Optional.of(new IpInfo(ip, "idle", "", "", "", ""));
+            }
+        };
+
+        List<IpSource> sources = new ArrayList<>();
+        sources.add(throttled);
+        sources.add(idle);
+        IpQueryEngine engine = IpQueryEngineFactory.createFromSources(sources);
+
+        IpInfo info = engine.query("8.8.8.8");
+        assertEquals("idle", info.getCountry());
+        assertEquals(1, throttled.getThrottledCount());
+        // 限流不计入失败次数，数据源按Retry-After暂停
+        assertEquals(0, throttled.getFailureCount());
+        assertFalse(throttled.isAvailable());
+        long pause = throttled.getPausedUntil() - System.currentTimeMillis();
+        assertTrue(pause > 1000 && pause <= 2000);
+        assertThrows(ThrottledException.class, () -> throttled.query("8.8.4.4"));
+    }
+
     @Test
     public void  testFreeApiEngine() throws Exception {
         IpQueryEngine ipQueryEngine = IpQueryEngineFactory.createFreeApiEngine(1024, Duration.ofSeconds(60), Duration.ofSeconds(30));
@@ -0,0 +1,236 @@
+package cn.hehouhui.ip2region;
+
+import cn.hehouhui.ip2region.core.AbstractNetworkIpSource;
+import cn.hehouhui.ip2region.http.DefaultHttpRequestHandler;
+import cn.hehouhui.ip2region.http.HttpRequestHandler;
+import cn.hehouhui.ip2region.http.HttpResult;
+import cn.hehouhui.ip2region.mock.MockUpstreamServer;
+import cn.hehouhui.ip2region.mock.MockUpstreamServer.Behavior;
+import cn.hehouhui.ip2region.mock.MockUpstreamServer.Latency;
+import cn.hehouhui.ip2region.resolver.Ip9Resolver;
+import cn.hehouhui.ip2region.resolver.IpApiCoResolver;
+import cn.hehouhui.ip2region.resolver.IpInfoResolver;
+import cn.hehouhui.ip2region.resolver.IpMoeResolver;
+import cn.hehouhui.ip2region.resolver.PacificIpResolver;
+import cn.hehouhui.ip2region.resolver.TaobaoIpResolver;
+import cn.hehouhui.ip2region.resolver.VoreResolver;
+import cn.hehouhui.ip2region.resolver.XxlbResolver;
+import cn.hehouhui.ip2region.resolver.ZhengbingdongResolver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 基于本地模拟上游服务的网络数据源测试，不访问真实接口
+ *
+ * @author HeHui
+ * @date 2025-12-04
+ */
+public class MockUpstreamTest {
+
+    private MockUpstreamServer server;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        server = new MockUpstreamServer(42L);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.close();
+    }
+
+    /**
+     * 创建指向模拟上游的九个免费接口数据源
+     *
+     * @return 上游名称到数据源的映射
+     */
+    private Map<String, AbstractNetworkIpSource> createResolvers() {
+        HttpRequestHandler handler = new DefaultHttpRequestHandler();
+        Map<String, AbstractNetworkIpSource> resolvers = new LinkedHashMap<>();
+        resolvers.put("taobao", new TaobaoIpResolver(100, "Taobao", 10, handler));
+        resolvers.put("ipapico", new IpApiCoResolver(100, "IpApiCo", 10, handler));
+        resolvers.put("ip9", new Ip9Resolver(100, "Ip9", 10, handler));
+        resolvers.put("ipinfo", new IpInfoResolver(100, "IpInfo", 10, handler));
+        resolvers.put("xxlb", new XxlbResolver(100, "Xxlb", 10, handler));
+        resolvers.put("vore", new VoreResolver(100, "Vore", 10, handler));
+        resolvers.put("ipmoe", new IpMoeResolver(100, "IpMoe", 10, handler));
+        resolvers.put("pacific", new PacificIpResolver(100, "Pacific", 10, handler));
+        resolvers.put("zhengbingdong", new ZhengbingdongResolver(100, "Zhengbingdong", 10, handler));
+        resolvers.forEach((upstream, resolver) -> server.bind(resolver, upstream));
+        return resolvers;
+    }
+
+    @Test
+    public void testAllResolversParseSyntheticFixtures() throws Exception {
+        Map<String, AbstractNetworkIpSource> resolvers = createResolvers();
+        assertEquals(MockUpstreamServer.UPSTREAMS.keySet(), resolvers.keySet());
+        for (Map.Entry<String, AbstractNetworkIpSource> entry : resolvers.entrySet()) {
+            IpInfo info = entry.getValue().query("8.8.8.8");
+            assertEquals("8.8.8.8", info.getIp(), entry.getKey());
+            assertNotNull(info.getCountry(), entry.getKey());
+            assertNotEquals("unknown", info.getCountry(), entry.getKey());
+            assertEquals(1, server.getRequestCount(entry.getKey()), entry.getKey());
+            assertEquals(0, entry.getValue().getFailureCount(), entry.getKey());
+        }
+
+        IpInfo ipApiCo = resolvers.get("ipapico").query("1.1.1.1");
+        assertEquals("United States", ipApiCo.getCountry());
+        assertEquals("AS15169", ipApiCo.getAsn());
+        assertEquals(37.42301, ipApiCo.getLatitude());
+
+        IpInfo ipMoe = resolvers.get("ipmoe").query("1.1.1.1");
+        assertEquals("广东省", ipMoe.getProvince());
+        assertEquals("深圳市", ipMoe.getCity());
+    }
+
+    @Test
+    public void testRecordAndReplay(@TempDir Path tempDir) throws Exception {
+        // 本地的假上游充当真实接口，使用classpath中没有模板的路径前缀，只返回手写的一条响应
+        Path upstreamDir = tempDir.resolve("upstream");
+        Files.createDirectories(upstreamDir.resolve("fake-ip9"));
+        Files.writeString(upstreamDir.resolve("fake-ip9").resolve("1.2.3.4.json"),
+            "{\"ret\":200,\"data\":{\"ip\":\"1.2.3.4\",\"country\":\"中国\",\"prov\":\"浙江\",\"city\":\"杭州\",\"isp\":\"联通\"}}",
+            StandardCharsets.UTF_8);
+        Path recordDir = tempDir.resolve("record");
+        try (MockUpstreamServer upstream = new MockUpstreamServer().fixtureDir(upstreamDir)) {
+            server.record(recordDir, Map.of("ip9", upstream.baseUrl("fake-ip9")));
+            Ip9Resolver ip9 = server.bind(new Ip9Resolver(100, "Ip9", 10, new DefaultHttpRequestHandler()), "ip9");
+            assertEquals("杭州", ip9.query("1.2.3.4").getCity());
+            assertEquals(1, upstream.getRequestCount("fake-ip9"));
+            assertTrue(Files.exists(recordDir.resolve("ip9").resolve("1.2.3.4.json")));
+            // 录制模式下没有模板兜底，上游没有的响应返回404
+            assertThrows(Exception.class, () -> ip9.query("5.6.7.8"));
+            assertEquals(2, upstream.getRequestCount("fake-ip9"));
+        }
+
+        // 假上游关闭后，新的服务从录制目录回放
+        try (MockUpstreamServer replay = new MockUpstreamServer().fixtureDir(recordDir)) {
+            Ip9Resolver ip9 = replay.bind(new Ip9Resolver(100, "Ip9", 10, new DefaultHttpRequestHandler()), "ip9");
+            IpInfo info = ip9.query("1.2.3.4");
+            assertEquals("浙江", info.getProvince());
+            assertEquals("杭州", info.getCity());
+        }
+    }
+
+    @Test
+    public void testErrorBodiesAreFailures() {
+        List<String> bodies = List.of("<html><body>502 Bad Gateway</body></html>", "Too many requests", "[]",
+            "{\"error\":\"Internal Server Error\"}");
+        for (String body : bodies) {
+            HttpRequestHandler handler = new HttpRequestHandler() {
+                @Override
+                public String get(String url, int timeout) {
+                    return body;
+                }
+
+                @Override
+                public String post(String url, String requestBody, int timeout) {
+                    return body;
+                }
+            };
+            List<AbstractNetworkIpSource> resolvers = List.of(new TaobaoIpResolver(100, "Taobao", 10, handler),
+                new IpApiCoResolver(100, "IpApiCo", 10, handler), new Ip9Resolver(100, "Ip9", 10, handler),
+                new IpInfoResolver(100, "IpInfo", 10, handler), new XxlbResolver(100, "Xxlb", 10, handler),
+                new VoreResolver(100, "Vore", 10, handler), new IpMoeResolver(100, "IpMoe", 10, handler),
+                new PacificIpResolver(100, "Pacific", 10, handler), new ZhengbingdongResolver(100, "Zhengbingdong", 10, handler));
+            for (AbstractNetworkIpSource resolver : resolvers) {
+                try {
+                    resolver.query("8.8.8.8");
+                } catch (Exception ignored) {
+                    // 解析异常与无效响应同样计为失败
+                }
+                assertEquals(1, resolver.getFailureCount(), resolver.getName() + " / " + body);
+            }
+        }
+    }
+
+    @Test
+    public void testNonSuccessStatusIsFailure() {
+        String body = "{\"ip\":\"8.8.8.8\",\"country\":\"US\"}";
+        for (int status : new int[]{500, 503, 404}) {
+            HttpRequestHandler handler = new HttpRequestHandler() {
+                @Override
+                public String get(String url, int timeout) {
+                    return body;
+                }
+
+                @Override
+                public String post(String url, String requestBody, int timeout) {
+                    return body;
+                }
+
+                @Override
+                public HttpResult getResult(String url, int timeout) {
+                    return new HttpResult(status, Map.of(), body);
+                }
+            };
+            IpInfoResolver resolver = new IpInfoResolver(100, "IpInfo", 10, handler);
+            // 响应体即使可以解析也不会被采用，没有重试时间的503按普通错误处理，不暂停数据源
+            assertThrows(Exception.class, () -> resolver.query("8.8.8.8"));
+            assertEquals(1, resolver.getFailureCount(), String.valueOf(status));
+            assertEquals(0, resolver.getThrottledCount(), String.valueOf(status));
+            assertTrue(resolver.getPausedUntil() <= System.currentTimeMillis(), String.valueOf(status));
+        }
+    }
+
+    @Test
+    public void testEngineWithLatencyAndErrors() throws Exception {
+        for (String upstream : MockUpstreamServer.UPSTREAMS.keySet()) {
+            server.behavior(upstream, new Behavior(Latency.logNormal(5, 0.5), 0.05, 0, 1));
+        }
+        Map<String, AbstractNetworkIpSource> resolvers = createResolvers();
+        IpQueryEngine engine = IpQueryEngineFactory.createFromSources(new ArrayList<>(resolvers.values()));
+
+        int succeeded = 0;
+        for (int i = 0; i < 200; i++) {
+            String ip = "10.0." + (i / 256) + "." + (i % 256);
+            try {
+                IpInfo info = engine.query(ip);
+                // 返回的结果都来自fixture中的正常响应，错误响应不会被当作空结果返回
+                assertEquals(ip, info.getIp());
+                assertNotNull(info.getCountry(), ip);
+                assertFalse(info.getCountry().isBlank(), ip);
+                assertNotEquals("unknown", info.getCountry(), ip);
+                succeeded++;
+            } catch (Exception ignored) {
+                // 注入的5%错误可能在没有降级数据源时向上抛出
+            }
+        }
+        assertTrue(succeeded >= 180, "succeeded=" + succeeded);
+        long requests = MockUpstreamServer.UPSTREAMS.keySet().stream().mapToLong(server::getRequestCount).sum();
+        assertTrue(requests >= 200);
+        // 注入的每一次500都计入对应数据源的失败次数，且只有这些请求失败
+        long errors = 0;
+        for (Map.Entry<String, AbstractNetworkIpSource> entry : resolvers.entrySet()) {
+            long injected = server.getErrorCount(entry.getKey());
+            assertEquals(injected, entry.getValue().getFailureCount(), entry.getKey());
+            errors += injected;
+        }
+        assertTrue(errors > 0, "errors=" + errors);
+    }
+
+    @Test
+    public void testThrottledUpstreamPausesSource() throws Exception {
+        server.behavior("taobao", new Behavior(Latency.fixed(0), 0, 1.0, 1));
+        AbstractNetworkIpSource taobao = createResolvers().get("taobao");
+
+        assertFalse(taobao.tryQuery("8.8.8.8").isPresent());
+        assertEquals(1, taobao.getThrottledCount());
+        assertFalse(taobao.isAvailable());
+        // 暂停期内不会再发出请求
+        assertFalse(taobao.tryQuery("8.8.4.4").isPresent());
+        assertEquals(1, server.getRequestCount("taobao"));
+    }
+}
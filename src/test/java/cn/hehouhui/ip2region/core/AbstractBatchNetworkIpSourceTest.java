@@ -0,0 +1,86 @@
+package cn.hehouhui.ip2region.core;
+
+import cn.hehouhui.ip2region.IpInfo;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 批量网络数据源基类单元测试类
+ *
+ * @author HeHui
+ * @date 2025-12-04
+ */
+public class AbstractBatchNetworkIpSourceTest {
+
+    @Test
+    public void testMicroBatching() throws Exception {
+        List<Integer> requestSizes = Collections.synchronizedList(new ArrayList<>());
+        AbstractBatchNetworkIpSource batchSource = new AbstractBatchNetworkIpSource("Batch", 10, 100, 8, 50, null) {
+            @Override
+            protected Map<String, IpInfo> request(List<String> ips) {
+                requestSizes.add(ips.size());
+                Map<String, IpInfo> results = new HashMap<>();
+                ips.forEach(ip -> results.put(ip, new IpInfo(ip, "batch", "", "", "", "")));
+                return results;
+            }
+        };
+
+        int size = 16;
+        ExecutorService executorService = Executors.newFixedThreadPool(size);
+        List<Future<IpInfo>> futures = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            String ip = "10.0.0." + i;
+            futures.add(executorService.submit(() -> batchSource.query(ip)));
+        }
+        for (int i = 0; i < size; i++) {
+            IpInfo info = futures.get(i).get(5, TimeUnit.SECONDS);
+            assertEquals("10.0.0." + i, info.getIp());
+            assertEquals("batch", info.getCountry());
+        }
+        executorService.shutdown();
+        // 16个查询最多凑成8个一批，远少于逐个请求的次数
+        assertTrue(requestSizes.size() < size);
+        assertTrue(requestSizes.stream().allMatch(batch -> batch <= 8));
+        assertEquals(size, requestSizes.stream().mapToInt(Integer::intValue).sum());
+        assertEquals(size, batchSource.getExecutionCount());
+
+        // 批量查询去重后再拆分，结果按参数顺序展开
+        requestSizes.clear();
+        List<String> ips = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            ips.add("10.0.1." + (i % 10));
+        }
+        List<IpInfo> infos = batchSource.queryBatch(ips);
+        assertEquals(List.of(8, 2), requestSizes);
+        assertEquals(ips.size(), infos.size());
+        for (int i = 0; i < ips.size(); i++) {
+            assertEquals(ips.get(i), infos.get(i).getIp());
+        }
+
+        // 上游限流暂停期间批量查询与单个查询一样直接拒绝，不发出请求
+        AbstractBatchNetworkIpSource throttled = new AbstractBatchNetworkIpSource("Throttled", 10, 100, 8, 0, null) {
+            @Override
+            protected Map<String, IpInfo> request(List<String> ips) {
+                requestSizes.add(ips.size());
+                pause(60_000);
+                return Map.of();
+            }
+        };
+        requestSizes.clear();
+        throttled.queryBatch(List.of("10.0.2.1"));
+        assertEquals(List.of(1), requestSizes);
+        assertThrows(ThrottledException.class, () -> throttled.queryBatch(List.of("10.0.2.2", "10.0.2.3")));
+        assertEquals(List.of(1), requestSizes);
+    }
+}
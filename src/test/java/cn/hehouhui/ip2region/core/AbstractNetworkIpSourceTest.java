@@ -0,0 +1,123 @@
+package cn.hehouhui.ip2region.core;
+
+import cn.hehouhui.ip2region.IpInfo;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 网络数据源基类单元测试类
+ *
+ * @author HeHui
+ * @date 2025-12-04
+ */
+public class AbstractNetworkIpSourceTest {
+
+    private static AbstractNetworkIpSource source(AdaptiveConcurrencyLimiter limiter, double permitsPerSecond) {
+        return new AbstractNetworkIpSource("Test", 100, permitsPerSecond, limiter, null) {
+            @Override
+            protected Optional<IpInfo> request(String ip) {
+                return Optional.of(new IpInfo(ip, "中国", "", "", "", ""));
+            }
+        };
+    }
+
+    @Test
+    public void testRejectedQueryKeepsRatePermit() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1);
+        AbstractNetworkIpSource source = source(limiter, 0.1);
+        assertTrue(limiter.tryAcquire());
+        Exception rejected = assertThrows(Exception.class, () -> source.query("8.8.8.8"));
+        assertTrue(rejected.getMessage().contains("Concurrency limit exceeded"), rejected.getMessage());
+        assertEquals(1, source.getRejectedCount());
+
+        // 超出并发上限的请求没有消耗限流许可，名额归还后可以立即查询
+        limiter.release();
+        long start = System.nanoTime();
+        assertEquals("中国", source.query("8.8.8.8").getCountry());
+        assertTrue(System.nanoTime() - start < 5_000_000_000L, "不应等待下一个限流许可");
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    public void testRequestTimeoutClampedToPolicy() {
+        AbstractNetworkIpSource source = source(null, 100);
+        source.setTimeoutPolicy(3.0, 200, 5000);
+        for (int i = 0; i < 49; i++) {
+            source.latencyHistogram.record(10);
+        }
+        assertEquals(5000, source.requestTimeout(), "样本不足50个时使用最大超时时间");
+
+        // 设置策略会丢弃缓存的超时时间，下一次调用立即按新样本重新计算
+        source.latencyHistogram.record(10);
+        source.setTimeoutPolicy(3.0, 200, 5000);
+        assertEquals(200, source.requestTimeout(), "p99.9乘以放大倍数低于下限时取最小超时时间");
+
+        source.setTimeoutPolicy(3.0, 10, 5000);
+        assertEquals(30, source.requestTimeout(), "p99.9为10毫秒，放大3倍");
+
+        // 1秒内复用已计算的结果，不随新样本变化
+        for (int i = 0; i < 1000; i++) {
+            source.latencyHistogram.record(4000);
+        }
+        assertEquals(30, source.requestTimeout());
+
+        source.setTimeoutPolicy(3.0, 10, 5000);
+        assertEquals(5000, source.requestTimeout(), "p99.9乘以放大倍数高于上限时取最大超时时间");
+
+        assertThrows(IllegalArgumentException.class, () -> source.setTimeoutPolicy(0, 10, 5000));
+        assertThrows(IllegalArgumentException.class, () -> source.setTimeoutPolicy(3.0, 100, 50));
+    }
+
+    @Test
+    public void testRequestTimeoutRefreshesAfterInterval() throws Exception {
+        AbstractNetworkIpSource source = source(null, 100);
+        source.setTimeoutPolicy(3.0, 10, 5000);
+        for (int i = 0; i < 50; i++) {
+            source.latencyHistogram.record(10);
+        }
+        assertEquals(30, source.requestTimeout());
+        for (int i = 0; i < 1000; i++) {
+            source.latencyHistogram.record(100);
+        }
+        assertEquals(30, source.requestTimeout());
+        Thread.sleep(1100);
+        long refreshed = source.requestTimeout();
+        assertTrue(refreshed >= 300 && refreshed <= 350, "每秒按最新样本重新计算: " + refreshed);
+    }
+
+    @Test
+    public void testRequestTimeoutCappedByDeadline() {
+        AbstractNetworkIpSource source = source(null, 100);
+        source.setTimeoutPolicy(3.0, 200, 5000);
+        Long previous = QueryDeadline.set(System.nanoTime() + 100_000_000L);
+        try {
+            int timeout = source.requestTimeout();
+            assertTrue(timeout > 0 && timeout <= 100, "不应超过截止时间前的剩余时间: " + timeout);
+        } finally {
+            QueryDeadline.restore(previous);
+        }
+        assertEquals(5000, source.requestTimeout(), "恢复后不再受截止时间约束");
+
+        previous = QueryDeadline.set(System.nanoTime() - 1_000_000_000L);
+        try {
+            assertEquals(1, source.requestTimeout(), "截止时间已过时至少为1毫秒");
+        } finally {
+            QueryDeadline.restore(previous);
+        }
+    }
+
+    @Test
+    public void testQueryDeadlineNestingRestoresOuter() {
+        assertEquals(Long.MAX_VALUE, QueryDeadline.remainingMillis());
+        Long outer = QueryDeadline.set(System.nanoTime() + 10_000_000_000L);
+        Long inner = QueryDeadline.set(System.nanoTime() + 100_000_000L);
+        assertTrue(QueryDeadline.remainingMillis() <= 100);
+        QueryDeadline.restore(inner);
+        assertTrue(QueryDeadline.remainingMillis() > 5_000, "恢复后应回到外层截止时间");
+        QueryDeadline.restore(outer);
+        assertEquals(Long.MAX_VALUE, QueryDeadline.remainingMillis());
+    }
+}
@@ -0,0 +1,66 @@
+package cn.hehouhui.ip2region.core;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 自适应并发限制器单元测试类
+ *
+ * @author HeHui
+ * @date 2025-12-04
+ */
+public class AdaptiveConcurrencyLimiterTest {
+
+    private static final long RTT = 1_000_000L;
+
+    /**
+     * 占用指定数量的并发名额，并用一次无负载的采样建立RTT基线
+     */
+    private static AdaptiveConcurrencyLimiter limiter(int inFlight) {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 50);
+        for (int i = 0; i <= inFlight; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+        limiter.release(RTT, false);
+        assertEquals(10, limiter.getLimit(), "建立基线不应调整上限");
+        return limiter;
+    }
+
+    @Test
+    public void testIncreaseWhenSaturatedWithoutQueueing() {
+        AdaptiveConcurrencyLimiter limiter = limiter(9);
+        limiter.release(RTT, false);
+        assertEquals(11, limiter.getLimit(), "RTT未上升且并发充分使用时应增大上限");
+        assertEquals(8, limiter.getInFlight());
+    }
+
+    @Test
+    public void testNoIncreaseWhenUnderused() {
+        AdaptiveConcurrencyLimiter limiter = limiter(1);
+        limiter.release(RTT, false);
+        assertEquals(10, limiter.getLimit(), "并发未被充分使用时不应增大上限");
+    }
+
+    @Test
+    public void testDecreaseWhenQueueing() {
+        // 在途请求很少时RTT上升同样说明上游在排队，仍需减小上限
+        AdaptiveConcurrencyLimiter limiter = limiter(1);
+        limiter.release(RTT * 10, false);
+        assertEquals(9, limiter.getLimit(), "排队估算超过beta时应减小上限");
+    }
+
+    @Test
+    public void testDropShrinksLimit() {
+        AdaptiveConcurrencyLimiter limiter = limiter(5);
+        limiter.release(RTT, true);
+        assertEquals(9, limiter.getLimit(), "请求被丢弃时上限应乘以0.9");
+
+        AdaptiveConcurrencyLimiter minimal = new AdaptiveConcurrencyLimiter(1, 1, 50);
+        assertTrue(minimal.tryAcquire());
+        assertFalse(minimal.tryAcquire(), "超出并发上限时应立即拒绝");
+        minimal.release(RTT, true);
+        assertEquals(1, minimal.getLimit(), "上限不应低于最小值");
+        assertEquals(0, minimal.getInFlight());
+    }
+}
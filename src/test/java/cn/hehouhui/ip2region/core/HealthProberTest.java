@@ -0,0 +1,59 @@
+package cn.hehouhui.ip2region.core;
+
+import cn.hehouhui.ip2region.http.DefaultHttpRequestHandler;
+import cn.hehouhui.ip2region.mock.MockUpstreamServer;
+import cn.hehouhui.ip2region.mock.MockUpstreamServer.Behavior;
+import cn.hehouhui.ip2region.mock.MockUpstreamServer.Latency;
+import cn.hehouhui.ip2region.resolver.TaobaoIpResolver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 健康探测器单元测试类，探测请求发往本地模拟上游服务
+ *
+ * @author HeHui
+ * @date 2025-12-04
+ */
+public class HealthProberTest {
+
+    private MockUpstreamServer server;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        server = new MockUpstreamServer(42L);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.close();
+    }
+
+    @Test
+    public void testMarksDeadAndRecovered() {
+        // 限流速率足够高，连续探测不会因为没有空闲额度而被跳过
+        TaobaoIpResolver taobao = server.bind(new TaobaoIpResolver(100_000, "Taobao", 10, new DefaultHttpRequestHandler()), "taobao");
+        try (HealthProber prober = new HealthProber(List.of(taobao), HealthProber.DEFAULT_CANARY_IPS, 60_000, 0, 1.0, 3)) {
+            assertEquals(HealthProber.Outcome.HEALTHY, prober.probe(taobao));
+            assertTrue(taobao.isAvailable());
+
+            server.behavior("taobao", new Behavior(Latency.fixed(0), 1.0, 0, 0));
+            for (int i = 0; i < 3; i++) {
+                assertEquals(HealthProber.Outcome.UNHEALTHY, prober.probe(taobao));
+            }
+            assertTrue(taobao.isDead());
+            assertFalse(taobao.isAvailable());
+
+            server.behavior("taobao", Behavior.DEFAULT);
+            assertEquals(HealthProber.Outcome.HEALTHY, prober.probe(taobao));
+            assertFalse(taobao.isDead());
+            assertEquals(5, prober.getProbeCount());
+            assertEquals(3, prober.getProbeFailureCount());
+            assertEquals(5, server.getRequestCount("taobao"));
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package cn.hehouhui.ip2region.core;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 延迟直方图单元测试类
+ *
+ * @author HeHui
+ * @date 2025-12-04
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void testEmptyHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.percentile(0.999));
+    }
+
+    @Test
+    public void testLinearBucketsAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int millis = 0; millis < 10; millis++) {
+            histogram.record(millis);
+        }
+        assertEquals(10, histogram.getCount());
+        assertEquals(0, histogram.percentile(0.0), "分位0应落在第一个样本");
+        assertEquals(4, histogram.percentile(0.5), "10个样本的p50为第5个样本");
+        assertEquals(8, histogram.percentile(0.9));
+        assertEquals(9, histogram.percentile(0.999));
+        assertEquals(9, histogram.percentile(1.0));
+
+        histogram.record(-5);
+        assertEquals(0, histogram.percentile(0.0), "负值应按0记录");
+    }
+
+    @Test
+    public void testLogBucketsBoundRelativeError() {
+        for (long millis : new long[]{16, 17, 100, 1000, 4095, 4096, 30_000, 1_000_000}) {
+            LatencyHistogram histogram = new LatencyHistogram();
+            histogram.record(millis);
+            long upper = histogram.percentile(0.5);
+            assertTrue(upper >= millis, millis + " -> " + upper);
+            assertTrue(upper - millis <= millis / 8, "相对误差不应超过12.5%: " + millis + " -> " + upper);
+        }
+        // 2的幂区间的首个子桶上界为区间起点加宽度减一
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(16);
+        assertEquals(17, histogram.percentile(1.0));
+
+        // 超出范围的样本归入最后一个桶
+        LatencyHistogram overflow = new LatencyHistogram();
+        overflow.record(Long.MAX_VALUE);
+        assertEquals((1L << 21) - 1, overflow.percentile(1.0));
+    }
+
+    @Test
+    public void testTailPercentile() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 999; i++) {
+            histogram.record(10);
+        }
+        histogram.record(1000);
+        assertEquals(10, histogram.percentile(0.999), "999/1000个样本在10毫秒，p99.9仍为10");
+        assertTrue(histogram.percentile(1.0) >= 1000);
+
+        histogram.record(1000);
+        assertTrue(histogram.percentile(0.999) >= 1000, "超过0.1%的慢请求应进入p99.9");
+    }
+
+    @Test
+    public void testWindowRotation() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram(100);
+        histogram.record(5);
+        assertEquals(1, histogram.getCount());
+        // 超过两个窗口没有记录，上一窗口的样本也应被清除
+        Thread.sleep(250);
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.percentile(0.999));
+    }
+}
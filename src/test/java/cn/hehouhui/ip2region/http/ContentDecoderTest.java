@@ -0,0 +1,79 @@
+package cn.hehouhui.ip2region.http;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 响应体解码单元测试类
+ *
+ * @author HeHui
+ * @date 2025-12-04
+ */
+public class ContentDecoderTest {
+
+    private static final String BODY = "{\"ip\":\"1.2.3.4\",\"country\":\"中国\",\"city\":\"杭州\"}";
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] deflate(byte[] data, boolean raw) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, raw);
+        try (DeflaterOutputStream stream = new DeflaterOutputStream(out, deflater)) {
+            stream.write(data);
+        } finally {
+            deflater.end();
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    public void testGzip() throws IOException {
+        byte[] body = gzip(BODY.getBytes(StandardCharsets.UTF_8));
+        assertEquals(BODY, ContentDecoder.decode(body, "gzip", "application/json"));
+        assertEquals(BODY, ContentDecoder.decode(body, " X-GZIP ", null));
+    }
+
+    @Test
+    public void testDeflate() throws IOException {
+        byte[] bytes = BODY.getBytes(StandardCharsets.UTF_8);
+        assertEquals(BODY, ContentDecoder.decode(deflate(bytes, false), "deflate", null), "zlib封装");
+        assertEquals(BODY, ContentDecoder.decode(deflate(bytes, true), "deflate", null), "裸deflate流");
+        assertThrows(IOException.class, () -> ContentDecoder.decode(new byte[]{0x78, (byte) 0x9C, 1, 2, 3}, "deflate", null));
+    }
+
+    @Test
+    public void testIdentityAndUnknownEncoding() throws IOException {
+        byte[] bytes = BODY.getBytes(StandardCharsets.UTF_8);
+        assertEquals(BODY, ContentDecoder.decode(bytes, null, null));
+        assertEquals(BODY, ContentDecoder.decode(bytes, "identity", null));
+        assertEquals("", ContentDecoder.decode(new byte[0], "gzip", null));
+        assertEquals("", ContentDecoder.decode(null, null, null));
+        assertThrows(IOException.class, () -> ContentDecoder.decode(bytes, "br", null));
+    }
+
+    @Test
+    public void testCharset() throws IOException {
+        Charset gbk = Charset.forName("GBK");
+        byte[] bytes = BODY.getBytes(gbk);
+        assertEquals(BODY, ContentDecoder.decode(bytes, null, "application/json; charset=GBK"));
+        assertEquals(BODY, ContentDecoder.decode(gzip(bytes), "gzip", "text/plain;Charset=\"gbk\""));
+        // 无法识别的字符集按UTF-8解码
+        byte[] utf8 = BODY.getBytes(StandardCharsets.UTF_8);
+        assertEquals(BODY, ContentDecoder.decode(utf8, null, "application/json; charset=no-such-charset"));
+    }
+}
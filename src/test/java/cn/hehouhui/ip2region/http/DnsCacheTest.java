@@ -0,0 +1,43 @@
+package cn.hehouhui.ip2region.http;
+
+import org.junit.jupiter.api.Test;
+
+import java.security.Security;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * DNS缓存单元测试类
+ *
+ * @author HeHui
+ * @date 2025-12-04
+ */
+public class DnsCacheTest {
+
+    @Test
+    public void testRefreshIntervalFollowsJvmCacheTtl() {
+        String original = Security.getProperty("networkaddress.cache.ttl");
+        try {
+            Security.setProperty("networkaddress.cache.ttl", "10");
+            assertEquals(10_000L, DnsCache.defaultRefreshIntervalMillis());
+            // 刷新间隔最长60秒
+            Security.setProperty("networkaddress.cache.ttl", "300");
+            assertEquals(60_000L, DnsCache.defaultRefreshIntervalMillis());
+            Security.setProperty("networkaddress.cache.ttl", "-1");
+            assertEquals(60_000L, DnsCache.defaultRefreshIntervalMillis());
+        } finally {
+            // 安全属性不能删除，恢复为原值或JDK默认的30秒
+            Security.setProperty("networkaddress.cache.ttl", original == null ? "30" : original);
+        }
+    }
+
+    @Test
+    public void testResolveCachesLoopback() throws Exception {
+        try (DnsCache dnsCache = new DnsCache(60_000)) {
+            assertEquals("127.0.0.1", dnsCache.resolve("127.0.0.1").getHostAddress());
+            dnsCache.resolve("127.0.0.1");
+            assertEquals(1, dnsCache.getResolutionCount(), "第二次访问命中缓存");
+            assertEquals(1, dnsCache.getCachedAddresses("127.0.0.1").length);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package cn.hehouhui.ip2region.http;
+
+import cn.hehouhui.ip2region.core.LatencyHistogram;
+import cn.hehouhui.ip2region.core.ThrottledException;
+import cn.hehouhui.ip2region.http.FaultInjectingHttpRequestHandler.Fault;
+import cn.hehouhui.ip2region.http.FaultInjectingHttpRequestHandler.FaultRule;
+import cn.hehouhui.ip2region.http.FaultInjectingHttpRequestHandler.FaultType;
+import cn.hehouhui.ip2region.mock.MockUpstreamServer;
+import cn.hehouhui.ip2region.resolver.Ip9Resolver;
+import cn.hehouhui.ip2region.resolver.TaobaoIpResolver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 故障注入HTTP请求处理器单元测试类，请求发往本地模拟上游服务
+ *
+ * @author HeHui
+ * @date 2025-12-04
+ */
+public class FaultInjectingHttpRequestHandlerTest {
+
+    private MockUpstreamServer server;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        server = new MockUpstreamServer(42L);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.close();
+    }
+
+    @Test
+    public void testScriptedFaults() throws Exception {
+        FaultInjectingHttpRequestHandler faults = new FaultInjectingHttpRequestHandler(new DefaultHttpRequestHandler(), 7L)
+            .script("127.0.0.1", Fault.connectionReset(), Fault.corruptBody(), Fault.throttle(1));
+        TaobaoIpResolver taobao = server.bind(new TaobaoIpResolver(100, "Taobao", 10, faults), "taobao");
+
+        Exception reset = assertThrows(Exception.class, () -> taobao.query("8.8.8.8"));
+        assertTrue(reset.getMessage().contains("Network error"));
+        assertThrows(Exception.class, () -> taobao.query("8.8.8.8"));
+        assertThrows(ThrottledException.class, () -> taobao.query("8.8.8.8"));
+        // 连接重置不会到达上游，损坏的响应体来自真实响应，限流由装饰器直接返回
+        assertEquals(1, server.getRequestCount("taobao"));
+        assertEquals(2, taobao.getFailureCount());
+        assertEquals(1, taobao.getThrottledCount());
+    }
+
+    @Test
+    public void testProbabilisticFaultReport() throws Exception {
+        FaultInjectingHttpRequestHandler faults = new FaultInjectingHttpRequestHandler(new DefaultHttpRequestHandler(), 7L)
+            .rule(FaultInjectingHttpRequestHandler.ANY_HOST, FaultRule.builder()
+                .latency(1, 10)
+                .timeoutRate(0.02)
+                .resetRate(0.02)
+                .serverErrorRate(0.05)
+                .corruptRate(0.02)
+                .build());
+        Ip9Resolver ip9 = server.bind(new Ip9Resolver(1000, "Ip9", 10, faults), "ip9");
+        ip9.setTimeoutPolicy(3.0, 50, 50);
+        // 先不注入故障地预热连接和JIT，冷启动的首批请求可能真实超过50ms超时，导致失败数多于注入的故障数
+        Ip9Resolver warmup = server.bind(new Ip9Resolver(1000, "Ip9", 10, new DefaultHttpRequestHandler()), "ip9");
+        for (int i = 0; i < 50; i++) {
+            warmup.query("10.1.0." + i);
+        }
+
+        LatencyHistogram histogram = new LatencyHistogram();
+        int succeeded = 0;
+        int total = 200;
+        for (int i = 0; i < total; i++) {
+            long start = System.currentTimeMillis();
+            try {
+                ip9.query("10.1.0." + (i % 256));
+                succeeded++;
+            } catch (Exception ignored) {
+                // 注入的故障
+            }
+            histogram.record(System.currentTimeMillis() - start);
+        }
+        long injected = faults.getInjectedCount(FaultType.TIMEOUT) + faults.getInjectedCount(FaultType.CONNECTION_RESET)
+            + faults.getInjectedCount(FaultType.SERVER_ERROR) + faults.getInjectedCount(FaultType.CORRUPT_BODY);
+        // 每个注入的故障恰好导致一次失败，固定种子下结果可复现
+        assertEquals(total - injected, succeeded);
+        assertTrue(injected > 0 && injected < total / 4, "injected=" + injected);
+        assertTrue(histogram.percentile(0.5) <= histogram.percentile(0.99));
+        assertTrue(histogram.percentile(0.99) >= 50, "p99=" + histogram.percentile(0.99));
+    }
+}
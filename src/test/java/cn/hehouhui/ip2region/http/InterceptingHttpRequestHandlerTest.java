@@ -0,0 +1,86 @@
+package cn.hehouhui.ip2region.http;
+
+import cn.hehouhui.ip2region.IpInfo;
+import cn.hehouhui.ip2region.http.FaultInjectingHttpRequestHandler.Fault;
+import cn.hehouhui.ip2region.http.interceptor.BodySizeInterceptor;
+import cn.hehouhui.ip2region.http.interceptor.RetryInterceptor;
+import cn.hehouhui.ip2region.http.interceptor.TimingInterceptor;
+import cn.hehouhui.ip2region.http.interceptor.TracingInterceptor;
+import cn.hehouhui.ip2region.mock.MockUpstreamServer;
+import cn.hehouhui.ip2region.resolver.Ip9Resolver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 拦截器链HTTP请求处理器单元测试类，请求发往本地模拟上游服务
+ *
+ * @author HeHui
+ * @date 2025-12-04
+ */
+public class InterceptingHttpRequestHandlerTest {
+
+    private MockUpstreamServer server;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        server = new MockUpstreamServer(42L);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.close();
+    }
+
+    @Test
+    public void testInterceptorChain() throws Exception {
+        FaultInjectingHttpRequestHandler faults = new FaultInjectingHttpRequestHandler(new DefaultHttpRequestHandler(), 7L)
+            .script("127.0.0.1", Fault.connectionReset(), Fault.serverError(502));
+        List<TracingInterceptor.Trace> traces = new CopyOnWriteArrayList<>();
+        TracingInterceptor tracing = new TracingInterceptor(traces::add);
+        TimingInterceptor timing = new TimingInterceptor();
+        RetryInterceptor retry = new RetryInterceptor(2, 0);
+        BodySizeInterceptor bodySize = new BodySizeInterceptor();
+        InterceptingHttpRequestHandler handler = new InterceptingHttpRequestHandler(faults, tracing, timing, retry, bodySize);
+        // 限流速率足够高，紧接着的异步查询不会因为没有空闲许可而被跳过
+        Ip9Resolver ip9 = server.bind(new Ip9Resolver(100_000, "Ip9", 10, handler), "ip9");
+
+        // 连接重置和502各重试一次后成功
+        IpInfo info = ip9.query("8.8.8.8");
+        assertEquals("中国", info.getCountry());
+        assertEquals(2, retry.getRetryCount());
+        assertEquals(1, traces.size());
+        assertEquals(200, traces.get(0).getStatusCode());
+        assertEquals(1, timing.getHistogram("127.0.0.1").getCount());
+        // 连接重置没有响应，502和成功的响应各计一次
+        assertEquals(2, bodySize.getResponseCount("127.0.0.1"));
+        assertTrue(bodySize.getMaxChars("127.0.0.1") > 0);
+
+        // 异步查询同样经过拦截器链
+        faults.script("127.0.0.1", Fault.serverError(502));
+        assertEquals("中国", ip9.queryAsync("8.8.8.9").get(5, TimeUnit.SECONDS).getCountry());
+        assertEquals(3, retry.getRetryCount());
+        assertEquals(2, traces.size());
+        assertEquals(2, timing.getHistogram("127.0.0.1").getCount());
+        // 异步链上的连接重置同样通过thenCompose重新发起
+        faults.script("127.0.0.1", Fault.connectionReset());
+        assertEquals(200, handler.getResultAsync(server.baseUrl("ip9") + "/", 1000).get(5, TimeUnit.SECONDS).getStatusCode());
+        assertEquals(4, retry.getRetryCount());
+        // POST默认不重试
+        faults.script("127.0.0.1", Fault.serverError(502));
+        assertEquals(502, handler.postResult(server.baseUrl("ip9") + "/", "{}", 1000).getStatusCode());
+        assertEquals(4, retry.getRetryCount());
+
+        assertTrue(handler.removeInterceptor(retry));
+        faults.script("127.0.0.1", Fault.connectionReset());
+        assertThrows(Exception.class, () -> ip9.query("8.8.4.4"));
+        assertEquals(5, traces.size());
+        assertNotNull(traces.get(4).getError());
+    }
+}
@@ -0,0 +1,175 @@
+package cn.hehouhui.ip2region.http;
+
+import cn.hehouhui.ip2region.IpInfo;
+import cn.hehouhui.ip2region.mock.MockUpstreamServer;
+import cn.hehouhui.ip2region.mock.MockUpstreamServer.Behavior;
+import cn.hehouhui.ip2region.mock.MockUpstreamServer.Latency;
+import cn.hehouhui.ip2region.resolver.PacificIpResolver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 基于NIO的HTTP请求处理器单元测试类，使用原始套接字返回构造的响应
+ *
+ * @author HeHui
+ * @date 2025-12-04
+ */
+public class NioHttpRequestHandlerTest {
+
+    private MockUpstreamServer server;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        server = new MockUpstreamServer(42L);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.close();
+    }
+
+    /**
+     * 启动只处理一个请求的服务，读完请求头后原样写出给定的响应并关闭连接
+     *
+     * @param response 原始响应
+     * @return 服务端口
+     */
+    private static int serveOnce(String response) throws IOException {
+        ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+        Thread thread = new Thread(() -> {
+            try (server; Socket socket = server.accept()) {
+                BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+                String line;
+                while ((line = reader.readLine()) != null && !line.isEmpty()) {
+                    // 忽略请求头
+                }
+                OutputStream out = socket.getOutputStream();
+                out.write(response.getBytes(StandardCharsets.UTF_8));
+                out.flush();
+            } catch (IOException ignored) {
+                // 客户端提前断开
+            }
+        }, "raw-http-server");
+        thread.setDaemon(true);
+        thread.start();
+        return server.getLocalPort();
+    }
+
+    private static String url(int port) {
+        return "http://127.0.0.1:" + port + "/json?ip=8.8.8.8";
+    }
+
+    @Test
+    public void testInterimResponsesAndChunkedBody() throws Exception {
+        StringBuilder chunks = new StringBuilder();
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            String piece = "{\"n\":" + i + "}";
+            chunks.append(Integer.toHexString(piece.length())).append(";ext=1\r\n").append(piece).append("\r\n");
+            expected.append(piece);
+        }
+        int port = serveOnce("HTTP/1.1 100 Continue\r\n\r\n"
+            + "HTTP/1.1 103 Early Hints\r\nLink: </style.css>\r\n\r\n"
+            + "HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\nConnection: close\r\n\r\n"
+            + chunks + "0\r\nX-Trailer: 1\r\n\r\n");
+        try (NioHttpRequestHandler handler = new NioHttpRequestHandler()) {
+            HttpResult result = handler.getResult(url(port), 2000);
+            assertEquals(200, result.getStatusCode());
+            assertEquals(expected.toString(), result.getBody());
+        }
+    }
+
+    @Test
+    public void testMalformedLengthsAreIoExceptions() throws Exception {
+        try (NioHttpRequestHandler handler = new NioHttpRequestHandler()) {
+            int badLength = serveOnce("HTTP/1.1 200 OK\r\nContent-Length: abc\r\n\r\n{}");
+            assertThrows(IOException.class, () -> handler.getResult(url(badLength), 2000));
+
+            int negativeLength = serveOnce("HTTP/1.1 200 OK\r\nContent-Length: -1\r\n\r\n{}");
+            assertThrows(IOException.class, () -> handler.getResult(url(negativeLength), 2000));
+
+            int badChunk = serveOnce("HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\nzz\r\n{}\r\n0\r\n\r\n");
+            assertThrows(IOException.class, () -> handler.getResult(url(badChunk), 2000));
+
+            int switching = serveOnce("HTTP/1.1 101 Switching Protocols\r\nUpgrade: websocket\r\n\r\n");
+            assertThrows(IOException.class, () -> handler.getResult(url(switching), 2000));
+        }
+    }
+
+    @Test
+    public void testBodySizeIsCapped() throws Exception {
+        try (NioHttpRequestHandler handler = new NioHttpRequestHandler()) {
+            int declared = serveOnce("HTTP/1.1 200 OK\r\nContent-Length: 104857600\r\n\r\n{}");
+            IOException tooLarge = assertThrows(IOException.class, () -> handler.getResult(url(declared), 2000));
+            assertTrue(tooLarge.getMessage().contains("exceeds"), tooLarge.getMessage());
+
+            int chunked = serveOnce("HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n7fffffff\r\n");
+            assertThrows(IOException.class, () -> handler.getResult(url(chunked), 2000));
+
+            int untilEof = serveOnce("HTTP/1.0 200 OK\r\n\r\n" + "x".repeat(2 * 1024 * 1024));
+            assertThrows(IOException.class, () -> handler.getResult(url(untilEof), 5000));
+        }
+    }
+
+    @Test
+    public void testReusesConnections() throws Exception {
+        try (NioHttpRequestHandler handler = new NioHttpRequestHandler()) {
+            for (String upstream : MockUpstreamServer.UPSTREAMS.keySet()) {
+                String body = handler.get(server.baseUrl(upstream) + "/get?ip=8.8.8.8", 1000);
+                assertTrue(body.contains("8.8.8.8"), upstream);
+            }
+            PacificIpResolver pacific = server.bind(new PacificIpResolver(1000, "Pacific", 10, handler), "pacific");
+            for (int i = 0; i < 50; i++) {
+                IpInfo info = pacific.query("10.2.0." + i);
+                assertEquals("10.2.0." + i, info.getIp());
+                assertEquals("广东省", info.getProvince());
+            }
+            // 所有请求都发往同一个host:port，串行请求只需要一个连接
+            assertEquals(1, handler.getOpenedConnectionCount());
+            // 非ASCII查询参数按UTF-8百分号编码后写入请求行
+            String encoded = handler.get(server.baseUrl("pacific") + "/ipJson.jsp?ip=8.8.8.8&lang=中文", 1000);
+            assertTrue(encoded.contains("8.8.8.8"), encoded);
+
+            server.behavior("pacific", new Behavior(Latency.fixed(0), 0, 1.0, 3));
+            HttpResult throttled = handler.getResult(server.baseUrl("pacific") + "/ipJson.jsp?ip=1.1.1.1", 1000);
+            assertEquals(429, throttled.getStatusCode());
+            assertEquals(3000L, (long) throttled.retryAfterMillis().orElse(0L));
+
+            server.behavior("pacific", Behavior.latency(Latency.fixed(300)));
+            assertThrows(HttpTimeoutException.class, () -> handler.get(server.baseUrl("pacific") + "/ipJson.jsp?ip=1.1.1.1", 100));
+        }
+    }
+
+    @Test
+    public void testUsesDnsCache() throws Exception {
+        try (DnsCache dnsCache = new DnsCache(60_000);
+             NioHttpRequestHandler handler = new NioHttpRequestHandler(new DefaultHttpRequestHandler(), 8, 30_000, dnsCache)) {
+            PacificIpResolver pacific = server.bind(new PacificIpResolver(1000, "Pacific", 10, handler), "pacific");
+            assertEquals("127.0.0.1", pacific.getHost());
+            for (int i = 0; i < 20; i++) {
+                handler.getResult(server.baseUrl("pacific") + "/ipJson.jsp?ip=10.3.0." + i + "&json=true", 1000);
+            }
+            // 请求期间只解析一次，解析耗时单独记录
+            assertEquals(1L, dnsCache.getResolutionCount());
+            assertEquals(1L, dnsCache.getResolutionHistogram().getCount());
+            assertTrue(dnsCache.getHosts().contains("127.0.0.1"));
+
+            dnsCache.refreshAll();
+            assertEquals(2L, dnsCache.getResolutionCount());
+            assertEquals(1, dnsCache.getCachedAddresses("127.0.0.1").length);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package cn.hehouhui.ip2region.index;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * 按MaxMind DB格式生成测试用的IPv4数据库文件，只支持24位记录和测试需要的数据类型
+ *
+ * @author HeHui
+ * @date 2025-12-04
+ */
+public final class MmdbTestFiles {
+
+    /**
+     * 测试用的网段
+     *
+     * @param network 网络地址
+     * @param prefix  前缀长度，1到32
+     * @param record  网段数据，值可以是String、Double、Integer、Long、Boolean、Map或List
+     */
+    public record Network(byte[] network, int prefix, Map<String, Object> record) {
+    }
+
+    private static final class Node {
+        private final Object[] children = new Object[2];
+    }
+
+    private MmdbTestFiles() {
+    }
+
+    /**
+     * 写入City类型的mmdb文件
+     *
+     * @param path     文件路径
+     * @param networks 互不重叠的网段
+     * @throws IOException 写入失败
+     */
+    public static void write(Path path, List<Network> networks) throws IOException {
+        write(path, "Test-City", networks);
+    }
+
+    /**
+     * 写入mmdb文件
+     *
+     * @param path         文件路径
+     * @param databaseType 数据库类型，如GeoLite2-ASN
+     * @param networks     互不重叠的网段
+     * @throws IOException 写入失败
+     */
+    public static void write(Path path, String databaseType, List<Network> networks) throws IOException {
+        // 构建搜索树，叶子为数据在data中的偏移
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        Map<Map<String, Object>, Integer> offsets = new IdentityHashMap<>();
+        Node root = new Node();
+        for (Network network : networks) {
+            Integer offset = offsets.computeIfAbsent(network.record(), record -> {
+                int start = data.size();
+                encode(data, record);
+                return start;
+            });
+            Node node = root;
+            for (int bit = 0; bit < network.prefix(); bit++) {
+                int side = (network.network()[bit / 8] >> (7 - bit % 8)) & 1;
+                if (bit == network.prefix() - 1) {
+                    node.children[side] = offset;
+                } else {
+                    if (!(node.children[side] instanceof Node)) {
+                        node.children[side] = new Node();
+                    }
+                    node = (Node) node.children[side];
+                }
+            }
+        }
+        List<Node> nodes = new ArrayList<>();
+        Map<Node, Integer> numbers = new IdentityHashMap<>();
+        Queue<Node> queue = new ArrayDeque<>(List.of(root));
+        while (!queue.isEmpty()) {
+            Node node = queue.poll();
+            numbers.put(node, nodes.size());
+            nodes.add(node);
+            for (Object child : node.children) {
+                if (child instanceof Node next) {
+                    queue.add(next);
+                }
+            }
+        }
+        int nodeCount = nodes.size();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (Node node : nodes) {
+            for (Object child : node.children) {
+                int value = child instanceof Node next ? numbers.get(next)
+                    : child instanceof Integer offset ? nodeCount + 16 + offset : nodeCount;
+                out.write(value >>> 16);
+                out.write(value >>> 8);
+                out.write(value);
+            }
+        }
+        out.write(new byte[16]);
+        out.writeBytes(data.toByteArray());
+        out.writeBytes(new byte[]{(byte) 0xAB, (byte) 0xCD, (byte) 0xEF});
+        out.writeBytes("MaxMind.com".getBytes(StandardCharsets.UTF_8));
+        Map<String, Object> metadata = new LinkedHashMap<>();
+        metadata.put("node_count", (long) nodeCount);
+        metadata.put("record_size", 24);
+        metadata.put("ip_version", 4);
+        metadata.put("database_type", databaseType);
+        metadata.put("languages", List.of("en"));
+        metadata.put("binary_format_major_version", 2);
+        metadata.put("binary_format_minor_version", 0);
+        metadata.put("build_epoch", BigInteger.valueOf(1_700_000_000L));
+        metadata.put("description", Map.of("en", "test"));
+        encode(out, metadata);
+        Files.write(path, out.toByteArray());
+    }
+
+    private static void encode(ByteArrayOutputStream out, Object value) {
+        if (value instanceof String string) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            control(out, 2, bytes.length);
+            out.writeBytes(bytes);
+        } else if (value instanceof Double number) {
+            control(out, 3, 8);
+            long bits = Double.doubleToLongBits(number);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                out.write((int) (bits >>> shift));
+            }
+        } else if (value instanceof Integer number) {
+            // 按uint16编码
+            control(out, 5, 2);
+            out.write(number >>> 8);
+            out.write(number);
+        } else if (value instanceof Long number) {
+            // 按uint32编码
+            control(out, 6, 4);
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                out.write((int) (number >>> shift));
+            }
+        } else if (value instanceof BigInteger number) {
+            // 按uint64编码
+            control(out, 9, 8);
+            long bits = number.longValue();
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                out.write((int) (bits >>> shift));
+            }
+        } else if (value instanceof Boolean bool) {
+            // 布尔值保存在长度字段中
+            control(out, 14, bool ? 1 : 0);
+        } else if (value instanceof Map<?, ?> map) {
+            control(out, 7, map.size());
+            map.forEach((key, item) -> {
+                encode(out, key);
+                encode(out, item);
+            });
+        } else if (value instanceof List<?> list) {
+            control(out, 11, list.size());
+            list.forEach(item -> encode(out, item));
+        } else {
+            throw new IllegalArgumentException("Unsupported type: " + value);
+        }
+    }
+
+    private static void control(ByteArrayOutputStream out, int type, int size) {
+        if (size >= 29 + 256) {
+            throw new IllegalArgumentException("Size too large: " + size);
+        }
+        int sizeBits = Math.min(size, 29);
+        if (type <= 7) {
+            out.write((type << 5) | sizeBits);
+        } else {
+            // 扩展类型
+            out.write(sizeBits);
+            out.write(type - 7);
+        }
+        if (size >= 29) {
+            out.write(size - 29);
+        }
+    }
+}
@@ -0,0 +1,360 @@
+package cn.hehouhui.ip2region.index;
+
+import cn.hehouhui.ip2region.IpInfo;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 编译索引单元测试类
+ *
+ * @author HeHui
+ * @date 2025-12-04
+ */
+public class RangeIndexTest {
+
+    private static byte[] v4(long ip) {
+        return new byte[]{(byte) (ip >>> 24), (byte) (ip >>> 16), (byte) (ip >>> 8), (byte) ip};
+    }
+
+    /**
+     * 生成覆盖全部IPv4地址空间的随机区间，区域从少量候选中选取以产生重复
+     */
+    private static List<XdbTestFiles.Segment> randomV4Segments(Random random, int count) {
+        List<XdbTestFiles.Segment> segments = new ArrayList<>();
+        long start = 0;
+        for (int i = 0; i < count; i++) {
+            long end = i == count - 1 ? 0xFFFFFFFFL : Math.min(0xFFFFFFFFL - (count - i), start + random.nextInt(1 << 22));
+            segments.add(new XdbTestFiles.Segment(v4(start), v4(end), "国家" + random.nextInt(20) + "|省份|城市|ISP" + random.nextInt(3)));
+            start = end + 1;
+        }
+        return segments;
+    }
+
+    private static String linearSearch(List<XdbTestFiles.Segment> segments, long ip) {
+        for (XdbTestFiles.Segment segment : segments) {
+            long start = Ipv4RangeIndex.parseIpv4(toString(segment.startIp()));
+            long end = Ipv4RangeIndex.parseIpv4(toString(segment.endIp()));
+            if (ip >= start && ip <= end) {
+                return segment.region();
+            }
+        }
+        return null;
+    }
+
+    private static String toString(byte[] ip) {
+        return (ip[0] & 0xFF) + "." + (ip[1] & 0xFF) + "." + (ip[2] & 0xFF) + "." + (ip[3] & 0xFF);
+    }
+
+    @Test
+    public void testIpv4IndexMatchesXdb(@TempDir Path dir) throws Exception {
+        Path xdb = dir.resolve("ip2region_v4.xdb");
+        Random random = new Random(42);
+        List<XdbTestFiles.Segment> segments = randomV4Segments(random, 3000);
+        XdbTestFiles.write(xdb, false, segments);
+
+        Ipv4RangeIndex index = Ipv4RangeIndex.build(xdb);
+        assertTrue(index.getLocationCount() <= 60);
+        for (int i = 0; i < 2000; i++) {
+            long ip = random.nextLong() & 0xFFFFFFFFL;
+            IpLocation location = index.lookup((int) ip);
+            assertEquals(IpLocation.fromRegion(linearSearch(segments, ip)), location, "ip " + ip);
+        }
+        // 区间边界
+        for (XdbTestFiles.Segment segment : segments.subList(0, 50)) {
+            assertEquals(IpLocation.fromRegion(segment.region()), index.lookup(toString(segment.startIp())));
+            assertEquals(IpLocation.fromRegion(segment.region()), index.lookup(toString(segment.endIp())));
+        }
+
+        // 保存后加载得到相同结果，xdb未变化时复用索引文件
+        Path indexFile = dir.resolve("ip2region_v4.idx");
+        Ipv4RangeIndex built = Ipv4RangeIndex.loadOrBuild(xdb, indexFile);
+        long saved = Files.getLastModifiedTime(indexFile).toMillis();
+        Ipv4RangeIndex loaded = Ipv4RangeIndex.loadOrBuild(xdb, indexFile);
+        assertEquals(saved, Files.getLastModifiedTime(indexFile).toMillis());
+        assertEquals(built.getSegmentCount(), loaded.getSegmentCount());
+        for (int i = 0; i < 2000; i++) {
+            int ip = random.nextInt();
+            assertEquals(index.lookup(ip), loaded.lookup(ip));
+        }
+        IpInfo ipInfo = loaded.lookup(toString(segments.get(0).startIp())).toIpInfo("0.0.0.0");
+        assertEquals("0.0.0.0", ipInfo.getIp());
+        assertEquals("省份", ipInfo.getProvince());
+    }
+
+    @Test
+    public void testFromRegionMatchesSplit() {
+        String[] regions = {"中国|广东省|深圳市|电信", "中国|0|0|0", "中国|广东省||", "中国|广东省|深圳市|", "中国|||", "中国",
+            "|广东省|深圳市|电信", "中国||深圳市|电信", "美国|加利福尼亚|山景城|谷歌|多余", "中国|广东省|||多余", "中国|广东省|||", ""};
+        for (String region : regions) {
+            // 与按正则拆分的原实现逐字段比较
+            String[] split = region.split("\\|");
+            IpInfo ipInfo = IpLocation.fromRegion(region).toIpInfo("1.1.1.1");
+            assertEquals(split[0], ipInfo.getCountry(), region);
+            assertEquals(split.length > 1 ? split[1] : null, ipInfo.getProvince(), region);
+            assertEquals(split.length > 2 ? split[2] : null, ipInfo.getCity(), region);
+            assertEquals(split.length > 3 ? split[3] : null, ipInfo.getIsp(), region);
+        }
+    }
+
+    @Test
+    public void testIpv4BuilderGapsAndParsing() {
+        IpLocation china = IpLocation.fromRegion("中国|广东省|深圳市|电信");
+        Ipv4RangeIndex index = Ipv4RangeIndex.builder()
+            .add(Ipv4RangeIndex.parseIpv4("1.0.0.0"), Ipv4RangeIndex.parseIpv4("1.0.0.255"), china)
+            .add(Ipv4RangeIndex.parseIpv4("1.0.1.0"), Ipv4RangeIndex.parseIpv4("1.0.1.255"), china)
+            .add(Ipv4RangeIndex.parseIpv4("10.0.0.0"), Ipv4RangeIndex.parseIpv4("10.0.0.0"), null)
+            .build();
+        assertSame(china, index.lookup("1.0.1.7"));
+        assertNull(index.lookup("0.255.255.255"));
+        assertNull(index.lookup("1.0.2.0"));
+        assertNull(index.lookup("255.255.255.255"));
+        // 相邻的相同位置被合并：[0, 1.0.0.0) [1.0.0.0, 1.0.2.0) [1.0.2.0, ...)
+        assertEquals(3, index.getSegmentCount());
+        assertEquals(1, index.getLocationCount());
+
+        assertEquals(0xFFFFFFFFL, Ipv4RangeIndex.parseIpv4("255.255.255.255"));
+        assertEquals(-1, Ipv4RangeIndex.parseIpv4("256.1.1.1"));
+        assertEquals(-1, Ipv4RangeIndex.parseIpv4("1.1.1"));
+        assertEquals(-1, Ipv4RangeIndex.parseIpv4("01.1.1.1"));
+        assertEquals(-1, Ipv4RangeIndex.parseIpv4("::1"));
+        assertThrows(IllegalArgumentException.class, () -> Ipv4RangeIndex.builder().add(5, 10, china).add(8, 12, china));
+    }
+
+    private static long toLong(byte[] ip, int offset) {
+        long value = 0;
+        for (int i = offset; i < offset + 8; i++) {
+            value = (value << 8) | (ip[i] & 0xFF);
+        }
+        return value;
+    }
+
+    @Test
+    public void testIpv6IndexMatchesXdb(@TempDir Path dir) throws Exception {
+        Random random = new Random(7);
+        // 随机选取起始地址，排序后首尾相接覆盖全部地址空间
+        TreeSet<BigInteger> starts = new TreeSet<>();
+        starts.add(BigInteger.ZERO);
+        while (starts.size() < 2000) {
+            starts.add(new BigInteger(128, random));
+        }
+        List<BigInteger> sorted = new ArrayList<>(starts);
+        List<XdbTestFiles.Segment> segments = new ArrayList<>();
+        BigInteger max = BigInteger.ONE.shiftLeft(128).subtract(BigInteger.ONE);
+        for (int i = 0; i < sorted.size(); i++) {
+            BigInteger end = i + 1 < sorted.size() ? sorted.get(i + 1).subtract(BigInteger.ONE) : max;
+            segments.add(new XdbTestFiles.Segment(v6(sorted.get(i)), v6(end), "国家" + random.nextInt(30) + "|省份|城市|ISP"));
+        }
+        Path xdb = dir.resolve("ip2region_v6.xdb");
+        XdbTestFiles.write(xdb, true, segments);
+
+        Ipv6RangeIndex index = Ipv6RangeIndex.loadOrBuild(xdb, dir.resolve("ip2region_v6.idx"));
+        Ipv6RangeIndex loaded = Ipv6RangeIndex.loadOrBuild(xdb, dir.resolve("ip2region_v6.idx"));
+        for (int i = 0; i < 2000; i++) {
+            BigInteger ip = new BigInteger(128, random);
+            String expected = segments.get(starts.headSet(ip, true).size() - 1).region();
+            byte[] bytes = v6(ip);
+            IpLocation location = index.lookup(toLong(bytes, 0), toLong(bytes, 8));
+            assertEquals(IpLocation.fromRegion(expected), location, ip.toString(16));
+            // 字符串解析结果与InetAddress一致
+            assertSame(location, index.lookup(InetAddress.getByAddress(bytes).getHostAddress()));
+            assertEquals(location, loaded.lookup(toLong(bytes, 0), toLong(bytes, 8)));
+        }
+    }
+
+    private static byte[] v6(BigInteger value) {
+        byte[] raw = value.toByteArray();
+        byte[] ip = new byte[16];
+        int length = Math.min(raw.length, 16);
+        System.arraycopy(raw, raw.length - length, ip, 16 - length, length);
+        return ip;
+    }
+
+    /**
+     * 使用InetAddress解析地址，IPv4映射地址会被InetAddress转换为4字节形式，需要还原
+     */
+    private static BigInteger literalValue(String literal) throws Exception {
+        byte[] bytes = InetAddress.getByName(literal).getAddress();
+        if (bytes.length == 4) {
+            byte[] mapped = new byte[16];
+            mapped[10] = (byte) 0xFF;
+            mapped[11] = (byte) 0xFF;
+            System.arraycopy(bytes, 0, mapped, 12, 4);
+            bytes = mapped;
+        }
+        return new BigInteger(1, bytes);
+    }
+
+    @Test
+    public void testIpv6Parsing() throws Exception {
+        List<String> literals = List.of("::", "::1", "1::", "2001:db8::1", "2001:db8:0:0:1:0:0:1", "fe80::1:2",
+            "::ffff:192.168.1.1", "64:ff9b::8.8.8.8", "ffff:ffff:ffff:ffff:ffff:ffff:ffff:ffff", "2400:3200::1", "1:2:3:4:5:6:7::");
+        // 每个地址单独一个区间，查询到的位置即可说明解析结果
+        TreeSet<BigInteger> addresses = new TreeSet<>();
+        for (String literal : literals) {
+            addresses.add(literalValue(literal));
+        }
+        Ipv6RangeIndex.Builder builder = Ipv6RangeIndex.builder();
+        for (BigInteger address : addresses) {
+            byte[] bytes = v6(address);
+            long high = toLong(bytes, 0);
+            long low = toLong(bytes, 8);
+            builder.add(high, low, high, low, IpLocation.fromRegion(address.toString(16) + "|||"));
+        }
+        Ipv6RangeIndex index = builder.build();
+        for (String literal : literals) {
+            BigInteger expected = literalValue(literal);
+            IpLocation location = index.lookup(literal);
+            assertNotNull(location, literal);
+            assertEquals(expected.toString(16), location.getCountry(), literal);
+        }
+        assertNull(index.lookup("2001:db8::2"));
+        for (String invalid : List.of(":", ":1::", "1:::2", "12345::", "1::2::3", "1:2:3:4:5:6:7:8:9", "1:2:3:4:5:6:7", "::g", "1:", "fe80::1%eth0", "::1.2.3")) {
+            assertNull(index.lookup(invalid), invalid);
+        }
+    }
+
+    private static XdbTestFiles.Segment segment(String start, String end, String region) {
+        return new XdbTestFiles.Segment(v4(Ipv4RangeIndex.parseIpv4(start)), v4(Ipv4RangeIndex.parseIpv4(end)), region);
+    }
+
+    @Test
+    public void testOverlayIndexMergesXdbAndMmdb(@TempDir Path dir) throws Exception {
+        Path xdbFile = dir.resolve("ip2region_v4.xdb");
+        XdbTestFiles.write(xdbFile, false, List.of(
+            segment("0.0.0.0", "1.0.255.255", "0|0|0|0"),
+            segment("1.1.0.0", "1.1.255.255", "中国|广东省|深圳市|电信"),
+            segment("1.2.0.0", "7.255.255.255", "0|0|0|0"),
+            segment("8.0.0.0", "8.255.255.255", "美国|0|0|0"),
+            segment("9.0.0.0", "255.255.255.255", "0|0|0|0")));
+        Path mmdbFile = dir.resolve("GeoLite2-City.mmdb");
+        Map<String, Object> china = Map.of(
+            "country", Map.of("names", Map.of("en", "China")),
+            "location", Map.of("latitude", 22.5, "longitude", 114.0, "time_zone", "Asia/Shanghai"));
+        Map<String, Object> google = Map.of(
+            "country", Map.of("names", Map.of("en", "United States")),
+            "subdivisions", List.of(Map.of("names", Map.of("en", "California"))),
+            "city", Map.of("names", Map.of("en", "Mountain View")),
+            "location", Map.of("latitude", 37.4, "longitude", -122.1, "time_zone", "America/Los_Angeles"),
+            "traits", Map.of("autonomous_system_number", 15169L));
+        MmdbTestFiles.write(mmdbFile, List.of(
+            new MmdbTestFiles.Network(v4(Ipv4RangeIndex.parseIpv4("1.0.0.0")), 8, china),
+            new MmdbTestFiles.Network(v4(Ipv4RangeIndex.parseIpv4("8.8.8.0")), 24, google)));
+
+        // mmdb遍历结果连续覆盖整个地址空间
+        List<long[]> networks = new ArrayList<>();
+        try (MmdbFile mmdb = MmdbFile.open(mmdbFile)) {
+            assertFalse(mmdb.isIpv6());
+            mmdb.forEachNetwork(false, (startIp, endIp, record) -> networks.add(new long[]{
+                Ipv4RangeIndex.parseIpv4(toString(startIp)), Ipv4RangeIndex.parseIpv4(toString(endIp)), record == null ? 0 : 1}));
+        }
+        assertEquals(0, networks.get(0)[0]);
+        assertEquals(0xFFFFFFFFL, networks.get(networks.size() - 1)[1]);
+        for (int i = 1; i < networks.size(); i++) {
+            assertEquals(networks.get(i - 1)[1] + 1, networks.get(i)[0]);
+        }
+        assertTrue(networks.stream().anyMatch(n -> n[0] == Ipv4RangeIndex.parseIpv4("8.8.8.0")
+            && n[1] == Ipv4RangeIndex.parseIpv4("8.8.8.255") && n[2] == 1));
+
+        OverlayIndexBuilder builder = new OverlayIndexBuilder();
+        Ipv4RangeIndex overlay = builder.loadOrBuildIpv4(xdbFile, mmdbFile, dir.resolve("overlay_v4.idx"));
+
+        // 国内IP以ip2region为准，GeoIP2补充经纬度和时区
+        IpLocation shenzhen = overlay.lookup("1.1.2.3");
+        assertEquals("中国", shenzhen.getCountry());
+        assertEquals("深圳市", shenzhen.getCity());
+        assertEquals("电信", shenzhen.getIsp());
+        assertEquals("Asia/Shanghai", shenzhen.getTimezone());
+        assertEquals(22.5, shenzhen.getLatitude());
+
+        // ip2region未知时以GeoIP2为准，表示未知的0不会补充进来
+        IpLocation unknown = overlay.lookup("1.0.0.1");
+        assertEquals("China", unknown.getCountry());
+        assertNull(unknown.getIsp());
+
+        IpLocation mountainView = overlay.lookup("8.8.8.8");
+        assertEquals("United States", mountainView.getCountry());
+        assertEquals("California", mountainView.getProvince());
+        assertEquals("Mountain View", mountainView.getCity());
+        assertEquals("15169", mountainView.getAsn());
+        assertEquals("美国", overlay.lookup("8.8.9.1").getCountry());
+
+        // 任意IP的结果都与分别查询两个库再合并相同
+        Ipv4RangeIndex regional = Ipv4RangeIndex.build(xdbFile);
+        Ipv4RangeIndex global;
+        try (MmdbFile mmdb = MmdbFile.open(mmdbFile)) {
+            global = builder.globalIpv4(mmdb);
+        }
+        Random random = new Random(11);
+        List<Long> ips = new ArrayList<>();
+        for (long[] network : networks) {
+            ips.add(network[0]);
+            ips.add(network[1]);
+        }
+        for (int i = 0; i < 2000; i++) {
+            ips.add(random.nextLong() & 0xFFFFFFFFL);
+        }
+        for (long ip : ips) {
+            assertEquals(builder.merge(regional.lookup((int) ip), global.lookup((int) ip)), overlay.lookup((int) ip), toString(v4(ip)));
+        }
+
+        // 再次加载时直接使用索引文件
+        Ipv4RangeIndex reloaded = builder.loadOrBuildIpv4(xdbFile, mmdbFile, dir.resolve("overlay_v4.idx"));
+        assertEquals(overlay.getSegmentCount(), reloaded.getSegmentCount());
+        assertEquals(shenzhen, reloaded.lookup("1.1.2.3"));
+    }
+
+    @Test
+    public void testIpv6OverlayMatchesSeparateLookups() {
+        Random random = new Random(13);
+        IpLocation[] regionalLocations = {IpLocation.fromRegion("中国|北京|北京市|联通"), IpLocation.fromRegion("0|0|0|0"), null};
+        IpLocation[] globalLocations = {new IpLocation("Japan", null, "Tokyo", "Tokyo", null, "2497", null, 35.7, 139.7, "Asia/Tokyo"), null};
+        Ipv6RangeIndex regional = randomV6Index(random, regionalLocations);
+        Ipv6RangeIndex global = randomV6Index(random, globalLocations);
+        OverlayIndexBuilder builder = new OverlayIndexBuilder();
+        Ipv6RangeIndex overlay = builder.overlay(regional, global);
+        for (int i = 0; i < 5000; i++) {
+            long high = random.nextLong();
+            long low = i % 2 == 0 ? random.nextLong() : 0;
+            assertEquals(builder.merge(regional.lookup(high, low), global.lookup(high, low)), overlay.lookup(high, low));
+        }
+        // 两个索引的区间边界两侧
+        for (Ipv6RangeIndex index : List.of(regional, global)) {
+            for (int i = 1; i < index.getSegmentCount(); i++) {
+                long high = index.segmentStartHigh(i);
+                long low = index.segmentStartLow(i);
+                long beforeHigh = low == 0 ? high - 1 : high;
+                assertEquals(builder.merge(regional.lookup(high, low), global.lookup(high, low)), overlay.lookup(high, low));
+                assertEquals(builder.merge(regional.lookup(beforeHigh, low - 1), global.lookup(beforeHigh, low - 1)), overlay.lookup(beforeHigh, low - 1));
+            }
+        }
+        assertEquals(builder.merge(regional.lookup(-1, -1), global.lookup(-1, -1)), overlay.lookup(-1, -1));
+    }
+
+    private static Ipv6RangeIndex randomV6Index(Random random, IpLocation[] locations) {
+        TreeSet<BigInteger> starts = new TreeSet<>();
+        starts.add(BigInteger.ZERO);
+        while (starts.size() < 500) {
+            starts.add(new BigInteger(128, random));
+        }
+        List<BigInteger> sorted = new ArrayList<>(starts);
+        Ipv6RangeIndex.Builder builder = Ipv6RangeIndex.builder();
+        for (int i = 0; i < sorted.size(); i++) {
+            byte[] start = v6(sorted.get(i));
+            byte[] end = v6(i + 1 < sorted.size() ? sorted.get(i + 1).subtract(BigInteger.ONE) : BigInteger.ONE.shiftLeft(128).subtract(BigInteger.ONE));
+            builder.add(toLong(start, 0), toLong(start, 8), toLong(end, 0), toLong(end, 8), locations[random.nextInt(locations.length)]);
+        }
+        return builder.build();
+    }
+}
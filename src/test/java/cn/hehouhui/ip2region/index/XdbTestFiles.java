@@ -0,0 +1,84 @@
+package cn.hehouhui.ip2region.index;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按xdb格式生成测试用的数据库文件
+ *
+ * @author HeHui
+ * @date 2025-12-04
+ */
+public final class XdbTestFiles {
+
+    /**
+     * 测试用的区间
+     *
+     * @param startIp 起始IP，网络字节序
+     * @param endIp   结束IP（包含），网络字节序
+     * @param region  区域字符串
+     */
+    public record Segment(byte[] startIp, byte[] endIp, String region) {
+    }
+
+    private XdbTestFiles() {
+    }
+
+    /**
+     * 写入xdb文件
+     *
+     * @param path     文件路径
+     * @param ipv6     是否为IPv6数据库
+     * @param segments 按起始IP排序、覆盖全部地址空间的区间
+     * @throws IOException 写入失败
+     */
+    public static void write(Path path, boolean ipv6, List<Segment> segments) throws IOException {
+        int ipBytes = ipv6 ? 16 : 4;
+        int segmentSize = ipBytes * 2 + 6;
+        int dataStart = 256 + 256 * 256 * 8;
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        Map<String, int[]> regions = new LinkedHashMap<>();
+        for (Segment segment : segments) {
+            regions.computeIfAbsent(segment.region(), region -> {
+                byte[] bytes = region.getBytes(StandardCharsets.UTF_8);
+                int[] ref = {dataStart + data.size(), bytes.length};
+                data.writeBytes(bytes);
+                return ref;
+            });
+        }
+        int startIndexPtr = dataStart + data.size();
+        ByteBuffer buffer = ByteBuffer.allocate(startIndexPtr + segments.size() * segmentSize).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putShort(0, (short) 3);
+        buffer.putShort(2, (short) 1);
+        buffer.putInt(8, startIndexPtr);
+        buffer.putInt(12, startIndexPtr + (segments.size() - 1) * segmentSize);
+        buffer.putShort(16, (short) (ipv6 ? 6 : 4));
+        buffer.putShort(18, (short) 4);
+        buffer.put(dataStart, data.toByteArray());
+        int p = startIndexPtr;
+        for (Segment segment : segments) {
+            putIp(buffer, p, segment.startIp(), ipv6);
+            putIp(buffer, p + ipBytes, segment.endIp(), ipv6);
+            int[] ref = regions.get(segment.region());
+            buffer.putShort(p + ipBytes * 2, (short) ref[1]);
+            buffer.putInt(p + ipBytes * 2 + 2, ref[0]);
+            p += segmentSize;
+        }
+        Files.write(path, buffer.array());
+    }
+
+    private static void putIp(ByteBuffer buffer, int offset, byte[] ip, boolean ipv6) {
+        for (int i = 0; i < ip.length; i++) {
+            // IPv4以小端序存储
+            buffer.put(offset + i, ipv6 ? ip[i] : ip[ip.length - 1 - i]);
+        }
+    }
+}
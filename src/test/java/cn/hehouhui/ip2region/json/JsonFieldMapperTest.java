@@ -0,0 +1,97 @@
+package cn.hehouhui.ip2region.json;
+
+import cn.hehouhui.ip2region.IpInfo;
+import com.google.gson.JsonSyntaxException;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 声明式JSON字段映射器单元测试类
+ *
+ * @author HeHui
+ * @date 2025-12-04
+ */
+public class JsonFieldMapperTest {
+
+    @Test
+    public void testArrayIndexPaths() {
+        JsonFieldMapper mapper = JsonFieldMapper.builder()
+            .string("regions[1]", IpInfo::setProvince)
+            .string("as[0].name", IpInfo::setAsnOwner)
+            .string("grid[1][0]", IpInfo::setCity)
+            .build();
+        IpInfo info = mapper.map("{\"regions\":[\"中国\",\"广东\",\"深圳\"],"
+            + "\"as\":[{\"name\":\"Google\"},{\"name\":\"Other\"}],"
+            + "\"grid\":[[\"a\"],[\"b\",\"c\"]]}").orElseThrow();
+        assertEquals("广东", info.getProvince());
+        assertEquals("Google", info.getAsnOwner());
+        assertEquals("b", info.getCity());
+
+        // 数组比声明的下标短时字段保持为空
+        IpInfo shorter = mapper.map("{\"regions\":[\"中国\"],\"as\":[],\"grid\":[[\"a\"]]}").orElseThrow();
+        assertNull(shorter.getProvince());
+        assertNull(shorter.getAsnOwner());
+        assertNull(shorter.getCity());
+
+        assertThrows(IllegalArgumentException.class, () -> JsonFieldMapper.builder().string("regions[0", IpInfo::setCity));
+    }
+
+    @Test
+    public void testExpectRequireAndReject() {
+        JsonFieldMapper mapper = JsonFieldMapper.builder()
+            .expect("code", "0")
+            .require("data")
+            .reject("data.error", "true")
+            .string("data.country", IpInfo::setCountry)
+            .build();
+        assertEquals("中国", mapper.map("{\"code\":0,\"data\":{\"country\":\"中国\"}}").orElseThrow().getCountry());
+        // 数字和字符串形式的期望值都按字面量比较
+        assertTrue(mapper.map("{\"code\":\"0\",\"data\":{}}").isPresent());
+
+        assertEquals(Optional.empty(), mapper.map("{\"code\":1,\"data\":{\"country\":\"中国\"}}"), "期望值不匹配");
+        assertEquals(Optional.empty(), mapper.map("{\"data\":{\"country\":\"中国\"}}"), "期望字段缺失");
+        assertEquals(Optional.empty(), mapper.map("{\"code\":0}"), "必需对象缺失");
+        assertEquals(Optional.empty(), mapper.map("{\"code\":0,\"data\":null}"), "必需对象为null");
+        assertEquals(Optional.empty(), mapper.map("{\"code\":0,\"data\":{\"error\":true}}"), "命中失败条件");
+        assertTrue(mapper.map("{\"code\":0,\"data\":{\"error\":false}}").isPresent());
+    }
+
+    @Test
+    public void testDefaultsAndNullNodes() {
+        JsonFieldMapper mapper = JsonFieldMapper.builder()
+            .string("country", IpInfo::setCountry, "")
+            .string("city", IpInfo::setCity, "未知")
+            .string("isp", IpInfo::setIsp)
+            .number("lat", IpInfo::setLatitude)
+            .number("lon", IpInfo::setLongitude)
+            .bool("proxy", IpInfo::setProxy)
+            .build();
+        IpInfo info = mapper.map("{\"country\":null,\"isp\":null,\"lat\":\"22.5\",\"lon\":\"abc\",\"proxy\":\"true\"}").orElseThrow();
+        // null视为不存在，保留默认值
+        assertEquals("", info.getCountry());
+        assertEquals("未知", info.getCity());
+        assertNull(info.getIsp());
+        assertEquals(22.5, info.getLatitude());
+        assertNull(info.getLongitude(), "无法解析的数值应忽略");
+        assertEquals(Boolean.TRUE, info.getProxy());
+
+        IpInfo present = mapper.map("{\"country\":\"中国\",\"city\":\"深圳\",\"lat\":22.5}").orElseThrow();
+        assertEquals("中国", present.getCountry());
+        assertEquals("深圳", present.getCity());
+    }
+
+    @Test
+    public void testNonObjectRootIsRejected() {
+        JsonFieldMapper mapper = JsonFieldMapper.builder()
+            .string("country", IpInfo::setCountry)
+            .build();
+        assertThrows(JsonSyntaxException.class, () -> mapper.map("[{\"country\":\"中国\"}]"));
+        assertThrows(JsonSyntaxException.class, () -> mapper.map("\"中国\""));
+        assertThrows(JsonSyntaxException.class, () -> mapper.map("<html><body>502 Bad Gateway</body></html>"));
+        assertThrows(JsonSyntaxException.class, () -> mapper.map(""));
+        assertThrows(JsonSyntaxException.class, () -> mapper.map("{\"country\":"));
+    }
+}
@@ -0,0 +1,404 @@
+package cn.hehouhui.ip2region.mock;
+
+import cn.hehouhui.ip2region.core.AbstractNetworkIpSource;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 本地模拟上游服务，基于JDK内置的HttpServer回放fixture中的接口响应，用于离线测试和压测网络路径。
+ * <pre>
+ * 1. 每个上游使用独立的路径前缀，如 /taobao、/ipapico，数据源通过{@link AbstractNetworkIpSource#setBaseUrl(String)}指向该前缀
+ * 2. 响应从fixture中读取：优先 &lt;fixtureDir&gt;/&lt;上游&gt;/&lt;ip&gt;.json，其次classpath下 mock-upstream/&lt;上游&gt;/&lt;ip&gt;.json，
+ *    最后 mock-upstream/&lt;上游&gt;/default.json，其中的 {{ip}} 会替换为请求的IP
+ * 3. classpath下的default.json是按各接口文档手写的合成模板，并非真实接口的录制结果
+ * 4. 每个上游可单独配置延迟分布、错误率和限流，随机数使用固定种子，结果可复现
+ * 5. 录制模式下不使用classpath中的模板，fixtureDir中缺失的响应转发到上游并写入fixtureDir
+ * </pre>
+ *
+ * @author HeHui
+ * @date 2025-12-04
+ */
+public class MockUpstreamServer implements AutoCloseable {
+
+    /**
+     * 上游名称与真实接口地址
+     */
+    public static final Map<String, String> UPSTREAMS = Map.of(
+        "taobao", "https://ip.taobao.com",
+        "ipapico", "https://ipapi.co",
+        "ip9", "https://ip9.com.cn",
+        "ipinfo", "http://ipinfo.io",
+        "xxlb", "https://ipapi.xxlb.org",
+        "vore", "https://api.vore.top",
+        "ipmoe", "https://ip-moe.zerodream.net",
+        "pacific", "http://whois.pconline.com.cn",
+        "zhengbingdong", "https://ip.zhengbingdong.com"
+    );
+
+    private static final Pattern IP_PATTERN = Pattern.compile("(\\d{1,3}(?:\\.\\d{1,3}){3}|[0-9a-fA-F]*:[0-9a-fA-F:]+)");
+
+    private final HttpServer server;
+
+    private final ExecutorService executor;
+
+    private final Map<String, Behavior> behaviors = new ConcurrentHashMap<>();
+
+    private final Map<String, AtomicLong> requestCounts = new ConcurrentHashMap<>();
+
+    private final Map<String, AtomicLong> errorCounts = new ConcurrentHashMap<>();
+
+    private final Random random;
+
+    private volatile Path fixtureDir;
+
+    private volatile boolean recording;
+
+    private volatile Map<String, String> recordTargets = UPSTREAMS;
+
+    private HttpClient recordClient;
+
+    /**
+     * 构造函数，监听本机随机端口，随机种子为0
+     *
+     * @throws IOException 端口绑定失败
+     */
+    public MockUpstreamServer() throws IOException {
+        this(0L);
+    }
+
+    /**
+     * 构造函数，监听本机随机端口
+     *
+     * @param seed 延迟、错误和限流的随机种子
+     * @throws IOException 端口绑定失败
+     */
+    public MockUpstreamServer(long seed) throws IOException {
+        this.random = new Random(seed);
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "mock-upstream");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server.setExecutor(executor);
+        this.server.createContext("/", this::handle);
+        this.server.start();
+    }
+
+    /**
+     * 获取指定上游的模拟接口地址
+     *
+     * @param upstream 上游名称
+     * @return 接口地址
+     */
+    public String baseUrl(String upstream) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/" + upstream;
+    }
+
+    /**
+     * 将数据源指向指定上游的模拟接口
+     *
+     * @param source   网络数据源
+     * @param upstream 上游名称
+     * @return 数据源
+     */
+    public <T extends AbstractNetworkIpSource> T bind(T source, String upstream) {
+        source.setBaseUrl(baseUrl(upstream));
+        return source;
+    }
+
+    /**
+     * 设置指定上游的行为
+     *
+     * @param upstream 上游名称
+     * @param behavior 行为
+     * @return 当前服务
+     */
+    public MockUpstreamServer behavior(String upstream, Behavior behavior) {
+        behaviors.put(upstream, behavior);
+        return this;
+    }
+
+    /**
+     * 设置文件系统上的fixture目录，录制模式下响应写入该目录
+     *
+     * @param fixtureDir fixture目录
+     * @return 当前服务
+     */
+    public MockUpstreamServer fixtureDir(Path fixtureDir) {
+        this.fixtureDir = fixtureDir;
+        return this;
+    }
+
+    /**
+     * 开启录制模式，fixture缺失时转发到真实上游并保存响应
+     *
+     * @param fixtureDir 录制输出目录
+     * @return 当前服务
+     */
+    public MockUpstreamServer record(Path fixtureDir) {
+        return record(fixtureDir, UPSTREAMS);
+    }
+
+    /**
+     * 开启录制模式，fixture缺失时转发到指定的上游地址并保存响应
+     *
+     * @param fixtureDir 录制输出目录
+     * @param targets    上游名称与接口地址
+     * @return 当前服务
+     */
+    public synchronized MockUpstreamServer record(Path fixtureDir, Map<String, String> targets) {
+        this.fixtureDir = fixtureDir;
+        this.recordTargets = Map.copyOf(targets);
+        this.recording = true;
+        if (recordClient == null) {
+            recordClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        }
+        return this;
+    }
+
+    /**
+     * 获取指定上游收到的请求数
+     *
+     * @param upstream 上游名称
+     * @return 请求数
+     */
+    public long getRequestCount(String upstream) {
+        AtomicLong count = requestCounts.get(upstream);
+        return count == null ? 0 : count.get();
+    }
+
+    /**
+     * 获取指定上游按错误率返回500的次数
+     *
+     * @param upstream 上游名称
+     * @return 错误次数
+     */
+    public long getErrorCount(String upstream) {
+        AtomicLong count = errorCounts.get(upstream);
+        return count == null ? 0 : count.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String path = exchange.getRequestURI().getRawPath();
+            int slash = path.indexOf('/', 1);
+            String upstream = slash < 0 ? path.substring(1) : path.substring(1, slash);
+            String rest = slash < 0 ? "" : path.substring(slash);
+            String query = exchange.getRequestURI().getRawQuery();
+            String upstreamUri = rest + (query == null ? "" : "?" + query);
+            requestCounts.computeIfAbsent(upstream, key -> new AtomicLong()).incrementAndGet();
+
+            Behavior behavior = behaviors.getOrDefault(upstream, Behavior.DEFAULT);
+            long latency;
+            double errorRoll;
+            double throttleRoll;
+            synchronized (random) {
+                latency = behavior.latency.nextMillis(random);
+                errorRoll = random.nextDouble();
+                throttleRoll = random.nextDouble();
+            }
+            if (latency > 0) {
+                Thread.sleep(latency);
+            }
+            if (throttleRoll < behavior.throttleRate) {
+                exchange.getResponseHeaders().add("Retry-After", String.valueOf(behavior.retryAfterSeconds));
+                send(exchange, 429, "{\"error\":\"Too Many Requests\"}");
+                return;
+            }
+            if (errorRoll < behavior.errorRate) {
+                errorCounts.computeIfAbsent(upstream, key -> new AtomicLong()).incrementAndGet();
+                send(exchange, 500, "{\"error\":\"Internal Server Error\"}");
+                return;
+            }
+
+            Matcher matcher = IP_PATTERN.matcher(upstreamUri);
+            String ip = matcher.find() ? matcher.group(1) : "";
+            String body = fixture(upstream, ip);
+            if (body == null && recording && recordTargets.containsKey(upstream)) {
+                body = recordFixture(upstream, upstreamUri, ip);
+            }
+            if (body == null) {
+                send(exchange, 404, "{\"error\":\"No fixture for " + upstream + "\"}");
+                return;
+            }
+            send(exchange, 200, body);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private String fixture(String upstream, String ip) throws IOException {
+        Path dir = fixtureDir;
+        if (dir != null && !ip.isEmpty()) {
+            Path file = dir.resolve(upstream).resolve(fixtureName(ip));
+            if (Files.exists(file)) {
+                return Files.readString(file, StandardCharsets.UTF_8);
+            }
+        }
+        String body = resource("mock-upstream/" + upstream + "/" + fixtureName(ip));
+        // 录制模式下缺失的响应需要转发到上游，不能被合成模板兜住
+        if (body == null && !recording) {
+            body = resource("mock-upstream/" + upstream + "/default.json");
+        }
+        return body == null ? null : body.replace("{{ip}}", ip);
+    }
+
+    private String recordFixture(String upstream, String upstreamUri, String ip) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+            .uri(URI.create(recordTargets.get(upstream) + upstreamUri))
+            .timeout(Duration.ofSeconds(10))
+            .header("User-Agent", "Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/131.0.0.0 Safari/537.36")
+            .GET()
+            .build();
+        HttpResponse<String> response = recordClient.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            return null;
+        }
+        Path file = fixtureDir.resolve(upstream).resolve(fixtureName(ip));
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, response.body(), StandardCharsets.UTF_8);
+        return response.body();
+    }
+
+    private static String fixtureName(String ip) {
+        return ip.replace(':', '_') + ".json";
+    }
+
+    private static String resource(String name) throws IOException {
+        try (InputStream in = MockUpstreamServer.class.getClassLoader().getResourceAsStream(name)) {
+            return in == null ? null : new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * 延迟分布
+     */
+    @FunctionalInterface
+    public interface Latency {
+
+        /**
+         * 固定延迟
+         *
+         * @param millis 延迟（毫秒）
+         * @return 延迟分布
+         */
+        static Latency fixed(long millis) {
+            return random -> millis;
+        }
+
+        /**
+         * 均匀分布的延迟
+         *
+         * @param minMillis 最小延迟（毫秒）
+         * @param maxMillis 最大延迟（毫秒）
+         * @return 延迟分布
+         */
+        static Latency uniform(long minMillis, long maxMillis) {
+            return random -> minMillis + (long) (random.nextDouble() * (maxMillis - minMillis));
+        }
+
+        /**
+         * 对数正态分布的延迟，接近真实接口的长尾分布
+         *
+         * @param medianMillis 中位数延迟（毫秒）
+         * @param sigma        对数标准差，越大尾部越长
+         * @return 延迟分布
+         */
+        static Latency logNormal(double medianMillis, double sigma) {
+            return random -> (long) (medianMillis * Math.exp(sigma * random.nextGaussian()));
+        }
+
+        /**
+         * 生成一次请求的延迟
+         *
+         * @param random 随机数生成器
+         * @return 延迟（毫秒）
+         */
+        long nextMillis(Random random);
+    }
+
+    /**
+     * 上游行为配置
+     */
+    public static final class Behavior {
+
+        /**
+         * 默认行为：无延迟、无错误、无限流
+         */
+        public static final Behavior DEFAULT = new Behavior(Latency.fixed(0), 0, 0, 1);
+
+        private final Latency latency;
+
+        private final double errorRate;
+
+        private final double throttleRate;
+
+        private final long retryAfterSeconds;
+
+        /**
+         * 构造函数
+         *
+         * @param latency           延迟分布
+         * @param errorRate         返回500的概率（0.0-1.0）
+         * @param throttleRate      返回429的概率（0.0-1.0）
+         * @param retryAfterSeconds 429响应的Retry-After（秒）
+         */
+        public Behavior(Latency latency, double errorRate, double throttleRate, long retryAfterSeconds) {
+            this.latency = latency;
+            this.errorRate = errorRate;
+            this.throttleRate = throttleRate;
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        /**
+         * 只有延迟的行为
+         *
+         * @param latency 延迟分布
+         * @return 行为
+         */
+        public static Behavior latency(Latency latency) {
+            return new Behavior(latency, 0, 0, 1);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package cn.hehouhui.ip2region.resolver;
+
+import cn.hehouhui.ip2region.IpInfo;
+import cn.hehouhui.ip2region.core.AbstractIpSource;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 组合本地数据源单元测试类
+ *
+ * @author HeHui
+ * @date 2025-12-04
+ */
+public class CompositeLocalSourceTest {
+
+    @Test
+    public void testMergeRegionalAndGlobal() throws Exception {
+        AbstractIpSource regional = new AbstractIpSource("Regional", 10) {
+            @Override
+            public IpInfo query(String ip) throws Exception {
+                if (ip.startsWith("10.")) {
+                    throw new Exception("not found");
+                }
+                return ip.startsWith("1.") ? new IpInfo(ip, "中国", "", "广东省", "深圳市", "电信")
+                    : new IpInfo(ip, "美国", "", "0", "0", "0");
+            }
+        };
+        AbstractIpSource global = new AbstractIpSource("Global", 10) {
+            @Override
+            public IpInfo query(String ip) {
+                IpInfo ipInfo = new IpInfo(ip, "United States", "", "California", "Mountain View", null);
+                ipInfo.setAsn("15169");
+                ipInfo.setLatitude(37.4);
+                ipInfo.setLongitude(-122.1);
+                ipInfo.setTimezone("America/Los_Angeles");
+                return ipInfo;
+            }
+        };
+        CompositeLocalSource composite = new CompositeLocalSource(regional, global, "Local-Composite", 100);
+
+        // 国内IP以区域库为准，全球库补充经纬度等字段
+        IpInfo china = composite.query("1.2.3.4");
+        assertEquals("中国", china.getCountry());
+        assertEquals("深圳市", china.getCity());
+        assertEquals("电信", china.getIsp());
+        assertEquals("15169", china.getAsn());
+        assertEquals(37.4, china.getLatitude());
+
+        // 国外IP以全球库为准，区域库中表示未知的0不会覆盖缺失字段
+        IpInfo foreign = composite.query("8.8.8.8");
+        assertEquals("United States", foreign.getCountry());
+        assertEquals("Mountain View", foreign.getCity());
+        assertNull(foreign.getIsp());
+        assertEquals("America/Los_Angeles", foreign.getTimezone());
+
+        // 区域库失败时使用全球库
+        assertEquals("United States", composite.query("10.0.0.1").getCountry());
+        assertEquals(3, composite.getExecutionCount());
+        assertEquals(0, composite.getFailureCount());
+    }
+}
@@ -0,0 +1,118 @@
+package cn.hehouhui.ip2region.resolver;
+
+import cn.hehouhui.ip2region.IpInfo;
+import cn.hehouhui.ip2region.index.MmdbTestFiles;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * GeoIP2解析器单元测试类
+ *
+ * @author HeHui
+ * @date 2025-12-04
+ */
+public class GeoIP2ResolverTest {
+
+    @Test
+    public void testNetworkDatabases(@TempDir Path dir) throws Exception {
+        byte[] network = {8, 8, 8, 0};
+        Path cityDb = dir.resolve("GeoLite2-City.mmdb");
+        MmdbTestFiles.write(cityDb, "GeoLite2-City", List.of(new MmdbTestFiles.Network(network, 24,
+            Map.of("country", Map.of("names", Map.of("en", "United States"))))));
+        Path asnDb = dir.resolve("GeoLite2-ASN.mmdb");
+        MmdbTestFiles.write(asnDb, "GeoLite2-ASN", List.of(new MmdbTestFiles.Network(network, 24,
+            Map.of("autonomous_system_number", 15169L, "autonomous_system_organization", "GOOGLE"))));
+        Path anonymousDb = dir.resolve("GeoIP2-Anonymous-IP.mmdb");
+        MmdbTestFiles.write(anonymousDb, "GeoIP2-Anonymous-IP", List.of(new MmdbTestFiles.Network(network, 25,
+            Map.of("is_anonymous", true, "is_public_proxy", true))));
+
+        try (GeoIP2Resolver resolver = new GeoIP2Resolver(cityDb.toFile(), List.of("en"), "GeoIP2", 95)) {
+            IpInfo cityOnly = resolver.query("8.8.8.8");
+            assertEquals("United States", cityOnly.getCountry());
+            assertNull(cityOnly.getAsn());
+            assertNull(cityOnly.getProxy());
+
+            resolver.openAsnDatabase(asnDb.toFile()).openAnonymousIpDatabase(anonymousDb.toFile());
+            IpInfo proxy = resolver.query("8.8.8.8");
+            assertEquals("15169", proxy.getAsn());
+            assertEquals("GOOGLE", proxy.getAsnOwner());
+            assertEquals(Boolean.TRUE, proxy.getProxy());
+            // 匿名IP数据库没有记录的IP不是代理
+            assertEquals(Boolean.FALSE, resolver.query("8.8.8.200").getProxy());
+            // 数据库类型不匹配时拒绝打开
+            assertThrows(IllegalArgumentException.class, () -> resolver.openIspDatabase(asnDb.toFile()));
+
+            // 查询进行中重新打开数据库，旧数据库在查询结束后才关闭，查询不会失败
+            long failures = resolver.getFailureCount();
+            AtomicBoolean reopening = new AtomicBoolean(true);
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            try {
+                List<Future<Integer>> futures = new ArrayList<>();
+                for (int i = 0; i < 4; i++) {
+                    futures.add(executor.submit(() -> {
+                        int queries = 0;
+                        while (reopening.get()) {
+                            assertEquals("15169", resolver.query("8.8.8.8").getAsn());
+                            queries++;
+                        }
+                        return queries;
+                    }));
+                }
+                for (int i = 0; i < 200; i++) {
+                    resolver.openAsnDatabase(asnDb.toFile());
+                }
+                reopening.set(false);
+                for (Future<Integer> future : futures) {
+                    assertTrue(future.get(5, TimeUnit.SECONDS) > 0);
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+            assertEquals(failures, resolver.getFailureCount());
+        }
+    }
+
+    @Test
+    public void testFastMode(@TempDir Path dir) throws Exception {
+        Path cityDb = dir.resolve("GeoLite2-City.mmdb");
+        MmdbTestFiles.write(cityDb, "GeoLite2-City", List.of(new MmdbTestFiles.Network(new byte[]{8, 8, 8, 0}, 24, Map.of(
+            "continent", Map.of("code", "NA", "names", Map.of("en", "North America")),
+            "country", Map.of("iso_code", "US", "names", Map.of("en", "United States", "zh-CN", "美国")),
+            "registered_country", Map.of("names", Map.of("en", "United States")),
+            "subdivisions", List.of(Map.of("names", Map.of("en", "California", "zh-CN", "加利福尼亚州"))),
+            "city", Map.of("names", Map.of("en", "Mountain View")),
+            "location", Map.of("accuracy_radius", 1000, "latitude", 37.4, "longitude", -122.1, "time_zone", "America/Los_Angeles")))));
+
+        try (GeoIP2Resolver standard = new GeoIP2Resolver(cityDb.toFile(), List.of("zh-CN", "en"), "GeoIP2", 95);
+             GeoIP2Resolver fast = new GeoIP2Resolver(cityDb.toFile(), List.of("zh-CN", "en"), true, "GeoIP2-Fast", 95)) {
+            assertFalse(standard.isFastMode());
+            assertTrue(fast.isFastMode());
+            IpInfo expected = standard.query("8.8.8.8");
+            IpInfo actual = fast.query("8.8.8.8");
+            assertEquals(expected, actual);
+            assertEquals("美国", actual.getCountry());
+            assertEquals("加利福尼亚州", actual.getProvince());
+            assertEquals("Mountain View", actual.getCity());
+            assertEquals("America/Los_Angeles", actual.getTimezone());
+            // 重复查询命中节点缓存，结果不变
+            assertEquals(actual, fast.query("8.8.8.8"));
+
+            // 快速模式只接受字面量，不做DNS查询
+            assertThrows(Exception.class, () -> fast.query("localhost"));
+            assertThrows(com.maxmind.geoip2.exception.AddressNotFoundException.class, () -> fast.query("9.9.9.9"));
+            assertEquals(2, fast.getFailureCount());
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package cn.hehouhui.ip2region.resolver;
+
+import cn.hehouhui.ip2region.IpInfo;
+import cn.hehouhui.ip2region.core.AbstractIpSource;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 延迟加载的本地数据源单元测试类
+ *
+ * @author HeHui
+ * @date 2025-12-04
+ */
+public class LazyLocalSourceTest {
+
+    @Test
+    public void testLoadsOnceOnFirstQuery() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch loaded = new CountDownLatch(1);
+        AbstractIpSource database = new AbstractIpSource("Database", 10) {
+            @Override
+            public IpInfo query(String ip) {
+                return new IpInfo(ip, "中国", "", "广东省", "深圳市", "电信");
+            }
+        };
+        LazyLocalSource lazy = new LazyLocalSource(() -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            try {
+                // 加载完成前其他线程的首次查询都在等待
+                loaded.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return Optional.of(database);
+        }, "Lazy", 95);
+        assertFalse(lazy.isLoaded());
+
+        // 多个线程同时首次查询时只加载一次
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<IpInfo>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                String ip = "1.1.1." + i;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return lazy.query(ip);
+                }));
+            }
+            start.countDown();
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            loaded.countDown();
+            for (int i = 0; i < 8; i++) {
+                assertEquals("1.1.1." + i, futures.get(i).get(5, TimeUnit.SECONDS).getIp());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+        assertTrue(lazy.isLoaded());
+        assertEquals(0, lazy.getFailureCount());
+
+        // 加载失败后不可用，且不再重复尝试
+        AtomicInteger failedLoads = new AtomicInteger();
+        LazyLocalSource broken = new LazyLocalSource(() -> {
+            failedLoads.incrementAndGet();
+            return Optional.empty();
+        }, "Broken", 95);
+        assertTrue(broken.isAvailable(), "尚未加载时视为可用");
+        assertThrows(Exception.class, () -> broken.query("1.1.1.1"));
+        assertFalse(broken.isAvailable());
+        assertFalse(broken.isLoaded());
+        assertThrows(Exception.class, () -> broken.query("1.1.1.2"));
+        assertEquals(1, failedLoads.get());
+        assertEquals(2, broken.getFailureCount());
+    }
+}
@@ -0,0 +1,105 @@
+package cn.hehouhui.ip2region.resolver;
+
+import cn.hehouhui.ip2region.index.IpLocation;
+import cn.hehouhui.ip2region.index.XdbTestFiles;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ip2region本地解析器单元测试类
+ *
+ * @author HeHui
+ * @date 2025-12-04
+ */
+public class LocalIp2RegionResolverTest {
+
+    @Test
+    public void testRegionCacheIsCapped() {
+        LocalIp2RegionResolver resolver = new LocalIp2RegionResolver(null, "Regions", 50);
+        IpLocation shenzhen = resolver.parseRegion("中国|广东省|深圳市|电信");
+        assertSame(shenzhen, resolver.parseRegion("中国|广东省|深圳市|电信"), "同一区域共用同一个位置记录");
+        assertEquals(1, resolver.getCachedRegionCount());
+
+        for (int i = 0; i < LocalIp2RegionResolver.MAX_CACHED_REGIONS + 100; i++) {
+            resolver.parseRegion("国家" + i + "|省份|城市|ISP");
+        }
+        assertEquals(LocalIp2RegionResolver.MAX_CACHED_REGIONS, resolver.getCachedRegionCount());
+
+        // 超过上限的区域仍然正确解析，只是不再缓存
+        String uncached = "美国|加利福尼亚|山景城|谷歌";
+        IpLocation location = resolver.parseRegion(uncached);
+        assertEquals("山景城", location.toIpInfo("8.8.8.8").getCity());
+        assertEquals(location, resolver.parseRegion(uncached));
+        assertNotSame(location, resolver.parseRegion(uncached));
+        assertSame(shenzhen, resolver.parseRegion("中国|广东省|深圳市|电信"));
+    }
+
+    @Test
+    public void testPoolWaitMetrics(@TempDir Path tempDir) throws Exception {
+        Path xdb = tempDir.resolve("ip2region_v4.xdb");
+        XdbTestFiles.write(xdb, false, List.of(new XdbTestFiles.Segment(new byte[4],
+            new byte[]{(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF}, "中国|广东省|深圳市|电信")));
+        try (LocalIp2RegionResolver resolver = new LocalIp2RegionResolver(xdb.toString(), null, false, false, 1, "Pool", 50)) {
+            assertEquals(1, resolver.getSearcherCount());
+            // 有空闲许可时不计为等待
+            resolver.acquirePermit(false);
+            assertEquals(0, resolver.getPoolWaitCount());
+
+            Thread waiter = new Thread(() -> {
+                try {
+                    resolver.acquirePermit(false);
+                    resolver.releasePermit(false);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            waiter.start();
+            // 等待线程进入许可队列后再占用50毫秒，等待时间不少于占用时间
+            Semaphore permits = resolver.permits(false);
+            while (!permits.hasQueuedThreads()) {
+                Thread.onSpinWait();
+            }
+            Thread.sleep(50);
+            resolver.releasePermit(false);
+            waiter.join(5000);
+            assertFalse(waiter.isAlive());
+
+            assertEquals(1, resolver.getPoolWaitCount());
+            assertTrue(resolver.getPoolWaitNanos() >= TimeUnit.MILLISECONDS.toNanos(50), "waited=" + resolver.getPoolWaitNanos());
+            assertEquals(1, resolver.getPoolWaitHistogram().getCount());
+            assertTrue(resolver.getPoolWaitHistogram().percentile(0.5) >= 50);
+        }
+    }
+
+    @Test
+    public void testIpv4AndIpv6PoolsAreIndependent(@TempDir Path tempDir) throws Exception {
+        Path v4 = tempDir.resolve("ip2region_v4.xdb");
+        Path v6 = tempDir.resolve("ip2region_v6.xdb");
+        XdbTestFiles.write(v4, false, List.of(new XdbTestFiles.Segment(new byte[4],
+            new byte[]{(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF}, "中国|广东省|深圳市|电信")));
+        byte[] v6End = new byte[16];
+        Arrays.fill(v6End, (byte) 0xFF);
+        XdbTestFiles.write(v6, true, List.of(new XdbTestFiles.Segment(new byte[16], v6End, "中国|广东省|深圳市|电信")));
+        try (LocalIp2RegionResolver resolver = new LocalIp2RegionResolver(v4.toString(), v6.toString(), false, false, 1, "Pool", 50)) {
+            assertNotSame(resolver.permits(false), resolver.permits(true));
+            // IPv4池占满时IPv6查询不需要等待
+            resolver.acquirePermit(false);
+            resolver.acquirePermit(true);
+            assertEquals(0, resolver.getPoolWaitCount());
+            resolver.releasePermit(true);
+            resolver.releasePermit(false);
+        }
+
+        try (LocalIp2RegionResolver resolver = new LocalIp2RegionResolver(v4.toString(), null, false, false, 1, "Pool", 50)) {
+            assertNull(resolver.permits(true), "没有IPv6数据库时不建立IPv6许可");
+        }
+    }
+}
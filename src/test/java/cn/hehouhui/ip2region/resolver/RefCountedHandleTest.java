@@ -0,0 +1,60 @@
+package cn.hehouhui.ip2region.resolver;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 引用计数资源单元测试类
+ *
+ * @author HeHui
+ * @date 2025-12-04
+ */
+public class RefCountedHandleTest {
+
+    @Test
+    public void testLastReleaseClosesRetiredResource() {
+        List<String> closed = new CopyOnWriteArrayList<>();
+        AtomicReference<RefCountedHandle<String>> reference = new AtomicReference<>(new RefCountedHandle<>("v1", closed::add));
+
+        RefCountedHandle<String> first = RefCountedHandle.acquire(reference);
+        RefCountedHandle<String> second = RefCountedHandle.acquire(reference);
+        assertEquals("v1", first.get());
+
+        // 替换后旧资源仍被两个查询占用，不会关闭
+        reference.getAndSet(new RefCountedHandle<>("v2", closed::add)).retire();
+        assertTrue(closed.isEmpty());
+        assertEquals("v2", RefCountedHandle.acquire(reference).get());
+
+        first.release();
+        assertTrue(closed.isEmpty());
+        second.release();
+        assertEquals(List.of("v1"), closed);
+
+        // 重复退役不会重复关闭
+        first.retire();
+        assertEquals(List.of("v1"), closed);
+    }
+
+    @Test
+    public void testRetiredResourceIsNotAcquired() throws Exception {
+        List<String> closed = new CopyOnWriteArrayList<>();
+        RefCountedHandle<String> retired = new RefCountedHandle<>("v1", closed::add);
+        retired.retire();
+        assertEquals(List.of("v1"), closed, "没有查询占用时退役立即关闭");
+
+        // 引用仍指向已关闭的资源时持续重试，直到读到新资源
+        AtomicReference<RefCountedHandle<String>> reference = new AtomicReference<>(retired);
+        Thread swapper = new Thread(() -> reference.set(new RefCountedHandle<>("v2", closed::add)));
+        swapper.start();
+        assertEquals("v2", RefCountedHandle.acquire(reference).get());
+        swapper.join();
+
+        reference.set(null);
+        assertNull(RefCountedHandle.acquire(reference));
+    }
+}
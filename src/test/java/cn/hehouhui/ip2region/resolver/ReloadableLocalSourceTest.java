@@ -0,0 +1,91 @@
+package cn.hehouhui.ip2region.resolver;
+
+import cn.hehouhui.ip2region.IpInfo;
+import cn.hehouhui.ip2region.core.AbstractIpSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 可热替换的本地数据源单元测试类
+ *
+ * @author HeHui
+ * @date 2025-12-04
+ */
+public class ReloadableLocalSourceTest {
+
+    /**
+     * 测试用本地数据源：国家字段为数据库文件的内容，记录是否已关闭
+     */
+    private static final class FileBackedSource extends AbstractIpSource implements AutoCloseable {
+        private final String content;
+        private volatile boolean closed;
+
+        FileBackedSource(Path dbFile) throws IOException {
+            super("FileBacked", 10);
+            this.content = Files.readString(dbFile).trim();
+        }
+
+        @Override
+        public IpInfo query(String ip) throws Exception {
+            if (closed) {
+                throw new IllegalStateException("closed");
+            }
+            IpInfo ipInfo = new IpInfo();
+            ipInfo.setIp(ip);
+            ipInfo.setCountry(content);
+            return ipInfo;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    @Test
+    public void testReloadOnFileReplace(@TempDir Path dir) throws Exception {
+        Path dbFile = dir.resolve("test.xdb");
+        Files.writeString(dbFile, "v1");
+        List<FileBackedSource> loaded = new CopyOnWriteArrayList<>();
+        try (ReloadableLocalSource source = new ReloadableLocalSource(dbFile, file -> {
+            FileBackedSource backed = new FileBackedSource(file);
+            loaded.add(backed);
+            return backed;
+        }, List.of("1.1.1.1"), "Reloadable-Local", 10)) {
+            CountDownLatch reloaded = new CountDownLatch(1);
+            source.setReloadListener(ignored -> reloaded.countDown());
+            source.setQuietMillis(50);
+            source.watch();
+            assertEquals(1, source.getVersion());
+            assertEquals("v1", source.query("1.1.1.1").getCountry());
+
+            // 先写临时文件再原子重命名
+            Path tmp = dir.resolve("test.xdb.tmp");
+            Files.writeString(tmp, "v2");
+            Files.move(tmp, dbFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            assertTrue(reloaded.await(20, TimeUnit.SECONDS), "文件替换后应自动重新加载");
+            assertEquals(2, source.getVersion());
+            assertEquals("v2", source.query("1.1.1.1").getCountry());
+            assertTrue(loaded.get(0).closed);
+            assertFalse(loaded.get(1).closed);
+
+            // 新文件无法加载时继续使用旧版本
+            Files.delete(dbFile);
+            assertFalse(source.reload());
+            assertNotNull(source.getLastReloadError());
+            assertEquals("v2", source.query("1.1.1.1").getCountry());
+        }
+        assertTrue(loaded.get(1).closed);
+    }
+}